@@ -17,6 +17,8 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // The bind benchmark runs on the debug build; its timings are indicative only
+        testInstrumentationRunnerArguments["androidx.benchmark.suppressErrors"] = "DEBUGGABLE,EMULATOR"
     }
 
     buildTypes {
@@ -27,6 +29,12 @@ android {
                 "proguard-rules.pro"
             )
         }
+        // Release build measured by :macrobenchmark: not debuggable, signed with the debug key
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
     }
 
     compileOptions {
@@ -44,6 +52,10 @@ android {
 
     testOptions {
         execution = "ANDROIDX_TEST_ORCHESTRATOR"
+        // The load tests take a few minutes: they only run with -PloadTests
+        unitTests.all {
+            if (!project.hasProperty("loadTests")) it.exclude("**/*LoadTest.class")
+        }
     }
 }
 
@@ -57,6 +69,10 @@ val hiltVersion = "2.44"
 dependencies {
     implementation("androidx.work:work-runtime:2.8.1")
 
+    // Flows of the data layer, and their LiveData adapters for the ViewModels
+    implementation("org.jetbrains.kotlinx:kotlinx-coroutines-android:1.7.3")
+    implementation("androidx.lifecycle:lifecycle-livedata-ktx:2.6.2")
+
     // Hilt
     implementation("com.google.dagger:hilt-android:$hiltVersion")
     kapt("com.google.dagger:hilt-compiler:$hiltVersion")
@@ -64,15 +80,29 @@ dependencies {
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.8.0")
     implementation("androidx.constraintlayout:constraintlayout:2.1.4")
+    implementation("androidx.recyclerview:recyclerview:1.3.2")
     implementation("androidx.core:core-splashscreen:1.0.0")
 
     testImplementation("junit:junit:4.13.2")
+    testImplementation("androidx.arch.core:core-testing:2.2.0")
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
+    androidTestImplementation("androidx.benchmark:benchmark-junit4:1.2.4")
 
     // Glide
     implementation("com.github.bumptech.glide:glide:4.15.1")
     kapt("com.github.bumptech.glide:compiler:4.15.1")
+    // Preloads the avatars of the rows about to appear; keeps the app's own RecyclerView version
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.15.1") {
+        isTransitive = false
+    }
+    // Local HTTP server standing in for the avatar host in the instrumented tests
+    androidTestImplementation("com.squareup.okhttp3:mockwebserver:4.11.0")
+    // Runs the sync worker synchronously, with its constraints and delays under the test's control
+    androidTestImplementation("androidx.work:work-testing:2.8.1")
+
+    // Installs the baseline profile (src/main/baseline-prof.txt) on devices without Play
+    implementation("androidx.profileinstaller:profileinstaller:1.3.1")
 
     androidTestUtil("androidx.test:orchestrator:1.4.2")
 
@@ -0,0 +1,151 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.work.Configuration;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.testing.SynchronousExecutor;
+import androidx.work.testing.TestDriver;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import com.openclassrooms.tajmahal.data.local.DiskCache;
+import com.openclassrooms.tajmahal.data.local.ReviewLog;
+import com.openclassrooms.tajmahal.data.local.SyncCursors;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewBatcher;
+import com.openclassrooms.tajmahal.data.repository.ReviewStore;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewChanges;
+import com.openclassrooms.tajmahal.metrics.Metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the {@link ReviewSyncWorker} scheduled by {@link WorkManagerReviewSyncScheduler} on
+ * WorkManager's test driver, against a {@link RestaurantFakeApi} standing in for the server.
+ * <p>
+ * The test WorkManager runs the work synchronously, once the test says its network constraint
+ * is met. The repository runs its I/O tasks on the calling thread.
+ * </p>
+ * Run with {@code ./gradlew :app:connectedAndroidTest}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReviewSyncWorkerTest {
+
+    private static final long RESTAURANT_ID = RestaurantFakeApi.TAJ_MAHAL_ID;
+
+    private final RestaurantFakeApi api = new RestaurantFakeApi();
+    private final ScheduledExecutorService batchScheduler = Executors.newSingleThreadScheduledExecutor();
+    private Context context;
+    private File directory;
+    private ReviewLog reviewLog;
+    private RestaurantRepository repository;
+    private WorkManager workManager;
+    private TestDriver testDriver;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        directory = new File(context.getCacheDir(), "review-sync-test");
+        deleteRecursively(directory);
+        reviewLog = new ReviewLog(new File(directory, "reviews.log"));
+        ReviewStore store = new ReviewStore();
+        repository = new RestaurantRepository(api, Runnable::run,
+                new DiskCache(new File(directory, "cache"), 1024 * 1024, System::currentTimeMillis),
+                store, new ReviewBatcher(store, batchScheduler, 100, 200), reviewLog,
+                new SyncCursors(new File(directory, "sync-cursors")),
+                new WorkManagerReviewSyncScheduler(context), Metrics.DISABLED);
+
+        Configuration configuration = new Configuration.Builder()
+                .setExecutor(new SynchronousExecutor())
+                .setWorkerFactory(new ReviewSyncWorkerFactory(() -> repository))
+                .build();
+        WorkManagerTestInitHelper.initializeTestWorkManager(context, configuration);
+        workManager = WorkManager.getInstance(context);
+        testDriver = WorkManagerTestInitHelper.getTestDriver(context);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        batchScheduler.shutdownNow();
+        reviewLog.close();
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void addedReviews_uploadedByOneSync() throws Exception {
+        Review first = new Review(1001, "User", "pic", "Premier avis", 5, 1_700_000_000_000L);
+        Review second = new Review(1002, "User", "pic", "Second avis", 4, 1_700_000_000_000L);
+        repository.addReview(RESTAURANT_ID, first);
+        repository.addReview(RESTAURANT_ID, second);
+
+        // Both triggers wait for the network as a single work
+        List<WorkInfo> works = syncWorks();
+        assertEquals(1, works.size());
+        assertEquals(WorkInfo.State.ENQUEUED, works.get(0).getState());
+
+        testDriver.setAllConstraintsMet(works.get(0).getId());
+
+        assertEquals(WorkInfo.State.SUCCEEDED, syncWorks().get(0).getState());
+        assertEquals(Arrays.asList(first, second), api.getReviewChanges(RESTAURANT_ID, 0, 10).getReviews());
+        assertEquals(0, reviewLog.pendingUploads(RESTAURANT_ID).size());
+    }
+
+    @Test
+    public void nextSync_resumesFromLastChange() throws Exception {
+        repository.getReviews(RESTAURANT_ID);
+        runSync();
+        long start = api.getReviewChanges(RESTAURANT_ID, ReviewChanges.HEAD, 0).getCursor();
+
+        // Another device publishes reviews between two syncs
+        api.postReview(RESTAURANT_ID, new Review(2001, "Autre", "pic", "Avis", 3, 1_700_000_000_000L));
+        api.postReview(RESTAURANT_ID, new Review(2002, "Autre", "pic", "Avis", 4, 1_700_000_000_000L));
+        runSync();
+        assertEquals(2, repository.getSyncState(RESTAURANT_ID).getValue().getReceivedCount());
+
+        api.postReview(RESTAURANT_ID, new Review(2003, "Autre", "pic", "Avis", 5, 1_700_000_000_000L));
+        runSync();
+        assertEquals(1, repository.getSyncState(RESTAURANT_ID).getValue().getReceivedCount());
+        assertEquals(start + 3, api.getReviewChanges(RESTAURANT_ID, ReviewChanges.HEAD, 0).getCursor());
+    }
+
+    // Schedules a sync and runs it at once.
+    private void runSync() throws Exception {
+        repository.requestSync(RESTAURANT_ID);
+        WorkInfo pending = null;
+        for (WorkInfo work : syncWorks()) {
+            if (work.getState() == WorkInfo.State.ENQUEUED) pending = work;
+        }
+        testDriver.setAllConstraintsMet(pending.getId());
+        assertEquals(WorkInfo.State.SUCCEEDED, workManager.getWorkInfoById(pending.getId()).get().getState());
+        // The sync state is posted to the main thread
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+    }
+
+    private List<WorkInfo> syncWorks() throws Exception {
+        return workManager.getWorkInfosForUniqueWork(WorkManagerReviewSyncScheduler.uniqueWorkName(RESTAURANT_ID)).get();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) deleteRecursively(child);
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.tajmahal.ui.restaurant;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewList;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures {@link ReviewAdapter#onBindViewHolder} while scrolling through the reviews.
+ * <p>
+ * The benchmark binds the same ViewHolder to each review in turn, as the RecyclerView does
+ * when a recycled row comes back on screen, reading the stable id of the row first. Alongside the time per bind, the report holds the
+ * {@code allocationCount} metric, which stays at zero as long as binding allocates nothing.
+ * </p>
+ * <p>
+ * The reviews of the review store have their authors interned in an {@link AuthorRegistry},
+ * and the adapter compares their avatar ids. The reviews built on their own have no avatar id,
+ * and the adapter compares their pictures instead: both paths are measured.
+ * </p>
+ * <p>
+ * The large review sets are held by a {@link ColumnarReviewList}, which creates a review each
+ * time one is read. The adapter reads the ids from its columns: they allocate nothing, and the
+ * bind of such a row only allocates its review and its decoded comment.
+ * </p>
+ * Run with {@code ./gradlew :app:connectedAndroidTest} on a physical device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReviewAdapterBindBenchmark {
+
+    private static final int REVIEW_COUNT = 100;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private ReviewAdapter adapter;
+    private ReviewAdapter.ReviewViewHolder holder;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @Test
+    public void bindRecycledHolder() {
+        AuthorRegistry registry = new AuthorRegistry();
+        List<Review> reviews = new ArrayList<>(REVIEW_COUNT);
+        for (Review review : reviews()) reviews.add(registry.intern(review));
+        measureBinds(reviews);
+    }
+
+    @Test
+    public void bindRecycledHolder_unregisteredAuthors() {
+        measureBinds(reviews());
+    }
+
+    @Test
+    public void bindRecycledHolder_columnarReviews() {
+        measureBinds(ReviewList.of(ColumnarReviewList.of(reviews())));
+    }
+
+    @Test
+    public void itemIds_columnarReviews() {
+        List<Review> reviews = ReviewList.of(ColumnarReviewList.of(reviews()));
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            adapter = new ReviewAdapter(context);
+            adapter.submitList(reviews);
+
+            BenchmarkState state = benchmarkRule.getState();
+            int position = 0;
+            while (state.keepRunning()) {
+                adapter.getItemId(position);
+                position = position + 1 == REVIEW_COUNT ? 0 : position + 1;
+            }
+        });
+    }
+
+    // Same avatar everywhere: the steady state of a scroll, once the avatar is shown
+    private static List<Review> reviews() {
+        List<Review> reviews = new ArrayList<>(REVIEW_COUNT);
+        for (int i = 0; i < REVIEW_COUNT; i++) {
+            reviews.add(new Review(i, "Ranjit Singh", "profile_picture", "Très bon restaurant Indien ! Je recommande.", 1 + i % 5));
+        }
+        return reviews;
+    }
+
+    private void measureBinds(List<Review> reviews) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            adapter = new ReviewAdapter(context);
+            // The first list is applied synchronously by the adapter
+            adapter.submitList(reviews);
+            holder = adapter.onCreateViewHolder(new FrameLayout(context), 0);
+            adapter.onBindViewHolder(holder, 0);
+
+            BenchmarkState state = benchmarkRule.getState();
+            int position = 0;
+            while (state.keepRunning()) {
+                adapter.getItemId(position);
+                adapter.onBindViewHolder(holder, position);
+                position = position + 1 == REVIEW_COUNT ? 0 : position + 1;
+            }
+        });
+    }
+}
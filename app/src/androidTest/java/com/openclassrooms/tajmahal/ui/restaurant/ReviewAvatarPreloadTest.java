@@ -0,0 +1,129 @@
+package com.openclassrooms.tajmahal.ui.restaurant;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that the avatars preloaded by {@link ReviewAdapter} are fetched once per user and
+ * cached on disk at the size of their view.
+ * <p>
+ * The avatars are served by a local {@link MockWebServer} standing in for the avatar host, as
+ * large square images: the server counts the requests, and the decoded bitmaps show the size
+ * Glide kept. Each review goes through the adapter's preload request, as the
+ * {@code RecyclerViewPreloader} does while scrolling.
+ * </p>
+ * Run with {@code ./gradlew :app:connectedAndroidTest}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReviewAvatarPreloadTest {
+
+    private static final int REVIEW_COUNT = 60;
+    private static final int AVATAR_COUNT = 3;
+    private static final int SOURCE_SIZE = 512;
+
+    private final MockWebServer server = new MockWebServer();
+    private Context context;
+    private ReviewAdapter adapter;
+    private int avatarSize;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        avatarSize = context.getResources().getDimensionPixelSize(R.dimen.review_avatar_size);
+        Glide.get(context).clearDiskCache();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> Glide.get(context).clearMemory());
+
+        byte[] avatar = sourceAvatar();
+        server.setDispatcher(new Dispatcher() {
+            @NonNull
+            @Override
+            public MockResponse dispatch(@NonNull RecordedRequest request) {
+                return new MockResponse().setHeader("Content-Type", "image/png").setBody(new Buffer().write(avatar));
+            }
+        });
+        server.start();
+
+        List<Review> reviews = new ArrayList<>(REVIEW_COUNT);
+        for (int i = 0; i < REVIEW_COUNT; i++) {
+            // A few users writing many reviews each
+            String picture = server.url("/avatars/" + (i % AVATAR_COUNT) + ".png").toString();
+            reviews.add(new Review(i, "User " + (i % AVATAR_COUNT), picture, "Avis " + i, 1 + i % 5));
+        }
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            adapter = new ReviewAdapter(context);
+            // The first list is applied synchronously by the adapter
+            adapter.submitList(reviews);
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void preload_fetchesEachAvatarOnce() throws Exception {
+        for (int i = 0; i < REVIEW_COUNT; i++) preload(i);
+
+        assertEquals(AVATAR_COUNT, server.getRequestCount());
+    }
+
+    @Test
+    public void preload_cachesSizedCirclesOnDisk() throws Exception {
+        for (int i = 0; i < AVATAR_COUNT; i++) preload(i);
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> Glide.get(context).clearMemory());
+
+        // Read back from the disk cache, without a new request and without the full-size image
+        Bitmap avatar = ((BitmapDrawable) preload(AVATAR_COUNT)).getBitmap();
+
+        assertEquals(AVATAR_COUNT, server.getRequestCount());
+        assertEquals(avatarSize, avatar.getWidth());
+        assertEquals(avatarSize, avatar.getHeight());
+        // Circle crop: the corners are transparent
+        assertEquals(Color.TRANSPARENT, avatar.getPixel(0, 0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Drawable preload(int position) throws Exception {
+        Object model = adapter.getPreloadItems(position).get(0);
+        RequestBuilder<Drawable> request = (RequestBuilder<Drawable>) adapter.getPreloadRequestBuilder(model);
+        return request.submit(avatarSize, avatarSize).get();
+    }
+
+    private static byte[] sourceAvatar() {
+        Bitmap bitmap = Bitmap.createBitmap(SOURCE_SIZE, SOURCE_SIZE, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(Color.rgb(0xF3, 0xBB, 0x44));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        return out.toByteArray();
+    }
+}
@@ -2,6 +2,13 @@ package com.openclassrooms.tajmahal;
 
 import android.app.Application;
 
+import androidx.annotation.NonNull;
+import androidx.work.Configuration;
+
+import com.openclassrooms.tajmahal.data.sync.ReviewSyncWorkerFactory;
+
+import javax.inject.Inject;
+
 import dagger.hilt.android.HiltAndroidApp;
 
 /**
@@ -17,6 +24,11 @@ import dagger.hilt.android.HiltAndroidApp;
  * entire lifecycle of the application. Generally, this class should only be used for
  * app-wide configurations and initializations.
  * </p>
+ * <p>
+ * The application also configures WorkManager, initialized on demand rather than at startup,
+ * so the background workers are built by {@link ReviewSyncWorkerFactory} with their
+ * dependencies.
+ * </p>
  *
  * <strong>Note for beginners:</strong> Hilt is a dependency injection library for Android
  * that reduces the boilerplate code to do manual dependency injection in your project.
@@ -26,5 +38,16 @@ import dagger.hilt.android.HiltAndroidApp;
  * @see <a href="https://developer.android.com/training/dependency-injection/hilt-android">Hilt's official documentation</a>
  */
 @HiltAndroidApp
-public class TajMahalApplication extends Application {
+public class TajMahalApplication extends Application implements Configuration.Provider {
+
+    @Inject
+    ReviewSyncWorkerFactory workerFactory;
+
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder()
+                .setWorkerFactory(workerFactory)
+                .build();
+    }
 }
@@ -0,0 +1,50 @@
+package com.openclassrooms.tajmahal;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.module.AppGlideModule;
+import com.openclassrooms.tajmahal.ui.restaurant.ReviewAvatar;
+import com.openclassrooms.tajmahal.ui.restaurant.ReviewAvatarLoader;
+
+import java.io.InputStream;
+
+/**
+ * Configures Glide for the whole application.
+ * <p>
+ * The images of the app are almost only the avatars of the reviews, cached on disk once cropped
+ * and sized for their view: a few kilobytes each. The disk cache is kept small accordingly, in
+ * the cache directory so that the system can reclaim it.
+ * </p>
+ * <p>
+ * The avatars are loaded as {@link ReviewAvatar} models, keyed in memory on their avatar id.
+ * </p>
+ * Manifest parsing is disabled, as no library of the app declares a Glide module there.
+ */
+@GlideModule
+public final class TajMahalGlideModule extends AppGlideModule {
+
+    private static final String DISK_CACHE_NAME = "images";
+    private static final long DISK_CACHE_SIZE = 20L * 1024 * 1024;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_NAME, DISK_CACHE_SIZE));
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(ReviewAvatar.class, InputStream.class, new ReviewAvatarLoader.Factory());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
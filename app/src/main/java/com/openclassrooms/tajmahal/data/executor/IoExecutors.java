@@ -0,0 +1,104 @@
+package com.openclassrooms.tajmahal.data.executor;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the executors running the blocking I/O of the data layer, such as API calls, disk
+ * access and syncs, in one of the {@link Mode modes} below.
+ * <p>
+ * The bounded pool suits Android: a burst of requests queues up on a few threads instead of
+ * creating as many threads as requests. On a JVM with virtual threads, such as the tests, the
+ * benchmarks or a server-side stand-in for the API, a virtual thread per task lets every request
+ * block on I/O without holding a platform thread, so the number of requests in flight is no
+ * longer capped by the size of the pool.
+ * </p>
+ * <p>
+ * Virtual threads are looked up by reflection, as the app is compiled for Java 17 and the Android
+ * runtime has none: where they are missing, the virtual thread mode falls back to the bounded
+ * pool.
+ * </p>
+ */
+public final class IoExecutors {
+
+    /**
+     * The modes of an I/O executor.
+     */
+    public enum Mode {
+        /** A fixed number of platform threads sharing an unbounded queue of tasks. */
+        BOUNDED_POOL,
+        /** A new virtual thread per task, or the bounded pool where there are none. */
+        VIRTUAL_THREAD_PER_TASK
+    }
+
+    // Time after which an idle thread of the bounded pool is released
+    private static final long KEEP_ALIVE_SECONDS = 30L;
+
+    // Executors.newVirtualThreadPerTaskExecutor(), or null before Java 21
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findVirtualThreadFactory();
+
+    private IoExecutors() {
+    }
+
+    /**
+     * Creates an I/O executor.
+     *
+     * @param mode          the mode of the executor
+     * @param threadCount   the number of threads of the bounded pool
+     * @param threadFactory the factory of the threads of the bounded pool
+     * @return a new executor, to shut down once no longer used
+     */
+    public static ExecutorService create(Mode mode, int threadCount, ThreadFactory threadFactory) {
+        if (mode == Mode.VIRTUAL_THREAD_PER_TASK && isVirtualThreadAvailable()) {
+            return newVirtualThreadPerTaskExecutor();
+        }
+        return newBoundedPool(threadCount, threadFactory);
+    }
+
+    /**
+     * Creates a pool of at most {@code threadCount} threads, released once idle for a while.
+     *
+     * @param threadCount   the number of threads of the pool
+     * @param threadFactory the factory of the threads of the pool
+     * @return a new bounded pool
+     */
+    public static ExecutorService newBoundedPool(int threadCount, ThreadFactory threadFactory) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns whether the runtime has virtual threads, that is Java 21 or later.
+     *
+     * @return true if {@link Mode#VIRTUAL_THREAD_PER_TASK} runs on virtual threads
+     */
+    public static boolean isVirtualThreadAvailable() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static Method findVirtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@link DiskCache.Codec} implementations of the cached entities.
+ * <p>
+ * Strings are written with a presence flag so that null fields survive a round trip.
+ * Any change to the layout of an entity must come with a new schema version.
+ * </p>
+ */
+public final class CacheCodecs {
+
+    /** Codec of a {@link Restaurant}. */
+    public static final DiskCache.Codec<Restaurant> RESTAURANT = new DiskCache.Codec<Restaurant>() {
+        // Version 2: identifier added in front of the restaurant
+        @Override
+        public int getSchemaVersion() {
+            return 2;
+        }
+
+        @Override
+        public void write(DataOutput out, Restaurant restaurant) throws IOException {
+            writeRestaurant(out, restaurant);
+        }
+
+        @Override
+        public Restaurant read(DataInput in) throws IOException {
+            return readRestaurant(in);
+        }
+    };
+
+    /** Codec of the catalog, the list of every {@link Restaurant} of the chain. */
+    public static final DiskCache.Codec<List<Restaurant>> RESTAURANTS = new DiskCache.Codec<List<Restaurant>>() {
+        @Override
+        public int getSchemaVersion() {
+            return 1;
+        }
+
+        @Override
+        public void write(DataOutput out, List<Restaurant> restaurants) throws IOException {
+            out.writeInt(restaurants.size());
+            for (Restaurant restaurant : restaurants) {
+                writeRestaurant(out, restaurant);
+            }
+        }
+
+        @Override
+        public List<Restaurant> read(DataInput in) throws IOException {
+            int size = in.readInt();
+            List<Restaurant> restaurants = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                restaurants.add(readRestaurant(in));
+            }
+            return restaurants;
+        }
+    };
+
+    /** Codec of a list of {@link Review}. */
+    public static final DiskCache.Codec<List<Review>> REVIEWS = new DiskCache.Codec<List<Review>>() {
+        // Version 2: identifier added in front of each review
+        // Version 3: time of the review added after the rate
+        @Override
+        public int getSchemaVersion() {
+            return 3;
+        }
+
+        @Override
+        public void write(DataOutput out, List<Review> reviews) throws IOException {
+            out.writeInt(reviews.size());
+            for (Review review : reviews) {
+                out.writeLong(review.getId());
+                writeString(out, review.getUsername());
+                writeString(out, review.getPicture());
+                writeString(out, review.getComment());
+                out.writeByte(review.getRate());
+                out.writeLong(review.getCreatedAt());
+            }
+        }
+
+        @Override
+        public List<Review> read(DataInput in) throws IOException {
+            int size = in.readInt();
+            List<Review> reviews = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                reviews.add(new Review(in.readLong(), readString(in), readString(in), readString(in), in.readByte(), in.readLong()));
+            }
+            return reviews;
+        }
+    };
+
+    private CacheCodecs() {
+    }
+
+    private static void writeRestaurant(DataOutput out, Restaurant restaurant) throws IOException {
+        out.writeLong(restaurant.getId());
+        writeString(out, restaurant.getName());
+        writeString(out, restaurant.getType());
+        writeString(out, restaurant.getHours());
+        writeString(out, restaurant.getAddress());
+        writeString(out, restaurant.getWebsite());
+        writeString(out, restaurant.getPhoneNumber());
+        out.writeBoolean(restaurant.isDineIn());
+        out.writeBoolean(restaurant.isTakeAway());
+    }
+
+    private static Restaurant readRestaurant(DataInput in) throws IOException {
+        return new Restaurant(in.readLong(), readString(in), readString(in), readString(in), readString(in),
+                readString(in), readString(in), in.readBoolean(), in.readBoolean());
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,255 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A small disk cache storing one file per entry, used by the repository as its local data source.
+ * <p>
+ * Each file starts with a header holding a magic number, the version of the file layout, the
+ * version of the entity schema written by the {@link Codec} and the time the entry was saved.
+ * An entry whose versions do not match the current ones is deleted instead of being read, so
+ * the schema of an entity can change between two releases without any migration.
+ * </p>
+ * <p>
+ * The total size of the entries is capped: when a write goes over {@code maxBytes}, the least
+ * recently used entries are deleted. The expiration of an entry is decided by the caller, which
+ * passes the time-to-live of the entity when reading it.
+ * </p>
+ * All the methods do blocking disk I/O and must be called off the main thread.
+ */
+public class DiskCache {
+
+    /**
+     * Converts an entity to and from its binary representation.
+     *
+     * @param <T> the type of the cached entity
+     */
+    public interface Codec<T> {
+
+        /**
+         * Returns the version of the binary representation. It must be increased each time
+         * {@link #write(DataOutput, Object)} changes, so older entries are discarded.
+         */
+        int getSchemaVersion();
+
+        void write(DataOutput out, T value) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    /**
+     * A value read from the cache with the time it was saved.
+     *
+     * @param <T> the type of the cached entity
+     */
+    public static final class Entry<T> {
+        private final T value;
+        private final long savedAt;
+
+        Entry(T value, long savedAt) {
+            this.value = value;
+            this.savedAt = savedAt;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public long getSavedAt() {
+            return savedAt;
+        }
+
+        /**
+         * Tells whether the entry is older than the given time-to-live.
+         *
+         * @param ttlMillis the time-to-live of the entity, in milliseconds
+         * @param now       the current time, in milliseconds
+         * @return true if the entry should be refreshed
+         */
+        public boolean isExpired(long ttlMillis, long now) {
+            return now - savedAt >= ttlMillis;
+        }
+    }
+
+    // Identifies the files written by this class.
+    private static final int MAGIC = 0x544A4D43;
+
+    // Version of the file layout: header fields and their order.
+    static final int FORMAT_VERSION = 1;
+
+    // Offset of the saved time in the header: magic, format version, schema version.
+    private static final int SAVED_AT_OFFSET = 12;
+
+    private static final String SUFFIX = ".bin";
+
+    private final File directory;
+    private final long maxBytes;
+    private final LongSupplier clock;
+
+    // Size of each entry, in access order: the first entry is the least recently used.
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private boolean indexed;
+
+    /**
+     * Constructs a new DiskCache.
+     *
+     * @param directory the directory holding the entries, created if needed
+     * @param maxBytes  the maximum total size of the entries
+     * @param clock     the source of the current time, in milliseconds
+     */
+    public DiskCache(File directory, long maxBytes, LongSupplier clock) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the current time of the cache clock.
+     *
+     * @return the current time, in milliseconds
+     */
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Reads an entry.
+     *
+     * @param key   the key of the entry
+     * @param codec the codec of the entity
+     * @return the entry, or null if it is missing, unreadable or written with another version
+     */
+    public synchronized <T> Entry<T> read(String key, Codec<T> codec) {
+        ensureIndexed();
+        // get() also marks the entry as the most recently used
+        if (sizes.get(key) == null) return null;
+        File file = fileFor(key);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readInt() != codec.getSchemaVersion()) {
+                remove(key);
+                return null;
+            }
+            long savedAt = in.readLong();
+            return new Entry<>(codec.read(in), savedAt);
+        } catch (IOException | RuntimeException e) {
+            // Truncated or corrupted entry: it will be written again on the next refresh
+            remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry, then evicts the least recently used entries if the cache is too large.
+     * An entry larger than the whole cache is not stored.
+     *
+     * @param key   the key of the entry
+     * @param codec the codec of the entity
+     * @param value the value to store
+     * @throws IOException if the entry cannot be written
+     */
+    public synchronized <T> void write(String key, Codec<T> codec, T value) throws IOException {
+        ensureIndexed();
+        File file = fileFor(key);
+        File tmp = new File(directory, key + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(codec.getSchemaVersion());
+            out.writeLong(now());
+            codec.write(out, value);
+        }
+        // The rename makes the new content visible atomically
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Unable to write cache entry " + key);
+        }
+        Long previous = sizes.put(key, file.length());
+        totalBytes += file.length() - (previous == null ? 0 : previous);
+        trimToSize();
+    }
+
+    /**
+     * Marks an entry as fresh without rewriting its content, used when a refresh returns the
+     * same value as the cached one.
+     *
+     * @param key the key of the entry
+     */
+    public synchronized void touch(String key) {
+        ensureIndexed();
+        if (sizes.get(key) == null) return;
+        try (RandomAccessFile file = new RandomAccessFile(fileFor(key), "rw")) {
+            file.seek(SAVED_AT_OFFSET);
+            file.writeLong(now());
+        } catch (IOException e) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Deletes an entry.
+     *
+     * @param key the key of the entry
+     */
+    public synchronized void remove(String key) {
+        ensureIndexed();
+        Long size = sizes.remove(key);
+        if (size != null) totalBytes -= size;
+        fileFor(key).delete();
+    }
+
+    /**
+     * Returns the total size of the entries.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long size() {
+        ensureIndexed();
+        return totalBytes;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            fileFor(eldest.getKey()).delete();
+            iterator.remove();
+        }
+    }
+
+    // Lists the existing entries on first use, oldest first, to rebuild the LRU order.
+    private void ensureIndexed() {
+        if (indexed) return;
+        indexed = true;
+        if (!directory.isDirectory() && !directory.mkdirs()) return;
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String name = file.getName();
+            sizes.put(name.substring(0, name.length() - SUFFIX.length()), file.length());
+            totalBytes += file.length();
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+}
@@ -0,0 +1,528 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log persisting the reviews written on this device, so they survive the death of
+ * the process.
+ * <p>
+ * The file starts with a magic number and the version of its layout, followed by the records,
+ * each written once at the end of the file through a {@link FileChannel} and never modified:
+ * </p>
+ * <pre>
+ * int    length of the body
+ * body   type (byte), restaurant id (long), review id (long),
+ *        then for a review: rate (byte), time of the review (long, only in the
+ *        timed review records), username, picture, comment
+ *        (each an int length, -1 for null, and the UTF-8 bytes)
+ * int    CRC32 of the body
+ * </pre>
+ * <p>
+ * A review record adds or replaces the review with the same id, a delete record removes it.
+ * Reviews are written as timed review records; the review records written before the reviews
+ * had a time are still read, with an unknown time. An uploaded record, made of the type and
+ * the ids only, marks the latest version of a review as published to the server: the reviews
+ * without it are the {@link #pendingUploads(long) pending uploads} of the sync.
+ * At startup, {@link #replay(AuthorRegistry)} maps the file in memory and scans it: a record is only located,
+ * by its offset, until the scan knows which records are still live, and only those are read,
+ * straight from the mapped bytes into {@link ColumnarReviewList} columns.
+ * </p>
+ * <p>
+ * A record whose length, checksum or type is wrong is damaged. When no valid record follows
+ * it, it is a write torn by the death of the process: the file is truncated before it, losing
+ * at most the review being written. Otherwise the scan skips it and carries on with the next
+ * valid record, losing only the damaged one. A file whose header is not the one of this version
+ * is never rewritten: it cannot be opened, so a newer app still finds it intact.
+ * </p>
+ * <p>
+ * Replaced and deleted reviews stay in the file until {@link #compact()} rewrites it with the
+ * live records only. It runs on its own once the file is both larger than
+ * {@link #COMPACTION_MIN_BYTES} and twice as large as its live records.
+ * </p>
+ * All the methods do blocking disk I/O and must be called off the main thread.
+ */
+public class ReviewLog implements Closeable {
+
+    private static final int MAGIC = 0x544A524C;
+    static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    private static final byte TYPE_REVIEW = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final byte TYPE_TIMED_REVIEW = 3;
+    private static final byte TYPE_UPLOADED = 4;
+
+    // Length and checksum around the body of a record.
+    private static final int FRAME_SIZE = 8;
+    // Type, restaurant id and review id, common to every record.
+    private static final int KEY_SIZE = 17;
+    private static final int MAX_BODY_SIZE = 1024 * 1024;
+    // An uploaded record, which has no field after the key.
+    private static final int MARKER_SIZE = FRAME_SIZE + KEY_SIZE;
+
+    /** Size under which the log is never compacted. */
+    static final long COMPACTION_MIN_BYTES = 64 * 1024;
+
+    // A live review: its restaurant, where its latest record starts in the file, and whether
+    // this version was uploaded.
+    private static final class Location {
+        final long restaurantId;
+        final long offset;
+        final int size;
+        final boolean uploaded;
+
+        Location(long restaurantId, long offset, int size, boolean uploaded) {
+            this.restaurantId = restaurantId;
+            this.offset = offset;
+            this.size = size;
+            this.uploaded = uploaded;
+        }
+
+        // Bytes kept by the compaction: the review record, and its uploaded record if any.
+        int liveBytes() {
+            return uploaded ? size + MARKER_SIZE : size;
+        }
+    }
+
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+
+    // Live reviews by id, in the order they were first written.
+    private final Map<Long, Location> live = new LinkedHashMap<>();
+    private long liveBytes;
+
+    /**
+     * Constructs a log stored in the given file, created on the first write.
+     *
+     * @param file the file of the log
+     */
+    public ReviewLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Scans the log and returns the live reviews of each restaurant. A torn record at the end
+     * of the file is dropped, a damaged one before the end is skipped. The file is compacted
+     * first if it holds too many dead records.
+     *
+     * @param registry the registry interning the authors of the reviews
+     * @return the reviews of each restaurant, newest first
+     * @throws IOException if the file cannot be read, or was written by another version
+     */
+    public synchronized Map<Long, ColumnarReviewList> replay(AuthorRegistry registry) throws IOException {
+        openLocked();
+        compactIfNeededLocked();
+        Map<Long, ColumnarReviewList.Builder> builders = new HashMap<>();
+        List<Location> locations = new ArrayList<>(live.values());
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        byte[] scratch = new byte[256];
+        // Newest first, as displayed
+        for (int i = locations.size() - 1; i >= 0; i--) {
+            Location location = locations.get(i);
+            ColumnarReviewList.Builder builder = builders.get(location.restaurantId);
+            if (builder == null) {
+                builder = new ColumnarReviewList.Builder(16, registry);
+                builders.put(location.restaurantId, builder);
+            }
+            scratch = read(buffer, (int) location.offset, builder, scratch);
+        }
+        Map<Long, ColumnarReviewList> reviews = new HashMap<>();
+        for (Map.Entry<Long, ColumnarReviewList.Builder> entry : builders.entrySet()) {
+            reviews.put(entry.getKey(), entry.getValue().build());
+        }
+        return reviews;
+    }
+
+    /**
+     * Returns the reviews of a restaurant whose latest version was not uploaded yet.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the reviews to upload, in the order they were first written
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized List<Review> pendingUploads(long restaurantId) throws IOException {
+        openLocked();
+        ColumnarReviewList.Builder builder = new ColumnarReviewList.Builder(4);
+        MappedByteBuffer buffer = null;
+        byte[] scratch = new byte[256];
+        for (Location location : live.values()) {
+            if (location.restaurantId != restaurantId || location.uploaded) continue;
+            if (buffer == null) buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            scratch = read(buffer, (int) location.offset, builder, scratch);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Marks a review as uploaded, unless it was edited or deleted since it was read: the new
+     * version then stays pending.
+     *
+     * @param restaurantId the id of the restaurant of the review
+     * @param review       the uploaded version of the review
+     * @throws IOException if the mark cannot be written
+     */
+    public synchronized void markUploaded(long restaurantId, Review review) throws IOException {
+        openLocked();
+        Location location = live.get(review.getId());
+        if (location == null || location.uploaded || location.restaurantId != restaurantId) return;
+        ColumnarReviewList.Builder builder = new ColumnarReviewList.Builder(1);
+        read(channel.map(FileChannel.MapMode.READ_ONLY, location.offset, location.size), 0, builder, new byte[256]);
+        if (!builder.build().get(0).equals(review)) return;
+        ByteBuffer body = ByteBuffer.allocate(KEY_SIZE);
+        body.put(TYPE_UPLOADED).putLong(restaurantId).putLong(review.getId());
+        appendLocked(restaurantId, review.getId(), body);
+    }
+
+    /**
+     * Tells whether a review was written on this device and not deleted.
+     *
+     * @param reviewId the id of the review
+     * @return true if the log holds the review
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized boolean contains(long reviewId) throws IOException {
+        openLocked();
+        return live.containsKey(reviewId);
+    }
+
+    /**
+     * Appends a review, new or edited, and forces it to the disk.
+     *
+     * @param restaurantId the id of the restaurant of the review
+     * @param review       the review
+     * @throws IOException if the review cannot be written
+     */
+    public synchronized void append(long restaurantId, Review review) throws IOException {
+        byte[] username = encode(review.getUsername());
+        byte[] picture = encode(review.getPicture());
+        byte[] comment = encode(review.getComment());
+        int bodySize = KEY_SIZE + 1 + 8 + 12 + length(username) + length(picture) + length(comment);
+        if (bodySize > MAX_BODY_SIZE) throw new IOException("Review too large: " + bodySize + " bytes");
+        ByteBuffer body = ByteBuffer.allocate(bodySize);
+        body.put(TYPE_TIMED_REVIEW).putLong(restaurantId).putLong(review.getId());
+        body.put((byte) review.getRate()).putLong(review.getCreatedAt());
+        putString(body, username);
+        putString(body, picture);
+        putString(body, comment);
+        appendLocked(restaurantId, review.getId(), body);
+    }
+
+    /**
+     * Appends the deletion of a review.
+     *
+     * @param restaurantId the id of the restaurant of the review
+     * @param reviewId     the id of the deleted review
+     * @throws IOException if the deletion cannot be written
+     */
+    public synchronized void appendDelete(long restaurantId, long reviewId) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(KEY_SIZE);
+        body.put(TYPE_DELETE).putLong(restaurantId).putLong(reviewId);
+        appendLocked(restaurantId, reviewId, body);
+    }
+
+    /**
+     * Rewrites the log with its live records only, folding the edits and the deletions. The new
+     * file replaces the old one only once fully written.
+     *
+     * @throws IOException if the log cannot be rewritten
+     */
+    public synchronized void compact() throws IOException {
+        openLocked();
+        File compacted = new File(file.getPath() + ".compact");
+        Map<Long, Location> moved = new LinkedHashMap<>();
+        try (RandomAccessFile out = new RandomAccessFile(compacted, "rw")) {
+            out.setLength(0);
+            FileChannel target = out.getChannel();
+            target.write(header());
+            long position = HEADER_SIZE;
+            for (Map.Entry<Long, Location> entry : live.entrySet()) {
+                Location location = entry.getValue();
+                // The records are copied from file to file, as they are
+                long copied = 0;
+                while (copied < location.size) {
+                    copied += channel.transferTo(location.offset + copied, location.size - copied, target);
+                }
+                moved.put(entry.getKey(), new Location(location.restaurantId, position, location.size, location.uploaded));
+                position += location.size;
+                if (location.uploaded) {
+                    ByteBuffer body = ByteBuffer.allocate(KEY_SIZE);
+                    body.put(TYPE_UPLOADED).putLong(location.restaurantId).putLong(entry.getKey());
+                    ByteBuffer record = frame(body);
+                    while (record.hasRemaining()) target.write(record);
+                    position += MARKER_SIZE;
+                }
+            }
+            target.force(true);
+        }
+        closeLocked();
+        if (!compacted.renameTo(file)) {
+            throw new IOException("Cannot replace " + file + " with its compacted copy");
+        }
+        live.clear();
+        live.putAll(moved);
+        openChannelLocked();
+    }
+
+    /**
+     * Returns the size of the log file.
+     *
+     * @return the size in bytes, header included
+     * @throws IOException if the file cannot be opened
+     */
+    public synchronized long length() throws IOException {
+        openLocked();
+        return channel.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeLocked();
+        live.clear();
+        liveBytes = 0;
+    }
+
+    private void appendLocked(long restaurantId, long reviewId, ByteBuffer body) throws IOException {
+        openLocked();
+        ByteBuffer record = frame(body);
+        long offset = channel.size();
+        channel.position(offset);
+        while (record.hasRemaining()) channel.write(record);
+        channel.force(false);
+        apply(body.get(0), restaurantId, reviewId, offset, record.limit());
+        compactIfNeededLocked();
+    }
+
+    // Wraps a body, written up to its position, with its length and checksum.
+    private static ByteBuffer frame(ByteBuffer body) {
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, body.limit());
+        ByteBuffer record = ByteBuffer.allocate(FRAME_SIZE + body.limit());
+        record.putInt(body.limit()).put(body).putInt((int) crc.getValue());
+        record.flip();
+        return record;
+    }
+
+    // Opens the file and scans it once, dropping a torn record at its end. A file written by
+    // another version is left as it is.
+    private void openLocked() throws IOException {
+        if (channel != null) return;
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        openChannelLocked();
+        if (!hasHeader()) {
+            closeLocked();
+            throw new IOException("Unsupported review log format: " + file);
+        }
+        live.clear();
+        liveBytes = 0;
+        long end = scan();
+        if (end < channel.size()) {
+            channel.truncate(end);
+            channel.force(false);
+        }
+    }
+
+    private void openChannelLocked() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+    }
+
+    private void closeLocked() throws IOException {
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    // Checks the header, writing it if the file is new or if its creation was torn.
+    private boolean hasHeader() throws IOException {
+        ByteBuffer expected = header();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) break;
+        }
+        header.flip();
+        for (int i = 0; i < header.limit(); i++) {
+            if (header.get(i) != expected.get(i)) return false;
+        }
+        if (header.limit() < HEADER_SIZE) {
+            // Nothing can follow a header that was not fully written
+            channel.write(expected, 0);
+            channel.force(false);
+        }
+        return true;
+    }
+
+    // Locates the live records of the mapped file, skipping the damaged ones. Returns the end
+    // of the last valid record.
+    private long scan() throws IOException {
+        long size = channel.size();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        byte[] scratch = new byte[4096];
+        int position = HEADER_SIZE;
+        int end = position;
+        while (position + FRAME_SIZE + KEY_SIZE <= size) {
+            int recordSize = validRecordSize(buffer, position, crc, scratch);
+            if (recordSize < 0) {
+                // Resumes at the next valid record, if any: the damaged bytes stay in the file
+                // until the next compaction
+                position = nextValidRecord(buffer, position, crc, scratch);
+                if (position < 0) break;
+                continue;
+            }
+            byte type = buffer.get(position + 4);
+            long restaurantId = buffer.getLong(position + 5);
+            long reviewId = buffer.getLong(position + 13);
+            apply(type, restaurantId, reviewId, position, recordSize);
+            position += recordSize;
+            end = position;
+        }
+        return end;
+    }
+
+    // Looks for the first valid record after a damaged one. Its length is tried first, then
+    // every following byte. Returns -1 if no valid record follows.
+    private static int nextValidRecord(MappedByteBuffer buffer, int damaged, CRC32 crc, byte[] scratch) {
+        int bodySize = buffer.getInt(damaged);
+        if (bodySize >= KEY_SIZE && bodySize <= MAX_BODY_SIZE) {
+            long next = damaged + FRAME_SIZE + (long) bodySize;
+            if (next + FRAME_SIZE + KEY_SIZE <= buffer.limit() && validRecordSize(buffer, (int) next, crc, scratch) > 0) {
+                return (int) next;
+            }
+        }
+        for (int position = damaged + 1; position + FRAME_SIZE + KEY_SIZE <= buffer.limit(); position++) {
+            if (validRecordSize(buffer, position, crc, scratch) > 0) return position;
+        }
+        return -1;
+    }
+
+    // Returns the size of the record starting at the given position, or -1 if its length,
+    // type or checksum is wrong.
+    private static int validRecordSize(MappedByteBuffer buffer, int position, CRC32 crc, byte[] scratch) {
+        int bodySize = buffer.getInt(position);
+        if (bodySize < KEY_SIZE || bodySize > MAX_BODY_SIZE || position + FRAME_SIZE + (long) bodySize > buffer.limit()) return -1;
+        byte type = buffer.get(position + 4);
+        if (type != TYPE_REVIEW && type != TYPE_TIMED_REVIEW && type != TYPE_DELETE && type != TYPE_UPLOADED) return -1;
+        crc.reset();
+        buffer.position(position + 4);
+        for (int remaining = bodySize; remaining > 0; ) {
+            int chunk = Math.min(remaining, scratch.length);
+            buffer.get(scratch, 0, chunk);
+            crc.update(scratch, 0, chunk);
+            remaining -= chunk;
+        }
+        if ((int) crc.getValue() != buffer.getInt(position + 4 + bodySize)) return -1;
+        return FRAME_SIZE + bodySize;
+    }
+
+    private void apply(byte type, long restaurantId, long reviewId, long offset, int size) {
+        Location previous;
+        if (type == TYPE_UPLOADED) {
+            previous = live.get(reviewId);
+            // A mark of a deleted review, or written twice, is dead
+            if (previous == null || previous.uploaded) return;
+            live.put(reviewId, new Location(previous.restaurantId, previous.offset, previous.size, true));
+            liveBytes += MARKER_SIZE;
+            return;
+        }
+        if (type != TYPE_DELETE) {
+            Location location = new Location(restaurantId, offset, size, false);
+            // An edit keeps the position of the first version
+            previous = live.put(reviewId, location);
+            liveBytes += size;
+        } else {
+            previous = live.remove(reviewId);
+        }
+        if (previous != null) liveBytes -= previous.liveBytes();
+    }
+
+    private void compactIfNeededLocked() throws IOException {
+        long size = channel.size();
+        if (size > COMPACTION_MIN_BYTES && size > 2 * (HEADER_SIZE + liveBytes)) compact();
+    }
+
+    // Reads the review record starting at the given position into the builder. Returns the
+    // scratch buffer, grown if the comment did not fit.
+    private static byte[] read(ByteBuffer buffer, int offset, ColumnarReviewList.Builder builder, byte[] scratch) {
+        int position = offset + 4 + KEY_SIZE;
+        boolean timed = buffer.get(position - KEY_SIZE) == TYPE_TIMED_REVIEW;
+        long reviewId = buffer.getLong(position - 8);
+        int rate = buffer.get(position);
+        position++;
+        long createdAt = Review.UNKNOWN_TIME;
+        if (timed) {
+            createdAt = buffer.getLong(position);
+            position += 8;
+        }
+        String username = readString(buffer, position);
+        position += 4 + Math.max(0, buffer.getInt(position));
+        String picture = readString(buffer, position);
+        position += 4 + Math.max(0, buffer.getInt(position));
+        // The comment is copied as UTF-8 bytes, never decoded
+        int commentLength = buffer.getInt(position);
+        if (commentLength < 0) {
+            builder.add(reviewId, rate, createdAt, username, picture, null, 0, 0);
+        } else {
+            if (commentLength > scratch.length) scratch = new byte[commentLength];
+            buffer.position(position + 4);
+            buffer.get(scratch, 0, commentLength);
+            builder.add(reviewId, rate, createdAt, username, picture, scratch, 0, commentLength);
+        }
+        return scratch;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION);
+        header.flip();
+        return header;
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.position(position + 4);
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putString(ByteBuffer body, byte[] bytes) {
+        if (bytes == null) {
+            body.putInt(-1);
+        } else {
+            body.putInt(bytes.length).put(bytes);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The cursors of the change feeds of the restaurants, the points the syncs resume from.
+ * <p>
+ * Unlike the {@link DiskCache}, whose entries can be evicted at any time, the cursors live in a
+ * file of their own, meant for the application files directory: a cursor is only lost with the
+ * data it was saved with. The file starts with a magic number and the version of its layout,
+ * followed by the number of cursors and a restaurant id and a cursor for each one. It is
+ * rewritten whole on each save, through a temporary file renamed over it, so a save torn by the
+ * death of the process leaves the previous cursors intact.
+ * </p>
+ * All the methods do blocking disk I/O and must be called off the main thread.
+ */
+public class SyncCursors {
+
+    private static final int MAGIC = 0x544A5343;
+    static final int FORMAT_VERSION = 1;
+
+    private final File file;
+
+    // Cursors by restaurant id, read from the file on first use.
+    private Map<Long, Long> cursors;
+
+    /**
+     * Constructs the cursors stored in the given file, created on the first save.
+     *
+     * @param file the file of the cursors
+     */
+    public SyncCursors(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Returns the saved cursor of a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the cursor, or null if none was saved
+     * @throws IOException if the file cannot be read, or was written by another version
+     */
+    public synchronized Long get(long restaurantId) throws IOException {
+        return cursorsLocked().get(restaurantId);
+    }
+
+    /**
+     * Saves the cursor of a restaurant, and forces it to the disk.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param cursor       the new cursor
+     * @throws IOException if the cursor cannot be saved
+     */
+    public synchronized void put(long restaurantId, long cursor) throws IOException {
+        Map<Long, Long> updated = new HashMap<>(cursorsLocked());
+        updated.put(restaurantId, cursor);
+        File parent = file.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(updated.size());
+            for (Map.Entry<Long, Long> entry : updated.entrySet()) {
+                out.writeLong(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            stream.getFD().sync();
+        }
+        // The rename makes the new cursors visible atomically
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+        cursors = updated;
+    }
+
+    private Map<Long, Long> cursorsLocked() throws IOException {
+        if (cursors != null) return cursors;
+        Map<Long, Long> read = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Unsupported sync cursors format: " + file);
+            }
+            for (int count = in.readInt(); count > 0; count--) {
+                read.put(in.readLong(), in.readLong());
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing was synced yet
+        }
+        cursors = read;
+        return cursors;
+    }
+}
@@ -0,0 +1,298 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.model.ConcatenatedReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewList;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * A read-only list of the reviews of a restaurant whose content is loaded page by page from the
+ * {@link RestaurantApi}, for the restaurants with too many reviews to be held in memory.
+ * <p>
+ * The list is created from the first page of the reviews, which gives their total count: its
+ * size is that count, and no other page is fetched until {@link #loadAround(int)} asks for it,
+ * as the rows are shown. At most {@code maxCachedPages} pages are kept at the same time: the
+ * least recently used page is dropped when a new one is loaded. Used as the data of a
+ * RecyclerView, the list therefore only holds the pages around the viewport, and neither its
+ * memory footprint nor its loading time depend on the number of reviews. The stats and the
+ * search of such a restaurant come from the server, see {@link RestaurantApi#getReviewSummary(long)}.
+ * </p>
+ * <p>
+ * {@link #get(int)} returns null for the reviews whose page is not loaded, as placeholders.
+ * The pages are loaded on the I/O executor, then each {@link Callback} is told of the range of
+ * the page, so that only its rows are redrawn: the size and the order of the list never change,
+ * only its placeholders are filled. The reviews received by a sync replace theirs with
+ * {@link #withEdits(Collection)}, which returns a new version of the list sharing its pages.
+ * </p>
+ * <p>
+ * The pages of the server move down as reviews are added at its top. The list keeps the
+ * positions of the server when it was created: each page tells the current total count, from
+ * which the next requests are shifted.
+ * </p>
+ * The list is thread-safe.
+ */
+public final class PagedReviewList extends AbstractList<Review> implements RandomAccess {
+
+    /**
+     * Told of the reviews loaded into the list, to redraw only their rows.
+     */
+    public interface Callback {
+        /**
+         * Called on the I/O executor once a page was loaded: its reviews are returned by
+         * {@link #get(int)} instead of null, in every version of the list.
+         *
+         * @param position the position of the first review of the page
+         * @param count    the number of reviews of the page
+         */
+        void onLoaded(int position, int count);
+    }
+
+    private final Pages pages;
+    // Reviews replaced since the list was created, by id
+    private final Map<Long, Review> edits;
+
+    private PagedReviewList(Pages pages, Map<Long, Review> edits) {
+        this.pages = pages;
+        this.edits = edits;
+    }
+
+    /**
+     * Creates the list of the reviews of a restaurant from their first page, without any other
+     * API call.
+     *
+     * @param restaurantApi  the API serving the pages
+     * @param restaurantId   the id of the restaurant
+     * @param pageSize       the number of reviews per page
+     * @param firstPage      the first page of the reviews, fetched with this page size from the cursor 0
+     * @param maxCachedPages the maximum number of pages kept in memory
+     * @param ioExecutor     the executor loading the other pages
+     * @param registry       the registry interning the authors of the reviews of the pages
+     * @return the list of the reviews, of the total count of the first page
+     */
+    static PagedReviewList of(RestaurantApi restaurantApi, long restaurantId, int pageSize, ReviewPage firstPage,
+                              int maxCachedPages, Executor ioExecutor, AuthorRegistry registry) {
+        if (pageSize <= 0 || maxCachedPages <= 0) {
+            throw new IllegalArgumentException("pageSize and maxCachedPages must be strictly positive");
+        }
+        if (firstPage.getCursor() != 0) throw new IllegalArgumentException("Not a first page: " + firstPage.getCursor());
+        Pages pages = new Pages(restaurantApi, restaurantId, pageSize, firstPage.getTotalCount(), maxCachedPages,
+                ioExecutor, registry);
+        pages.put(0, pages.internAll(firstPage.getReviews()));
+        return new PagedReviewList(pages, Collections.emptyMap());
+    }
+
+    /**
+     * Returns the paged reviews of a snapshot of the {@link ReviewStore}.
+     *
+     * @param snapshot a snapshot of the reviews of a restaurant
+     * @return the received reviews of the snapshot if they are loaded page by page, else null
+     */
+    public static PagedReviewList find(List<Review> snapshot) {
+        if (!(snapshot instanceof ReviewList)) return null;
+        List<Review> older = ((ReviewList) snapshot).getOlder();
+        List<Review> remote = older instanceof ConcatenatedReviewList ? ((ConcatenatedReviewList) older).getSecond() : older;
+        return remote instanceof PagedReviewList ? (PagedReviewList) remote : null;
+    }
+
+    /**
+     * Returns the review at a position, in its last version, if its page is loaded. Never
+     * blocks nor fetches anything, see {@link #loadAround(int)}.
+     *
+     * @param index the position of the review
+     * @return the review, or null if its page is not loaded
+     */
+    @Override
+    public Review get(int index) {
+        if (index < 0 || index >= pages.size) throw new IndexOutOfBoundsException("index: " + index + ", size: " + pages.size);
+        Review review = pages.get(index);
+        if (review == null || edits.isEmpty()) return review;
+        Review edited = edits.get(review.getId());
+        return edited != null ? edited : review;
+    }
+
+    @Override
+    public int size() {
+        return pages.size;
+    }
+
+    /**
+     * Starts loading the page holding a position on the I/O executor, unless it is loaded or
+     * being loaded, and marks it as the most recently used one. Never blocks.
+     *
+     * @param index the position of a review
+     */
+    void loadAround(int index) {
+        if (index < 0 || index >= pages.size) return;
+        pages.request(index / pages.pageSize);
+    }
+
+    /**
+     * Returns a version of this list where reviews are replaced by new versions, kept in place.
+     * The reviews whose page is not loaded yet appear in their new version once it is.
+     *
+     * @param edited the new versions of reviews of the list
+     * @return the new version, this list being unchanged
+     */
+    PagedReviewList withEdits(Collection<Review> edited) {
+        if (edited.isEmpty()) return this;
+        Map<Long, Review> allEdits = new HashMap<>(edits);
+        for (Review review : edited) allEdits.put(review.getId(), review);
+        return new PagedReviewList(pages, allEdits);
+    }
+
+    /**
+     * Tells whether two lists are versions of the same list, sharing their pages, as the ones
+     * returned by {@link #withEdits(Collection)}.
+     *
+     * @param other another list, or null
+     * @return true if both lists have the same positions and load the same pages
+     */
+    public boolean isVersionOf(PagedReviewList other) {
+        return other != null && other.pages == pages;
+    }
+
+    /**
+     * Returns the number of pages held in memory.
+     *
+     * @return the number of cached pages
+     */
+    public int getCachedPageCount() {
+        return pages.cachedCount();
+    }
+
+    /**
+     * Registers a callback told of the pages loaded from now on, by every version of the list.
+     *
+     * @param callback the callback to add
+     */
+    public void addCallback(Callback callback) {
+        pages.callbacks.add(callback);
+    }
+
+    /**
+     * Removes a callback added by {@link #addCallback(Callback)}.
+     *
+     * @param callback the callback to remove
+     */
+    public void removeCallback(Callback callback) {
+        pages.callbacks.remove(callback);
+    }
+
+    // The pages of the reviews of the server and their loading, shared by every version of the list.
+    private static final class Pages {
+        final RestaurantApi restaurantApi;
+        final long restaurantId;
+        final int pageSize;
+        // Number of reviews of the server when the list was created, the size of the list
+        final int size;
+        final Executor ioExecutor;
+        final AuthorRegistry registry;
+        final List<Callback> callbacks = new CopyOnWriteArrayList<>();
+
+        // Access-ordered map: the eldest entry is the least recently used page; guarded by this
+        private final Map<Integer, List<Review>> loaded;
+        // Pages requested and not loaded yet, to avoid loading a page twice; guarded by this
+        private final Set<Integer> pending = new HashSet<>();
+        // Number of reviews added at the top of the server since the list was created, which
+        // moved its pages down; guarded by this
+        private int shift;
+
+        Pages(RestaurantApi restaurantApi, long restaurantId, int pageSize, int size, int maxCachedPages,
+              Executor ioExecutor, AuthorRegistry registry) {
+            this.restaurantApi = restaurantApi;
+            this.restaurantId = restaurantId;
+            this.pageSize = pageSize;
+            this.size = size;
+            this.ioExecutor = ioExecutor;
+            this.registry = registry;
+            this.loaded = new LinkedHashMap<Integer, List<Review>>(maxCachedPages + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Review>> eldest) {
+                    return size() > maxCachedPages;
+                }
+            };
+        }
+
+        synchronized Review get(int index) {
+            List<Review> page = loaded.get(index / pageSize);
+            int offset = index % pageSize;
+            return page == null || offset >= page.size() ? null : page.get(offset);
+        }
+
+        void request(int pageIndex) {
+            synchronized (this) {
+                // The lookup also makes the page the most recently used one
+                if (loaded.get(pageIndex) != null || !pending.add(pageIndex)) return;
+            }
+            ioExecutor.execute(() -> {
+                List<Review> reviews;
+                try {
+                    reviews = fetch(pageIndex);
+                } catch (RuntimeException e) {
+                    // The page will be requested again the next time it is shown
+                    synchronized (this) {
+                        pending.remove(pageIndex);
+                    }
+                    return;
+                }
+                put(pageIndex, reviews);
+                for (Callback callback : callbacks) {
+                    callback.onLoaded(pageIndex * pageSize, reviews.size());
+                }
+            });
+        }
+
+        // Fetches a page at its current place on the server. A page fetched while reviews were
+        // added at the top holds other reviews: it is fetched again further down.
+        private List<Review> fetch(int pageIndex) {
+            int start = pageIndex * pageSize;
+            while (true) {
+                int requestedShift;
+                synchronized (this) {
+                    requestedShift = shift;
+                }
+                ReviewPage page = restaurantApi.getReviews(restaurantId, start + requestedShift, pageSize);
+                int currentShift = Math.max(0, page.getTotalCount() - size);
+                if (currentShift == requestedShift) {
+                    List<Review> reviews = page.getReviews();
+                    // The reviews past the end of the list came after it was created
+                    return internAll(reviews.subList(0, Math.min(reviews.size(), size - start)));
+                }
+                synchronized (this) {
+                    shift = currentShift;
+                }
+            }
+        }
+
+        synchronized void put(int pageIndex, List<Review> reviews) {
+            pending.remove(pageIndex);
+            loaded.put(pageIndex, reviews);
+        }
+
+        synchronized int cachedCount() {
+            return loaded.size();
+        }
+
+        List<Review> internAll(List<Review> reviews) {
+            List<Review> interned = new ArrayList<>(reviews.size());
+            for (Review review : reviews) interned.add(registry.intern(review));
+            return interned;
+        }
+    }
+}
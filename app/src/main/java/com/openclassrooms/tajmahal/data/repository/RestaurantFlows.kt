@@ -0,0 +1,143 @@
+package com.openclassrooms.tajmahal.data.repository
+
+import androidx.lifecycle.LiveData
+import androidx.lifecycle.asLiveData
+import com.openclassrooms.tajmahal.di.ApplicationScope
+import com.openclassrooms.tajmahal.di.IoDispatcher
+import com.openclassrooms.tajmahal.domain.model.Resource
+import com.openclassrooms.tajmahal.domain.model.Restaurant
+import com.openclassrooms.tajmahal.domain.model.Review
+import com.openclassrooms.tajmahal.domain.model.ReviewStats
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.FlowPreview
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.debounce
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.runInterruptible
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Exposes the restaurant, its reviews and their stats as Kotlin flows, on top of the
+ * [RestaurantRepository].
+ *
+ * The flows returned by [restaurant], [reviews] and [reviewStats] are cold: each collector starts
+ * its own load or registration, and cancelling the collector cancels them, interrupting a
+ * blocking load on the I/O dispatcher. The review snapshots are conflated, as each one replaces
+ * the previous one; the stats are debounced, so a burst of updates, such as a sync applying its
+ * batches, reaches the screen once.
+ *
+ * The `shared` flows are the ones the screens use: one [StateFlow] per restaurant, started in the
+ * application scope by the first collector and shared by all the next ones, so several screens
+ * observing the same restaurant run a single upstream. The upstream stops [STOP_TIMEOUT_MS] after
+ * the last collector leaves, which keeps it running through a configuration change.
+ *
+ * The LiveData adapters let the existing ViewModels keep exposing LiveData to their fragments.
+ */
+@Singleton
+class RestaurantFlows @Inject constructor(
+    private val repository: RestaurantRepository,
+    @ApplicationScope private val scope: CoroutineScope,
+    @IoDispatcher private val ioDispatcher: CoroutineDispatcher,
+) {
+
+    private val sharedRestaurants = ConcurrentHashMap<Long, StateFlow<Resource<Restaurant>>>()
+    private val sharedReviews = ConcurrentHashMap<Long, StateFlow<List<Review>?>>()
+    private val sharedStats = ConcurrentHashMap<Long, StateFlow<Resource<ReviewStats>>>()
+
+    /**
+     * Loads the details of a restaurant with the cache policy of [RestaurantRepository.getRestaurant],
+     * on the I/O dispatcher. The flow completes with the restaurant or the error of the call.
+     */
+    fun restaurant(restaurantId: Long): Flow<Resource<Restaurant>> = channelFlow {
+        // At most three states: the buffer of the channel always has room for them
+        runInterruptible { repository.loadRestaurant(restaurantId) { trySend(it) } }
+    }.flowOn(ioDispatcher)
+
+    /**
+     * Follows the snapshots of the reviews of a restaurant, newest first. Only the latest
+     * snapshot is kept for a slow collector.
+     */
+    fun reviews(restaurantId: Long): Flow<List<Review>> = callbackFlow {
+        val registration = repository.observeReviews(restaurantId) { trySend(it) }
+        awaitClose { registration.close() }
+    }.conflate()
+
+    /**
+     * Follows the stats of the reviews of a restaurant. An update is only emitted once no other
+     * one followed it for [STATS_DEBOUNCE_MS]; errors are emitted at once.
+     */
+    @OptIn(FlowPreview::class)
+    fun reviewStats(restaurantId: Long): Flow<Resource<ReviewStats>> = callbackFlow {
+        val registration = repository.observeReviewStats(restaurantId) { trySend(it) }
+        awaitClose { registration.close() }
+    }.conflate().debounce { if (it.isSuccess) STATS_DEBOUNCE_MS else 0L }
+
+    /**
+     * Returns the [restaurant] flow of a restaurant shared by every collector, in the loading
+     * state until the first load starts.
+     */
+    fun sharedRestaurant(restaurantId: Long): StateFlow<Resource<Restaurant>> =
+        sharedRestaurants.computeIfAbsent(restaurantId) {
+            restaurant(restaurantId).stateIn(scope, sharingStarted(), Resource.loading(null))
+        }
+
+    /**
+     * Returns the [reviews] flow of a restaurant shared by every collector, null until the
+     * first snapshot.
+     */
+    fun sharedReviews(restaurantId: Long): StateFlow<List<Review>?> =
+        sharedReviews.computeIfAbsent(restaurantId) {
+            reviews(restaurantId).stateIn(scope, sharingStarted(), null)
+        }
+
+    /**
+     * Returns the [reviewStats] flow of a restaurant shared by every collector, in the loading
+     * state until the stats are seeded.
+     */
+    fun sharedReviewStats(restaurantId: Long): StateFlow<Resource<ReviewStats>> =
+        sharedStats.computeIfAbsent(restaurantId) {
+            reviewStats(restaurantId).stateIn(scope, sharingStarted(), Resource.loading(null))
+        }
+
+    /** LiveData adapter of [sharedRestaurant]. */
+    fun restaurantLiveData(restaurantId: Long): LiveData<Resource<Restaurant>> =
+        sharedRestaurant(restaurantId).asLiveData()
+
+    /** LiveData adapter of [sharedReviews], holding no value until the first snapshot. */
+    fun reviewsLiveData(restaurantId: Long): LiveData<List<Review>> =
+        sharedReviews(restaurantId).filterNotNull().asLiveData()
+
+    /**
+     * Starts loading the reviews around a shown position, see
+     * [RestaurantRepository.loadReviewsAround]. Never blocks: once their page is loaded, they
+     * fill the placeholders of the latest snapshot of [reviews], and its [PagedReviewList] tells
+     * its callbacks.
+     */
+    fun loadReviewsAround(restaurantId: Long, position: Int) =
+        repository.loadReviewsAround(restaurantId, position)
+
+    /** LiveData adapter of [sharedReviewStats]. */
+    fun reviewStatsLiveData(restaurantId: Long): LiveData<Resource<ReviewStats>> =
+        sharedReviewStats(restaurantId).asLiveData()
+
+    private fun sharingStarted() = SharingStarted.WhileSubscribed(STOP_TIMEOUT_MS)
+
+    companion object {
+        /** Time the shared flows keep running after their last collector left. */
+        const val STOP_TIMEOUT_MS = 5_000L
+
+        /** Quiet time after which a stats update is emitted. */
+        const val STATS_DEBOUNCE_MS = 50L
+    }
+}
@@ -3,8 +3,48 @@ package com.openclassrooms.tajmahal.data.repository;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.openclassrooms.tajmahal.data.local.CacheCodecs;
+import com.openclassrooms.tajmahal.data.local.DiskCache;
+import com.openclassrooms.tajmahal.data.local.ReviewLog;
+import com.openclassrooms.tajmahal.data.local.SyncCursors;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewSyncScheduler;
+import com.openclassrooms.tajmahal.di.IoExecutor;
+import com.openclassrooms.tajmahal.domain.catalog.RestaurantCatalog;
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Resource;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewAnalytics;
+import com.openclassrooms.tajmahal.domain.model.ReviewChanges;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.SyncState;
+import com.openclassrooms.tajmahal.domain.review.ReviewWriter;
+import com.openclassrooms.tajmahal.domain.review.SubmitReviewUseCase;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
+import com.openclassrooms.tajmahal.domain.stats.ReviewSummary;
+import com.openclassrooms.tajmahal.metrics.Counter;
+import com.openclassrooms.tajmahal.metrics.Histogram;
+import com.openclassrooms.tajmahal.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+import java.util.function.UnaryOperator;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -17,38 +57,779 @@ import javax.inject.Singleton;
  * Typically in an Android app built with architecture components, the repository will handle
  * the logic for deciding whether to fetch data from a network source or use data from a local cache.
  *
+ * Every call to the {@link RestaurantApi} runs on the injected I/O executor, never on the caller's
+ * thread. Results are posted to the returned {@link LiveData} wrapped in a {@link Resource}, which
+ * goes through the loading state before the success or error state.
+ *
+ * The app serves a chain of restaurants: every restaurant is addressed by its id, and the
+ * {@link RestaurantCatalog} indexes the whole chain for lookups and filters.
+ *
+ * The reviews are held in memory once, by the {@link ReviewStore} shared by every screen, keyed
+ * by the id of their restaurant. The reviews of a restaurant with {@link #PAGED_REVIEWS_MIN_COUNT}
+ * reviews or more are loaded as a {@link PagedReviewList}, whose pages are fetched as they are
+ * shown, see {@link #loadReviewsAround(long, int)}, their stats and their search being left to
+ * the server. The reviews written by the user are also appended to the
+ * {@link ReviewLog}, which restores them into the store before the first reviews are loaded.
+ * The restaurant and its reviews are kept in a {@link DiskCache} and served with a
+ * stale-while-revalidate policy: the cached snapshot is posted at once, as the data of the loading
+ * state, and the API is only called once the entity is older than its time-to-live. A refresh
+ * returning the same data does not rewrite the cache.
+ *
+ * The reviews are synced in the background by the {@link ReviewSyncScheduler}: the reviews
+ * written by the user are uploaded from the log, then the reviews changed on the server since
+ * the last sync are downloaded in batches, see {@link #syncReviews(long)}.
+ *
+ * The reviews submitted from the form go through the {@link SubmitReviewUseCase}, which saves
+ * them on its background executor with {@link #saveReview(long, Review)}.
+ *
+ * The restaurant, the reviews and the stats are also exposed as Kotlin flows by
+ * {@link RestaurantFlows}, built on {@link #loadRestaurant(long, Consumer)},
+ * {@link #observeReviews(long, ReviewStore.Listener)} and {@link #observeReviewStats(long, Consumer)}.
+ *
+ * The loads and the syncs are timed into the {@link Metrics} as trace sections, along with the
+ * number of API calls, failed calls and loads served by the cache alone.
  *
  * @see Restaurant
  * @see RestaurantApi
  */
 @Singleton
-public class RestaurantRepository {
+public class RestaurantRepository implements ReviewWriter {
+
+    /** The id of the restaurant shown when none was selected, the flagship "Taj Mahal". */
+    public static final long DEFAULT_RESTAURANT_ID = 1;
+
+    // Time-to-live of the cached restaurant details, which rarely change.
+    private static final long RESTAURANT_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    // Time-to-live of the cached reviews.
+    private static final long REVIEWS_TTL_MS = TimeUnit.MINUTES.toMillis(15);
+
+    // Time-to-live of the cached catalog, locations rarely open or close.
+    private static final long CATALOG_TTL_MS = TimeUnit.HOURS.toMillis(24);
+
+    // Keys of the cached entities, the id of the restaurant is appended to the per-restaurant ones.
+    private static final String CATALOG_KEY = "catalog";
+    private static final String RESTAURANT_KEY = "restaurant-";
+    private static final String REVIEWS_KEY = "reviews-";
+
+    // Maximum number of changed reviews downloaded at once by a sync.
+    static final int SYNC_BATCH_SIZE = 200;
+
+    // Number of reviews from which they are loaded page by page, and not cached on disk.
+    static final int PAGED_REVIEWS_MIN_COUNT = 10_000;
+
+    // Number of reviews fetched per page, about three screens of review items.
+    static final int REVIEW_PAGE_SIZE = 30;
+
+    // Number of review pages kept in memory around the viewport.
+    static final int MAX_CACHED_REVIEW_PAGES = 4;
 
     // The API interface instance that will be used for network requests related to restaurant data.
     private final RestaurantApi restaurantApi;
 
+    // Runs the blocking API calls off the main thread.
+    private final Executor ioExecutor;
+
+    // Local copy of the restaurant and its reviews.
+    private final DiskCache diskCache;
+
+    // Single in-memory copy of the reviews, shared by every screen.
+    private final ReviewStore reviewStore;
+
+    // Groups the reviews received in bursts into one store update.
+    private final ReviewBatcher reviewBatcher;
+
+    /** The log persisting the reviews written by the user. */
+    private final ReviewLog reviewLog;
+
+    // Points of the change feeds the syncs resume from.
+    private final SyncCursors syncCursors;
+
+    // Runs the syncs in the background.
+    private final ReviewSyncScheduler syncScheduler;
+
+    // Timings and counts of the loads and syncs, looked up once.
+    private final Metrics metrics;
+    private final Histogram catalogLoadTime;
+    private final Histogram restaurantLoadTime;
+    private final Histogram reviewsLoadTime;
+    private final Histogram syncTime;
+    private final Counter apiCalls;
+    private final Counter apiErrors;
+    private final Counter cacheHits;
+    private final Counter syncUploads;
+    private final Counter syncDownloads;
+
+    // Whether the review log was replayed into the store; guarded by the log.
+    private boolean logRestored;
+
+    // Ids of the restaurants whose reviews are being loaded or loaded into the store.
+    private final Set<Long> reviewsRequested = ConcurrentHashMap.newKeySet();
+
+    // Latest review stats of each restaurant, shared by every observer.
+    private final Map<Long, MutableLiveData<Resource<ReviewStats>>> reviewStats = new ConcurrentHashMap<>();
+
+    // Latest review analytics of each restaurant, recomputed with each stats update.
+    private final Map<Long, MutableLiveData<Resource<ReviewAnalytics>>> reviewAnalytics = new ConcurrentHashMap<>();
+
+    // Consumers of the review stats of each restaurant outside of LiveData, told of the failed loads.
+    private final Map<Long, List<Consumer<Resource<ReviewStats>>>> statsConsumers = new ConcurrentHashMap<>();
+
+    // Latest sync state of each restaurant, updated atomically before being posted.
+    private final Map<Long, SyncState> syncStates = new ConcurrentHashMap<>();
+    private final Map<Long, MutableLiveData<SyncState>> syncStateLiveData = new ConcurrentHashMap<>();
+
+    // Catalog of the chain, loaded on first use.
+    private LiveData<Resource<RestaurantCatalog>> catalog;
+
     /**
      * Constructs a new instance of {@link RestaurantRepository} with the given {@link RestaurantApi}.
      *
-     * @param restaurantApi The network API interface for fetching restaurant data.
+     * @param restaurantApi         The network API interface for fetching restaurant data.
+     * @param ioExecutor            The executor running the API calls.
+     * @param diskCache             The local cache of the restaurant data.
+     * @param reviewStore           The store holding the reviews in memory.
+     * @param reviewBatcher         The batcher of the reviews received in bursts.
+     * @param reviewLog             The log persisting the reviews written by the user.
+     * @param syncCursors           The cursors of the change feeds, saved by the syncs.
+     * @param syncScheduler         The scheduler of the background syncs.
+     * @param metrics               The metrics of the loads and syncs.
      */
     @Inject
-    public RestaurantRepository(RestaurantApi restaurantApi) {
+    public RestaurantRepository(RestaurantApi restaurantApi,
+                                @IoExecutor Executor ioExecutor,
+                                DiskCache diskCache,
+                                ReviewStore reviewStore,
+                                ReviewBatcher reviewBatcher,
+                                ReviewLog reviewLog,
+                                SyncCursors syncCursors,
+                                ReviewSyncScheduler syncScheduler,
+                                Metrics metrics) {
         this.restaurantApi = restaurantApi;
+        this.ioExecutor = ioExecutor;
+        this.diskCache = diskCache;
+        this.reviewStore = reviewStore;
+        this.reviewBatcher = reviewBatcher;
+        this.reviewLog = reviewLog;
+        this.syncCursors = syncCursors;
+        this.syncScheduler = syncScheduler;
+        this.metrics = metrics;
+        this.catalogLoadTime = metrics.histogram("catalog.load");
+        this.restaurantLoadTime = metrics.histogram("restaurant.load");
+        this.reviewsLoadTime = metrics.histogram("reviews.load");
+        this.syncTime = metrics.histogram("reviews.sync");
+        this.apiCalls = metrics.counter("api.call");
+        this.apiErrors = metrics.counter("api.error");
+        this.cacheHits = metrics.counter("cache.hit");
+        this.syncUploads = metrics.counter("sync.upload");
+        this.syncDownloads = metrics.counter("sync.download");
     }
 
     /**
-     * Fetches the restaurant details.
+     * Returns the catalog of the restaurants of the chain.
+     * <p>
+     * The catalog is loaded once, with the same cache policy as the restaurant details, and
+     * indexed on the I/O executor. Filters then run on the in-memory indexes.
+     * </p>
      *
-     * This method will make a network call using the provided {@link RestaurantApi} instance
-     * to fetch restaurant data. Note that error handling and any transformations on the data
-     * would need to be managed.
+     * @return LiveData holding the catalog.
+     */
+    public synchronized LiveData<Resource<RestaurantCatalog>> getCatalog() {
+        if (catalog == null) {
+            catalog = loadCached(catalogLoadTime, CATALOG_KEY, CacheCodecs.RESTAURANTS, CATALOG_TTL_MS, restaurantApi::getRestaurants,
+                    restaurants -> restaurants == null ? null : new RestaurantCatalog(restaurants));
+        }
+        return catalog;
+    }
+
+    /**
+     * Fetches the details of a restaurant.
      *
+     * The cached restaurant is posted first, then a network call is made using the provided
+     * {@link RestaurantApi} instance on the I/O executor if the cached copy has expired. The
+     * returned LiveData ends with the restaurant or the error raised by the call.
      *
+     * @param restaurantId The id of the restaurant.
      * @return LiveData holding the restaurant details.
      */
-    public LiveData<Restaurant> getRestaurant() {
-        return new MutableLiveData<>(restaurantApi.getRestaurant());
+    public LiveData<Resource<Restaurant>> getRestaurant(long restaurantId) {
+        return loadCached(restaurantLoadTime, RESTAURANT_KEY + restaurantId, CacheCodecs.RESTAURANT, RESTAURANT_TTL_MS,
+                () -> restaurantApi.getRestaurant(restaurantId), restaurant -> restaurant);
+    }
+
+    /**
+     * Loads the details of a restaurant on the calling thread, with the cache policy of
+     * {@link #getRestaurant(long)}: each state is handed to the consumer, ending with the
+     * restaurant or the error raised by the call. Blocks on I/O, for callers already running in
+     * the background.
+     *
+     * @param restaurantId The id of the restaurant.
+     * @param consumer     The consumer of the states of the load.
+     */
+    public void loadRestaurant(long restaurantId, Consumer<Resource<Restaurant>> consumer) {
+        long start = metrics.beginSection(restaurantLoadTime);
+        try {
+            loadCached(consumer, RESTAURANT_KEY + restaurantId, CacheCodecs.RESTAURANT, RESTAURANT_TTL_MS,
+                    () -> restaurantApi.getRestaurant(restaurantId), restaurant -> restaurant);
+        } finally {
+            metrics.endSection(restaurantLoadTime, start);
+        }
+    }
+
+    /**
+     * Follows the snapshots of the reviews of a restaurant without LiveData, from any thread.
+     * The listener gets the current snapshot, if any, then each new one; the first call loads
+     * the reviews, as {@link #getReviews(long)} does.
+     *
+     * @param restaurantId The id of the restaurant.
+     * @param listener     The listener of the snapshots, see {@link ReviewStore.Listener}.
+     * @return A handle removing the listener once closed.
+     */
+    public Closeable observeReviews(long restaurantId, ReviewStore.Listener listener) {
+        reviewStore.addListener(restaurantId, listener);
+        loadReviewsOnce(restaurantId);
+        return () -> reviewStore.removeListener(restaurantId, listener);
+    }
+
+    /**
+     * Follows the stats of the reviews of a restaurant without LiveData, from any thread. The
+     * consumer gets the current stats once they are seeded, then each update, or the error of
+     * the load of the reviews; the first call loads the reviews, as
+     * {@link #getReviewStats(long)} does.
+     *
+     * @param restaurantId The id of the restaurant.
+     * @param consumer     The consumer of the stats, called on the thread that changed them.
+     * @return A handle removing the consumer once closed.
+     */
+    public Closeable observeReviewStats(long restaurantId, Consumer<Resource<ReviewStats>> consumer) {
+        ReviewStatsAggregator.Listener listener = stats -> consumer.accept(Resource.success(stats));
+        List<Consumer<Resource<ReviewStats>>> consumers =
+                statsConsumers.computeIfAbsent(restaurantId, id -> new CopyOnWriteArrayList<>());
+        consumers.add(consumer);
+        reviewStore.addStatsListener(restaurantId, listener);
+        loadReviewsOnce(restaurantId);
+        return () -> {
+            reviewStore.removeStatsListener(restaurantId, listener);
+            consumers.remove(consumer);
+        };
+    }
+
+    /**
+     * Returns the reviews of a restaurant, as the stream of snapshots of the {@link ReviewStore}.
+     * <p>
+     * The first call loads the reviews into the store on the I/O executor: the cached reviews
+     * are published at once, then refreshed from the API once they have expired. Every screen
+     * observes the same store, so a review added anywhere is seen everywhere.
+     * </p>
+     *
+     * @param restaurantId The id of the restaurant.
+     * @return LiveData holding the latest snapshot of the reviews.
+     */
+    public LiveData<List<Review>> getReviews(long restaurantId) {
+        loadReviewsOnce(restaurantId);
+        return reviewStore.getReviews(restaurantId);
+    }
+
+    /**
+     * Starts loading the reviews around a position of the snapshots of a restaurant, when they
+     * are loaded page by page: the page is fetched on the I/O executor, then its reviews fill
+     * the placeholders of the latest snapshot, and the callbacks of its {@link PagedReviewList}
+     * are told. Does nothing when the reviews are all in memory.
+     *
+     * @param restaurantId The id of the restaurant.
+     * @param position     The position of a shown review in the latest snapshot.
+     */
+    public void loadReviewsAround(long restaurantId, int position) {
+        reviewStore.loadAround(restaurantId, position);
+    }
+
+    /**
+     * Returns the stats of the reviews of a restaurant.
+     * <p>
+     * The stats are seeded once when the reviews are first loaded into the {@link ReviewStore}.
+     * After that, the store only applies the reviews that changed to the restaurant's
+     * {@link ReviewStatsAggregator}, and each new snapshot is posted to the returned LiveData.
+     * </p>
+     *
+     * @param restaurantId The id of the restaurant.
+     * @return LiveData holding the review stats.
+     */
+    public LiveData<Resource<ReviewStats>> getReviewStats(long restaurantId) {
+        ReviewStatsAggregator aggregator = reviewStore.getStatsAggregator(restaurantId);
+        MutableLiveData<Resource<ReviewStats>> stats = reviewStats.computeIfAbsent(restaurantId, id -> {
+            MutableLiveData<Resource<ReviewStats>> liveData = new MutableLiveData<>();
+            aggregator.addListener(snapshot -> liveData.postValue(Resource.success(snapshot)));
+            return liveData;
+        });
+        if (aggregator.isSeeded()) {
+            stats.setValue(Resource.success(aggregator.getStats()));
+        } else if (stats.getValue() == null) {
+            stats.setValue(Resource.loading(null));
+        }
+        loadReviewsOnce(restaurantId);
+        return stats;
+    }
+
+    /**
+     * Returns the stats of the reviews of a restaurant over the last 30 and 90 days, along with
+     * the lifetime stats and an average favouring the recent reviews.
+     * <p>
+     * The aggregator keeps the reviews counted day by day, so each update recomputes the
+     * analytics in a time that depends on the number of days, not on the number of reviews.
+     * </p>
+     *
+     * @param restaurantId The id of the restaurant.
+     * @return LiveData holding the review analytics.
+     */
+    public LiveData<Resource<ReviewAnalytics>> getReviewAnalytics(long restaurantId) {
+        ReviewStatsAggregator aggregator = reviewStore.getStatsAggregator(restaurantId);
+        MutableLiveData<Resource<ReviewAnalytics>> analytics = reviewAnalytics.computeIfAbsent(restaurantId, id -> {
+            MutableLiveData<Resource<ReviewAnalytics>> liveData = new MutableLiveData<>();
+            aggregator.addListener(snapshot -> liveData.postValue(Resource.success(aggregator.getAnalytics(diskCache.now()))));
+            return liveData;
+        });
+        if (aggregator.isSeeded()) {
+            analytics.setValue(Resource.success(aggregator.getAnalytics(diskCache.now())));
+        } else if (analytics.getValue() == null) {
+            analytics.setValue(Resource.loading(null));
+        }
+        loadReviewsOnce(restaurantId);
+        return analytics;
+    }
+
+    /**
+     * Adds a review written by the user to the {@link ReviewStore}, which updates the review
+     * list and the stats of every screen, then appends it to the {@link ReviewLog} on the I/O
+     * executor so that it survives the process, and schedules a sync to upload it.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param review       the new review
+     */
+    public void addReview(long restaurantId, Review review) {
+        reviewStore.addReview(restaurantId, review);
+        ioExecutor.execute(() -> {
+            // Replayed first, so that the log does not restore this review a second time
+            restoreLogOnce();
+            try {
+                reviewLog.append(restaurantId, review);
+            } catch (IOException e) {
+                // The review is still shown for this session, it will not be restored nor uploaded
+                return;
+            }
+            scheduleSync(restaurantId);
+        });
+    }
+
+    /**
+     * Saves a review written by the user: appends it to the {@link ReviewLog}, then adds it to
+     * the {@link ReviewStore}, which updates the review list and the stats of every screen, and
+     * schedules a sync to upload it.
+     * <p>
+     * Unlike {@link #addReview(long, Review)}, all of it runs on the calling thread, a background
+     * one, and the review is only shown once persisted. A review whose id is already in the log
+     * is skipped, so saving it again after a retry has no effect.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param review       the new review
+     * @return true if the review was saved, false if the log already held it
+     * @throws IOException if the review could not be appended to the log
+     */
+    @Override
+    public boolean saveReview(long restaurantId, Review review) throws IOException {
+        // Replayed first, so that the log does not restore this review a second time
+        restoreLogOnce();
+        synchronized (reviewLog) {
+            if (reviewLog.contains(review.getId())) return false;
+            reviewLog.append(restaurantId, review);
+        }
+        reviewStore.addReview(restaurantId, review);
+        scheduleSync(restaurantId);
+        return true;
+    }
+
+    /**
+     * Returns the state of the background sync of the reviews of a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return LiveData holding the latest sync state
+     */
+    public LiveData<SyncState> getSyncState(long restaurantId) {
+        return syncStateLiveData(restaurantId);
+    }
+
+    /**
+     * Asks for the reviews of a restaurant to be synced in the background. The requests made
+     * before the sync starts are coalesced into a single sync.
+     *
+     * @param restaurantId the id of the restaurant
+     */
+    public void requestSync(long restaurantId) {
+        ioExecutor.execute(() -> scheduleSync(restaurantId));
+    }
+
+    /**
+     * Syncs the reviews of a restaurant with the server, on the calling thread. Called by the
+     * background sync, it must be called off the main thread.
+     * <p>
+     * The reviews of the {@link ReviewLog} not uploaded yet are posted first, each one marked as
+     * uploaded once the server has it: an interrupted sync only posts the others again, and the
+     * server ignores a review posted twice. The reviews changed on the server are then downloaded
+     * from the cursor saved by the last sync, {@link #SYNC_BATCH_SIZE} at a time, and handed to
+     * {@link #receiveReviews(long, Collection)}. Each batch is applied to the cached reviews
+     * before the cursor is saved in the {@link SyncCursors}, so a sync resumes where the previous
+     * one stopped, and the cache holds every change up to the cursor. A change downloaded again
+     * after an interrupted sync replaces the review by id, it is never shown twice.
+     * </p>
+     * <p>
+     * The reviews written on this device come back from the server, and are skipped. While the
+     * reviews of the restaurant are not in the store, the changes only go to the cache, which
+     * the next load reads. Before the first load, the sync only moves the cursor to the end of
+     * the feed: the load fetches them all, and saves the cursor of the feed it was fetched at.
+     * </p>
+     * <p>
+     * The reviews of a restaurant loaded page by page are loaded again from their first page
+     * after a sync that changed them, along with their stats: the new reviews are then at the
+     * top of the pages, which hold the reviews written on this device once uploaded.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @throws IOException if the log cannot be read or the cursor cannot be saved
+     * @throws RuntimeException if the API call fails
+     */
+    public void syncReviews(long restaurantId) throws IOException {
+        updateSyncState(restaurantId, SyncState::running);
+        long start = metrics.beginSection(syncTime);
+        try {
+            int uploaded = uploadReviews(restaurantId);
+            int received = downloadChanges(restaurantId);
+            if ((uploaded > 0 || received > 0) && reviewStore.isPaged(restaurantId)) {
+                // The pages of the server moved: the list and its stats start again from the first page
+                loadPagedReviews(restaurantId);
+            }
+            syncUploads.add(uploaded);
+            syncDownloads.add(received);
+            updateSyncState(restaurantId, state -> SyncState.succeeded(uploaded, received, diskCache.now()));
+        } catch (IOException | RuntimeException e) {
+            updateSyncState(restaurantId, state -> state.failed(e));
+            throw e;
+        } finally {
+            metrics.endSection(syncTime, start);
+        }
+    }
+
+    /**
+     * Adds reviews received from elsewhere than the user, such as a sync or an import.
+     * <p>
+     * The reviews go through the {@link ReviewBatcher}: a burst reaches the screens as a few
+     * batches, each one publishing a single snapshot and a single stats update.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant of the reviews
+     * @param reviews      the received reviews, oldest first
+     */
+    public void receiveReviews(long restaurantId, Collection<Review> reviews) {
+        reviewBatcher.submitAll(restaurantId, reviews);
+    }
+
+    /**
+     * Searches the comments of the reviews of a restaurant, on the I/O executor.
+     * <p>
+     * The words of the query must all appear in a comment, accents and case ignored; a word
+     * ending with {@code *} matches every word starting with it. The results are ranked by
+     * relevance, then by rate.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param query        the words to look for
+     * @param cursor       the rank of the first result, 0 for the first page
+     * @param pageSize     the maximum number of results of the page
+     * @return LiveData holding the page of results
+     */
+    public LiveData<Resource<ReviewPage>> searchReviews(long restaurantId, String query, int cursor, int pageSize) {
+        MutableLiveData<Resource<ReviewPage>> result = new MutableLiveData<>(Resource.loading(null));
+        loadReviewsOnce(restaurantId);
+        ioExecutor.execute(() -> {
+            try {
+                // The reviews loaded page by page are not all in memory: the server searches them
+                ReviewPage page = reviewStore.isPaged(restaurantId)
+                        ? restaurantApi.searchReviews(restaurantId, query, cursor, pageSize)
+                        : reviewStore.search(restaurantId, query, cursor, pageSize);
+                result.postValue(Resource.success(page));
+            } catch (RuntimeException e) {
+                result.postValue(Resource.error(e, null));
+            }
+        });
+        return result;
+    }
+
+    // Schedules a sync, on the I/O executor.
+    private void scheduleSync(long restaurantId) {
+        updateSyncState(restaurantId, SyncState::pending);
+        syncScheduler.requestSync(restaurantId);
+    }
+
+    // Posts the reviews of the log not uploaded yet. Returns the number of reviews posted.
+    private int uploadReviews(long restaurantId) throws IOException {
+        List<Review> pending = reviewLog.pendingUploads(restaurantId);
+        for (Review review : pending) {
+            restaurantApi.postReview(restaurantId, review);
+            reviewLog.markUploaded(restaurantId, review);
+        }
+        return pending.size();
+    }
+
+    // Downloads the changes following the saved cursor. Returns the number of reviews received.
+    private int downloadChanges(long restaurantId) throws IOException {
+        Long saved = syncCursors.get(restaurantId);
+        if (saved == null) {
+            // Follows the feed from now on, the reviews up to here come with the first load
+            syncCursors.put(restaurantId, restaurantApi.getReviewChanges(restaurantId, ReviewChanges.HEAD, 0).getCursor());
+            return 0;
+        }
+        long cursor = saved;
+        int received = 0;
+        ReviewChanges changes;
+        do {
+            changes = restaurantApi.getReviewChanges(restaurantId, cursor, SYNC_BATCH_SIZE);
+            List<Review> reviews = new ArrayList<>(changes.getReviews().size());
+            for (Review review : changes.getReviews()) {
+                if (!reviewLog.contains(review.getId())) reviews.add(review);
+            }
+            persistChanges(restaurantId, reviews);
+            if (reviewsRequested.contains(restaurantId)) receiveReviews(restaurantId, reviews);
+            received += reviews.size();
+            cursor = changes.getCursor();
+            syncCursors.put(restaurantId, cursor);
+        } while (changes.hasMore());
+        return received;
+    }
+
+    // Applies received reviews to the cached ones, edits in place and new reviews on top. Without
+    // cached reviews, there is nothing to update: the next load fetches them all.
+    private void persistChanges(long restaurantId, List<Review> reviews) throws IOException {
+        if (reviews.isEmpty()) return;
+        String key = REVIEWS_KEY + restaurantId;
+        DiskCache.Entry<List<Review>> cached = diskCache.read(key, CacheCodecs.REVIEWS);
+        if (cached == null) return;
+        ReviewEdits edits = new ReviewEdits(reviews);
+        List<Review> edited = edits.applyTo(cached.getValue());
+        List<Review> newReviews = edits.getNew();
+        List<Review> updated = new ArrayList<>(newReviews.size() + edited.size());
+        for (int i = newReviews.size() - 1; i >= 0; i--) {
+            updated.add(newReviews.get(i));
+        }
+        updated.addAll(edited);
+        diskCache.write(key, CacheCodecs.REVIEWS, updated);
+    }
+
+    private MutableLiveData<SyncState> syncStateLiveData(long restaurantId) {
+        return syncStateLiveData.computeIfAbsent(restaurantId,
+                id -> new MutableLiveData<>(syncStates.getOrDefault(id, SyncState.IDLE)));
+    }
+
+    // Applies an update to the sync state of a restaurant and posts the result.
+    private void updateSyncState(long restaurantId, UnaryOperator<SyncState> update) {
+        syncStates.compute(restaurantId, (id, state) -> {
+            SyncState next = update.apply(state == null ? SyncState.IDLE : state);
+            syncStateLiveData(id).postValue(next);
+            return next;
+        });
+    }
+
+    // Starts loading the reviews of a restaurant into the store, the first time only, then
+    // schedules a sync to follow their changes.
+    private void loadReviewsOnce(long restaurantId) {
+        if (reviewsRequested.add(restaurantId)) {
+            ioExecutor.execute(() -> {
+                long start = metrics.beginSection(reviewsLoadTime);
+                try {
+                    loadReviews(restaurantId);
+                } finally {
+                    metrics.endSection(reviewsLoadTime, start);
+                }
+                scheduleSync(restaurantId);
+            });
+        }
+    }
+
+    // Publishes the cached reviews, then refreshes them from the API once expired. Without
+    // cached reviews, too many reviews are loaded page by page. A refresh moves the sync cursor
+    // to the point of the feed the reviews were fetched at.
+    private void loadReviews(long restaurantId) {
+        restoreLogOnce();
+        String key = REVIEWS_KEY + restaurantId;
+        DiskCache.Entry<List<Review>> cached = diskCache.read(key, CacheCodecs.REVIEWS);
+        List<Review> cachedReviews = cached == null ? null : cached.getValue();
+        if (cachedReviews != null) {
+            reviewStore.setRemoteReviews(restaurantId, withoutLoggedReviews(cachedReviews));
+            if (!cached.isExpired(REVIEWS_TTL_MS, diskCache.now())) {
+                cacheHits.increment();
+                return;
+            }
+        }
+        try {
+            // Taken first: the changes made during the fetch are downloaded again by the next sync
+            long head = restaurantApi.getReviewChanges(restaurantId, ReviewChanges.HEAD, 0).getCursor();
+            if (cachedReviews == null && loadPagedReviews(restaurantId)) {
+                syncCursors.put(restaurantId, head);
+                return;
+            }
+            List<Review> reviews = refresh(key, CacheCodecs.REVIEWS, () -> restaurantApi.getReviews(restaurantId), cachedReviews);
+            syncCursors.put(restaurantId, head);
+            // The store ignores the refresh when nothing changed
+            reviewStore.setRemoteReviews(restaurantId, withoutLoggedReviews(reviews));
+        } catch (Exception e) {
+            if (cachedReviews == null) {
+                MutableLiveData<Resource<ReviewStats>> stats = reviewStats.get(restaurantId);
+                if (stats != null) stats.postValue(Resource.error(e, null));
+                MutableLiveData<Resource<ReviewAnalytics>> analytics = reviewAnalytics.get(restaurantId);
+                if (analytics != null) analytics.postValue(Resource.error(e, null));
+                List<Consumer<Resource<ReviewStats>>> consumers = statsConsumers.get(restaurantId);
+                if (consumers != null) {
+                    for (Consumer<Resource<ReviewStats>> consumer : consumers) consumer.accept(Resource.error(e, null));
+                }
+                // The next observer will try again
+                reviewsRequested.remove(restaurantId);
+            }
+        }
+    }
+
+    // Loads the reviews of a restaurant as a PagedReviewList if they are too many to be held in
+    // memory, with the stats computed by the server, and tells whether it did. Only the first
+    // page is fetched, the others as they are shown. The pages are never cached on disk.
+    private boolean loadPagedReviews(long restaurantId) {
+        ReviewPage firstPage;
+        ReviewSummary summary;
+        try {
+            apiCalls.increment();
+            firstPage = restaurantApi.getReviews(restaurantId, 0, REVIEW_PAGE_SIZE);
+            if (firstPage.getTotalCount() < PAGED_REVIEWS_MIN_COUNT) return false;
+            apiCalls.increment();
+            summary = restaurantApi.getReviewSummary(restaurantId);
+        } catch (RuntimeException e) {
+            apiErrors.increment();
+            throw e;
+        }
+        PagedReviewList reviews = PagedReviewList.of(restaurantApi, restaurantId, REVIEW_PAGE_SIZE, firstPage,
+                MAX_CACHED_REVIEW_PAGES, ioExecutor, reviewStore.getAuthorRegistry());
+        reviewStore.setPagedReviews(restaurantId, reviews, summary, uploadedReviews(restaurantId));
+        return true;
+    }
+
+    // Tells which reviews written on this device the server holds: the ones of the log that were
+    // uploaded. A log that cannot be read restored nothing, and holds none of them.
+    private LongPredicate uploadedReviews(long restaurantId) {
+        Set<Long> pending = new HashSet<>();
+        try {
+            for (Review review : reviewLog.pendingUploads(restaurantId)) pending.add(review.getId());
+        } catch (IOException e) {
+            return id -> false;
+        }
+        return id -> !pending.contains(id) && isLogged(id);
+    }
+
+    // Whether a review was written on this device, the log restoring it. A log that cannot be
+    // read restored nothing either.
+    private boolean isLogged(long reviewId) {
+        try {
+            return reviewLog.contains(reviewId);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // The received reviews without the ones written on this device, which the log restores.
+    // Copies the list only if it holds some of them.
+    private List<Review> withoutLoggedReviews(List<Review> reviews) {
+        try {
+            List<Review> kept = null;
+            for (int i = 0, size = reviews.size(); i < size; i++) {
+                Review review = reviews.get(i);
+                boolean logged = reviewLog.contains(review.getId());
+                if (logged && kept == null) kept = new ArrayList<>(reviews.subList(0, i));
+                if (!logged && kept != null) kept.add(review);
+            }
+            return kept == null ? reviews : kept;
+        } catch (IOException e) {
+            // The log cannot be read, so it restored nothing either
+            return reviews;
+        }
+    }
+
+    // Restores the reviews of every restaurant written in the previous sessions, the first time only.
+    private void restoreLogOnce() {
+        synchronized (reviewLog) {
+            if (logRestored) return;
+            logRestored = true;
+            try {
+                for (Map.Entry<Long, ColumnarReviewList> entry : reviewLog.replay(reviewStore.getAuthorRegistry()).entrySet()) {
+                    reviewStore.restoreReviews(entry.getKey(), entry.getValue());
+                }
+            } catch (IOException e) {
+                // The log cannot be read: only the received reviews are shown
+            }
+        }
+    }
+
+    // Serves the cached entity at once, then refreshes it on the I/O executor once expired.
+    // The mapper turns the entity into the published value, off the main thread. The whole
+    // load is timed into the given histogram.
+    private <T, R> LiveData<Resource<R>> loadCached(Histogram loadTime, String key, DiskCache.Codec<T> codec,
+                                                    long ttlMillis, Callable<T> call, Function<T, R> mapper) {
+        MutableLiveData<Resource<R>> result = new MutableLiveData<>(Resource.loading(null));
+        ioExecutor.execute(() -> {
+            long start = metrics.beginSection(loadTime);
+            try {
+                loadCached(result::postValue, key, codec, ttlMillis, call, mapper);
+            } finally {
+                metrics.endSection(loadTime, start);
+            }
+        });
+        return result;
+    }
+
+    private <T, R> void loadCached(Consumer<Resource<R>> result, String key, DiskCache.Codec<T> codec,
+                                   long ttlMillis, Callable<T> call, Function<T, R> mapper) {
+        DiskCache.Entry<T> cached = diskCache.read(key, codec);
+        R cachedValue = cached == null ? null : mapper.apply(cached.getValue());
+        if (cached != null && !cached.isExpired(ttlMillis, diskCache.now())) {
+            cacheHits.increment();
+            result.accept(Resource.success(cachedValue));
+            return;
+        }
+        result.accept(Resource.loading(cachedValue));
+        try {
+            T freshValue = refresh(key, codec, call, cached == null ? null : cached.getValue());
+            // Nothing changed: the cached value is published again rather than rebuilt
+            boolean unchanged = cached != null && freshValue == cached.getValue();
+            result.accept(Resource.success(unchanged ? cachedValue : mapper.apply(freshValue)));
+        } catch (Exception e) {
+            result.accept(Resource.error(e, cachedValue));
+        }
+    }
+
+    // Calls the API and stores the result. Returns the cached instance itself when nothing changed.
+    private <T> T refresh(String key, DiskCache.Codec<T> codec, Callable<T> call, T cachedValue) throws Exception {
+        T freshValue;
+        apiCalls.increment();
+        try {
+            freshValue = call.call();
+        } catch (Exception e) {
+            apiErrors.increment();
+            throw e;
+        }
+        if (freshValue.equals(cachedValue)) {
+            diskCache.touch(key);
+            return cachedValue;
+        }
+        try {
+            diskCache.write(key, codec, freshValue);
+        } catch (IOException e) {
+            // The fresh value is still returned, the cache will be written on the next refresh
+            diskCache.remove(key);
+        }
+        return freshValue;
     }
 
 }
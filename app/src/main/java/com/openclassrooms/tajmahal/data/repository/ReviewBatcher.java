@@ -0,0 +1,118 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the reviews arriving in bursts before they reach the {@link ReviewStore}.
+ * <p>
+ * A sync after coming back online or an import of moderation results can deliver hundreds of
+ * reviews at once. Added one by one, each of them would publish its own snapshot and stats,
+ * and cost the RecyclerView a diff and a layout pass. The batcher instead collects the reviews
+ * for a short window, or until a size limit is reached, then applies them to the store as a
+ * single transaction: one snapshot and one stats update per batch and per restaurant.
+ * </p>
+ * The window starts with the first review of a batch, so a review waits at most one window.
+ * The batcher is thread-safe, and batches reach the store in the order the reviews arrived.
+ */
+public class ReviewBatcher {
+
+    private final ReviewStore reviewStore;
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final int maxBatchSize;
+
+    // Pending reviews by restaurant id, in arrival order.
+    private Map<Long, List<Review>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+    private ScheduledFuture<?> scheduledFlush;
+
+    /**
+     * Constructs a new ReviewBatcher.
+     *
+     * @param reviewStore  the store receiving the batches
+     * @param scheduler    the executor running the flush at the end of the window
+     * @param windowMillis the maximum time a review waits for other reviews, in milliseconds
+     * @param maxBatchSize the number of reviews flushing a batch at once
+     */
+    public ReviewBatcher(ReviewStore reviewStore, ScheduledExecutorService scheduler, long windowMillis, int maxBatchSize) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        this.reviewStore = reviewStore;
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Queues a review for the current batch.
+     *
+     * @param restaurantId the id of the restaurant of the review
+     * @param review       the received review
+     */
+    public synchronized void submit(long restaurantId, Review review) {
+        List<Review> reviews = pending.get(restaurantId);
+        if (reviews == null) {
+            reviews = new ArrayList<>();
+            pending.put(restaurantId, reviews);
+        }
+        reviews.add(review);
+        pendingCount++;
+        if (pendingCount >= maxBatchSize) {
+            flushLocked();
+        } else if (scheduledFlush == null) {
+            // The window starts with the first review of the batch
+            scheduledFlush = scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues several reviews, in the order they were received.
+     *
+     * @param restaurantId the id of the restaurant of the reviews
+     * @param reviews      the received reviews
+     */
+    public synchronized void submitAll(long restaurantId, Collection<Review> reviews) {
+        for (Review review : reviews) {
+            submit(restaurantId, review);
+        }
+    }
+
+    /**
+     * Applies the pending reviews to the store now, without waiting for the end of the window.
+     */
+    public synchronized void flush() {
+        flushLocked();
+    }
+
+    /**
+     * Returns the number of reviews waiting for the next flush.
+     *
+     * @return the size of the current batch
+     */
+    public synchronized int getPendingCount() {
+        return pendingCount;
+    }
+
+    // Batches are applied under the lock, so they reach the store in the order they were taken.
+    private void flushLocked() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (pendingCount == 0) return;
+        Map<Long, List<Review>> batches = pending;
+        pending = new LinkedHashMap<>();
+        pendingCount = 0;
+        for (Map.Entry<Long, List<Review>> batch : batches.entrySet()) {
+            reviewStore.addReviews(batch.getKey(), batch.getValue());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The reviews removed and added between two versions of a list of reviews.
+ * <p>
+ * The reviews are matched by id, then compared: a review whose id is kept but whose content
+ * changed counts as removed, then added. Only the reviews that changed are materialized. The old
+ * list is indexed by id in primitive arrays, and two {@link ColumnarReviewList} are compared
+ * over their columns, so diffing two large lists neither builds a Review per row nor keeps
+ * Review objects as map keys.
+ * </p>
+ */
+final class ReviewDiff {
+
+    private final List<Review> removed;
+    private final List<Review> added;
+    private final boolean unchanged;
+
+    private ReviewDiff(List<Review> removed, List<Review> added, boolean unchanged) {
+        this.removed = removed;
+        this.added = added;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Compares two versions of a list of reviews.
+     *
+     * @param oldReviews the previous version
+     * @param newReviews the new version
+     * @return the changes from the previous version to the new one
+     */
+    static ReviewDiff between(List<Review> oldReviews, List<Review> newReviews) {
+        IdIndex index = new IdIndex(oldReviews);
+        BitSet matched = new BitSet(oldReviews.size());
+        List<Review> added = new ArrayList<>();
+        boolean inPlace = oldReviews.size() == newReviews.size();
+        for (int i = 0, size = newReviews.size(); i < size; i++) {
+            int match = index.find(idAt(newReviews, i), newReviews, i, matched);
+            if (match < 0) {
+                added.add(newReviews.get(i));
+                inPlace = false;
+            } else {
+                matched.set(match);
+                inPlace &= match == i;
+            }
+        }
+        List<Review> removed = new ArrayList<>();
+        for (int j = matched.nextClearBit(0); j < oldReviews.size(); j = matched.nextClearBit(j + 1)) {
+            removed.add(oldReviews.get(j));
+        }
+        return new ReviewDiff(removed, added, inPlace && removed.isEmpty());
+    }
+
+    /**
+     * Returns the reviews of the previous version missing from the new one.
+     *
+     * @return the removed reviews, in the order of the previous version
+     */
+    List<Review> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Returns the reviews of the new version missing from the previous one.
+     *
+     * @return the added reviews, in the order of the new version
+     */
+    List<Review> getAdded() {
+        return added;
+    }
+
+    /**
+     * Tells whether both versions hold the same reviews in the same order.
+     *
+     * @return true if nothing changed
+     */
+    boolean isUnchanged() {
+        return unchanged;
+    }
+
+    private static long idAt(List<Review> reviews, int index) {
+        if (reviews instanceof ColumnarReviewList) return ((ColumnarReviewList) reviews).idAt(index);
+        return reviews.get(index).getId();
+    }
+
+    private static boolean sameReview(List<Review> reviews, int index, List<Review> others, int otherIndex) {
+        if (reviews instanceof ColumnarReviewList && others instanceof ColumnarReviewList) {
+            return ((ColumnarReviewList) reviews).sameReviewAt(index, (ColumnarReviewList) others, otherIndex);
+        }
+        return reviews.get(index).equals(others.get(otherIndex));
+    }
+
+    // Positions of the reviews of a list by id, in open addressing. A list may hold several
+    // reviews with the same id: each one has its own slot.
+    private static final class IdIndex {
+        private final List<Review> reviews;
+        private final long[] ids;
+        // Position of the review plus one, 0 for a free slot
+        private final int[] positions;
+        private final int mask;
+
+        IdIndex(List<Review> reviews) {
+            this.reviews = reviews;
+            int capacity = 2;
+            while (capacity < 2 * reviews.size()) capacity <<= 1;
+            ids = new long[capacity];
+            positions = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0, size = reviews.size(); i < size; i++) {
+                long id = idAt(reviews, i);
+                int slot = slotOf(id);
+                while (positions[slot] != 0) slot = (slot + 1) & mask;
+                ids[slot] = id;
+                positions[slot] = i + 1;
+            }
+        }
+
+        // A position not matched yet of a review equal to the given one, or -1
+        int find(long id, List<Review> others, int otherIndex, BitSet matched) {
+            for (int slot = slotOf(id); positions[slot] != 0; slot = (slot + 1) & mask) {
+                if (ids[slot] != id) continue;
+                int position = positions[slot] - 1;
+                if (!matched.get(position) && sameReview(reviews, position, others, otherIndex)) return position;
+            }
+            return -1;
+        }
+
+        private int slotOf(long id) {
+            return Long.hashCode(id * 0x9E3779B97F4A7C15L) & mask;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A batch of received reviews applied by id to the lists already holding reviews.
+ * <p>
+ * A received review whose id is already in a list is an edit: {@link #applyTo(List)} replaces
+ * the previous version in place, and records both versions. The reviews whose id was found in
+ * none of the lists are new, see {@link #getNew()}. When a batch holds several versions of a
+ * review, only the last one is kept.
+ * </p>
+ * A {@link ColumnarReviewList} is copied column by column, without materializing its reviews.
+ * An instance is used by one thread at a time.
+ */
+final class ReviewEdits {
+
+    // Last version of each review of the batch, in the order of the last versions.
+    private final Map<Long, Review> latest = new LinkedHashMap<>();
+    // Ids of the batch, sorted: the lists are scanned without boxing their ids.
+    private final long[] ids;
+    private final Set<Long> found = new HashSet<>();
+    private final List<Review> replaced = new ArrayList<>();
+    private final List<Review> replacing = new ArrayList<>();
+
+    /**
+     * Constructs the edits of a batch.
+     *
+     * @param batch the received reviews, oldest first
+     */
+    ReviewEdits(List<Review> batch) {
+        for (Review review : batch) {
+            // Removed first, so that a review moves to the place of its last version
+            latest.remove(review.getId());
+            latest.put(review.getId(), review);
+        }
+        ids = new long[latest.size()];
+        int i = 0;
+        for (long id : latest.keySet()) ids[i++] = id;
+        Arrays.sort(ids);
+    }
+
+    /**
+     * Replaces the previous versions of the reviews of the batch in a list.
+     *
+     * @param reviews the list, never modified
+     * @return a copy of the list with the new versions, or the list itself if it holds none of
+     *         the reviews of the batch
+     */
+    List<Review> applyTo(List<Review> reviews) {
+        int first = indexOfEdited(reviews, 0);
+        if (first < 0) return reviews;
+        if (reviews instanceof ColumnarReviewList) {
+            ColumnarReviewList columns = (ColumnarReviewList) reviews;
+            ColumnarReviewList.Builder builder = new ColumnarReviewList.Builder(columns.size(), columns.getRegistry());
+            for (int i = 0, size = columns.size(); i < size; i++) {
+                long id = columns.idAt(i);
+                if (Arrays.binarySearch(ids, id) < 0) {
+                    builder.addFrom(columns, i);
+                } else {
+                    Review edited = latest.get(id);
+                    replace(columns.get(i), edited);
+                    builder.add(edited);
+                }
+            }
+            return builder.build();
+        }
+        List<Review> copy = new ArrayList<>(reviews);
+        for (int i = first; i >= 0; i = indexOfEdited(reviews, i + 1)) {
+            Review edited = latest.get(reviews.get(i).getId());
+            replace(reviews.get(i), edited);
+            copy.set(i, edited);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Returns the previous versions replaced so far.
+     *
+     * @return the replaced reviews, in the order they were found
+     */
+    List<Review> getReplaced() {
+        return replaced;
+    }
+
+    /**
+     * Returns the new versions placed so far, one per replaced review.
+     *
+     * @return the replacing reviews, in the order of {@link #getReplaced()}
+     */
+    List<Review> getReplacing() {
+        return replacing;
+    }
+
+    /**
+     * Returns the reviews of the batch whose id was found in none of the lists given to
+     * {@link #applyTo(List)}.
+     *
+     * @return the new reviews, oldest first
+     */
+    List<Review> getNew() {
+        List<Review> added = new ArrayList<>(latest.size() - found.size());
+        for (Review review : latest.values()) {
+            if (!found.contains(review.getId())) added.add(review);
+        }
+        return added;
+    }
+
+    private void replace(Review previous, Review edited) {
+        found.add(edited.getId());
+        replaced.add(previous);
+        replacing.add(edited);
+    }
+
+    // The position of the first review of the batch from a position, or -1.
+    private int indexOfEdited(List<Review> reviews, int from) {
+        ColumnarReviewList columns = reviews instanceof ColumnarReviewList ? (ColumnarReviewList) reviews : null;
+        for (int i = from, size = reviews.size(); i < size; i++) {
+            long id = columns != null ? columns.idAt(i) : reviews.get(i).getId();
+            if (Arrays.binarySearch(ids, id) >= 0) return i;
+        }
+        return -1;
+    }
+}
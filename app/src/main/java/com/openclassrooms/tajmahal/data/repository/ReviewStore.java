@@ -0,0 +1,505 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.ConcatenatedReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewList;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.search.ReviewSearchIndex;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
+import com.openclassrooms.tajmahal.domain.stats.ReviewSummary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongPredicate;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * The single in-memory copy of the reviews of the restaurants, shared by every screen.
+ * <p>
+ * The reviews are keyed by the id of their restaurant. For each restaurant, the store holds
+ * the reviews received from the repository's data sources and the reviews written by the user,
+ * newest first. Every change publishes a new immutable snapshot of the whole list to
+ * {@link #getReviews(long)} and updates the restaurant's {@link ReviewStatsAggregator} with only
+ * the reviews that changed, so a single write reaches both the review list and the stats.
+ * </p>
+ * <p>
+ * The snapshots are {@link ReviewList} instances: adding a review prepends it in O(1) and
+ * shares the rest of the list with the previous snapshot, nothing is copied.
+ * </p>
+ * <p>
+ * Large sets of received reviews are stored as a {@link ColumnarReviewList}: primitive columns
+ * instead of one object per review, the reviews being materialized only when the list is read.
+ * The stats of such a set are seeded from its rate column.
+ * </p>
+ * <p>
+ * The reviews of a restaurant with too many of them to be held in memory are received as a
+ * {@link PagedReviewList}, which only holds the pages around the viewport, with the stats
+ * computed by the server, see {@link #setPagedReviews(long, PagedReviewList, ReviewSummary, LongPredicate)}.
+ * {@link #loadAround(long, int)} loads its pages, which only fill the placeholders of the
+ * published snapshot: no new snapshot is published, the list tells the range of each page to
+ * its {@link PagedReviewList.Callback callbacks}.
+ * </p>
+ * <p>
+ * The authors of every review held by the store are interned in its {@link AuthorRegistry}: the
+ * reviews given to the store are copied with the interned author when theirs comes from another
+ * registry or from none. The registry lives as long as the store, and its avatar ids identify
+ * the pictures of every snapshot.
+ * </p>
+ * <p>
+ * The reviews written on this device in a previous session are restored with
+ * {@link #restoreReviews(long, List)}, between the reviews written in this session and the
+ * received ones.
+ * </p>
+ * <p>
+ * The comments of a restaurant are indexed for {@link #search(long, String, int, int)} on its
+ * first search only. From then on the {@link ReviewSearchIndex} follows the same changes as the
+ * stats, so it is never rebuilt.
+ * </p>
+ * <p>
+ * Besides LiveData, the snapshots and the stats can be followed from any thread with
+ * {@link #addListener(long, Listener)} and {@link #addStatsListener(long, ReviewStatsAggregator.Listener)}.
+ * </p>
+ * The store is thread-safe: it is written from the I/O executor and read from the main thread.
+ */
+@Singleton
+public class ReviewStore {
+
+    /**
+     * Receives the snapshots of the reviews of a restaurant.
+     */
+    public interface Listener {
+        /**
+         * Called with each new snapshot, on the thread that changed the reviews, while the
+         * store is locked: implementations must return quickly.
+         *
+         * @param snapshot the new immutable list of the reviews, newest first
+         */
+        void onReviewsChanged(List<Review> snapshot);
+    }
+
+    // The reviews of one restaurant; guarded by the instance itself.
+    private static final class RestaurantReviews {
+        final ReviewStatsAggregator aggregator = new ReviewStatsAggregator();
+        final MutableLiveData<List<Review>> reviews = new MutableLiveData<>();
+        final List<Listener> listeners = new CopyOnWriteArrayList<>();
+        // Whether a snapshot was published, the empty list before being only a placeholder
+        boolean published;
+
+        // Reviews written by the user in this session, newest first, followed by the restored
+        // reviews and the reviews received from the API or the cache, in display order. Also
+        // read without the lock by loadAround().
+        volatile ReviewList snapshot = ReviewList.empty();
+        List<Review> restored = Collections.emptyList();
+        List<Review> remote = Collections.emptyList();
+        boolean remoteLoaded;
+        // Created by the first search
+        ReviewSearchIndex searchIndex;
+    }
+
+    /** Number of received reviews from which they are stored in columns. */
+    static final int COLUMNAR_MIN_SIZE = 1000;
+
+    private final Map<Long, RestaurantReviews> restaurants = new ConcurrentHashMap<>();
+    private final AuthorRegistry authorRegistry;
+
+    /**
+     * Constructs a new ReviewStore with a registry of authors of its own.
+     */
+    public ReviewStore() {
+        this(new AuthorRegistry());
+    }
+
+    /**
+     * Constructs a new ReviewStore.
+     *
+     * @param authorRegistry the registry interning the authors of the reviews of the store
+     */
+    @Inject
+    public ReviewStore(AuthorRegistry authorRegistry) {
+        this.authorRegistry = authorRegistry;
+    }
+
+    /**
+     * Returns the registry interning the authors of the reviews of the store. The lists built
+     * over it, such as the restored reviews, are stored without being copied.
+     *
+     * @return the registry of the store
+     */
+    public AuthorRegistry getAuthorRegistry() {
+        return authorRegistry;
+    }
+
+    /**
+     * Returns the stream of snapshots of the reviews of a restaurant. Each snapshot is an
+     * unmodifiable list that never changes once published.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return LiveData holding the latest snapshot
+     */
+    public LiveData<List<Review>> getReviews(long restaurantId) {
+        return reviewsOf(restaurantId).reviews;
+    }
+
+    /**
+     * Registers a listener of the snapshots of the reviews of a restaurant. The listener first
+     * gets the current snapshot, if one was published, then every new one, so it never misses
+     * nor reorders a change.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param listener     the listener to add
+     */
+    public void addListener(long restaurantId, Listener listener) {
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            entry.listeners.add(listener);
+            if (entry.published) listener.onReviewsChanged(entry.snapshot);
+        }
+    }
+
+    /**
+     * Removes a listener added by {@link #addListener(long, Listener)}.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param listener     the listener to remove
+     */
+    public void removeListener(long restaurantId, Listener listener) {
+        reviewsOf(restaurantId).listeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener of the stats of the reviews of a restaurant. The listener first gets
+     * the current stats, if they are seeded, then every update. The stats only change while the
+     * store is locked, so no update can come between the two.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param listener     the listener to add
+     */
+    public void addStatsListener(long restaurantId, ReviewStatsAggregator.Listener listener) {
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            entry.aggregator.addListener(listener);
+            if (entry.aggregator.isSeeded()) listener.onStatsChanged(entry.aggregator.getStats());
+        }
+    }
+
+    /**
+     * Removes a listener added by {@link #addStatsListener(long, ReviewStatsAggregator.Listener)}.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param listener     the listener to remove
+     */
+    public void removeStatsListener(long restaurantId, ReviewStatsAggregator.Listener listener) {
+        reviewsOf(restaurantId).aggregator.removeListener(listener);
+    }
+
+    /**
+     * Returns the aggregator maintaining the stats of the reviews of a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the aggregator, seeded once the reviews of the restaurant are first loaded
+     */
+    public ReviewStatsAggregator getStatsAggregator(long restaurantId) {
+        return reviewsOf(restaurantId).aggregator;
+    }
+
+    /**
+     * Returns the latest snapshot of the reviews of a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return an immutable list, newest reviews first
+     */
+    public List<Review> getSnapshot(long restaurantId) {
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            return entry.snapshot;
+        }
+    }
+
+    /**
+     * Replaces the reviews of a restaurant received from the data sources. The first call seeds
+     * the stats; the next ones only apply the reviews that were removed or added.
+     *
+     * @param restaurantId     the id of the restaurant
+     * @param newRemoteReviews the reviews of the restaurant, in display order
+     */
+    public void setRemoteReviews(long restaurantId, List<Review> newRemoteReviews) {
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            List<Review> stored = internAll(newRemoteReviews);
+            ReviewList updated = entry.snapshot.withOlder(ConcatenatedReviewList.of(entry.restored, stored));
+            if (!entry.aggregator.isSeeded()) {
+                entry.aggregator.seed(updated);
+                if (entry.searchIndex != null) indexOldestFirst(entry.searchIndex, stored);
+            } else if (entry.remote instanceof PagedReviewList) {
+                // The stats came from the server and the pages were searched there: both start over
+                entry.aggregator.reseed(ReviewSummary.EMPTY, updated);
+                entry.searchIndex = null;
+            } else {
+                ReviewDiff diff = ReviewDiff.between(entry.remote, stored);
+                if (entry.remoteLoaded && diff.isUnchanged()) return;
+                applyChanges(entry, diff);
+            }
+            entry.remote = stored;
+            entry.remoteLoaded = true;
+            publishLocked(entry, updated);
+        }
+    }
+
+    /**
+     * Replaces the reviews of a restaurant received from the data sources with a list loaded
+     * page by page, for the restaurants with too many reviews to be held in memory, and
+     * replaces their stats with the ones computed by the server. Called again after each sync
+     * that changed the reviews, with a list of the new state of the server.
+     * <p>
+     * The reviews written on this device that the server holds are among the pages: they are
+     * removed from the top of the list and from the restored reviews, so that they are not
+     * shown twice. The other reviews written on this device are counted on top of the summary.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param reviews      the reviews of the server, loaded page by page
+     * @param summary      the stats of the reviews of the server
+     * @param onServer     tells which reviews written on this device the server holds, by id
+     */
+    public void setPagedReviews(long restaurantId, PagedReviewList reviews, ReviewSummary summary, LongPredicate onServer) {
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            List<Review> prepended = without(entry.snapshot.getPrepended(), onServer);
+            entry.restored = without(entry.restored, onServer);
+            ReviewList updated = ReviewList.of(ConcatenatedReviewList.of(entry.restored, reviews));
+            for (int i = prepended.size() - 1; i >= 0; i--) {
+                updated = updated.prepend(prepended.get(i));
+            }
+            entry.aggregator.reseed(summary, ConcatenatedReviewList.of(prepended, entry.restored));
+            // The server searches the reviews of the pages
+            entry.searchIndex = null;
+            entry.remote = reviews;
+            entry.remoteLoaded = true;
+            publishLocked(entry, updated);
+        }
+    }
+
+    /**
+     * Restores the reviews written on this device in a previous session. They are placed after
+     * the reviews written in this session and before the received ones. Only the first call
+     * for a restaurant is taken into account.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param restored     the restored reviews, newest first
+     */
+    public void restoreReviews(long restaurantId, List<Review> restored) {
+        if (restored.isEmpty()) return;
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            if (!entry.restored.isEmpty()) return;
+            restored = internAll(restored);
+            entry.restored = restored;
+            // Before the first load, the reviews are counted when the stats are seeded
+            if (entry.aggregator.isSeeded()) {
+                entry.aggregator.onReviewsChanged(Collections.emptyList(), restored);
+            }
+            if (entry.searchIndex != null) indexOldestFirst(entry.searchIndex, restored);
+            publishLocked(entry, entry.snapshot.withOlder(ConcatenatedReviewList.of(restored, entry.remote)));
+        }
+    }
+
+    /**
+     * Adds a review written by the user at the top of the list of a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param review       the new review
+     */
+    public void addReview(long restaurantId, Review review) {
+        review = authorRegistry.intern(review);
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            // Before the first load, the review is counted when the stats are seeded
+            if (entry.aggregator.isSeeded()) {
+                entry.aggregator.onReviewAdded(review);
+            }
+            if (entry.searchIndex != null) entry.searchIndex.add(review);
+            publishLocked(entry, entry.snapshot.prepend(review));
+        }
+    }
+
+    /**
+     * Adds several received reviews to the list of a restaurant as a single change: one
+     * snapshot and one stats update are published, whatever the number of reviews.
+     * <p>
+     * A review whose id is already in the list is an edit: it replaces the previous version in
+     * place, in the stats and in the search index too. The other reviews are added at the top,
+     * except for the restaurants loaded page by page, where they replace theirs in the pages,
+     * see {@link #setPagedReviews(long, PagedReviewList, ReviewSummary, LongPredicate)}.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param batch        the received reviews, oldest first: the last new one ends up at the top
+     */
+    public void addReviews(long restaurantId, List<Review> batch) {
+        if (batch.isEmpty()) return;
+        batch = internAll(batch);
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            ReviewEdits edits = new ReviewEdits(batch);
+            List<Review> prepended = entry.snapshot.getPrepended();
+            List<Review> editedPrepended = edits.applyTo(prepended);
+            entry.restored = edits.applyTo(entry.restored);
+            List<Review> newReviews;
+            if (entry.remote instanceof PagedReviewList) {
+                // The pages are not all in memory: the other reviews replace theirs as their
+                // page is loaded, and the new ones come with the list of the next sync
+                entry.remote = ((PagedReviewList) entry.remote).withEdits(edits.getNew());
+                newReviews = Collections.emptyList();
+            } else {
+                entry.remote = edits.applyTo(entry.remote);
+                newReviews = edits.getNew();
+            }
+            ReviewList updated;
+            if (editedPrepended == prepended) {
+                updated = entry.snapshot.withOlder(ConcatenatedReviewList.of(entry.restored, entry.remote));
+            } else {
+                updated = ReviewList.of(ConcatenatedReviewList.of(entry.restored, entry.remote));
+                for (int i = editedPrepended.size() - 1; i >= 0; i--) {
+                    updated = updated.prepend(editedPrepended.get(i));
+                }
+            }
+            for (Review review : newReviews) {
+                updated = updated.prepend(review);
+            }
+            List<Review> added = new ArrayList<>(edits.getReplacing());
+            added.addAll(newReviews);
+            if (entry.aggregator.isSeeded()) {
+                entry.aggregator.onReviewsChanged(edits.getReplaced(), added);
+            }
+            // The index replaces the previous version of an edited review
+            if (entry.searchIndex != null) entry.searchIndex.addAll(added);
+            publishLocked(entry, updated);
+        }
+    }
+
+    /**
+     * Starts loading the reviews around a position of the snapshots of a restaurant, when they
+     * are received as a {@link PagedReviewList}: once its page is loaded, its reviews fill the
+     * placeholders of the published snapshot, and the callbacks of the list are told. Does
+     * nothing for the other reviews, which are all in memory. Never blocks, it can be called
+     * from the main thread as the reviews are shown.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param position     the position of a review in the latest snapshot
+     */
+    public void loadAround(long restaurantId, int position) {
+        ReviewList snapshot = reviewsOf(restaurantId).snapshot;
+        PagedReviewList paged = PagedReviewList.find(snapshot);
+        if (paged != null) paged.loadAround(position - (snapshot.size() - paged.size()));
+    }
+
+    /**
+     * Tells whether the reviews of a restaurant are received as a {@link PagedReviewList}.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return true if the reviews of the restaurant are loaded page by page
+     */
+    public boolean isPaged(long restaurantId) {
+        return PagedReviewList.find(reviewsOf(restaurantId).snapshot) != null;
+    }
+
+    /**
+     * Searches the comments of the reviews of a restaurant. The first search indexes the current
+     * reviews; the next ones only query the index. The reviews of a {@link PagedReviewList} are
+     * not searched, the server does.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param query        the words to look for, see {@link ReviewSearchIndex#search}
+     * @param cursor       the rank of the first result to return
+     * @param pageSize     the maximum number of results to return
+     * @return the page of matching reviews, best first
+     */
+    public ReviewPage search(long restaurantId, String query, int cursor, int pageSize) {
+        RestaurantReviews entry = reviewsOf(restaurantId);
+        synchronized (entry) {
+            if (entry.searchIndex == null) {
+                ReviewSearchIndex searchIndex = new ReviewSearchIndex();
+                ReviewList snapshot = entry.snapshot;
+                if (entry.remote instanceof PagedReviewList) {
+                    indexOldestFirst(searchIndex, snapshot.subList(0, snapshot.size() - entry.remote.size()));
+                } else {
+                    indexOldestFirst(searchIndex, snapshot);
+                }
+                entry.searchIndex = searchIndex;
+            }
+            return entry.searchIndex.search(query, cursor, pageSize);
+        }
+    }
+
+    // The reviews with their authors interned in the registry of the store: as columns from
+    // COLUMNAR_MIN_SIZE reviews, else the list itself if no review had to be copied.
+    private List<Review> internAll(List<Review> reviews) {
+        if (reviews.size() >= COLUMNAR_MIN_SIZE || reviews instanceof ColumnarReviewList) {
+            return ColumnarReviewList.of(reviews, authorRegistry);
+        }
+        List<Review> interned = null;
+        for (int i = 0; i < reviews.size(); i++) {
+            Review review = reviews.get(i);
+            Review internedReview = authorRegistry.intern(review);
+            if (interned == null && internedReview != review) {
+                interned = new ArrayList<>(reviews.subList(0, i));
+            }
+            if (interned != null) interned.add(internedReview);
+        }
+        return interned == null ? reviews : Collections.unmodifiableList(interned);
+    }
+
+    // The reviews of a list without the ones matched by the predicate, the list itself if none is.
+    private static List<Review> without(List<Review> reviews, LongPredicate removed) {
+        List<Review> kept = null;
+        for (int i = 0, size = reviews.size(); i < size; i++) {
+            Review review = reviews.get(i);
+            boolean remove = removed.test(review.getId());
+            if (remove && kept == null) kept = new ArrayList<>(reviews.subList(0, i));
+            if (!remove && kept != null) kept.add(review);
+        }
+        return kept == null ? reviews : Collections.unmodifiableList(kept);
+    }
+
+    private RestaurantReviews reviewsOf(long restaurantId) {
+        return restaurants.computeIfAbsent(restaurantId, id -> new RestaurantReviews());
+    }
+
+    private static void publishLocked(RestaurantReviews entry, ReviewList updated) {
+        entry.snapshot = updated;
+        entry.published = true;
+        entry.reviews.postValue(updated);
+        for (Listener listener : entry.listeners) {
+            listener.onReviewsChanged(updated);
+        }
+    }
+
+    // Updates the stats and the search index with the reviews removed and added between two
+    // versions of the list.
+    private static void applyChanges(RestaurantReviews entry, ReviewDiff diff) {
+        entry.aggregator.onReviewsChanged(diff.getRemoved(), diff.getAdded());
+        if (entry.searchIndex != null) {
+            for (Review review : diff.getRemoved()) entry.searchIndex.remove(review.getId());
+            indexOldestFirst(entry.searchIndex, diff.getAdded());
+        }
+    }
+
+    // Indexes the reviews of a newest-first list oldest first, so that the newest reviews win
+    // the ties, reading the list backwards instead of copying it.
+    private static void indexOldestFirst(ReviewSearchIndex searchIndex, List<Review> reviews) {
+        for (int i = reviews.size() - 1; i >= 0; i--) {
+            searchIndex.add(reviews.get(i));
+        }
+    }
+}
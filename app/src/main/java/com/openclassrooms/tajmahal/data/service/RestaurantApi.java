@@ -1,9 +1,10 @@
 package com.openclassrooms.tajmahal.data.service;
 
-import androidx.lifecycle.LiveData;
-
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewChanges;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.stats.ReviewSummary;
 
 import java.util.List;
 
@@ -22,13 +23,25 @@ import java.util.List;
  * An interface contains behaviors that a class implements.
  *
  * <p>
- * Here, {@link RestaurantApi} provides a method to get details of a restaurant.
+ * Here, {@link RestaurantApi} provides methods to get the restaurants of the chain, their details
+ * and their reviews. Every restaurant is identified by its id.
  * </p>
  *
  * @see Restaurant
  */
 public interface RestaurantApi {
 
+    /**
+     * Retrieves every restaurant of the chain.
+     * <p>
+     * This method will usually be connected to a network call or database query in its
+     * implementing class, fetching the catalog of the locations.
+     * </p>
+     *
+     * @return The list of the {@link Restaurant} objects of the chain.
+     */
+    List<Restaurant> getRestaurants();
+
     /**
      * Retrieves the details of a restaurant.
      * <p>
@@ -36,18 +49,97 @@ public interface RestaurantApi {
      * implementing class, fetching the required restaurant information.
      * </p>
      *
+     * @param restaurantId The id of the restaurant.
      * @return The {@link Restaurant} object containing all the details of the restaurant.
+     * @throws IllegalArgumentException if no restaurant has this id.
      */
-    Restaurant getRestaurant();
+    Restaurant getRestaurant(long restaurantId);
 
     /**
-     * Retrieves all the reviews of the restaurant.
+     * Retrieves all the reviews of a restaurant.
      * <p>
      * This method will usually be connected to a network call or database query in its
      * implementing class, fetching the list of the existing reviews.
      * </p>
      *
-     * @return The {@link Restaurant} object containing all the details of the restaurant.
+     * @param restaurantId The id of the restaurant.
+     * @return The list of the {@link Review} objects of the restaurant.
+     * @throws IllegalArgumentException if no restaurant has this id.
+     */
+    List<Review> getReviews(long restaurantId);
+
+    /**
+     * Retrieves one page of the reviews of a restaurant.
+     * <p>
+     * Pages are addressed by cursor: the first page is loaded with a cursor of 0, and each
+     * {@link ReviewPage} gives the cursor of the following one. This lets callers walk
+     * through a very large number of reviews without holding them all in memory.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param cursor       the offset of the first review to return
+     * @param pageSize     the maximum number of reviews to return
+     * @return the {@link ReviewPage} starting at the given cursor
+     * @throws IllegalArgumentException if no restaurant has this id.
+     */
+    ReviewPage getReviews(long restaurantId, int cursor, int pageSize);
+
+    /**
+     * Retrieves the stats of all the reviews of a restaurant, computed by the server.
+     * <p>
+     * A client that loads the reviews page by page never holds all of them: it gets their
+     * stats from this call instead of counting them.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the {@link ReviewSummary} of the reviews returned by {@link #getReviews(long)}
+     * @throws IllegalArgumentException if no restaurant has this id.
+     */
+    ReviewSummary getReviewSummary(long restaurantId);
+
+    /**
+     * Searches the comments of the reviews of a restaurant on the server.
+     * <p>
+     * The words of the query must all appear in a comment, accents and case ignored; a word
+     * ending with {@code *} matches every word starting with it. The results are ranked by
+     * relevance, then by rate.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param query        the words to look for
+     * @param cursor       the rank of the first result to return
+     * @param pageSize     the maximum number of results to return
+     * @return the page of matching reviews, best first
+     * @throws IllegalArgumentException if no restaurant has this id.
+     */
+    ReviewPage searchReviews(long restaurantId, String query, int cursor, int pageSize);
+
+    /**
+     * Retrieves the reviews of a restaurant added or edited after a point of its change feed.
+     * <p>
+     * Unlike {@link #getReviews(long)}, only the changes are downloaded: a client keeps the
+     * cursor of the last {@link ReviewChanges} it applied and resumes from it on the next sync.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param since        the cursor of the last change already received, 0 for the start of
+     *                     the feed or {@link ReviewChanges#HEAD} for its end
+     * @param limit        the maximum number of reviews to return
+     * @return the changes following the cursor, oldest first
+     * @throws IllegalArgumentException if no restaurant has this id.
+     */
+    ReviewChanges getReviewChanges(long restaurantId, long since, int limit);
+
+    /**
+     * Publishes a review written on this device.
+     * <p>
+     * The review keeps the id generated by the client, so sending it again, after a timeout
+     * for instance, does not create a second review.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param review       the review to publish, new or edited
+     * @throws IllegalArgumentException if no restaurant has this id.
      */
-    List<Review> getReviews();
+    void postReview(long restaurantId, Review review);
 }
@@ -2,10 +2,18 @@ package com.openclassrooms.tajmahal.data.service;
 
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewChanges;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.search.ReviewSearchIndex;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
+import com.openclassrooms.tajmahal.domain.stats.ReviewSummary;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * A mock implementation of the {@link RestaurantApi} for testing and development purposes.
@@ -23,6 +31,8 @@ import java.util.List;
  *
  * <p>
  * This class returns details of a specific restaurant, "Taj Mahal", with pre-defined attributes.
+ * It can also simulate a chain: the other locations of the chain are then generated from their id,
+ * with their own generated reviews.
  * </p>
  *
  * @see Restaurant
@@ -30,45 +40,424 @@ import java.util.List;
  */
 public class RestaurantFakeApi implements RestaurantApi {
 
-    List<Review> reviews = Arrays.asList(
-            new Review("Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5),
-            new Review("Martyna Siddeswara", "https://xsgames.co/randomusers/assets/avatars/female/31.jpg", "Un service excellent et des plats incroyablement savoureux. Nous sommes vraiment satisfaits de notre expérience au restaurant.", 4),
-            new Review("Komala Alanazi", "https://xsgames.co/randomusers/assets/avatars/male/46.jpg", "La cuisine est délicieuse et le service est également excellent. Le propriétaire est très sympathique et veille toujours à ce que votre repas soit satisfaisant. Cet endroit est un choix sûr!", 5),
-            new Review("David John", "https://xsgames.co/randomusers/assets/avatars/male/67.jpg", "Les currys manquaient de diversité de saveurs et semblaient tous à base de tomates. Malgré les évaluations élevées que nous avons vues et nos attentes, nous avons été déçus.", 2),
-            new Review("Emilie Hood", "https://xsgames.co/randomusers/assets/avatars/female/20.jpg", "Très bon restaurant Indien ! Je recommande.", 4)
+    /** The id of the hard-coded "Taj Mahal", the first restaurant of the chain. */
+    public static final long TAJ_MAHAL_ID = 1;
+
+    private static final String[] DISTRICTS = {
+            "Bastille", "Batignolles", "Belleville", "Bercy", "Montmartre", "Montparnasse", "Nation", "Opéra",
+            "République", "Saint-Germain", "Marais", "Pigalle", "Odéon", "Passy", "Ternes", "Gobelins"
+    };
+
+    private static final String[] TYPES = {"Indien", "Népalais", "Pakistanais", "Sri-lankais"};
+
+    private static final String[] HOURS = {
+            "11h30 - 14h30・18h30 - 22h00", "12h00 - 14h30・19h00 - 23h00", "11h00 - 23h00"
+    };
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+
+    // Start of the day the API was created: the review times stay the same all day long, so
+    // that two fetches return equal reviews
+    private final long today = System.currentTimeMillis() / DAY_MILLIS * DAY_MILLIS;
+
+    List<Review> fixedReviews = Arrays.asList(
+            new Review(1, "Ranjit Singh", "https://xsgames.co/randomusers/assets/avatars/male/71.jpg", "Service très rapide et nourriture délicieuse, nous mangeons ici chaque week-end, c'est très rapide et savoureux. Continuez ainsi!", 5, daysAgo(2)),
+            new Review(2, "Martyna Siddeswara", "https://xsgames.co/randomusers/assets/avatars/female/31.jpg", "Un service excellent et des plats incroyablement savoureux. Nous sommes vraiment satisfaits de notre expérience au restaurant.", 4, daysAgo(9)),
+            new Review(3, "Komala Alanazi", "https://xsgames.co/randomusers/assets/avatars/male/46.jpg", "La cuisine est délicieuse et le service est également excellent. Le propriétaire est très sympathique et veille toujours à ce que votre repas soit satisfaisant. Cet endroit est un choix sûr!", 5, daysAgo(23)),
+            new Review(4, "David John", "https://xsgames.co/randomusers/assets/avatars/male/67.jpg", "Les currys manquaient de diversité de saveurs et semblaient tous à base de tomates. Malgré les évaluations élevées que nous avons vues et nos attentes, nous avons été déçus.", 2, daysAgo(47)),
+            new Review(5, "Emilie Hood", "https://xsgames.co/randomusers/assets/avatars/female/20.jpg", "Très bon restaurant Indien ! Je recommande.", 4, daysAgo(120))
     );
 
+    // Generates the additional reviews on demand, they are never stored
+    private final SyntheticReviewGenerator generator;
+
+    // Number of restaurants of the chain, the "Taj Mahal" included
+    private final int restaurantCount;
+
+    // Number of generated reviews of each restaurant
+    private final int syntheticReviewCount;
+
+    // Reviews posted to each restaurant, in the order of their sequence number starting at 1;
+    // guarded by the map
+    private final Map<Long, List<Review>> changeFeeds = new HashMap<>();
+
+    // Latest version of the reviews posted to each restaurant, by restaurant id; guarded by
+    // changeFeeds
+    private final Map<Long, PostedReviews> postedReviews = new HashMap<>();
+
+    // Stats of the reviews of each restaurant, computed by the first call for it then kept up
+    // to date by the posts; guarded by changeFeeds
+    private final Map<Long, ReviewStatsAggregator> summaries = new HashMap<>();
+
+    // Comments of the reviews of each restaurant, indexed by the first search then kept up to
+    // date by the posts; guarded by changeFeeds
+    private final Map<Long, ReviewSearchIndex> searchIndexes = new HashMap<>();
+
+    // The reviews posted to a restaurant, kept apart from its own reviews so that a page is
+    // built in O(page size): the new reviews form a prefix indexed by position, the edits of
+    // its own reviews are looked up by id.
+    private static final class PostedReviews {
+        // Reviews that were not among the reviews of the restaurant, in the order of their first post
+        final List<Review> added = new ArrayList<>();
+        // Position of each review of added, by id
+        final Map<Long, Integer> addedPositions = new HashMap<>();
+        // Latest version of the edited reviews of the restaurant, by id
+        final Map<Long, Review> edits = new HashMap<>();
+    }
+
+    // Read-only view over the "Taj Mahal" followed by the generated locations
+    private final List<Restaurant> restaurants = new AbstractList<Restaurant>() {
+        @Override
+        public Restaurant get(int index) {
+            if (index < 0 || index >= restaurantCount) throw new IndexOutOfBoundsException("index: " + index + ", size: " + restaurantCount);
+            return index == 0 ? tajMahal() : location(TAJ_MAHAL_ID + index);
+        }
+
+        @Override
+        public int size() {
+            return restaurantCount;
+        }
+    };
+
+    // Read-only view over the hard-coded reviews followed by the synthetic ones
+    private final List<Review> reviews = new AbstractList<Review>() {
+        @Override
+        public Review get(int index) {
+            int fixedCount = fixedReviews.size();
+            return index < fixedCount ? fixedReviews.get(index) : generator.get(index - fixedCount);
+        }
+
+        @Override
+        public int size() {
+            return fixedReviews.size() + generator.size();
+        }
+    };
+
+    /**
+     * Constructs a fake API returning only the hard-coded reviews.
+     */
+    public RestaurantFakeApi() {
+        this(0);
+    }
+
+    /**
+     * Constructs a fake API simulating a chain of restaurants.
+     *
+     * @param restaurantCount      the number of restaurants, the "Taj Mahal" included
+     * @param syntheticReviewCount the number of generated reviews of each restaurant
+     */
+    public RestaurantFakeApi(int restaurantCount, int syntheticReviewCount) {
+        if (restaurantCount < 1) throw new IllegalArgumentException("restaurantCount must be strictly positive: " + restaurantCount);
+        this.restaurantCount = restaurantCount;
+        this.syntheticReviewCount = syntheticReviewCount;
+        // Generated reviews get the identifiers following the hard-coded ones
+        this.generator = new SyntheticReviewGenerator(syntheticReviewCount, fixedReviews.size() + 1, 0, today);
+    }
+
+    /**
+     * Constructs a fake API returning the hard-coded reviews followed by a number of
+     * generated reviews, to simulate a restaurant with a large amount of reviews.
+     *
+     * @param syntheticReviewCount the number of generated reviews to add
+     */
+    public RestaurantFakeApi(int syntheticReviewCount) {
+        this(1, syntheticReviewCount);
+    }
+
+    /**
+     * Retrieves the restaurants of the chain, starting with the "Taj Mahal".
+     *
+     * @return a read-only list, the generated locations being built on demand
+     */
+    @Override
+    public List<Restaurant> getRestaurants() {
+        return restaurants;
+    }
+
 
     /**
-     * Retrieves a hard-coded {@link Restaurant} object for the "Taj Mahal".
+     * Retrieves a restaurant of the chain.
      * <p>
      * This method simulates an API call by immediately returning a Restaurant object
-     * with pre-defined attributes. The object represents the "Taj Mahal" restaurant
-     * with specific details.
+     * with pre-defined attributes. The first restaurant is the hard-coded "Taj Mahal".
      * </p>
      *
-     * @return The hard-coded {@link Restaurant} object for the "Taj Mahal".
+     * @param restaurantId The id of the restaurant.
+     * @return The {@link Restaurant} object with this id.
      */
     @Override
-    public Restaurant getRestaurant() {
-        return new Restaurant("Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
-                "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78",
-                true, true);
+    public Restaurant getRestaurant(long restaurantId) {
+        return restaurants.get(indexOf(restaurantId));
     }
 
 
     /**
-     * Retrieves a hard-coded {@link Review} object for the "Taj Mahal".
+     * Retrieves the {@link Review} objects of a restaurant.
      * <p>
      * This method simulates an API call by immediately returning a Review list
-     * with pre-defined attributes.
+     * with pre-defined attributes, along with the reviews posted through
+     * {@link #postReview(long, Review)}: the latest version of an edited review in place of the
+     * previous one, the new reviews on top, newest first.
+     * </p>
+     *
+     * @param restaurantId The id of the restaurant.
+     * @return The hard-coded list {@link Review} for the "Taj Mahal", generated ones for the other restaurants.
+     */
+    @Override
+    public List<Review> getReviews(long restaurantId) {
+        List<Review> reviews = reviewsOf(restaurantId);
+        synchronized (changeFeeds) {
+            List<Review> posted = withPostedReviews(restaurantId, reviews);
+            // A copy: the posted reviews keep changing after the call
+            return posted == reviews ? reviews : new ArrayList<>(posted);
+        }
+    }
+
+    /**
+     * Retrieves one page of the reviews of a restaurant.
+     * <p>
+     * Only the reviews of the requested page are built, so the cost of a call
+     * depends on the page size and not on the total number of reviews, nor on the number of
+     * reviews posted to the restaurant.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param cursor       the offset of the first review to return
+     * @param pageSize     the maximum number of reviews to return
+     * @return the requested {@link ReviewPage}
+     */
+    @Override
+    public ReviewPage getReviews(long restaurantId, int cursor, int pageSize) {
+        List<Review> own = reviewsOf(restaurantId);
+        if (cursor < 0) throw new IllegalArgumentException("cursor must be positive: " + cursor);
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be strictly positive: " + pageSize);
+        synchronized (changeFeeds) {
+            List<Review> reviews = withPostedReviews(restaurantId, own);
+            int total = reviews.size();
+            int end = Math.min(total, cursor + pageSize);
+            List<Review> page = new ArrayList<>(Math.max(0, end - cursor));
+            for (int i = cursor; i < end; i++) {
+                page.add(reviews.get(i));
+            }
+            return new ReviewPage(page, cursor, end < total ? end : ReviewPage.END, total);
+        }
+    }
+
+    /**
+     * Retrieves the stats of the reviews of a restaurant.
+     * <p>
+     * The reviews are counted once, on the first call for the restaurant; the posted reviews
+     * then update the stats one by one, as a real server would.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the summary of the reviews of the restaurant
+     */
+    @Override
+    public ReviewSummary getReviewSummary(long restaurantId) {
+        List<Review> own = reviewsOf(restaurantId);
+        synchronized (changeFeeds) {
+            ReviewStatsAggregator summary = summaries.get(restaurantId);
+            if (summary == null) {
+                summary = new ReviewStatsAggregator();
+                summary.seed(withPostedReviews(restaurantId, own));
+                summaries.put(restaurantId, summary);
+            }
+            return summary.getSummary();
+        }
+    }
+
+    /**
+     * Searches the comments of the reviews of a restaurant.
+     * <p>
+     * The comments are indexed once, on the first search of the restaurant; the posted reviews
+     * then update the index one by one.
+     * </p>
+     *
+     * @param restaurantId the id of the restaurant
+     * @param query        the words to look for
+     * @param cursor       the rank of the first result to return
+     * @param pageSize     the maximum number of results to return
+     * @return the page of matching reviews, best first
+     */
+    @Override
+    public ReviewPage searchReviews(long restaurantId, String query, int cursor, int pageSize) {
+        List<Review> own = reviewsOf(restaurantId);
+        synchronized (changeFeeds) {
+            ReviewSearchIndex searchIndex = searchIndexes.get(restaurantId);
+            if (searchIndex == null) {
+                searchIndex = new ReviewSearchIndex();
+                List<Review> reviews = withPostedReviews(restaurantId, own);
+                // Oldest first, so that the newest reviews win the ties
+                for (int i = reviews.size() - 1; i >= 0; i--) searchIndex.add(reviews.get(i));
+                searchIndexes.put(restaurantId, searchIndex);
+            }
+            return searchIndex.search(query, cursor, pageSize);
+        }
+    }
+
+    /**
+     * Retrieves the reviews posted to a restaurant after a point of its change feed.
+     * <p>
+     * The feed only holds the reviews posted through {@link #postReview(long, Review)}, the
+     * hard-coded and generated reviews being there from the start.
      * </p>
      *
-     * @return The hard-coded list {@link Review} for the "Taj Mahal".
+     * @param restaurantId the id of the restaurant
+     * @param since        the sequence number of the last change already received
+     * @param limit        the maximum number of reviews to return
+     * @return the following changes, oldest first
+     */
+    @Override
+    public ReviewChanges getReviewChanges(long restaurantId, long since, int limit) {
+        indexOf(restaurantId);
+        if (since < ReviewChanges.HEAD) throw new IllegalArgumentException("since must be positive: " + since);
+        if (limit < 0) throw new IllegalArgumentException("limit must be positive: " + limit);
+        synchronized (changeFeeds) {
+            List<Review> feed = changeFeeds.get(restaurantId);
+            int size = feed == null ? 0 : feed.size();
+            int start = since == ReviewChanges.HEAD ? size : (int) Math.min(since, size);
+            int end = Math.min(size, start + limit);
+            List<Review> changes = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                changes.add(feed.get(i));
+            }
+            return new ReviewChanges(changes, end, end < size);
+        }
+    }
+
+    /**
+     * Appends a review to the change feed of its restaurant. Posting the same review again is
+     * ignored, an edited review is appended as a new change.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param review       the review
      */
     @Override
-    public List<Review> getReviews() {
-        return reviews;
+    public void postReview(long restaurantId, Review review) {
+        indexOf(restaurantId);
+        synchronized (changeFeeds) {
+            List<Review> feed = changeFeeds.computeIfAbsent(restaurantId, id -> new ArrayList<>());
+            for (int i = feed.size() - 1; i >= 0; i--) {
+                if (feed.get(i).getId() == review.getId()) {
+                    if (feed.get(i).equals(review)) return;
+                    break;
+                }
+            }
+            feed.add(review);
+            PostedReviews posted = postedReviews.computeIfAbsent(restaurantId, id -> new PostedReviews());
+            Integer position = posted.addedPositions.get(review.getId());
+            Review previous = null;
+            if (position != null) {
+                previous = posted.added.set(position, review);
+            } else {
+                Review own = ownReview(restaurantId, review.getId());
+                if (own != null) {
+                    previous = posted.edits.put(review.getId(), review);
+                    if (previous == null) previous = own;
+                } else {
+                    posted.addedPositions.put(review.getId(), posted.added.size());
+                    posted.added.add(review);
+                }
+            }
+            ReviewStatsAggregator summary = summaries.get(restaurantId);
+            if (summary != null) {
+                if (previous == null) {
+                    summary.onReviewAdded(review);
+                } else {
+                    summary.onReviewEdited(previous, review);
+                }
+            }
+            // The index replaces the previous version of an edited review
+            ReviewSearchIndex searchIndex = searchIndexes.get(restaurantId);
+            if (searchIndex != null) searchIndex.add(review);
+        }
+    }
+
+    private int indexOf(long restaurantId) {
+        long index = restaurantId - TAJ_MAHAL_ID;
+        if (index < 0 || index >= restaurantCount) throw new IllegalArgumentException("Unknown restaurant: " + restaurantId);
+        return (int) index;
+    }
+
+    // A view of the reviews with the latest version of each posted review applied, the list
+    // itself if nothing was posted to the restaurant. Only valid under the lock of changeFeeds.
+    private List<Review> withPostedReviews(long restaurantId, List<Review> reviews) {
+        PostedReviews posted = postedReviews.get(restaurantId);
+        if (posted == null) return reviews;
+        List<Review> added = posted.added;
+        Map<Long, Review> edits = posted.edits;
+        return new AbstractList<Review>() {
+            @Override
+            public Review get(int index) {
+                int addedCount = added.size();
+                // Newest first
+                if (index < addedCount) return added.get(addedCount - 1 - index);
+                Review review = reviews.get(index - addedCount);
+                Review edited = edits.isEmpty() ? null : edits.get(review.getId());
+                return edited == null ? review : edited;
+            }
+
+            @Override
+            public int size() {
+                return added.size() + reviews.size();
+            }
+        };
     }
 
+    // The review of the restaurant with an id, hard-coded or generated, in its original
+    // version, or null for a new review
+    private Review ownReview(long restaurantId, long reviewId) {
+        if (indexOf(restaurantId) == 0) {
+            for (Review review : fixedReviews) {
+                if (review.getId() == reviewId) return review;
+            }
+            int index = generator.indexOf(reviewId);
+            return index < 0 ? null : generator.get(index);
+        }
+        long index = reviewId - (restaurantId << 32);
+        return index >= 0 && index < syntheticReviewCount ? reviewsOf(restaurantId).get((int) index) : null;
+    }
+
+    private List<Review> reviewsOf(long restaurantId) {
+        if (indexOf(restaurantId) == 0) return reviews;
+        // Each location has its own data set and its own range of identifiers
+        SyntheticReviewGenerator locationGenerator = new SyntheticReviewGenerator(syntheticReviewCount, restaurantId << 32, restaurantId, today);
+        return new AbstractList<Review>() {
+            @Override
+            public Review get(int index) {
+                return locationGenerator.get(index);
+            }
+
+            @Override
+            public int size() {
+                return locationGenerator.size();
+            }
+        };
+    }
+
+    private long daysAgo(int days) {
+        return today - days * DAY_MILLIS;
+    }
+
+    private static Restaurant tajMahal() {
+        return new Restaurant(TAJ_MAHAL_ID, "Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00",
+                "12 Avenue de la Brique - 75010 Paris", "http://www.tajmahal.fr", "06 12 34 56 78",
+                true, true);
+    }
+
+    // Builds a generated location, always identical for the same id
+    private static Restaurant location(long restaurantId) {
+        int hash = (int) ((restaurantId * 0x9E3779B97F4A7C15L) >>> 33);
+        String district = DISTRICTS[hash & 15];
+        boolean dineIn = (hash & 0x10) != 0;
+        // Every location offers at least one of the two services
+        boolean takeAway = !dineIn || (hash & 0x20) != 0;
+        return new Restaurant(restaurantId, "Taj Mahal " + district + " #" + restaurantId, TYPES[(hash >>> 6) & 3],
+                HOURS[((hash >>> 8) & 0xFF) % HOURS.length],
+                (1 + (hash >>> 16) % 120) + " rue de " + district + " - 750" + String.format("%02d", 1 + (hash >>> 10) % 20) + " Paris",
+                "http://www.tajmahal.fr/" + restaurantId, "01 " + String.format("%02d %02d %02d %02d",
+                (hash >>> 3) % 100, (hash >>> 9) % 100, (hash >>> 14) % 100, (hash >>> 20) % 100),
+                dineIn, takeAway);
+    }
 }
@@ -0,0 +1,142 @@
+package com.openclassrooms.tajmahal.data.service;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+/**
+ * Generates fake reviews on demand, used by {@link RestaurantFakeApi} to simulate
+ * restaurants with a large number of reviews.
+ * <p>
+ * A review is fully determined by its index: the same index always gives the same
+ * username, picture, comment, rate and time. Reviews are therefore never stored, and a data
+ * set of 500k reviews costs no more memory than a data set of 50.
+ * </p>
+ * Given the time of the newest review, the reviews are spread evenly over the year before it,
+ * the review at index 0 being the newest.
+ */
+public class SyntheticReviewGenerator {
+
+    private static final String[] FIRST_NAMES = {
+            "Amélie", "Bastien", "Chloé", "Damien", "Elsa", "Farid", "Gaëlle", "Hugo",
+            "Inès", "Julien", "Karima", "Lucas", "Manon", "Nicolas", "Océane", "Pierre"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand",
+            "Leroy", "Moreau", "Simon", "Laurent", "Lefebvre", "Michel", "Garcia", "Singh"
+    };
+
+    private static final String[] COMMENTS = {
+            "Très bon restaurant Indien ! Je recommande.",
+            "Le curry était délicieux et le service rapide.",
+            "Accueil chaleureux, plats copieux et savoureux.",
+            "Un peu d'attente mais la cuisine vaut le détour.",
+            "Les naans au fromage sont excellents.",
+            "Service moyen, plats corrects sans plus.",
+            "Trop épicé à mon goût, mais bien présenté.",
+            "Déçu par le biryani, le riz était trop cuit."
+    };
+
+    private static final String AVATAR_URL = "https://xsgames.co/randomusers/assets/avatars/%s/%d.jpg";
+
+    // Time between the oldest and the newest review
+    private static final long HISTORY_MILLIS = 365L * 24 * 60 * 60 * 1000;
+
+    private final int count;
+    private final long firstId;
+    private final int salt;
+    private final long newestTime;
+
+    /**
+     * Constructs a generator for a fixed number of reviews.
+     *
+     * @param count   the number of reviews the generator can produce
+     * @param firstId the identifier of the review at index 0, the next ones follow
+     */
+    public SyntheticReviewGenerator(int count, long firstId) {
+        this(count, firstId, 0);
+    }
+
+    /**
+     * Constructs a generator for a fixed number of reviews, whose content depends on a seed.
+     * Two generators with different seeds produce different data sets, as for two restaurants.
+     *
+     * @param count   the number of reviews the generator can produce
+     * @param firstId the identifier of the review at index 0, the next ones follow
+     * @param seed    the seed of the data set, 0 giving the same reviews as {@link #SyntheticReviewGenerator(int, long)}
+     */
+    public SyntheticReviewGenerator(int count, long firstId, long seed) {
+        this(count, firstId, seed, Review.UNKNOWN_TIME);
+    }
+
+    /**
+     * Constructs a generator of reviews written over the year before a given time.
+     *
+     * @param count      the number of reviews the generator can produce
+     * @param firstId    the identifier of the review at index 0, the next ones follow
+     * @param seed       the seed of the data set
+     * @param newestTime the time of the review at index 0, or {@link Review#UNKNOWN_TIME} for
+     *                   reviews without a time
+     */
+    public SyntheticReviewGenerator(int count, long firstId, long seed, long newestTime) {
+        if (count < 0) throw new IllegalArgumentException("count must be positive: " + count);
+        this.count = count;
+        this.firstId = firstId;
+        this.salt = (int) ((seed * 0x9E3779B97F4A7C15L) >>> 32);
+        this.newestTime = newestTime;
+    }
+
+    /**
+     * Returns the number of reviews of the data set.
+     *
+     * @return the number of reviews
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Tells whether a review of the data set has the given identifier.
+     *
+     * @param id the identifier of a review
+     * @return true if the generator produces a review with this identifier
+     */
+    public boolean contains(long id) {
+        return id >= firstId && id - firstId < count;
+    }
+
+    /**
+     * Returns the index of the review with the given identifier.
+     *
+     * @param id the identifier of a review
+     * @return the index of the review, or -1 if the generator produces no review with this identifier
+     */
+    public int indexOf(long id) {
+        return contains(id) ? (int) (id - firstId) : -1;
+    }
+
+    /**
+     * Builds the review at the given index.
+     *
+     * @param index the index of the review, between 0 and {@link #size()} excluded
+     * @return a new {@link Review} object, always identical for the same index
+     */
+    public Review get(int index) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("index: " + index + ", size: " + count);
+        int hash = mix(index ^ salt);
+        String username = FIRST_NAMES[hash & 15] + " " + LAST_NAMES[(hash >>> 4) & 15];
+        String picture = String.format(AVATAR_URL, (hash & 0x100) == 0 ? "male" : "female", (hash >>> 9) % 78);
+        String comment = COMMENTS[(hash >>> 16) & 7];
+        // Rates lean towards good marks, as for a real restaurant
+        int rate = 1 + Math.min(4, ((hash >>> 20) & 7) * 5 / 7 + ((hash >>> 23) & 1));
+        long createdAt = newestTime == Review.UNKNOWN_TIME ? Review.UNKNOWN_TIME : newestTime - index * HISTORY_MILLIS / count;
+        return new Review(firstId + index, username, picture, comment, rate, createdAt);
+    }
+
+    private static int mix(int index) {
+        int h = index * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h & 0x7FFFFFFF;
+    }
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+/**
+ * Schedules the background sync of the reviews of a restaurant.
+ * <p>
+ * A request only asks for a sync to happen soon: the requests made while a sync is already
+ * scheduled are coalesced into it.
+ * </p>
+ *
+ * @see WorkManagerReviewSyncScheduler
+ */
+public interface ReviewSyncScheduler {
+
+    /**
+     * Asks for the reviews of a restaurant to be synced. May block briefly, and must be called
+     * off the main thread.
+     *
+     * @param restaurantId the id of the restaurant
+     */
+    void requestSync(long restaurantId);
+}
@@ -0,0 +1,71 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+
+/**
+ * Background work syncing the reviews of a restaurant through
+ * {@link RestaurantRepository#syncReviews(long)}: the reviews written on this device are
+ * uploaded, then the changes of the server are downloaded from the last point reached.
+ * <p>
+ * A failed sync is retried by WorkManager with the backoff of its request, up to
+ * {@link #MAX_ATTEMPTS} runs. As the sync resumes from its last saved point, a retry does not
+ * download again the batches already applied.
+ * </p>
+ * Built by {@link ReviewSyncWorkerFactory}, and scheduled by {@link WorkManagerReviewSyncScheduler}.
+ */
+public class ReviewSyncWorker extends Worker {
+
+    /** Key of the id of the restaurant in the input data. */
+    public static final String KEY_RESTAURANT_ID = "restaurant_id";
+
+    /** Number of runs after which a failing sync gives up, until the next request. */
+    static final int MAX_ATTEMPTS = 8;
+
+    private final RestaurantRepository repository;
+
+    /**
+     * Constructs the worker of one run.
+     *
+     * @param context    the application context
+     * @param parameters the parameters of the run
+     * @param repository the repository running the sync
+     */
+    public ReviewSyncWorker(@NonNull Context context, @NonNull WorkerParameters parameters,
+                            RestaurantRepository repository) {
+        super(context, parameters);
+        this.repository = repository;
+    }
+
+    /**
+     * Builds the input data of the sync of a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the input data of the request
+     */
+    public static Data inputData(long restaurantId) {
+        return new Data.Builder().putLong(KEY_RESTAURANT_ID, restaurantId).build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        long restaurantId = getInputData().getLong(KEY_RESTAURANT_ID, -1);
+        if (restaurantId < 0) return Result.failure();
+        try {
+            repository.syncReviews(restaurantId);
+            return Result.success();
+        } catch (IllegalArgumentException e) {
+            // Unknown restaurant: retrying will not help
+            return Result.failure();
+        } catch (Exception e) {
+            return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.work.ListenableWorker;
+import androidx.work.WorkerFactory;
+import androidx.work.WorkerParameters;
+
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * Builds the {@link ReviewSyncWorker} with the repository of the app. The other workers are left
+ * to the default factory.
+ * <p>
+ * The repository is resolved on the first run only, as WorkManager reads its configuration,
+ * holding this factory, while the application is created.
+ * </p>
+ */
+@Singleton
+public class ReviewSyncWorkerFactory extends WorkerFactory {
+
+    private final Provider<RestaurantRepository> repository;
+
+    /**
+     * Constructs the factory.
+     *
+     * @param repository the provider of the repository running the syncs
+     */
+    @Inject
+    public ReviewSyncWorkerFactory(Provider<RestaurantRepository> repository) {
+        this.repository = repository;
+    }
+
+    @Nullable
+    @Override
+    public ListenableWorker createWorker(@NonNull Context appContext, @NonNull String workerClassName,
+                                         @NonNull WorkerParameters workerParameters) {
+        if (!ReviewSyncWorker.class.getName().equals(workerClassName)) return null;
+        return new ReviewSyncWorker(appContext, workerParameters, repository.get());
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.tajmahal.data.sync;
+
+import android.content.Context;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+/**
+ * Schedules the {@link ReviewSyncWorker} with WorkManager, so the sync runs even once the app
+ * has left the screen, and survives the death of the process.
+ * <p>
+ * Each restaurant has its own unique work. A request made while a sync is waiting to start
+ * keeps it, as that sync will see the new reviews: repeated triggers make a single run. A
+ * request made while a sync is running is chained after it, as the running sync may have
+ * already read the reviews to upload. The sync waits for a network connection, and a failed run
+ * is retried with an exponential backoff starting at {@link #BACKOFF_DELAY_SECONDS} seconds.
+ * </p>
+ */
+@Singleton
+public class WorkManagerReviewSyncScheduler implements ReviewSyncScheduler {
+
+    /** Tag of every sync request. */
+    public static final String TAG = "review-sync";
+
+    // Delay before the first retry of a failed sync, doubled at each attempt.
+    static final long BACKOFF_DELAY_SECONDS = 30;
+
+    private final Context context;
+
+    /**
+     * Constructs the scheduler. WorkManager is only looked up on the first request, once the
+     * application has set its configuration.
+     *
+     * @param context the application context
+     */
+    @Inject
+    public WorkManagerReviewSyncScheduler(@ApplicationContext Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns the name of the unique work syncing a restaurant.
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the name of the work
+     */
+    public static String uniqueWorkName(long restaurantId) {
+        return TAG + "-" + restaurantId;
+    }
+
+    @Override
+    public void requestSync(long restaurantId) {
+        WorkManager workManager = WorkManager.getInstance(context);
+        String name = uniqueWorkName(restaurantId);
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ReviewSyncWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                .setInputData(ReviewSyncWorker.inputData(restaurantId))
+                .addTag(TAG)
+                .build();
+        workManager.enqueueUniqueWork(name, policy(workManager, name), request);
+    }
+
+    // Keeps a sync that did not start yet, chains a new one after a running sync.
+    private static ExistingWorkPolicy policy(WorkManager workManager, String name) {
+        List<WorkInfo> works;
+        try {
+            works = workManager.getWorkInfosForUniqueWork(name).get();
+        } catch (ExecutionException e) {
+            return ExistingWorkPolicy.KEEP;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ExistingWorkPolicy.KEEP;
+        }
+        boolean running = false;
+        for (WorkInfo work : works) {
+            WorkInfo.State state = work.getState();
+            // A sync waiting to start, possibly chained after the running one
+            if (state == WorkInfo.State.ENQUEUED || state == WorkInfo.State.BLOCKED) return ExistingWorkPolicy.KEEP;
+            if (state == WorkInfo.State.RUNNING) running = true;
+        }
+        return running ? ExistingWorkPolicy.APPEND_OR_REPLACE : ExistingWorkPolicy.KEEP;
+    }
+}
@@ -1,13 +1,36 @@
 package com.openclassrooms.tajmahal.di;
 
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.os.Process;
+
+import com.openclassrooms.tajmahal.data.executor.IoExecutors;
+import com.openclassrooms.tajmahal.data.local.DiskCache;
+import com.openclassrooms.tajmahal.data.local.ReviewLog;
+import com.openclassrooms.tajmahal.data.local.SyncCursors;
+import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
+import com.openclassrooms.tajmahal.data.repository.ReviewBatcher;
+import com.openclassrooms.tajmahal.data.repository.ReviewStore;
 import com.openclassrooms.tajmahal.data.service.RestaurantApi;
 import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.sync.ReviewSyncScheduler;
+import com.openclassrooms.tajmahal.data.sync.WorkManagerReviewSyncScheduler;
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.review.SubmitReviewUseCase;
+import com.openclassrooms.tajmahal.metrics.AndroidTracer;
+import com.openclassrooms.tajmahal.metrics.Metrics;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
 import dagger.hilt.InstallIn;
+import dagger.hilt.android.qualifiers.ApplicationContext;
 import dagger.hilt.components.SingletonComponent;
 
 /**
@@ -19,6 +42,16 @@ import dagger.hilt.components.SingletonComponent;
 @InstallIn(SingletonComponent.class)
 public class AppModule {
 
+    // Maximum size of the restaurant data kept on disk.
+    private static final long DISK_CACHE_MAX_BYTES = 20L * 1024 * 1024;
+
+    // Maximum number of background threads used for I/O work.
+    private static final int IO_THREAD_COUNT = 4;
+
+    // Time window and size limit of a batch of received reviews.
+    private static final long REVIEW_BATCH_WINDOW_MS = 100;
+    private static final int REVIEW_BATCH_MAX_SIZE = 200;
+
     /**
      * Provides a singleton instance of the RestaurantApi. In this example,
      * a fake implementation of the API is being used, which can be helpful
@@ -31,4 +64,154 @@ public class AppModule {
     public RestaurantApi provideRestaurantApi() {
         return new RestaurantFakeApi();
     }
+
+    /**
+     * Provides the disk cache used by the repositories as their local data source. The cache
+     * lives in the application cache directory, so the system can clear it when space is low.
+     *
+     * @param context The application context.
+     * @return A singleton instance of the DiskCache.
+     */
+    @Provides
+    @Singleton
+    public DiskCache provideDiskCache(@ApplicationContext Context context) {
+        return new DiskCache(new File(context.getCacheDir(), "restaurant"), DISK_CACHE_MAX_BYTES, System::currentTimeMillis);
+    }
+
+    /**
+     * Provides the log persisting the reviews written by the user. Unlike the cache, the log
+     * lives in the application files directory, which the system never clears.
+     *
+     * @param context The application context.
+     * @return A singleton instance of the ReviewLog.
+     */
+    @Provides
+    @Singleton
+    public ReviewLog provideReviewLog(@ApplicationContext Context context) {
+        return new ReviewLog(new File(context.getFilesDir(), "reviews.log"));
+    }
+
+    /**
+     * Provides the cursors the syncs resume the change feeds from. They live in the application
+     * files directory, next to the log: a cursor must not be evicted with the cache.
+     *
+     * @param context The application context.
+     * @return A singleton instance of the SyncCursors.
+     */
+    @Provides
+    @Singleton
+    public SyncCursors provideSyncCursors(@ApplicationContext Context context) {
+        return new SyncCursors(new File(context.getFilesDir(), "sync-cursors"));
+    }
+
+    /**
+     * Provides the registry interning the authors of the reviews held by the review store. It
+     * has the scope of the store that owns it: its ids only refer to the reviews of the store.
+     *
+     * @return A singleton instance of the AuthorRegistry.
+     */
+    @Provides
+    @Singleton
+    public AuthorRegistry provideAuthorRegistry() {
+        return new AuthorRegistry();
+    }
+
+    /**
+     * Provides the mode of the I/O executor. The app uses the bounded pool: the Android runtime
+     * has no virtual threads. A JVM build of the data layer, such as a test component, can bind
+     * {@link IoExecutors.Mode#VIRTUAL_THREAD_PER_TASK} instead.
+     *
+     * @return The mode of the I/O executor.
+     */
+    @Provides
+    public IoExecutors.Mode provideIoExecutorMode() {
+        return IoExecutors.Mode.BOUNDED_POOL;
+    }
+
+    /**
+     * Provides the executor used by the repositories for blocking I/O work.
+     * <p>
+     * In the bounded pool mode, the pool holds at most {@link #IO_THREAD_COUNT} background
+     * threads, so a burst of requests queues up instead of creating an unbounded number of
+     * threads. Idle threads are released after a while.
+     * </p>
+     *
+     * @param mode The mode of the executor.
+     * @return A singleton executor running tasks off the main thread.
+     */
+    @Provides
+    @Singleton
+    @IoExecutor
+    public Executor provideIoExecutor(IoExecutors.Mode mode) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return IoExecutors.create(mode, IO_THREAD_COUNT,
+                runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "tajmahal-io-" + threadNumber.incrementAndGet()));
+    }
+
+    /**
+     * Provides the batcher grouping the reviews received in bursts before they reach the store.
+     * <p>
+     * A batch is applied after {@link #REVIEW_BATCH_WINDOW_MS} milliseconds, a few frames, or as
+     * soon as it holds {@link #REVIEW_BATCH_MAX_SIZE} reviews. The end of the window is timed by a
+     * dedicated background thread.
+     * </p>
+     *
+     * @param reviewStore The store receiving the batches.
+     * @return A singleton instance of the ReviewBatcher.
+     */
+    @Provides
+    @Singleton
+    public ReviewBatcher provideReviewBatcher(ReviewStore reviewStore) {
+        return new ReviewBatcher(reviewStore,
+                Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "tajmahal-review-batch")),
+                REVIEW_BATCH_WINDOW_MS, REVIEW_BATCH_MAX_SIZE);
+    }
+
+    /**
+     * Provides the scheduler of the background syncs of the reviews, backed by WorkManager so
+     * the syncs outlive the screens and the process.
+     *
+     * @param scheduler The WorkManager scheduler.
+     * @return The scheduler used by the repository.
+     */
+    @Provides
+    @Singleton
+    public ReviewSyncScheduler provideReviewSyncScheduler(WorkManagerReviewSyncScheduler scheduler) {
+        return scheduler;
+    }
+
+    /**
+     * Provides the use case submitting the reviews written by the user. The validation and the
+     * save run on the I/O executor, never on the main thread.
+     *
+     * @param repository The repository saving the reviews.
+     * @param ioExecutor The executor running the submissions.
+     * @return A singleton instance of the SubmitReviewUseCase.
+     */
+    @Provides
+    @Singleton
+    public SubmitReviewUseCase provideSubmitReviewUseCase(RestaurantRepository repository, @IoExecutor Executor ioExecutor) {
+        return new SubmitReviewUseCase(repository, ioExecutor, System::currentTimeMillis);
+    }
+
+    /**
+     * Provides the metrics of the hot paths. They are only recorded by the debuggable builds:
+     * in the release and benchmark builds, the instrumented code records nothing and pays
+     * next to nothing.
+     *
+     * @param context The application context.
+     * @return A singleton instance of the Metrics.
+     */
+    @Provides
+    @Singleton
+    public Metrics provideMetrics(@ApplicationContext Context context) {
+        boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        return new Metrics(debuggable, new AndroidTracer());
+    }
 }
@@ -0,0 +1,17 @@
+package com.openclassrooms.tajmahal.di;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Qualifier;
+
+/**
+ * Qualifier for the {@code CoroutineScope} living as long as the application, in which the
+ * flows shared between screens keep running.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ApplicationScope {
+}
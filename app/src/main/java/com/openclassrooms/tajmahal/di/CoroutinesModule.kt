@@ -0,0 +1,42 @@
+package com.openclassrooms.tajmahal.di
+
+import dagger.Module
+import dagger.Provides
+import dagger.hilt.InstallIn
+import dagger.hilt.components.SingletonComponent
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.asCoroutineDispatcher
+import java.util.concurrent.Executor
+import javax.inject.Singleton
+
+/**
+ * Provides the coroutine dispatcher and scope of the data layer.
+ *
+ * The coroutines doing blocking I/O run on the same I/O executor as the rest of the data layer,
+ * see [AppModule.provideIoExecutor], so the flows add no thread of their own.
+ */
+@Module
+@InstallIn(SingletonComponent::class)
+object CoroutinesModule {
+
+    /**
+     * Provides the dispatcher running the blocking I/O of the flows on the I/O executor.
+     */
+    @Provides
+    @Singleton
+    @IoDispatcher
+    fun provideIoDispatcher(@IoExecutor ioExecutor: Executor): CoroutineDispatcher =
+        ioExecutor.asCoroutineDispatcher()
+
+    /**
+     * Provides the scope of the flows shared by every screen. Its supervisor job keeps the
+     * scope alive when one of its coroutines fails.
+     */
+    @Provides
+    @Singleton
+    @ApplicationScope
+    fun provideApplicationScope(@IoDispatcher ioDispatcher: CoroutineDispatcher): CoroutineScope =
+        CoroutineScope(SupervisorJob() + ioDispatcher)
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.tajmahal.di;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Qualifier;
+
+/**
+ * Qualifier for the {@code CoroutineDispatcher} running blocking I/O work in coroutines, backed
+ * by the {@link IoExecutor} pool.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IoDispatcher {
+}
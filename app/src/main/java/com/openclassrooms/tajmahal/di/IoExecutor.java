@@ -0,0 +1,17 @@
+package com.openclassrooms.tajmahal.di;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import javax.inject.Qualifier;
+
+/**
+ * Qualifier for the {@link java.util.concurrent.Executor} running blocking I/O work, such as
+ * API calls and disk access, away from the main thread.
+ */
+@Qualifier
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+public @interface IoExecutor {
+}
@@ -0,0 +1,243 @@
+package com.openclassrooms.tajmahal.domain.catalog;
+
+import com.openclassrooms.tajmahal.domain.hours.OpeningHours;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory index of the restaurants of the chain.
+ * <p>
+ * The catalog is built once from the list of restaurants and never modified: a refresh of the
+ * list builds a new catalog. Lookups by id go through a hash map. Filters on the type, dine-in
+ * and take-away options go through secondary indexes, one bit set per indexed value, in which
+ * bit {@code i} stands for the i-th restaurant of the list. A query only intersects the bit
+ * sets of its criteria, so it never scans every restaurant.
+ * </p>
+ * <p>
+ * Opening hours are parsed once per distinct hours string, and each distinct schedule keeps the
+ * bit set of its restaurants. The "open at" criterion thus costs one binary search per distinct
+ * schedule, a handful for a chain, rather than one per restaurant.
+ * </p>
+ * Types are compared ignoring case, and results keep the order of the original list.
+ */
+public final class RestaurantCatalog {
+
+    /** The catalog holding no restaurant. */
+    public static final RestaurantCatalog EMPTY = new RestaurantCatalog(Collections.emptyList());
+
+    /**
+     * Criteria of a catalog query. A criterion left to null matches every restaurant.
+     */
+    public static final class Filter {
+
+        /** The filter matching every restaurant. */
+        public static final Filter ANY = new Filter(null, null, null, null);
+
+        private final String type;
+        private final Boolean dineIn;
+        private final Boolean takeAway;
+        private final Integer openAt;
+
+        private Filter(String type, Boolean dineIn, Boolean takeAway, Integer openAt) {
+            this.type = type;
+            this.dineIn = dineIn;
+            this.takeAway = takeAway;
+            this.openAt = openAt;
+        }
+
+        /**
+         * Returns a copy of this filter only matching the given type.
+         *
+         * @param type the type of cuisine, compared ignoring case
+         * @return the new filter
+         */
+        public Filter type(String type) {
+            return new Filter(type, dineIn, takeAway, openAt);
+        }
+
+        /**
+         * Returns a copy of this filter only matching the given dine-in option.
+         *
+         * @param dineIn true for the restaurants offering dine-in, false for the others
+         * @return the new filter
+         */
+        public Filter dineIn(boolean dineIn) {
+            return new Filter(type, dineIn, takeAway, openAt);
+        }
+
+        /**
+         * Returns a copy of this filter only matching the given take-away option.
+         *
+         * @param takeAway true for the restaurants offering take-away, false for the others
+         * @return the new filter
+         */
+        public Filter takeAway(boolean takeAway) {
+            return new Filter(type, dineIn, takeAway, openAt);
+        }
+
+        /**
+         * Returns a copy of this filter only matching the restaurants open at a given time.
+         *
+         * @param minuteOfWeek the minute of the week, see {@link OpeningHours#minuteOfWeek}
+         * @return the new filter
+         */
+        public Filter openAt(int minuteOfWeek) {
+            return new Filter(type, dineIn, takeAway, minuteOfWeek);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Filter filter = (Filter) o;
+            return Objects.equals(type, filter.type) && Objects.equals(dineIn, filter.dineIn)
+                    && Objects.equals(takeAway, filter.takeAway) && Objects.equals(openAt, filter.openAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, dineIn, takeAway, openAt);
+        }
+    }
+
+    private final List<Restaurant> restaurants;
+    private final Map<Long, Restaurant> byId;
+    private final Map<String, BitSet> byType = new HashMap<>();
+    private final BitSet dineIn = new BitSet();
+    private final BitSet takeAway = new BitSet();
+
+    // Distinct schedules of the chain, and the restaurants following each of them.
+    private final List<OpeningHours> schedules = new ArrayList<>();
+    private final List<BitSet> bySchedule = new ArrayList<>();
+
+    /**
+     * Builds the catalog and its indexes, in O(n).
+     *
+     * @param restaurants the restaurants of the chain, with unique ids
+     * @throws IllegalArgumentException if two restaurants share the same id
+     */
+    public RestaurantCatalog(List<Restaurant> restaurants) {
+        this.restaurants = Collections.unmodifiableList(new ArrayList<>(restaurants));
+        this.byId = new HashMap<>(restaurants.size() * 4 / 3 + 1);
+        Map<String, BitSet> byHours = new HashMap<>();
+        for (int i = 0; i < this.restaurants.size(); i++) {
+            Restaurant restaurant = this.restaurants.get(i);
+            if (byId.put(restaurant.getId(), restaurant) != null) {
+                throw new IllegalArgumentException("Duplicate restaurant id: " + restaurant.getId());
+            }
+            String type = typeKey(restaurant.getType());
+            BitSet sameType = byType.get(type);
+            if (sameType == null) {
+                sameType = new BitSet();
+                byType.put(type, sameType);
+            }
+            sameType.set(i);
+            if (restaurant.isDineIn()) dineIn.set(i);
+            if (restaurant.isTakeAway()) takeAway.set(i);
+            BitSet sameHours = byHours.get(restaurant.getHours());
+            if (sameHours == null) {
+                sameHours = new BitSet();
+                byHours.put(restaurant.getHours(), sameHours);
+                schedules.add(restaurant.getOpeningHours());
+                bySchedule.add(sameHours);
+            }
+            sameHours.set(i);
+        }
+    }
+
+    /**
+     * Returns every restaurant of the catalog.
+     *
+     * @return an unmodifiable list, in the order the catalog was built with
+     */
+    public List<Restaurant> getAll() {
+        return restaurants;
+    }
+
+    /**
+     * Returns the number of restaurants of the catalog.
+     *
+     * @return the number of restaurants
+     */
+    public int size() {
+        return restaurants.size();
+    }
+
+    /**
+     * Looks up a restaurant by id, in O(1).
+     *
+     * @param restaurantId the id of the restaurant
+     * @return the restaurant, or null if the catalog does not hold it
+     */
+    public Restaurant get(long restaurantId) {
+        return byId.get(restaurantId);
+    }
+
+    /**
+     * Returns the restaurants matching a filter.
+     *
+     * @param filter the criteria of the query
+     * @return the matching restaurants, in catalog order
+     */
+    public List<Restaurant> find(Filter filter) {
+        BitSet matches = match(filter);
+        List<Restaurant> result = new ArrayList<>(matches.cardinality());
+        for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+            result.add(restaurants.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Counts the restaurants matching a filter, without building the list of results.
+     *
+     * @param filter the criteria of the query
+     * @return the number of matching restaurants
+     */
+    public int count(Filter filter) {
+        return match(filter).cardinality();
+    }
+
+    private BitSet match(Filter filter) {
+        BitSet result = new BitSet(restaurants.size());
+        if (filter.type != null) {
+            BitSet sameType = byType.get(typeKey(filter.type));
+            if (sameType == null) return result;
+            result.or(sameType);
+        } else {
+            result.set(0, restaurants.size());
+        }
+        if (filter.dineIn != null) apply(result, dineIn, filter.dineIn);
+        if (filter.takeAway != null) apply(result, takeAway, filter.takeAway);
+        if (filter.openAt != null) result.and(openAt(filter.openAt));
+        return result;
+    }
+
+    private BitSet openAt(int minuteOfWeek) {
+        BitSet open = new BitSet(restaurants.size());
+        for (int i = 0; i < schedules.size(); i++) {
+            if (schedules.get(i).isOpenAt(minuteOfWeek)) open.or(bySchedule.get(i));
+        }
+        return open;
+    }
+
+    private static void apply(BitSet result, BitSet index, boolean expected) {
+        if (expected) {
+            result.and(index);
+        } else {
+            result.andNot(index);
+        }
+    }
+
+    private static String typeKey(String type) {
+        return type == null ? "" : type.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,207 @@
+package com.openclassrooms.tajmahal.domain.hours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Weekly opening hours of a restaurant, parsed once from their display string.
+ * <p>
+ * Time is expressed in minutes of the week, from 0 on Monday at midnight to
+ * {@link #MINUTES_PER_WEEK} excluded. The opening intervals are stored in a single sorted
+ * {@code int} array of alternating opening and closing minutes, so {@link #isOpenAt(int)} and
+ * {@link #nextOpening(int)} are binary searches that allocate nothing.
+ * </p>
+ * <p>
+ * The display string lists the daily slots, such as {@code "11h30 - 14h30・18h30 - 22h00"},
+ * which apply to every day of the week. A slot ending after midnight runs into the next day.
+ * A string that cannot be read gives a schedule for which {@link #isKnown()} is false.
+ * </p>
+ * Instances are immutable and thread-safe.
+ */
+public final class OpeningHours {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int DAYS_PER_WEEK = 7;
+    public static final int MINUTES_PER_WEEK = DAYS_PER_WEEK * MINUTES_PER_DAY;
+
+    /** Value returned by {@link #nextOpening(int)} when the restaurant never opens. */
+    public static final int NEVER = -1;
+
+    /** The schedule of a restaurant whose hours are unknown. */
+    public static final OpeningHours UNKNOWN = new OpeningHours(new int[0], false);
+
+    // A slot such as "11h30 - 14h30", "18h - 22h" or "11:30-14:30".
+    private static final Pattern SLOT = Pattern.compile("(\\d{1,2})\\s*[h:]\\s*(\\d{2})?\\s*-\\s*(\\d{1,2})\\s*[h:]\\s*(\\d{2})?");
+
+    // 1970-01-01, day 0 of the epoch, was a Thursday: 3 days after a Monday.
+    private static final long EPOCH_MINUTE_OF_WEEK = 3L * MINUTES_PER_DAY;
+
+    // Opening minute at even indexes, closing minute (excluded) at odd indexes, sorted.
+    private final int[] bounds;
+    private final boolean known;
+
+    private OpeningHours(int[] bounds, boolean known) {
+        this.bounds = bounds;
+        this.known = known;
+    }
+
+    /**
+     * Parses a display string of opening hours.
+     *
+     * @param hours the opening hours, such as {@code "11h30 - 14h30・18h30 - 22h00"}
+     * @return the weekly schedule, {@link #UNKNOWN} if the string holds no readable slot
+     */
+    public static OpeningHours parse(String hours) {
+        if (hours == null) return UNKNOWN;
+        List<int[]> intervals = new ArrayList<>();
+        Matcher matcher = SLOT.matcher(hours);
+        while (matcher.find()) {
+            int start = minuteOfDay(matcher.group(1), matcher.group(2));
+            int end = minuteOfDay(matcher.group(3), matcher.group(4));
+            if (start < 0 || end < 0) return UNKNOWN;
+            // A slot ending at or before its start runs past midnight
+            if (end <= start) end += MINUTES_PER_DAY;
+            for (int day = 0; day < DAYS_PER_WEEK; day++) {
+                addInterval(intervals, day * MINUTES_PER_DAY + start, day * MINUTES_PER_DAY + end);
+            }
+        }
+        if (intervals.isEmpty()) return UNKNOWN;
+        return new OpeningHours(merge(intervals), true);
+    }
+
+    /**
+     * Converts an instant into a minute of the week, in the given time zone.
+     *
+     * @param epochMillis the instant, in milliseconds since the epoch
+     * @param timeZone    the time zone of the restaurant
+     * @return the minute of the week, Monday at midnight being 0
+     */
+    public static int minuteOfWeek(long epochMillis, TimeZone timeZone) {
+        long localMinutes = Math.floorDiv(epochMillis + timeZone.getOffset(epochMillis), 60_000L);
+        return (int) Math.floorMod(localMinutes + EPOCH_MINUTE_OF_WEEK, (long) MINUTES_PER_WEEK);
+    }
+
+    /**
+     * Returns the day of a minute of the week.
+     *
+     * @param minuteOfWeek the minute of the week
+     * @return the day, from 0 for Monday to 6 for Sunday
+     */
+    public static int dayOfWeek(int minuteOfWeek) {
+        return minuteOfWeek / MINUTES_PER_DAY;
+    }
+
+    /**
+     * Tells whether the hours could be read. Unknown hours are never open.
+     *
+     * @return true if the schedule was parsed from a readable string
+     */
+    public boolean isKnown() {
+        return known;
+    }
+
+    /**
+     * Tells whether the restaurant is open at a given minute of the week.
+     *
+     * @param minuteOfWeek the minute of the week, as given by {@link #minuteOfWeek(long, TimeZone)}
+     * @return true if the minute falls into an opening interval
+     */
+    public boolean isOpenAt(int minuteOfWeek) {
+        int index = Arrays.binarySearch(bounds, minuteOfWeek);
+        // On an opening minute (even index) the restaurant is open, on a closing minute it is closed.
+        // Between two bounds, it is open when the insertion point follows an opening minute.
+        return index >= 0 ? (index & 1) == 0 : ((-index - 1) & 1) == 1;
+    }
+
+    /**
+     * Returns the minute of the week at which the restaurant next opens, strictly after the given
+     * minute. The search wraps around to the next week. An interval running from Sunday night into
+     * Monday is one opening, not two.
+     *
+     * @param minuteOfWeek the minute of the week
+     * @return the minute of the week of the next opening, or {@link #NEVER}
+     */
+    public int nextOpening(int minuteOfWeek) {
+        int count = bounds.length / 2;
+        if (count == 0) return NEVER;
+        // Monday midnight is not an opening when Sunday's last interval runs into it
+        boolean wraps = bounds[0] == 0 && bounds[bounds.length - 1] == MINUTES_PER_WEEK;
+        if (wraps && count == 1) return NEVER;
+        int first = wraps ? 1 : 0;
+        // Binary search of the first opening strictly after the given minute
+        int low = first;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bounds[2 * mid] > minuteOfWeek) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return bounds[2 * (low < count ? low : first)];
+    }
+
+    /**
+     * Returns the number of minutes until the next opening, strictly after the given minute.
+     *
+     * @param minuteOfWeek the minute of the week
+     * @return the number of minutes, or {@link #NEVER}
+     */
+    public int minutesUntilNextOpening(int minuteOfWeek) {
+        int next = nextOpening(minuteOfWeek);
+        if (next == NEVER) return NEVER;
+        return next > minuteOfWeek ? next - minuteOfWeek : next + MINUTES_PER_WEEK - minuteOfWeek;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OpeningHours that = (OpeningHours) o;
+        return known == that.known && Arrays.equals(bounds, that.bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(bounds) + (known ? 1 : 0);
+    }
+
+    // Returns the minute of the day, or -1 if the time is out of range. 24h00 is midnight at the end of the day.
+    private static int minuteOfDay(String hour, String minute) {
+        int h = Integer.parseInt(hour);
+        int m = minute == null ? 0 : Integer.parseInt(minute);
+        if (h > 24 || m > 59 || (h == 24 && m > 0)) return -1;
+        return h * 60 + m;
+    }
+
+    // Adds an interval, split in two when it runs past the end of the week.
+    private static void addInterval(List<int[]> intervals, int start, int end) {
+        if (end <= MINUTES_PER_WEEK) {
+            intervals.add(new int[]{start, end});
+        } else {
+            intervals.add(new int[]{start, MINUTES_PER_WEEK});
+            intervals.add(new int[]{0, end - MINUTES_PER_WEEK});
+        }
+    }
+
+    // Sorts the intervals and merges the overlapping or touching ones into the bounds array.
+    private static int[] merge(List<int[]> intervals) {
+        intervals.sort((a, b) -> Integer.compare(a[0], b[0]));
+        int[] bounds = new int[intervals.size() * 2];
+        int size = 0;
+        for (int[] interval : intervals) {
+            if (size > 0 && interval[0] <= bounds[size - 1]) {
+                bounds[size - 1] = Math.max(bounds[size - 1], interval[1]);
+            } else {
+                bounds[size++] = interval[0];
+                bounds[size++] = interval[1];
+            }
+        }
+        return Arrays.copyOf(bounds, size);
+    }
+}
@@ -0,0 +1,104 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Objects;
+
+/**
+ * Represents the author of reviews: a username and a profile picture, with the compact ids
+ * given by the {@link AuthorRegistry} that interned them.
+ * <p>
+ * A registry keeps a single instance per distinct author, shared by all their reviews, so equal
+ * authors of the same registry are the same object. Authors never change: editing the username
+ * or the picture of a review interns another author in the same registry.
+ * </p>
+ * <p>
+ * The reviews built from strings have an author of their own, interned in no registry, with the
+ * ids {@link AuthorRegistry#NO_ID} and {@link AuthorRegistry#NO_AVATAR}.
+ * </p>
+ */
+public final class Author {
+
+    private final AuthorRegistry registry;
+    private final int id;
+    private final String username;
+    private final int avatarId;
+    private final String picture;
+
+    Author(AuthorRegistry registry, int id, String username, int avatarId, String picture) {
+        this.registry = registry;
+        this.id = id;
+        this.username = username;
+        this.avatarId = avatarId;
+        this.picture = picture;
+    }
+
+    // An author of its own, also used to look up the interned one of equal content.
+    static Author unregistered(String username, String picture) {
+        return new Author(null, AuthorRegistry.NO_ID, username, AuthorRegistry.NO_AVATAR, picture);
+    }
+
+    /**
+     * Returns the id of the author in their registry.
+     *
+     * @return an index from 0, dense in the order the authors were interned, or
+     *         {@link AuthorRegistry#NO_ID} if the author is not interned
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the username of the author.
+     *
+     * @return the username, may be null
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Returns the id of the profile picture in the registry, shared by every author with the
+     * same picture.
+     *
+     * @return the avatar id, or {@link AuthorRegistry#NO_AVATAR} if the author has no picture
+     *         or is not interned
+     */
+    public int getAvatarId() {
+        return avatarId;
+    }
+
+    /**
+     * Returns the profile picture of the author.
+     *
+     * @return the picture URL or path, may be null
+     */
+    public String getPicture() {
+        return picture;
+    }
+
+    // The registry that interned the author, null if none
+    AuthorRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Compares the username and the picture of two authors, which may come from different
+     * registries.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Author author = (Author) o;
+        return Objects.equals(username, author.username) && Objects.equals(picture, author.picture);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(username) * 31 + Objects.hashCode(picture);
+    }
+
+    @Override
+    public String toString() {
+        return "Author{" + id + ", " + username + "}";
+    }
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the authors of the reviews and their profile pictures, giving each distinct one a
+ * compact int id.
+ * <p>
+ * Regular reviewers write many reviews, and most of the reviewers share a few pictures, such as
+ * the local "profile_picture" placeholder. Without a registry, every review held its own copies
+ * of both strings. With it, a review only refers to its {@link Author}, kept once for all their
+ * reviews, and a {@link ColumnarReviewList} only stores the author id of each review.
+ * </p>
+ * <p>
+ * Ids are dense indexes from 0, in the order the authors and pictures are first seen. They are
+ * only valid in this registry and for the life of the process: they must never be written to a
+ * file or sent to the server.
+ * </p>
+ * <p>
+ * There is no registry shared by the whole process. A registry is owned by whatever holds the
+ * reviews interned in it, such as the review store or a {@link ColumnarReviewList} built on its
+ * own, and is collected with them. A registry only grows while its owner lives: the authors are
+ * bounded by the reviews its owner holds or held, far fewer than the reviews. The reviews built
+ * from strings are not interned anywhere: their owner interns them with {@link #intern(Review)}.
+ * </p>
+ * Every method can be called from any thread. Interning a known author does not lock.
+ */
+public final class AuthorRegistry {
+
+    /** Avatar id of the authors without a picture, or not interned in a registry. */
+    public static final int NO_AVATAR = -1;
+
+    /** Author id of the authors not interned in a registry. */
+    public static final int NO_ID = -1;
+
+    // Probes built with the registry unset find the interned author of equal content
+    private final ConcurrentHashMap<Author, Author> authorsByValue = new ConcurrentHashMap<>();
+    // Only read and written under the lock: pictures are interned with new authors
+    private final Map<String, Integer> avatarsByPicture = new HashMap<>();
+
+    // Written under the lock: the element first, then the array, then the count. Readers read
+    // the count first, so they see every element below it.
+    private volatile Author[] authors = new Author[64];
+    private volatile int authorCount;
+    private volatile String[] pictures = new String[16];
+    private volatile int pictureCount;
+
+    /**
+     * Returns the single author of this registry with a username and a picture, interning it
+     * on first use.
+     *
+     * @param username the username, may be null
+     * @param picture  the picture URL or path, may be null
+     * @return the interned author
+     */
+    public Author intern(String username, String picture) {
+        Author author = authorsByValue.get(Author.unregistered(username, picture));
+        return author != null ? author : add(username, picture);
+    }
+
+    /**
+     * Returns a review whose author is interned in this registry.
+     *
+     * @param review the review
+     * @return the review itself if its author comes from this registry, else a copy of it with
+     *         the interned author
+     */
+    public Review intern(Review review) {
+        Author author = review.getAuthor();
+        if (author.getRegistry() == this) return review;
+        return new Review(review.getId(), intern(author.getUsername(), author.getPicture()),
+                review.getComment(), review.getRate(), review.getCreatedAt());
+    }
+
+    /**
+     * Returns the author with an id.
+     *
+     * @param authorId the id of the author, as given by {@link Author#getId()}
+     * @return the author
+     * @throws IndexOutOfBoundsException if no author has this id
+     */
+    public Author get(int authorId) {
+        int count = authorCount;
+        if (authorId < 0 || authorId >= count) {
+            throw new IndexOutOfBoundsException("Author id: " + authorId + ", count: " + count);
+        }
+        return authors[authorId];
+    }
+
+    /**
+     * Returns the picture with an avatar id.
+     *
+     * @param avatarId the id of the picture, as given by {@link Author#getAvatarId()}
+     * @return the picture URL or path, null for {@link #NO_AVATAR}
+     * @throws IndexOutOfBoundsException if no picture has this id
+     */
+    public String getPicture(int avatarId) {
+        if (avatarId == NO_AVATAR) return null;
+        int count = pictureCount;
+        if (avatarId < 0 || avatarId >= count) {
+            throw new IndexOutOfBoundsException("Avatar id: " + avatarId + ", count: " + count);
+        }
+        return pictures[avatarId];
+    }
+
+    /**
+     * Returns the number of distinct authors interned so far.
+     *
+     * @return the number of authors, one more than the highest author id
+     */
+    public int size() {
+        return authorCount;
+    }
+
+    /**
+     * Returns the number of distinct pictures interned so far.
+     *
+     * @return the number of pictures, one more than the highest avatar id
+     */
+    public int avatarCount() {
+        return pictureCount;
+    }
+
+    private synchronized Author add(String username, String picture) {
+        Author probe = Author.unregistered(username, picture);
+        Author author = authorsByValue.get(probe);
+        if (author != null) return author;
+
+        // The same strings back every review of the author, whatever instances the caller had
+        int avatarId = internPicture(picture);
+        int id = authorCount;
+        author = new Author(this, id, username, avatarId, avatarId == NO_AVATAR ? null : pictures[avatarId]);
+        Author[] table = authors;
+        if (id == table.length) table = Arrays.copyOf(table, id * 2);
+        table[id] = author;
+        authors = table;
+        authorCount = id + 1;
+        authorsByValue.put(author, author);
+        return author;
+    }
+
+    // Called under the lock of add
+    private int internPicture(String picture) {
+        if (picture == null) return NO_AVATAR;
+        Integer known = avatarsByPicture.get(picture);
+        if (known != null) return known;
+        int id = pictureCount;
+        String[] table = pictures;
+        if (id == table.length) table = Arrays.copyOf(table, id * 2);
+        table[id] = picture;
+        pictures = table;
+        pictureCount = id + 1;
+        avatarsByPicture.put(picture, id);
+        return id;
+    }
+}
@@ -0,0 +1,425 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of reviews stored column by column, for the very large review sets.
+ * <p>
+ * A list of {@link Review} objects costs, per review, an object and a comment string with their
+ * headers, and the garbage collector has to trace all of them. This list stores the same data
+ * in a few primitive arrays instead:
+ * </p>
+ * <ul>
+ *     <li>the ids and times in {@code long[]} and the rates in a {@code byte[]};</li>
+ *     <li>the authors in an {@link AuthorRegistry}: each distinct username and picture is kept
+ *     once, and every review holds the id of its {@link Author} in an {@code int[]};</li>
+ *     <li>the comments, encoded in UTF-8, one after the other in a single append-only
+ *     {@code byte[]}, with the offset of the end of each comment in an {@code int[]}.</li>
+ * </ul>
+ * <p>
+ * {@link #get(int)} materializes a new Review from the columns on each call, so only the reviews
+ * actually displayed exist as objects. The returned reviews are copies: modifying one does not
+ * change the list. The stats read the rate column directly, see {@link #countRates(int[])}.
+ * </p>
+ * Lists are built by a {@link Builder}. A list never changes once built, and can be read from
+ * any thread.
+ */
+public final class ColumnarReviewList extends AbstractList<Review> implements RandomAccess {
+
+    /**
+     * Appends reviews to the columns, then builds immutable lists over them.
+     * <p>
+     * The builder can keep appending after {@link #build()}: the arrays are only ever written past
+     * the size of the lists already built, and are copied when they grow, so those lists never
+     * see the new reviews. A builder must be used by one thread at a time.
+     * </p>
+     */
+    public static final class Builder {
+
+        private long[] ids;
+        private byte[] rates;
+        private long[] createdAts;
+        private int[] authors;
+        private int[] commentEnds;
+        private byte[] comments;
+        private final BitSet nullComments = new BitSet();
+        private int size;
+        private int commentsLength;
+
+        private final AuthorRegistry registry;
+
+        /**
+         * Constructs a builder sized for a number of reviews, interning the authors in a new
+         * registry of its own.
+         *
+         * @param expectedSize the expected number of reviews, only a hint
+         */
+        public Builder(int expectedSize) {
+            this(expectedSize, new AuthorRegistry());
+        }
+
+        /**
+         * Constructs a builder sized for a number of reviews, interning the authors in a given
+         * registry.
+         *
+         * @param expectedSize the expected number of reviews, only a hint
+         * @param registry     the registry of the authors of the reviews
+         */
+        public Builder(int expectedSize, AuthorRegistry registry) {
+            this.registry = registry;
+            int capacity = Math.max(16, expectedSize);
+            ids = new long[capacity];
+            rates = new byte[capacity];
+            createdAts = new long[capacity];
+            authors = new int[capacity];
+            commentEnds = new int[capacity];
+            comments = new byte[capacity * 32];
+        }
+
+        /**
+         * Appends a review at the end of the columns.
+         *
+         * @param review the review to append
+         * @return this builder
+         * @throws IllegalArgumentException if the rate does not fit the rate column
+         */
+        public Builder add(Review review) {
+            byte[] comment = review.getComment() == null ? null : review.getComment().getBytes(StandardCharsets.UTF_8);
+            return add(review.getId(), review.getRate(), review.getCreatedAt(), authorIdOf(review.getAuthor()),
+                    comment, 0, comment == null ? 0 : comment.length);
+        }
+
+        /**
+         * Appends a review whose comment is already encoded, copying the bytes without decoding
+         * them, such as a record read from a file.
+         *
+         * @param id        the id of the review
+         * @param rate      the rate of the review
+         * @param createdAt the time of the review, or {@link Review#UNKNOWN_TIME}
+         * @param username  the username, may be null
+         * @param picture   the picture URL or path, may be null
+         * @param comment   the array holding the UTF-8 comment, null for a null comment
+         * @param offset    the offset of the comment in the array
+         * @param length    the length of the comment in bytes
+         * @return this builder
+         * @throws IllegalArgumentException if the rate does not fit the rate column
+         */
+        public Builder add(long id, int rate, long createdAt, String username, String picture, byte[] comment, int offset, int length) {
+            return add(id, rate, createdAt, registry.intern(username, picture).getId(), comment, offset, length);
+        }
+
+        /**
+         * Appends the review at a position of another list, copying its columns without
+         * materializing it.
+         *
+         * @param list  the list holding the review
+         * @param index the position of the review in the list
+         * @return this builder
+         */
+        public Builder addFrom(ColumnarReviewList list, int index) {
+            list.checkIndex(index);
+            int authorId = list.registry == registry ? list.authors[index] : authorIdOf(list.registry.get(list.authors[index]));
+            if (list.nullComments.get(index)) {
+                return add(list.ids[index], list.rates[index], list.createdAts[index], authorId, null, 0, 0);
+            }
+            int start = index == 0 ? 0 : list.commentEnds[index - 1];
+            return add(list.ids[index], list.rates[index], list.createdAts[index], authorId,
+                    list.comments, start, list.commentEnds[index] - start);
+        }
+
+        private Builder add(long id, int rate, long createdAt, int authorId, byte[] comment, int offset, int length) {
+            if (rate < Byte.MIN_VALUE || rate > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Rate out of range: " + rate);
+            }
+            if (size == ids.length) grow();
+            ids[size] = id;
+            rates[size] = (byte) rate;
+            createdAts[size] = createdAt;
+            authors[size] = authorId;
+            if (comment == null) {
+                nullComments.set(size);
+            } else {
+                if (commentsLength + length > comments.length) {
+                    comments = Arrays.copyOf(comments, Math.max(comments.length * 2, commentsLength + length));
+                }
+                System.arraycopy(comment, offset, comments, commentsLength, length);
+                commentsLength += length;
+            }
+            commentEnds[size] = commentsLength;
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends several reviews, in order.
+         *
+         * @param reviews the reviews to append
+         * @return this builder
+         */
+        public Builder addAll(Iterable<Review> reviews) {
+            for (Review review : reviews) add(review);
+            return this;
+        }
+
+        /**
+         * Builds a list holding the reviews appended so far.
+         *
+         * @return an immutable list sharing the columns of the builder
+         */
+        public ColumnarReviewList build() {
+            return new ColumnarReviewList(this);
+        }
+
+        // The author of a review built from this registry already has its id: no lookup
+        private int authorIdOf(Author author) {
+            if (author.getRegistry() == registry) return author.getId();
+            return registry.intern(author.getUsername(), author.getPicture()).getId();
+        }
+
+        private void grow() {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            rates = Arrays.copyOf(rates, capacity);
+            createdAts = Arrays.copyOf(createdAts, capacity);
+            authors = Arrays.copyOf(authors, capacity);
+            commentEnds = Arrays.copyOf(commentEnds, capacity);
+        }
+    }
+
+    private final long[] ids;
+    private final byte[] rates;
+    private final long[] createdAts;
+    private final int[] authors;
+    private final int[] commentEnds;
+    private final byte[] comments;
+    private final BitSet nullComments;
+    private final AuthorRegistry registry;
+    private final int size;
+
+    private ColumnarReviewList(Builder builder) {
+        ids = builder.ids;
+        rates = builder.rates;
+        createdAts = builder.createdAts;
+        authors = builder.authors;
+        commentEnds = builder.commentEnds;
+        comments = builder.comments;
+        // The builder may still set bits below the size of later lists: this one keeps its own
+        nullComments = (BitSet) builder.nullComments.clone();
+        registry = builder.registry;
+        size = builder.size;
+    }
+
+    /**
+     * Copies a list of reviews into columns.
+     *
+     * @param reviews the reviews, read once in order
+     * @return the columnar copy of the list
+     */
+    public static ColumnarReviewList of(List<Review> reviews) {
+        if (reviews instanceof ColumnarReviewList) return (ColumnarReviewList) reviews;
+        return new Builder(reviews.size()).addAll(reviews).build();
+    }
+
+    /**
+     * Copies a list of reviews into columns whose authors are interned in a given registry.
+     *
+     * @param reviews  the reviews, read once in order
+     * @param registry the registry of the authors
+     * @return the list itself if it already has columns over this registry, else its columnar copy
+     */
+    public static ColumnarReviewList of(List<Review> reviews, AuthorRegistry registry) {
+        if (reviews instanceof ColumnarReviewList && ((ColumnarReviewList) reviews).registry == registry) {
+            return (ColumnarReviewList) reviews;
+        }
+        return new Builder(reviews.size(), registry).addAll(reviews).build();
+    }
+
+    /**
+     * Materializes the review at a position.
+     *
+     * @param index the position of the review
+     * @return a new Review holding the values of the columns
+     */
+    @Override
+    public Review get(int index) {
+        checkIndex(index);
+        return new Review(ids[index], registry.get(authors[index]), commentAt(index), rates[index], createdAts[index]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the id of the review at a position, without materializing it.
+     *
+     * @param index the position of the review
+     * @return the id of the review
+     */
+    public long idAt(int index) {
+        checkIndex(index);
+        return ids[index];
+    }
+
+    /**
+     * Returns the rate of the review at a position, without materializing it.
+     *
+     * @param index the position of the review
+     * @return the rate of the review
+     */
+    public int rateAt(int index) {
+        checkIndex(index);
+        return rates[index];
+    }
+
+    /**
+     * Returns the time of the review at a position, without materializing it.
+     *
+     * @param index the position of the review
+     * @return the time in milliseconds since the epoch, or {@link Review#UNKNOWN_TIME}
+     */
+    public long createdAt(int index) {
+        checkIndex(index);
+        return createdAts[index];
+    }
+
+    /**
+     * Returns the id of the author of the review at a position, without materializing it.
+     *
+     * @param index the position of the review
+     * @return the id of the author in {@link #getRegistry()}
+     */
+    public int authorIdAt(int index) {
+        checkIndex(index);
+        return authors[index];
+    }
+
+    /**
+     * Returns the author of the review at a position, without materializing the review.
+     *
+     * @param index the position of the review
+     * @return the author, interned in {@link #getRegistry()}
+     */
+    public Author authorAt(int index) {
+        checkIndex(index);
+        return registry.get(authors[index]);
+    }
+
+    /**
+     * Returns the username of the review at a position. Equal usernames of the same author are
+     * the same instance.
+     *
+     * @param index the position of the review
+     * @return the username, may be null
+     */
+    public String usernameAt(int index) {
+        checkIndex(index);
+        return registry.get(authors[index]).getUsername();
+    }
+
+    /**
+     * Returns the picture of the review at a position. Equal pictures are the same instance.
+     *
+     * @param index the position of the review
+     * @return the picture URL or path, may be null
+     */
+    public String pictureAt(int index) {
+        checkIndex(index);
+        return registry.get(authors[index]).getPicture();
+    }
+
+    /**
+     * Returns the registry holding the authors of the reviews.
+     *
+     * @return the registry the author ids refer to
+     */
+    public AuthorRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Decodes the comment of the review at a position.
+     *
+     * @param index the position of the review
+     * @return the comment, may be null
+     */
+    public String commentAt(int index) {
+        checkIndex(index);
+        if (nullComments.get(index)) return null;
+        int start = index == 0 ? 0 : commentEnds[index - 1];
+        return new String(comments, start, commentEnds[index] - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tells whether the review at a position is equal to the review at a position of another
+     * list, comparing the columns without materializing either review.
+     *
+     * @param index      the position of the review in this list
+     * @param other      the other list
+     * @param otherIndex the position of the review in the other list
+     * @return true if both reviews have the same id, author, comment, rate and time, as
+     *         {@link Review#equals(Object)} would tell
+     */
+    public boolean sameReviewAt(int index, ColumnarReviewList other, int otherIndex) {
+        checkIndex(index);
+        other.checkIndex(otherIndex);
+        if (ids[index] != other.ids[otherIndex] || rates[index] != other.rates[otherIndex]
+                || createdAts[index] != other.createdAts[otherIndex]) {
+            return false;
+        }
+        if (registry == other.registry) {
+            if (authors[index] != other.authors[otherIndex]) return false;
+        } else if (!registry.get(authors[index]).equals(other.registry.get(other.authors[otherIndex]))) {
+            return false;
+        }
+        boolean nullComment = nullComments.get(index);
+        if (nullComment || other.nullComments.get(otherIndex)) return nullComment == other.nullComments.get(otherIndex);
+        int start = index == 0 ? 0 : commentEnds[index - 1];
+        int otherStart = otherIndex == 0 ? 0 : other.commentEnds[otherIndex - 1];
+        int length = commentEnds[index] - start;
+        if (length != other.commentEnds[otherIndex] - otherStart) return false;
+        // Equal strings have equal UTF-8 bytes
+        for (int i = 0; i < length; i++) {
+            if (comments[start + i] != other.comments[otherStart + i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the reviews of each rate in a single pass over the rate column.
+     *
+     * @param counts incremented at the index of each rate; rates outside of the array are skipped
+     */
+    public void countRates(int[] counts) {
+        countRates(counts, 0, size);
+    }
+
+    /**
+     * Counts the reviews of each rate over a range of positions of the rate column.
+     *
+     * @param counts incremented at the index of each rate; rates outside of the array are skipped
+     * @param from   the first position, included
+     * @param to     the last position, excluded
+     */
+    public void countRates(int[] counts, int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), size: " + size);
+        }
+        for (int i = from; i < to; i++) {
+            int rate = rates[i];
+            if (rate >= 0 && rate < counts.length) counts[rate]++;
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable view of two lists of reviews placed one after the other, without copying them.
+ * <p>
+ * The store uses it to show the reviews restored from the local log before the reviews received
+ * from the data sources, each part keeping its own storage, such as a
+ * {@link ColumnarReviewList}.
+ * </p>
+ */
+public final class ConcatenatedReviewList extends AbstractList<Review> implements RandomAccess {
+
+    private final List<Review> first;
+    private final List<Review> second;
+
+    private ConcatenatedReviewList(List<Review> first, List<Review> second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Concatenates two lists. An empty part is dropped rather than wrapped.
+     *
+     * @param first  the reviews placed first. The list must never be modified afterwards.
+     * @param second the reviews placed after them. The list must never be modified afterwards.
+     * @return the concatenation of the two lists
+     */
+    public static List<Review> of(List<Review> first, List<Review> second) {
+        if (first.isEmpty()) return second;
+        if (second.isEmpty()) return first;
+        return new ConcatenatedReviewList(first, second);
+    }
+
+    /**
+     * Returns the reviews placed first.
+     *
+     * @return the first part
+     */
+    public List<Review> getFirst() {
+        return first;
+    }
+
+    /**
+     * Returns the reviews placed after the first part.
+     *
+     * @return the second part
+     */
+    public List<Review> getSecond() {
+        return second;
+    }
+
+    /**
+     * Returns the id of the review at a position, read from the columns of a
+     * {@link ColumnarReviewList} part without materializing the review.
+     *
+     * @param index the position of the review
+     * @return the id of the review
+     */
+    public long idAt(int index) {
+        int firstSize = first.size();
+        return index < firstSize ? ReviewList.idAt(first, index) : ReviewList.idAt(second, index - firstSize);
+    }
+
+    /**
+     * Returns the author of the review at a position, read from the columns of a
+     * {@link ColumnarReviewList} part without materializing the review.
+     *
+     * @param index the position of the review
+     * @return the author of the review
+     */
+    public Author authorAt(int index) {
+        int firstSize = first.size();
+        return index < firstSize ? ReviewList.authorAt(first, index) : ReviewList.authorAt(second, index - firstSize);
+    }
+
+    @Override
+    public Review get(int index) {
+        int firstSize = first.size();
+        return index < firstSize ? first.get(index) : second.get(index - firstSize);
+    }
+
+    @Override
+    public int size() {
+        return first.size() + second.size();
+    }
+}
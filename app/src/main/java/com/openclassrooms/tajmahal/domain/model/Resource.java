@@ -0,0 +1,101 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Objects;
+
+/**
+ * Wraps a value loaded asynchronously together with the state of its loading.
+ * <p>
+ * A resource is either {@link Status#LOADING}, {@link Status#SUCCESS} or {@link Status#ERROR}.
+ * While loading or after an error, the resource may still carry the last known data, so the
+ * UI can keep displaying it.
+ * </p>
+ *
+ * @param <T> the type of the loaded value
+ */
+public final class Resource<T> {
+
+    /** The state of a loading. */
+    public enum Status {
+        LOADING,
+        SUCCESS,
+        ERROR
+    }
+
+    private final Status status;
+    private final T data;
+    private final Throwable error;
+
+    private Resource(Status status, T data, Throwable error) {
+        this.status = status;
+        this.data = data;
+        this.error = error;
+    }
+
+    /**
+     * Creates a resource for a loading in progress.
+     *
+     * @param data the last known data, may be null
+     * @return a resource in the {@link Status#LOADING} state
+     */
+    public static <T> Resource<T> loading(T data) {
+        return new Resource<>(Status.LOADING, data, null);
+    }
+
+    /**
+     * Creates a resource for a successful loading.
+     *
+     * @param data the loaded data
+     * @return a resource in the {@link Status#SUCCESS} state
+     */
+    public static <T> Resource<T> success(T data) {
+        return new Resource<>(Status.SUCCESS, data, null);
+    }
+
+    /**
+     * Creates a resource for a failed loading.
+     *
+     * @param error the cause of the failure
+     * @param data  the last known data, may be null
+     * @return a resource in the {@link Status#ERROR} state
+     */
+    public static <T> Resource<T> error(Throwable error, T data) {
+        return new Resource<>(Status.ERROR, data, error);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isLoading() {
+        return status == Status.LOADING;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public boolean isError() {
+        return status == Status.ERROR;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Resource<?> resource = (Resource<?>) o;
+        return status == resource.status && Objects.equals(data, resource.data) && Objects.equals(error, resource.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, data, error);
+    }
+}
@@ -1,6 +1,8 @@
 package com.openclassrooms.tajmahal.domain.model;
 
 
+import com.openclassrooms.tajmahal.domain.hours.OpeningHours;
+
 import java.util.Objects;
 
 /**
@@ -8,6 +10,7 @@ import java.util.Objects;
  * <p>
  * This class models a restaurant with its name, type (e.g., Indian, Italian), operational hours,
  * address, website, phone number, and availability of dine-in and take-away options.
+ * Each restaurant of the chain is identified by a unique id, which never changes.
  * </p>
  * <p>
  * For beginners: A class is a blueprint for creating objects in Java. Objects are instances of a class.
@@ -15,13 +18,14 @@ import java.util.Objects;
  * <p>
  * Example:
  * <pre>
- * Restaurant tajMahal = new Restaurant("Taj Mahal", "Indian", "11h30 - 22h00",
+ * Restaurant tajMahal = new Restaurant(1, "Taj Mahal", "Indian", "11h30 - 22h00",
  *                                      "123 Street", "http://tajmahal.com", "1234567890", true, false);
  * </pre>
  */
 public class Restaurant {
 
     // Member variables representing attributes of a restaurant.
+    private final long id;
     private String name;
     private String type;
     private String hours;
@@ -31,9 +35,13 @@ public class Restaurant {
     private boolean dineIn;
     private boolean takeAway;
 
+    // Hours parsed on first use, reset when the hours change.
+    private OpeningHours openingHours;
+
     /**
      * Constructor for the Restaurant class.
      *
+     * @param id          The unique identifier of the restaurant.
      * @param name        The name of the restaurant.
      * @param type        The type or cuisine of the restaurant (e.g., Indian, Italian).
      * @param hours       The operational hours of the restaurant.
@@ -43,7 +51,8 @@ public class Restaurant {
      * @param dineIn      A boolean indicating if dine-in is available.
      * @param takeAway    A boolean indicating if take-away service is available.
      */
-    public Restaurant(String name, String type, String hours, String address, String website, String phoneNumber, boolean dineIn, boolean takeAway) {
+    public Restaurant(long id, String name, String type, String hours, String address, String website, String phoneNumber, boolean dineIn, boolean takeAway) {
+        this.id = id;
         this.name = name;
         this.type = type;
         this.hours = hours;
@@ -59,12 +68,16 @@ public class Restaurant {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Restaurant that = (Restaurant) o;
-        return dineIn == that.dineIn && takeAway == that.takeAway && Objects.equals(name, that.name) && Objects.equals(type, that.type) && Objects.equals(hours, that.hours) && Objects.equals(address, that.address) && Objects.equals(website, that.website) && Objects.equals(phoneNumber, that.phoneNumber);
+        return id == that.id && dineIn == that.dineIn && takeAway == that.takeAway && Objects.equals(name, that.name) && Objects.equals(type, that.type) && Objects.equals(hours, that.hours) && Objects.equals(address, that.address) && Objects.equals(website, that.website) && Objects.equals(phoneNumber, that.phoneNumber);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type, hours, address, website, phoneNumber, dineIn, takeAway);
+        return Objects.hash(id, name, type, hours, address, website, phoneNumber, dineIn, takeAway);
+    }
+
+    public long getId() {
+        return id;
     }
 
     public String getName() {
@@ -89,6 +102,22 @@ public class Restaurant {
 
     public void setHours(String hours) {
         this.hours = hours;
+        this.openingHours = null;
+    }
+
+    /**
+     * Returns the opening hours as a weekly schedule. The hours string is parsed on the first
+     * call only, the schedule then answers every "open now?" query without parsing.
+     *
+     * @return the parsed opening hours, {@link OpeningHours#UNKNOWN} if they cannot be read
+     */
+    public OpeningHours getOpeningHours() {
+        OpeningHours parsed = openingHours;
+        if (parsed == null) {
+            parsed = OpeningHours.parse(hours);
+            openingHours = parsed;
+        }
+        return parsed;
     }
 
     public String getAddress() {
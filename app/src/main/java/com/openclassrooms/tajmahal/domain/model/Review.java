@@ -1,20 +1,30 @@
 package com.openclassrooms.tajmahal.domain.model;
 
 import java.util.Objects;
+import java.util.UUID;
 
 
 /**
  * Represents a user review.
  * This class encapsulates all the details of a review, including the username of the reviewer,
  * their profile picture, the comment they left, and the rating they gave.
+ * <p>
+ * The username and the picture are held by an {@link Author}. A review built from strings has
+ * an author of its own; the holder of many reviews, such as the review store, interns them in
+ * its {@link AuthorRegistry} so that the many reviews of a regular reviewer share a single copy
+ * of them.
+ * </p>
  */
 public class Review {
 
-    /** The name of the user who left the review. */
-    private String username;
+    /** Value of {@link #getCreatedAt()} for the reviews whose time is unknown. */
+    public static final long UNKNOWN_TIME = 0;
 
-    /** The profile picture of the user who left the review. */
-    private String picture;
+    /** The unique identifier of the review, stable across reloads. */
+    private final long id;
+
+    /** The user who left the review, with their name and profile picture, shared by all their reviews. */
+    private Author author;
 
     /** The comment or feedback given by the user. */
     private String comment;
@@ -22,9 +32,13 @@ public class Review {
     /** The rating provided by the user. Typically out of 5 or 10. */
     private int rate;
 
+    /** The time the review was written, in milliseconds since the epoch. */
+    private final long createdAt;
+
 
     /**
-     * Constructs a new Review instance.
+     * Constructs a new Review instance with a newly generated identifier, written now, used
+     * for the reviews written on this device.
      *
      * @param username the name of the user leaving the review
      * @param picture  the profile picture URL or path of the user
@@ -32,30 +46,83 @@ public class Review {
      * @param rate     the rating given by the user
      */
     public Review(String username, String picture, String comment, int rate) {
-        this.username = username;
-        this.picture = picture;
+        this(newId(), username, picture, comment, rate, System.currentTimeMillis());
+    }
+
+    /**
+     * Constructs a new Review instance with a known identifier, written at an unknown time.
+     *
+     * @param id       the unique identifier of the review
+     * @param username the name of the user leaving the review
+     * @param picture  the profile picture URL or path of the user
+     * @param comment  the feedback or comment from the user
+     * @param rate     the rating given by the user
+     */
+    public Review(long id, String username, String picture, String comment, int rate) {
+        this(id, username, picture, comment, rate, UNKNOWN_TIME);
+    }
+
+    /**
+     * Constructs a new Review instance with a known identifier and time, used for the reviews
+     * received from the API or read from the cache.
+     *
+     * @param id        the unique identifier of the review
+     * @param username  the name of the user leaving the review
+     * @param picture   the profile picture URL or path of the user
+     * @param comment   the feedback or comment from the user
+     * @param rate      the rating given by the user
+     * @param createdAt the time the review was written, in milliseconds since the epoch, or
+     *                  {@link #UNKNOWN_TIME}
+     */
+    public Review(long id, String username, String picture, String comment, int rate, long createdAt) {
+        this(id, Author.unregistered(username, picture), comment, rate, createdAt);
+    }
+
+    /**
+     * Constructs a new Review instance for an author already interned, used to build the reviews
+     * of a known author without looking them up again.
+     *
+     * @param id        the unique identifier of the review
+     * @param author    the author of the review
+     * @param comment   the feedback or comment from the user
+     * @param rate      the rating given by the user
+     * @param createdAt the time the review was written, in milliseconds since the epoch, or
+     *                  {@link #UNKNOWN_TIME}
+     */
+    public Review(long id, Author author, String comment, int rate, long createdAt) {
+        this.id = id;
+        this.author = Objects.requireNonNull(author, "author");
         this.comment = comment;
         this.rate = rate;
+        this.createdAt = createdAt;
     }
 
-    public class ReviewStats {
-        public final double average;
-        public final int totalReviews;
-        public final int[] percentages; // index 0 → 1 étoile, index 4 → 5 étoiles
+    /**
+     * Generates a random identifier for a review created on this device. Random identifiers
+     * do not collide with the ones of other devices, unlike a local counter.
+     *
+     * @return a new positive identifier
+     */
+    public static long newId() {
+        return UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE;
+    }
 
-        public ReviewStats(double average, int totalReviews, int[] percentages) {
-            this.average = average;
-            this.totalReviews = totalReviews;
-            this.percentages = percentages;
-        }
+    /**
+     * Returns the unique identifier of the review.
+     *
+     * @return the identifier, stable across reloads
+     */
+    public long getId() {
+        return id;
     }
+
     /**
      * Returns the username of the reviewer.
      *
      * @return a String representing the username
      */
     public String getUsername() {
-        return username;
+        return author.getUsername();
     }
 
     /**
@@ -64,7 +131,7 @@ public class Review {
      * @param username the new username to be set
      */
     public void setUsername(String username) {
-        this.username = username;
+        this.author = withAuthor(username, author.getPicture());
     }
 
     /**
@@ -73,7 +140,7 @@ public class Review {
      * @return a String representing the picture's URL or path
      */
     public String getPicture() {
-        return picture;
+        return author.getPicture();
     }
 
     /**
@@ -82,7 +149,22 @@ public class Review {
      * @param picture the new profile picture's URL or path to be set
      */
     public void setPicture(String picture) {
-        this.picture = picture;
+        this.author = withAuthor(author.getUsername(), picture);
+    }
+
+    // The edited author, interned in the registry of the current one if any
+    private Author withAuthor(String username, String picture) {
+        AuthorRegistry registry = author.getRegistry();
+        return registry == null ? Author.unregistered(username, picture) : registry.intern(username, picture);
+    }
+
+    /**
+     * Returns the author of the review.
+     *
+     * @return the author, holding the username and the picture
+     */
+    public Author getAuthor() {
+        return author;
     }
 
     /**
@@ -114,6 +196,15 @@ public class Review {
 
 
 
+    /**
+     * Returns the time the review was written.
+     *
+     * @return the time in milliseconds since the epoch, or {@link #UNKNOWN_TIME}
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
     /**
      * Sets or updates the rating given by the reviewer.
      *
@@ -135,7 +226,7 @@ public class Review {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Review review = (Review) o;
-        return rate == review.rate && Objects.equals(username, review.username) && Objects.equals(picture, review.picture) && Objects.equals(comment, review.comment);
+        return id == review.id && rate == review.rate && createdAt == review.createdAt && author.equals(review.author) && Objects.equals(comment, review.comment);
     }
 
     /**
@@ -145,6 +236,6 @@ public class Review {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(username, picture, comment, rate);
+        return Objects.hash(id, author, comment, rate, createdAt);
     }
 }
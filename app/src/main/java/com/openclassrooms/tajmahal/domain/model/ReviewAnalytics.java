@@ -0,0 +1,53 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Immutable snapshot of the review statistics of a restaurant over several periods: since the
+ * beginning, over the last 30 days and over the last 90 days, along with an average favouring
+ * the recent reviews.
+ * <p>
+ * The windowed stats only hold the reviews whose time is known.
+ * </p>
+ */
+public final class ReviewAnalytics {
+
+    private final ReviewStats lifetime;
+    private final ReviewStats last30Days;
+    private final ReviewStats last90Days;
+    private final double weightedAverage;
+
+    /**
+     * Builds a snapshot.
+     *
+     * @param lifetime        the stats of all the reviews
+     * @param last30Days      the stats of the reviews of the last 30 days
+     * @param last90Days      the stats of the reviews of the last 90 days
+     * @param weightedAverage the average rate where the recent reviews weigh more
+     */
+    public ReviewAnalytics(ReviewStats lifetime, ReviewStats last30Days, ReviewStats last90Days, double weightedAverage) {
+        this.lifetime = lifetime;
+        this.last30Days = last30Days;
+        this.last90Days = last90Days;
+        this.weightedAverage = weightedAverage;
+    }
+
+    public ReviewStats getLifetime() {
+        return lifetime;
+    }
+
+    public ReviewStats getLast30Days() {
+        return last30Days;
+    }
+
+    public ReviewStats getLast90Days() {
+        return last90Days;
+    }
+
+    /**
+     * Returns the average rate where each review weighs half as much every 30 days.
+     *
+     * @return the weighted average, or the lifetime average if no review has a known time
+     */
+    public double getWeightedAverage() {
+        return weightedAverage;
+    }
+}
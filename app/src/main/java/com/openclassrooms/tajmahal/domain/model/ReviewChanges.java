@@ -0,0 +1,54 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents the reviews of a restaurant that changed after a given point of its change feed.
+ * <p>
+ * The server numbers each new or edited review of a restaurant with an increasing sequence
+ * number. {@link #getCursor()} is the sequence number of the last review returned: passing it
+ * back to the next call resumes the feed right after it, so a client only downloads each change
+ * once. {@link #HEAD} asks for the current end of the feed without any review.
+ * </p>
+ */
+public final class ReviewChanges {
+
+    /** Cursor value asking for the end of the feed, to start following it from now on. */
+    public static final long HEAD = -1;
+
+    private final List<Review> reviews;
+    private final long cursor;
+    private final boolean hasMore;
+
+    /**
+     * Constructs a new ReviewChanges instance.
+     *
+     * @param reviews the changed reviews, oldest first
+     * @param cursor  the sequence number of the last change returned, or of the cursor given
+     *                when no review changed
+     * @param hasMore whether more changes follow the returned ones
+     */
+    public ReviewChanges(List<Review> reviews, long cursor, boolean hasMore) {
+        this.reviews = Collections.unmodifiableList(reviews);
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Tells whether more changes can be loaded from {@link #getCursor()}.
+     *
+     * @return true if the changes were cut at the requested limit
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
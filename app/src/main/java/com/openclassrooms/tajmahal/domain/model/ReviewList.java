@@ -0,0 +1,176 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Persistent, newest-first list of reviews.
+ * <p>
+ * A ReviewList is never modified: {@link #prepend(Review)} and {@link #withOlder(List)} return
+ * a new list and leave this one untouched, so a list handed to observers stays valid forever.
+ * The new list shares its structure with the old one instead of copying it:
+ * </p>
+ * <ul>
+ *     <li>the prepended reviews are appended, oldest first, to a buffer shared by every list
+ *     derived from the same lineage. A list reads only the slots that existed when it was
+ *     created, so later appends are invisible to it;</li>
+ *     <li>the older reviews, usually the ones received from the data sources, are kept as an
+ *     immutable list placed after the prepended ones.</li>
+ * </ul>
+ * Prepending costs amortized O(1) and {@link #get(int)} O(1). Prepending twice to the same
+ * list (a branch) is allowed: the second branch copies the prepended reviews once.
+ */
+public final class ReviewList extends AbstractList<Review> implements RandomAccess {
+
+    private static final int MIN_CAPACITY = 8;
+
+    private static final ReviewList EMPTY = new ReviewList(new Buffer(0), 0, Collections.emptyList());
+
+    // Prepended reviews, oldest first, shared by the lists of the same lineage.
+    private static final class Buffer {
+        final Review[] items;
+        // Number of slots in use, the highest prepended count of any list using the buffer.
+        int count;
+
+        Buffer(int capacity) {
+            items = new Review[capacity];
+        }
+    }
+
+    private final Buffer buffer;
+    private final int prependedCount;
+    private final List<Review> older;
+
+    private ReviewList(Buffer buffer, int prependedCount, List<Review> older) {
+        this.buffer = buffer;
+        this.prependedCount = prependedCount;
+        this.older = older;
+    }
+
+    /**
+     * Returns the empty list.
+     *
+     * @return a list holding no review
+     */
+    public static ReviewList empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Wraps an existing list of reviews, without copying it.
+     *
+     * @param reviews the reviews, newest first. The list must never be modified afterwards.
+     * @return a list holding the given reviews
+     */
+    public static ReviewList of(List<Review> reviews) {
+        if (reviews instanceof ReviewList) return (ReviewList) reviews;
+        return EMPTY.withOlder(reviews);
+    }
+
+    /**
+     * Returns a new list starting with the given review, followed by the reviews of this list.
+     *
+     * @param review the newest review
+     * @return the new list, this list being unchanged
+     */
+    public ReviewList prepend(Review review) {
+        synchronized (buffer) {
+            // Fast path: this list is the most recent of its lineage, the next slot is free
+            if (buffer.count == prependedCount && prependedCount < buffer.items.length) {
+                buffer.items[prependedCount] = review;
+                buffer.count++;
+                return new ReviewList(buffer, prependedCount + 1, older);
+            }
+        }
+        Buffer grown = new Buffer(Math.max(MIN_CAPACITY, prependedCount * 2));
+        System.arraycopy(buffer.items, 0, grown.items, 0, prependedCount);
+        grown.items[prependedCount] = review;
+        grown.count = prependedCount + 1;
+        return new ReviewList(grown, prependedCount + 1, older);
+    }
+
+    /**
+     * Returns a new list holding the prepended reviews of this list followed by other older
+     * reviews, typically a refresh from the data sources. The prepended reviews are shared.
+     *
+     * @param reviews the older reviews, newest first. The list must never be modified afterwards.
+     * @return the new list, this list being unchanged
+     */
+    public ReviewList withOlder(List<Review> reviews) {
+        return new ReviewList(buffer, prependedCount, reviews);
+    }
+
+    /**
+     * Returns the reviews placed after the prepended ones.
+     *
+     * @return the older reviews, as given to {@link #withOlder(List)}
+     */
+    public List<Review> getOlder() {
+        return older;
+    }
+
+    /**
+     * Returns the reviews added with {@link #prepend(Review)}.
+     *
+     * @return the prepended reviews, newest first
+     */
+    public List<Review> getPrepended() {
+        return new ReviewList(buffer, prependedCount, Collections.emptyList());
+    }
+
+    @Override
+    public Review get(int index) {
+        if (index < 0) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+        if (index < prependedCount) return buffer.items[prependedCount - 1 - index];
+        return older.get(index - prependedCount);
+    }
+
+    @Override
+    public int size() {
+        return prependedCount + older.size();
+    }
+
+    /**
+     * Returns the id of the review at a position. The id of an older review held by a
+     * {@link ColumnarReviewList} is read from its columns, without materializing the review.
+     *
+     * @param index the position of the review
+     * @return the id of the review
+     */
+    public long idAt(int index) {
+        if (index < 0) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+        if (index < prependedCount) return buffer.items[prependedCount - 1 - index].getId();
+        return idAt(older, index - prependedCount);
+    }
+
+    /**
+     * Returns the author of the review at a position. The author of an older review held by a
+     * {@link ColumnarReviewList} is read from its columns, without materializing the review.
+     *
+     * @param index the position of the review
+     * @return the author of the review
+     */
+    public Author authorAt(int index) {
+        if (index < 0) throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+        if (index < prependedCount) return buffer.items[prependedCount - 1 - index].getAuthor();
+        return authorAt(older, index - prependedCount);
+    }
+
+    // Reads the id from the columns of the list or of its parts, from the review otherwise
+    static long idAt(List<Review> reviews, int index) {
+        if (reviews instanceof ColumnarReviewList) return ((ColumnarReviewList) reviews).idAt(index);
+        if (reviews instanceof ConcatenatedReviewList) return ((ConcatenatedReviewList) reviews).idAt(index);
+        if (reviews instanceof ReviewList) return ((ReviewList) reviews).idAt(index);
+        return reviews.get(index).getId();
+    }
+
+    // Reads the author from the columns of the list or of its parts, from the review otherwise
+    static Author authorAt(List<Review> reviews, int index) {
+        if (reviews instanceof ColumnarReviewList) return ((ColumnarReviewList) reviews).authorAt(index);
+        if (reviews instanceof ConcatenatedReviewList) return ((ConcatenatedReviewList) reviews).authorAt(index);
+        if (reviews instanceof ReviewList) return ((ReviewList) reviews).authorAt(index);
+        return reviews.get(index).getAuthor();
+    }
+}
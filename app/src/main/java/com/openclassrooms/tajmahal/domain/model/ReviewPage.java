@@ -0,0 +1,63 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one page of reviews returned by a paged query.
+ * <p>
+ * The cursor is the offset of the first review of the page in the whole review list.
+ * {@link #getNextCursor()} gives the cursor to use to load the following page, or
+ * {@link #END} once the last page has been reached.
+ * </p>
+ */
+public final class ReviewPage {
+
+    /** Cursor value meaning that there is no page after this one. */
+    public static final int END = -1;
+
+    private final List<Review> reviews;
+    private final int cursor;
+    private final int nextCursor;
+    private final int totalCount;
+
+    /**
+     * Constructs a new ReviewPage instance.
+     *
+     * @param reviews    the reviews of the page, in display order
+     * @param cursor     the offset of the first review of the page
+     * @param nextCursor the cursor of the next page, or {@link #END}
+     * @param totalCount the total number of reviews available
+     */
+    public ReviewPage(List<Review> reviews, int cursor, int nextCursor, int totalCount) {
+        this.reviews = Collections.unmodifiableList(reviews);
+        this.cursor = cursor;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    public List<Review> getReviews() {
+        return reviews;
+    }
+
+    public int getCursor() {
+        return cursor;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Tells whether another page can be loaded after this one.
+     *
+     * @return true if {@link #getNextCursor()} points to a page
+     */
+    public boolean hasNext() {
+        return nextCursor != END;
+    }
+}
@@ -0,0 +1,118 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the review statistics of a restaurant.
+ * <p>
+ * A snapshot holds the average rate, the number of reviews and, for each star value,
+ * the number of reviews and the percentage they represent. Instances never change once
+ * built, so they can be handed to the UI and kept by observers without any copy.
+ * </p>
+ * The percentages are rounded by the largest remainder method, so that they always add up to
+ * 100 when there is at least one review. Star indexes go from 0 (1 star) to 4 (5 stars).
+ */
+public final class ReviewStats {
+
+    /** Number of distinct star values (1 to 5). */
+    public static final int STAR_COUNT = 5;
+
+    /** Statistics of a restaurant without any review. */
+    public static final ReviewStats EMPTY = new ReviewStats(new int[STAR_COUNT], 0L);
+
+    private final double average;
+    private final int totalReviews;
+    private final int[] counts;
+    private final int[] percentages;
+
+    /**
+     * Builds a snapshot from per-star counters and the sum of all the rates.
+     *
+     * @param counts the number of reviews for each star, index 0 → 1 star
+     * @param sum    the sum of all the rates
+     */
+    public ReviewStats(int[] counts, long sum) {
+        this.counts = Arrays.copyOf(counts, STAR_COUNT);
+        int total = 0;
+        for (int count : this.counts) total += count;
+        this.totalReviews = total;
+        this.average = total == 0 ? 0.0 : (double) sum / total;
+        this.percentages = percentages(this.counts, total);
+    }
+
+    // Rounds each share down, then gives the missing points to the largest remainders, ties
+    // going to the higher stars.
+    private static int[] percentages(int[] counts, int total) {
+        int[] percentages = new int[STAR_COUNT];
+        if (total == 0) return percentages;
+        long[] remainders = new long[STAR_COUNT];
+        int missing = 100;
+        for (int i = 0; i < STAR_COUNT; i++) {
+            long share = (long) counts[i] * 100;
+            percentages[i] = (int) (share / total);
+            remainders[i] = share % total;
+            missing -= percentages[i];
+        }
+        // At most one point per star is missing
+        for (; missing > 0; missing--) {
+            int largest = STAR_COUNT - 1;
+            for (int i = STAR_COUNT - 2; i >= 0; i--) {
+                if (remainders[i] > remainders[largest]) largest = i;
+            }
+            percentages[largest]++;
+            remainders[largest] = -1;
+        }
+        return percentages;
+    }
+
+    /**
+     * Returns the average rate of the reviews.
+     *
+     * @return the average rate, or 0 if there is no review
+     */
+    public double getAverage() {
+        return average;
+    }
+
+    /**
+     * Returns the number of reviews taken into account.
+     *
+     * @return the total number of reviews
+     */
+    public int getTotalReviews() {
+        return totalReviews;
+    }
+
+    /**
+     * Returns the number of reviews for a star value.
+     *
+     * @param starIndex the star index, 0 → 1 star, 4 → 5 stars
+     * @return the number of reviews with this rate
+     */
+    public int getCount(int starIndex) {
+        return counts[starIndex];
+    }
+
+    /**
+     * Returns the share of reviews for a star value, used by the progress bars.
+     *
+     * @param starIndex the star index, 0 → 1 star, 4 → 5 stars
+     * @return a percentage between 0 and 100
+     */
+    public int getPercentage(int starIndex) {
+        return percentages[starIndex];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReviewStats that = (ReviewStats) o;
+        return Arrays.equals(counts, that.counts) && Double.compare(average, that.average) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(counts) + Double.hashCode(average);
+    }
+}
@@ -0,0 +1,119 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+/**
+ * Immutable state of the background sync of the reviews of a restaurant: the reviews written on
+ * this device are uploaded, then the reviews changed on the server are downloaded.
+ * <p>
+ * A state keeps the outcome of the last sync that succeeded while the next one is pending or
+ * running, so a screen can still tell how fresh its reviews are.
+ * </p>
+ */
+public final class SyncState {
+
+    /** The step of the sync. */
+    public enum Status {
+        /** No sync was requested since the start of the process. */
+        IDLE,
+        /** A sync is scheduled, waiting for the network or for its backoff delay. */
+        PENDING,
+        /** A sync is uploading or downloading reviews. */
+        RUNNING,
+        /** The last sync went through. */
+        SUCCEEDED,
+        /** The last sync failed; it will be retried. */
+        FAILED
+    }
+
+    /** The state before any sync. */
+    public static final SyncState IDLE = new SyncState(Status.IDLE, 0, 0, Review.UNKNOWN_TIME, null);
+
+    private final Status status;
+    private final int uploadedCount;
+    private final int receivedCount;
+    private final long lastSyncedAt;
+    private final Throwable error;
+
+    private SyncState(Status status, int uploadedCount, int receivedCount, long lastSyncedAt, Throwable error) {
+        this.status = status;
+        this.uploadedCount = uploadedCount;
+        this.receivedCount = receivedCount;
+        this.lastSyncedAt = lastSyncedAt;
+        this.error = error;
+    }
+
+    /**
+     * Builds the state of a sync that went through.
+     *
+     * @param uploadedCount the number of reviews uploaded
+     * @param receivedCount the number of reviews downloaded
+     * @param syncedAt      the time the sync ended
+     * @return a new state
+     */
+    public static SyncState succeeded(int uploadedCount, int receivedCount, long syncedAt) {
+        return new SyncState(Status.SUCCEEDED, uploadedCount, receivedCount, syncedAt, null);
+    }
+
+    /**
+     * Returns this state with a new sync scheduled.
+     *
+     * @return a pending state keeping the outcome of the last sync
+     */
+    public SyncState pending() {
+        return new SyncState(Status.PENDING, uploadedCount, receivedCount, lastSyncedAt, null);
+    }
+
+    /**
+     * Returns this state with a sync in progress.
+     *
+     * @return a running state keeping the outcome of the last sync
+     */
+    public SyncState running() {
+        return new SyncState(Status.RUNNING, uploadedCount, receivedCount, lastSyncedAt, null);
+    }
+
+    /**
+     * Returns this state with the sync failed.
+     *
+     * @param error the cause of the failure
+     * @return a failed state keeping the outcome of the last sync that succeeded
+     */
+    public SyncState failed(Throwable error) {
+        return new SyncState(Status.FAILED, uploadedCount, receivedCount, lastSyncedAt, error);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of reviews uploaded by the last sync that succeeded.
+     */
+    public int getUploadedCount() {
+        return uploadedCount;
+    }
+
+    /**
+     * Returns the number of reviews downloaded by the last sync that succeeded.
+     */
+    public int getReceivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * Returns the time the last sync that succeeded ended.
+     *
+     * @return the time, or {@link Review#UNKNOWN_TIME} if no sync succeeded yet
+     */
+    public long getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    /**
+     * Returns the cause of the failure of the last sync.
+     *
+     * @return the error, or null unless the status is {@link Status#FAILED}
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
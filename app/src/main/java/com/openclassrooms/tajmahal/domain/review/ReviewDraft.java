@@ -0,0 +1,89 @@
+package com.openclassrooms.tajmahal.domain.review;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.Objects;
+
+/**
+ * A review being written by the user, as typed in the form, before it is validated.
+ * <p>
+ * The id is generated on the client and bound to the contents of the form, see
+ * {@link #of(ReviewDraft, String, String, String, int)}: submitting the same contents twice,
+ * after a double tap or a retry, gives the same id, so the review is only saved once, while
+ * any change of the contents gives a new id. See {@link SubmitReviewUseCase}.
+ * </p>
+ */
+public final class ReviewDraft {
+
+    private final long id;
+    private final String username;
+    private final String picture;
+    private final String comment;
+    private final int rate;
+
+    /**
+     * Constructs a new ReviewDraft instance.
+     *
+     * @param id       the id generated for the review, see {@link Review#newId()}
+     * @param username the name of the user writing the review
+     * @param picture  the profile picture URL or path of the user
+     * @param comment  the comment as typed, not trimmed yet
+     * @param rate     the rate chosen, 0 if none
+     */
+    public ReviewDraft(long id, String username, String picture, String comment, int rate) {
+        this.id = id;
+        this.username = username;
+        this.picture = picture;
+        this.comment = comment;
+        this.rate = rate;
+    }
+
+    /**
+     * Returns the draft of the given contents of the form: the current draft if they did not
+     * change, so that it keeps its id, or else a new draft with a new id.
+     *
+     * @param current  the draft submitted last, or null after the form was reset
+     * @param username the name of the user writing the review
+     * @param picture  the profile picture URL or path of the user
+     * @param comment  the comment as typed
+     * @param rate     the rate chosen, 0 if none
+     * @return the draft to submit
+     */
+    public static ReviewDraft of(ReviewDraft current, String username, String picture, String comment, int rate) {
+        if (current != null && current.rate == rate && Objects.equals(current.comment, comment)
+                && Objects.equals(current.username, username) && Objects.equals(current.picture, picture)) {
+            return current;
+        }
+        return new ReviewDraft(Review.newId(), username, picture, comment, rate);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPicture() {
+        return picture;
+    }
+
+    public String getComment() {
+        return comment;
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Builds the review of this draft, with its comment trimmed.
+     *
+     * @param createdAt the time of the review, in milliseconds since the epoch
+     * @return a new review keeping the id of the draft
+     */
+    public Review toReview(long createdAt) {
+        return new Review(id, username, picture, comment == null ? null : comment.trim(), rate, createdAt);
+    }
+}
@@ -0,0 +1,24 @@
+package com.openclassrooms.tajmahal.domain.review;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.IOException;
+
+/**
+ * Saves the reviews written by the user, implemented by the data layer.
+ */
+public interface ReviewWriter {
+
+    /**
+     * Persists a review written by the user and adds it to the reviews and stats of its
+     * restaurant, unless a review with the same id was already saved. Blocks the calling thread
+     * on I/O.
+     *
+     * @param restaurantId the id of the restaurant
+     * @param review       the new review
+     * @return true if the review was saved, false if it already was
+     * @throws IOException if the review could not be persisted; it is then not shown either, and
+     *                     can be saved again
+     */
+    boolean saveReview(long restaurantId, Review review) throws IOException;
+}
@@ -0,0 +1,101 @@
+package com.openclassrooms.tajmahal.domain.review;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+/**
+ * Outcome of the submission of a {@link ReviewDraft}.
+ */
+public final class SubmitResult {
+
+    /** How the submission ended. */
+    public enum Status {
+        /** The review was saved. */
+        ACCEPTED,
+        /** A review with the id of the draft was already saved, nothing was done. */
+        ALREADY_SUBMITTED,
+        /** The draft breaks a rule, see {@link #getProblem()}. */
+        INVALID,
+        /** The review could not be saved, see {@link #getError()}; the draft can be submitted again. */
+        FAILED
+    }
+
+    /** The rule broken by an invalid draft. */
+    public enum Problem {
+        /** The username is null or blank. */
+        EMPTY_USERNAME,
+        /** The comment is null, empty or only made of whitespace. */
+        EMPTY_COMMENT,
+        /** The trimmed comment is longer than {@link SubmitReviewUseCase#MAX_COMMENT_LENGTH}. */
+        COMMENT_TOO_LONG,
+        /** The rate is not between 1 and 5. */
+        INVALID_RATE
+    }
+
+    private final Status status;
+    private final Review review;
+    private final Problem problem;
+    private final Throwable error;
+
+    private SubmitResult(Status status, Review review, Problem problem, Throwable error) {
+        this.status = status;
+        this.review = review;
+        this.problem = problem;
+        this.error = error;
+    }
+
+    static SubmitResult accepted(Review review) {
+        return new SubmitResult(Status.ACCEPTED, review, null, null);
+    }
+
+    static SubmitResult alreadySubmitted(Review review) {
+        return new SubmitResult(Status.ALREADY_SUBMITTED, review, null, null);
+    }
+
+    static SubmitResult invalid(Problem problem) {
+        return new SubmitResult(Status.INVALID, null, problem, null);
+    }
+
+    static SubmitResult failed(Throwable error) {
+        return new SubmitResult(Status.FAILED, null, null, error);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Tells whether the review of the draft is saved, by this submission or a previous one.
+     *
+     * @return true if the status is {@link Status#ACCEPTED} or {@link Status#ALREADY_SUBMITTED}
+     */
+    public boolean isSaved() {
+        return status == Status.ACCEPTED || status == Status.ALREADY_SUBMITTED;
+    }
+
+    /**
+     * Returns the review built from the draft.
+     *
+     * @return the review, or null unless the review is saved
+     */
+    public Review getReview() {
+        return review;
+    }
+
+    /**
+     * Returns the rule broken by the draft.
+     *
+     * @return the problem, or null unless the status is {@link Status#INVALID}
+     */
+    public Problem getProblem() {
+        return problem;
+    }
+
+    /**
+     * Returns the cause of the failure.
+     *
+     * @return the error, or null unless the status is {@link Status#FAILED}
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
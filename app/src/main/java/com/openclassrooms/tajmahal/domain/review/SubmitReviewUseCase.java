@@ -0,0 +1,121 @@
+package com.openclassrooms.tajmahal.domain.review;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Submits the reviews written by the user: validates the draft, then saves the review through
+ * the {@link ReviewWriter}, which persists it and updates the review list and the stats.
+ * <p>
+ * All of it runs on the given executor, never on the caller's thread: {@link #submit} returns at
+ * once with a future completed by the background work.
+ * </p>
+ * <p>
+ * Submissions are idempotent on the id of the draft. While a draft is being submitted,
+ * submitting it again returns the same future without doing any work, so a double tap is
+ * harmless. Once settled, the submission is forgotten: submitting the draft again runs from
+ * scratch, and the writer skips a review it already saved, so a retry never creates a duplicate
+ * either.
+ * </p>
+ * The rules of a valid draft:
+ * <ul>
+ *     <li>a username that is not blank;</li>
+ *     <li>a comment that is not blank, of at most {@link #MAX_COMMENT_LENGTH} characters once
+ *     trimmed;</li>
+ *     <li>a rate from 1 to 5.</li>
+ * </ul>
+ */
+public final class SubmitReviewUseCase {
+
+    /** The maximum length of a comment, once trimmed. */
+    public static final int MAX_COMMENT_LENGTH = 500;
+
+    /** The lowest rate of a review. */
+    public static final int MIN_RATE = 1;
+
+    /** The highest rate of a review. */
+    public static final int MAX_RATE = 5;
+
+    private final ReviewWriter writer;
+    private final Executor executor;
+    private final LongSupplier clock;
+
+    // Submissions still running, by id of the draft
+    private final Map<Long, CompletableFuture<SubmitResult>> submissions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new SubmitReviewUseCase.
+     *
+     * @param writer   the writer saving the reviews
+     * @param executor the executor running the validation and the save
+     * @param clock    the source of the time of the reviews, in milliseconds since the epoch
+     */
+    public SubmitReviewUseCase(ReviewWriter writer, Executor executor, LongSupplier clock) {
+        this.writer = writer;
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /**
+     * Submits a draft in the background.
+     *
+     * @param restaurantId the id of the restaurant reviewed
+     * @param draft        the draft to submit
+     * @return the future result of the submission, shared by every submission of the draft
+     *         made while it runs
+     */
+    public CompletableFuture<SubmitResult> submit(long restaurantId, ReviewDraft draft) {
+        CompletableFuture<SubmitResult> submission = submissions.compute(draft.getId(), (id, running) -> {
+            if (running != null && !running.isDone()) return running;
+            return CompletableFuture.supplyAsync(() -> run(restaurantId, draft), executor);
+        });
+        // Dropped once settled, unless a newer submission of the draft replaced it
+        submission.whenComplete((result, error) -> submissions.remove(draft.getId(), submission));
+        return submission;
+    }
+
+    /**
+     * Returns the number of submissions still running.
+     *
+     * @return the number of drafts being submitted
+     */
+    int runningCount() {
+        return submissions.size();
+    }
+
+    /**
+     * Checks a draft against the rules of a valid review.
+     *
+     * @param draft the draft to check
+     * @return the first rule broken, or null if the draft is valid
+     */
+    public static SubmitResult.Problem validate(ReviewDraft draft) {
+        if (isBlank(draft.getUsername())) return SubmitResult.Problem.EMPTY_USERNAME;
+        if (isBlank(draft.getComment())) return SubmitResult.Problem.EMPTY_COMMENT;
+        if (draft.getComment().trim().length() > MAX_COMMENT_LENGTH) return SubmitResult.Problem.COMMENT_TOO_LONG;
+        if (draft.getRate() < MIN_RATE || draft.getRate() > MAX_RATE) return SubmitResult.Problem.INVALID_RATE;
+        return null;
+    }
+
+    private SubmitResult run(long restaurantId, ReviewDraft draft) {
+        SubmitResult.Problem problem = validate(draft);
+        if (problem != null) return SubmitResult.invalid(problem);
+        Review review = draft.toReview(clock.getAsLong());
+        try {
+            return writer.saveReview(restaurantId, review)
+                    ? SubmitResult.accepted(review) : SubmitResult.alreadySubmitted(review);
+        } catch (IOException | RuntimeException e) {
+            return SubmitResult.failed(e);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,99 @@
+package com.openclassrooms.tajmahal.domain.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits French text into the terms of the {@link ReviewSearchIndex}.
+ * <p>
+ * The analyzer lowercases the text and folds the accents ("Délicieux" gives "delicieux",
+ * "cœur" gives "coeur"), cuts the words on anything that is not a letter or a digit, drops the
+ * elided articles and pronouns ("l'attente" gives "attente") and the most common stop words,
+ * then removes the plural "s" of the longer words so that "plats" matches "plat".
+ * </p>
+ * Queries go through the same analyzer, so a search for "epice" finds "épicé".
+ */
+public final class FrenchAnalyzer {
+
+    // Words too common to help a search, already folded.
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "au", "aux", "avec", "ce", "ces", "cet", "cette", "dans", "de", "des", "du", "elle",
+            "en", "est", "et", "etait", "ete", "il", "ils", "je", "la", "le", "les", "leur", "lui",
+            "ma", "mais", "me", "mes", "mon", "ne", "nos", "notre", "nous", "on", "ou", "par", "pour",
+            "qu", "que", "qui", "sa", "se", "ses", "son", "sont", "sur", "ta", "te", "tes", "ton",
+            "tu", "un", "une", "vos", "votre", "vous", "y"
+    ));
+
+    private FrenchAnalyzer() {
+    }
+
+    /**
+     * Returns the indexed terms of a text, in order, stop words excluded.
+     *
+     * @param text the text to analyze, may be null
+     * @return the terms, possibly repeated
+     */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) return terms;
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            if (c == '\'' || c == '’') {
+                // Elision: "l'", "d'", "qu'"... the part before the apostrophe is dropped
+                word.setLength(0);
+            } else if (Character.isLetterOrDigit(c)) {
+                fold(c, word);
+            } else if (word.length() > 0) {
+                String term = stem(word.toString());
+                if (!STOP_WORDS.contains(term)) terms.add(term);
+                word.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Normalizes a prefix typed by the user the same way as the indexed terms, without stemming.
+     *
+     * @param prefix the beginning of a word
+     * @return the folded prefix, empty if it holds no letter or digit
+     */
+    public static String normalizePrefix(String prefix) {
+        StringBuilder folded = new StringBuilder(prefix.length());
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (Character.isLetterOrDigit(c)) fold(c, folded);
+        }
+        return folded.toString();
+    }
+
+    // Appends the lowercase character without its accent; ligatures give two letters.
+    private static void fold(char c, StringBuilder out) {
+        char lower = Character.toLowerCase(c);
+        switch (lower) {
+            case 'à': case 'â': case 'ä': case 'á': out.append('a'); break;
+            case 'ç': out.append('c'); break;
+            case 'é': case 'è': case 'ê': case 'ë': out.append('e'); break;
+            case 'î': case 'ï': case 'í': out.append('i'); break;
+            case 'ô': case 'ö': case 'ó': out.append('o'); break;
+            case 'ù': case 'û': case 'ü': case 'ú': out.append('u'); break;
+            case 'ÿ': out.append('y'); break;
+            case 'œ': out.append("oe"); break;
+            case 'æ': out.append("ae"); break;
+            default: out.append(lower);
+        }
+    }
+
+    // Removes the plural "s" of the words longer than three letters, except after another "s".
+    private static String stem(String word) {
+        int length = word.length();
+        if (length > 3 && word.charAt(length - 1) == 's' && word.charAt(length - 2) != 's') {
+            return word.substring(0, length - 1);
+        }
+        return word;
+    }
+}
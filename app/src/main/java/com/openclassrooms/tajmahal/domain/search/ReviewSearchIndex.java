@@ -0,0 +1,420 @@
+package com.openclassrooms.tajmahal.domain.search;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over the comments of the reviews.
+ * <p>
+ * Each review is analyzed once, by the {@link FrenchAnalyzer}, when it is added. For every term,
+ * the index keeps the postings list of the reviews containing it, in the order they were
+ * added, with the number of occurrences. The terms are kept sorted, so a prefix query only
+ * visits the terms starting with the prefix.
+ * </p>
+ * <p>
+ * A query is a list of words, all of which must appear in a matching comment. A word ending with
+ * {@code *} is a prefix: "serv*" matches "service" and "servi". The matches are ranked by
+ * relevance (BM25), then by rate, then newest first, and returned page by page.
+ * </p>
+ * Removed or replaced reviews are only marked as deleted; their postings are skipped. The index
+ * is not thread-safe: the owner serializes the calls.
+ */
+public final class ReviewSearchIndex {
+
+    // BM25 parameters: saturation of the term frequency and weight of the comment length.
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // A result is ranked by a single long: the bits of its score, then its rate, then its
+    // document number, so that comparing two results is comparing two longs.
+    private static final int DOCUMENT_BITS = 28;
+    private static final int MAX_DOCUMENTS = 1 << DOCUMENT_BITS;
+    private static final int MAX_RATE = 15;
+
+    // Below this gap between two candidates, a postings list is scanned rather than bisected.
+    private static final int LINEAR_SEARCH_MAX = 8;
+
+    // Reviews that contain one term, by increasing document number.
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] frequencies = new int[4];
+        int size;
+        // Number of live documents, used for the inverse document frequency.
+        int liveCount;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+            liveCount++;
+        }
+    }
+
+    // Documents matching one word of the query, by increasing document number, with their score.
+    private static final class Matches {
+        final int[] docs;
+        final float[] scores;
+        final int size;
+
+        Matches(int[] docs, float[] scores, int size) {
+            this.docs = docs;
+            this.scores = scores;
+            this.size = size;
+        }
+    }
+
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+
+    // Document number → review, and review id → live document number.
+    private final List<Review> documents = new ArrayList<>();
+    private final Map<Long, Integer> documentByReviewId = new HashMap<>();
+    private int[] lengths = new int[16];
+    private byte[] rates = new byte[16];
+    private final BitSet deleted = new BitSet();
+    private long totalLength;
+    private int maxLength;
+    private int deletedCount;
+
+    // BM25 length normalization of each comment length, computed again once the index changed.
+    private float[] lengthNorms = new float[0];
+    private int lengthNormsModifications = -1;
+
+    // Matches of the last query, reused while the index is unchanged: paging through the results
+    // of a query only ranks them again.
+    private int modifications;
+    private String lastQuery;
+    private int lastQueryModifications;
+    private Matches lastMatches;
+
+    /**
+     * Indexes a review. A review already indexed with the same id is replaced.
+     *
+     * @param review the review to index
+     */
+    public void add(Review review) {
+        remove(review.getId());
+        int doc = documents.size();
+        if (doc == MAX_DOCUMENTS) throw new IllegalStateException("Too many reviews indexed: " + doc);
+        documents.add(review);
+        documentByReviewId.put(review.getId(), doc);
+
+        List<String> terms = FrenchAnalyzer.terms(review.getComment());
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : terms) frequencies.merge(term, 1, Integer::sum);
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings list = postings.get(entry.getKey());
+            if (list == null) {
+                list = new Postings();
+                postings.put(entry.getKey(), list);
+            }
+            list.add(doc, entry.getValue());
+        }
+        if (doc == lengths.length) {
+            lengths = Arrays.copyOf(lengths, doc * 2);
+            rates = Arrays.copyOf(rates, doc * 2);
+        }
+        lengths[doc] = terms.size();
+        rates[doc] = (byte) Math.max(0, Math.min(MAX_RATE, review.getRate()));
+        totalLength += terms.size();
+        maxLength = Math.max(maxLength, terms.size());
+        modifications++;
+    }
+
+    /**
+     * Indexes several reviews, in order.
+     *
+     * @param reviews the reviews to index
+     */
+    public void addAll(Collection<Review> reviews) {
+        for (Review review : reviews) add(review);
+    }
+
+    /**
+     * Removes a review from the results.
+     *
+     * @param reviewId the id of the review
+     * @return true if the review was indexed
+     */
+    public boolean remove(long reviewId) {
+        Integer doc = documentByReviewId.remove(reviewId);
+        if (doc == null) return false;
+        deleted.set(doc);
+        deletedCount++;
+        totalLength -= lengths[doc];
+        for (String term : new HashSet<>(FrenchAnalyzer.terms(documents.get(doc).getComment()))) {
+            postings.get(term).liveCount--;
+        }
+        modifications++;
+        return true;
+    }
+
+    /**
+     * Returns the number of reviews in the index.
+     *
+     * @return the number of live reviews
+     */
+    public int size() {
+        return documentByReviewId.size();
+    }
+
+    /**
+     * Searches the reviews whose comment matches a query.
+     *
+     * @param query    the words to look for; a word ending with {@code *} is a prefix
+     * @param cursor   the rank of the first result to return
+     * @param pageSize the maximum number of results to return
+     * @return the page of matching reviews, best first, with the total number of matches
+     */
+    public ReviewPage search(String query, int cursor, int pageSize) {
+        if (cursor < 0) throw new IllegalArgumentException("cursor must be positive: " + cursor);
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be strictly positive: " + pageSize);
+        Matches matches;
+        if (query.equals(lastQuery) && lastQueryModifications == modifications) {
+            matches = lastMatches;
+        } else {
+            matches = match(query);
+            lastQuery = query;
+            lastQueryModifications = modifications;
+            lastMatches = matches;
+        }
+        if (matches == null || matches.size == 0) {
+            return new ReviewPage(Collections.emptyList(), cursor, ReviewPage.END, 0);
+        }
+        List<Review> page = top(matches, cursor, pageSize);
+        int end = cursor + page.size();
+        return new ReviewPage(page, cursor, end < matches.size ? end : ReviewPage.END, matches.size);
+    }
+
+    // Intersects the matches of every word of the query, starting from the rarest one. Only the
+    // prefixes are expanded into scored matches; the other words are looked up in their postings
+    // list for the candidates left, so a frequent word costs no more than the rarest one.
+    // Returns null if the query holds no word.
+    private Matches match(String query) {
+        List<Postings> terms = new ArrayList<>();
+        List<Matches> prefixes = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.endsWith("*")) {
+                String prefix = FrenchAnalyzer.normalizePrefix(word);
+                if (!prefix.isEmpty()) prefixes.add(prefixMatches(prefix));
+            } else {
+                for (String term : FrenchAnalyzer.terms(word)) {
+                    Postings list = postings.get(term);
+                    if (list == null) return new Matches(new int[0], new float[0], 0);
+                    terms.add(list);
+                }
+            }
+        }
+        if (terms.isEmpty() && prefixes.isEmpty()) return null;
+        terms.sort((a, b) -> Integer.compare(a.liveCount, b.liveCount));
+        prefixes.sort((a, b) -> Integer.compare(a.size, b.size));
+        Matches result;
+        int firstTerm = 0;
+        int firstPrefix = 0;
+        if (prefixes.isEmpty() || (!terms.isEmpty() && terms.get(0).liveCount <= prefixes.get(0).size)) {
+            result = score(terms.get(firstTerm++));
+        } else {
+            result = prefixes.get(firstPrefix++);
+        }
+        for (int i = firstTerm; i < terms.size() && result.size > 0; i++) {
+            result = intersect(result, terms.get(i));
+        }
+        for (int i = firstPrefix; i < prefixes.size() && result.size > 0; i++) {
+            result = intersect(result, prefixes.get(i));
+        }
+        return result;
+    }
+
+    // Scores the live documents of one postings list.
+    private Matches score(Postings list) {
+        int[] docs = new int[list.liveCount];
+        float[] scores = new float[list.liveCount];
+        int size = 0;
+        float idf = idf(list.liveCount);
+        float[] norms = lengthNorms();
+        boolean skipDeleted = deletedCount > 0;
+        for (int i = 0; i < list.size; i++) {
+            int doc = list.docs[i];
+            if (skipDeleted && deleted.get(doc)) continue;
+            docs[size] = doc;
+            scores[size++] = score(list.frequencies[i], doc, idf, norms);
+        }
+        return new Matches(docs, scores, size);
+    }
+
+    // BM25 contribution of a term occurring a number of times in a document.
+    private float score(float frequency, int doc, float idf, float[] norms) {
+        return idf * frequency * (K1 + 1) / (frequency + norms[lengths[doc]]);
+    }
+
+    private float[] lengthNorms() {
+        if (lengthNormsModifications != modifications) {
+            float averageLength = size() == 0 ? 1 : Math.max(1f, (float) totalLength / size());
+            lengthNorms = new float[maxLength + 1];
+            for (int length = 0; length <= maxLength; length++) {
+                lengthNorms[length] = K1 * (1 - B + B * length / averageLength);
+            }
+            lengthNormsModifications = modifications;
+        }
+        return lengthNorms;
+    }
+
+    // Merges the matches of every term starting with the prefix, summing the scores of a document.
+    private Matches prefixMatches(String prefix) {
+        Map<String, Postings> expansions = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (expansions.size() == 1) return score(expansions.values().iterator().next());
+        Matches merged = new Matches(new int[0], new float[0], 0);
+        for (Postings list : expansions.values()) {
+            merged = union(merged, score(list));
+        }
+        return merged;
+    }
+
+    private static Matches intersect(Matches a, Matches b) {
+        int[] docs = new int[Math.min(a.size, b.size)];
+        float[] scores = new float[docs.length];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.size && j < b.size; ) {
+            if (a.docs[i] < b.docs[j]) {
+                i++;
+            } else if (a.docs[i] > b.docs[j]) {
+                j++;
+            } else {
+                docs[size] = a.docs[i];
+                scores[size++] = a.scores[i++] + b.scores[j++];
+            }
+        }
+        return new Matches(docs, scores, size);
+    }
+
+    // Keeps the matches whose document holds the term, adding the score of the term. Each
+    // document is searched by galloping from the previous one, in O(log gap).
+    private Matches intersect(Matches matches, Postings list) {
+        int[] docs = new int[Math.min(matches.size, list.liveCount)];
+        float[] scores = new float[docs.length];
+        int size = 0;
+        float idf = idf(list.liveCount);
+        float[] norms = lengthNorms();
+        int from = 0;
+        for (int i = 0; i < matches.size && from < list.size; i++) {
+            int doc = matches.docs[i];
+            int bound = 1;
+            while (from + bound < list.size && list.docs[from + bound] < doc) bound <<= 1;
+            int found = bound <= LINEAR_SEARCH_MAX
+                    ? linearSearch(list.docs, from, Math.min(from + bound + 1, list.size), doc)
+                    : Arrays.binarySearch(list.docs, from, Math.min(from + bound + 1, list.size), doc);
+            if (found >= 0) {
+                docs[size] = doc;
+                scores[size++] = matches.scores[i] + score(list.frequencies[found], doc, idf, norms);
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return new Matches(docs, scores, size);
+    }
+
+    // Same contract as Arrays.binarySearch, faster on the few elements left by the galloping.
+    private static int linearSearch(int[] docs, int from, int to, int doc) {
+        int i = from;
+        while (i < to && docs[i] < doc) i++;
+        return i < to && docs[i] == doc ? i : -i - 1;
+    }
+
+    private static Matches union(Matches a, Matches b) {
+        int[] docs = new int[a.size + b.size];
+        float[] scores = new float[docs.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.docs[i] < b.docs[j])) {
+                docs[size] = a.docs[i];
+                scores[size++] = a.scores[i++];
+            } else if (i == a.size || a.docs[i] > b.docs[j]) {
+                docs[size] = b.docs[j];
+                scores[size++] = b.scores[j++];
+            } else {
+                docs[size] = a.docs[i];
+                scores[size++] = a.scores[i++] + b.scores[j++];
+            }
+        }
+        return new Matches(docs, scores, size);
+    }
+
+    // Selects the requested page with a bounded min-heap of ranking keys, without sorting every
+    // match: O(n log k) for the k best results, and usually O(n) as most matches lose to the root.
+    private List<Review> top(Matches matches, int cursor, int pageSize) {
+        int wanted = (int) Math.min((long) cursor + pageSize, matches.size);
+        if (cursor >= wanted) return Collections.emptyList();
+        long[] heap = new long[wanted];
+        int size = 0;
+        // Newest first: on equal scores and rates, an older match never displaces the root
+        for (int i = matches.size - 1; i >= 0; i--) {
+            long key = rankingKey(matches.docs[i], matches.scores[i]);
+            if (size < wanted) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+        Arrays.sort(heap);
+        List<Review> page = new ArrayList<>(wanted - cursor);
+        for (int rank = cursor; rank < wanted; rank++) {
+            page.add(documents.get((int) (heap[wanted - 1 - rank] & (MAX_DOCUMENTS - 1))));
+        }
+        return page;
+    }
+
+    // The higher the key, the better the result. The scores are positive, so the order of
+    // their bits is the order of the floats.
+    private long rankingKey(int doc, float score) {
+        return ((long) Float.floatToIntBits(score) << 32) | ((long) rates[doc] << DOCUMENT_BITS) | doc;
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= key) break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int index = 0;
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= key) break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+
+    private float idf(int documentFrequency) {
+        int count = size();
+        return (float) Math.log(1 + (count - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+/**
+ * Running count of the reviews of each star, with the sum of their rates.
+ * <p>
+ * A histogram is the partial result of a stats computation: each part of a review set gets
+ * its own, and {@link #merge(RateHistogram)} adds them up. Merging is associative and
+ * commutative, so the parts can be computed on any thread and merged in any order.
+ * </p>
+ * Rates outside of the 1 to 5 range are ignored, as in {@link ReviewStatsAggregator}. A
+ * histogram is not thread-safe: it belongs to the task filling it.
+ */
+public final class RateHistogram {
+
+    private final int[] counts = new int[ReviewStats.STAR_COUNT];
+    private long sum;
+
+    /**
+     * Counts one review.
+     *
+     * @param rate the rate of the review
+     */
+    public void add(int rate) {
+        if (rate < 1 || rate > ReviewStats.STAR_COUNT) return;
+        counts[rate - 1]++;
+        sum += rate;
+    }
+
+    /**
+     * Counts a number of reviews of the same rate.
+     *
+     * @param rate  the rate of the reviews
+     * @param count the number of reviews
+     */
+    public void add(int rate, int count) {
+        if (rate < 1 || rate > ReviewStats.STAR_COUNT) return;
+        counts[rate - 1] += count;
+        sum += (long) rate * count;
+    }
+
+    /**
+     * Adds the counts of another histogram to this one.
+     *
+     * @param other the histogram of another part of the reviews, left unchanged
+     * @return this histogram
+     */
+    public RateHistogram merge(RateHistogram other) {
+        for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+        sum += other.sum;
+        return this;
+    }
+
+    /**
+     * Returns the number of reviews of a star.
+     *
+     * @param starIndex the star index, 0 → 1 star, 4 → 5 stars
+     * @return the number of reviews with this rate
+     */
+    public int getCount(int starIndex) {
+        return counts[starIndex];
+    }
+
+    /**
+     * Returns the sum of the rates of the counted reviews.
+     *
+     * @return the sum of the rates
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Builds the stats snapshot of the counted reviews.
+     *
+     * @return a new immutable snapshot
+     */
+    public ReviewStats toStats() {
+        return new ReviewStats(counts, sum);
+    }
+}
@@ -0,0 +1,299 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.ConcatenatedReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewAnalytics;
+import com.openclassrooms.tajmahal.domain.model.ReviewList;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps the review statistics up to date without rescanning the reviews.
+ * <p>
+ * The aggregator holds one counter per star and the running sum of the rates. Adding,
+ * editing or deleting a review only touches those counters, so every update costs O(1)
+ * whatever the number of reviews. After each update a new immutable {@link ReviewStats}
+ * snapshot is published to the registered listeners.
+ * </p>
+ * <p>
+ * The aggregator also feeds a {@link ReviewTimeline} with the time of each review, from which
+ * {@link #getAnalytics(long)} computes the stats of the last 30 and 90 days on demand. Updates
+ * given only a rate leave the timeline unchanged.
+ * </p>
+ * Rates outside of the 1 to 5 range are ignored, as the UI never shows them.
+ * Each restaurant has its own aggregator.
+ */
+public class ReviewStatsAggregator {
+
+    /**
+     * Callback notified each time a new snapshot is published.
+     */
+    public interface Listener {
+        void onStatsChanged(ReviewStats stats);
+    }
+
+    private final int[] counts = new int[ReviewStats.STAR_COUNT];
+    private long sum;
+    private boolean seeded;
+    private ReviewStats snapshot = ReviewStats.EMPTY;
+    private ReviewTimeline timeline = new ReviewTimeline();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ReviewStatsAggregator() {
+    }
+
+    /**
+     * Initializes the counters from an existing set of reviews. This is the only O(n)
+     * operation of the aggregator and it is done once: later calls are ignored. The lists are
+     * counted by the {@link ReviewStatsCalculator}, in parallel when they are large, and the
+     * reviews held by a {@link ColumnarReviewList} over its rate column, without materializing
+     * them.
+     *
+     * @param reviews the reviews already known for the restaurant
+     * @return true if the counters were initialized by this call
+     */
+    public boolean seed(Collection<Review> reviews) {
+        ReviewStats stats;
+        synchronized (this) {
+            if (seeded) return false;
+            applyAll(reviews);
+            seeded = true;
+            stats = publishLocked();
+        }
+        notifyListeners(stats);
+        return true;
+    }
+
+    /**
+     * Replaces the counters with a summary of reviews counted elsewhere, plus reviews known
+     * only here, and publishes a single snapshot. Unlike {@link #seed(Collection)}, it can be
+     * called at any time: it is how the stats of a restaurant whose reviews are not all in
+     * memory follow the server. The added reviews are counted like the seeded ones.
+     *
+     * @param summary the summary of the reviews counted elsewhere
+     * @param added   the reviews to count on top of the summary
+     */
+    public void reseed(ReviewSummary summary, Collection<Review> added) {
+        ReviewStats stats;
+        synchronized (this) {
+            ReviewStats summarized = summary.getStats();
+            sum = 0;
+            for (int i = 0; i < ReviewStats.STAR_COUNT; i++) {
+                counts[i] = summarized.getCount(i);
+                sum += (long) counts[i] * (i + 1);
+            }
+            timeline = new ReviewTimeline(summary.getTimeline());
+            applyAll(added);
+            seeded = true;
+            stats = publishLocked();
+        }
+        notifyListeners(stats);
+    }
+
+    /**
+     * Returns the current state of the counters, to be given to another aggregator by
+     * {@link #reseed(ReviewSummary, Collection)}.
+     *
+     * @return a summary of the counted reviews, which later updates leave unchanged
+     */
+    public synchronized ReviewSummary getSummary() {
+        return new ReviewSummary(snapshot, new ReviewTimeline(timeline));
+    }
+
+    /**
+     * Tells whether {@link #seed(Collection)} or {@link #reseed(ReviewSummary, Collection)} has
+     * already been called.
+     *
+     * @return true once the counters hold the existing reviews
+     */
+    public synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Takes a new review into account.
+     *
+     * @param rate the rate of the added review
+     */
+    public void onReviewAdded(int rate) {
+        update(rate, Review.UNKNOWN_TIME, 1);
+    }
+
+    /**
+     * Takes a new review into account, in the windowed stats too.
+     *
+     * @param review the added review
+     */
+    public void onReviewAdded(Review review) {
+        update(review.getRate(), review.getCreatedAt(), 1);
+    }
+
+    /**
+     * Removes a deleted review from the statistics.
+     *
+     * @param rate the rate of the deleted review
+     */
+    public void onReviewRemoved(int rate) {
+        update(rate, Review.UNKNOWN_TIME, -1);
+    }
+
+    /**
+     * Removes a deleted review from the statistics, in the windowed stats too.
+     *
+     * @param review the deleted review
+     */
+    public void onReviewRemoved(Review review) {
+        update(review.getRate(), review.getCreatedAt(), -1);
+    }
+
+    /**
+     * Moves an edited review from its old rate to its new rate.
+     *
+     * @param oldRate the rate before the edit
+     * @param newRate the rate after the edit
+     */
+    public void onReviewEdited(int oldRate, int newRate) {
+        if (oldRate == newRate) return;
+        ReviewStats stats;
+        synchronized (this) {
+            apply(oldRate, -1);
+            apply(newRate, 1);
+            stats = publishLocked();
+        }
+        notifyListeners(stats);
+    }
+
+    /**
+     * Moves an edited review from its old version to its new one, in the windowed stats too.
+     *
+     * @param before the review before the edit
+     * @param after  the review after the edit
+     */
+    public void onReviewEdited(Review before, Review after) {
+        onReviewsChanged(Collections.singletonList(before), Collections.singletonList(after));
+    }
+
+    /**
+     * Applies a set of changes at once and publishes a single snapshot, used when a refresh
+     * only changed part of the reviews.
+     *
+     * @param removed the reviews that no longer exist
+     * @param added   the reviews that appeared
+     */
+    public void onReviewsChanged(Collection<Review> removed, Collection<Review> added) {
+        if (removed.isEmpty() && added.isEmpty()) return;
+        ReviewStats stats;
+        synchronized (this) {
+            for (Review review : removed) apply(review, -1);
+            for (Review review : added) apply(review, 1);
+            stats = publishLocked();
+        }
+        notifyListeners(stats);
+    }
+
+    /**
+     * Returns the last published snapshot.
+     *
+     * @return the current statistics, never null
+     */
+    public synchronized ReviewStats getStats() {
+        return snapshot;
+    }
+
+    /**
+     * Computes the stats of the last 30 and 90 days along with the lifetime stats, in a time
+     * proportional to the number of days and not to the number of reviews.
+     *
+     * @param nowMillis the current time, the end of the windows
+     * @return a new snapshot of the analytics
+     */
+    public synchronized ReviewAnalytics getAnalytics(long nowMillis) {
+        double weightedAverage = timeline.getWeightedAverage();
+        if (weightedAverage == 0.0) weightedAverage = snapshot.getAverage();
+        return new ReviewAnalytics(snapshot, timeline.window(30, nowMillis),
+                timeline.window(ReviewTimeline.MAX_WINDOW_DAYS, nowMillis), weightedAverage);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void update(int rate, long createdAt, int delta) {
+        ReviewStats stats;
+        synchronized (this) {
+            apply(rate, createdAt, delta);
+            stats = publishLocked();
+        }
+        notifyListeners(stats);
+    }
+
+    private void apply(int rate, int delta) {
+        if (rate < 1 || rate > ReviewStats.STAR_COUNT) return;
+        counts[rate - 1] += delta;
+        sum += (long) rate * delta;
+    }
+
+    private void apply(int rate, long createdAt, int delta) {
+        apply(rate, delta);
+        if (delta > 0) {
+            timeline.onReviewAdded(rate, createdAt);
+        } else {
+            timeline.onReviewRemoved(rate, createdAt);
+        }
+    }
+
+    private void apply(Review review, int delta) {
+        apply(review.getRate(), review.getCreatedAt(), delta);
+    }
+
+    private void applyAll(Collection<Review> reviews) {
+        if (reviews instanceof ReviewList) {
+            ReviewList list = (ReviewList) reviews;
+            for (Review review : list.getPrepended()) apply(review, 1);
+            applyAll(list.getOlder());
+        } else if (reviews instanceof ConcatenatedReviewList) {
+            applyAll(((ConcatenatedReviewList) reviews).getFirst());
+            applyAll(((ConcatenatedReviewList) reviews).getSecond());
+        } else if (reviews instanceof List) {
+            RateHistogram histogram = ReviewStatsCalculator.histogram((List<Review>) reviews);
+            for (int i = 0; i < ReviewStats.STAR_COUNT; i++) counts[i] += histogram.getCount(i);
+            sum += histogram.getSum();
+            addToTimeline((List<Review>) reviews);
+        } else {
+            for (Review review : reviews) apply(review, 1);
+        }
+    }
+
+    // Second pass over the seeded reviews, reading the columns without materializing them
+    private void addToTimeline(List<Review> reviews) {
+        if (reviews instanceof ColumnarReviewList) {
+            ColumnarReviewList columns = (ColumnarReviewList) reviews;
+            for (int i = 0, size = columns.size(); i < size; i++) {
+                timeline.onReviewAdded(columns.rateAt(i), columns.createdAt(i));
+            }
+        } else {
+            for (Review review : reviews) timeline.onReviewAdded(review.getRate(), review.getCreatedAt());
+        }
+    }
+
+    private ReviewStats publishLocked() {
+        snapshot = new ReviewStats(counts, sum);
+        return snapshot;
+    }
+
+    private void notifyListeners(ReviewStats stats) {
+        for (Listener listener : listeners) {
+            listener.onStatsChanged(stats);
+        }
+    }
+}
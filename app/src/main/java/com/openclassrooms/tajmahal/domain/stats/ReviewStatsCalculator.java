@@ -0,0 +1,186 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the stats of a whole set of reviews at once, for the bulk computations: seeding an
+ * aggregator on a cold start, or the stats of every restaurant of the chain.
+ * <p>
+ * Below {@link #PARALLEL_THRESHOLD} reviews, the reviews are counted by a single loop on the
+ * calling thread. Above it, the set is split in halves on a {@link ForkJoinPool} until the
+ * parts are small enough, each part fills its own {@link RateHistogram}, and the histograms
+ * are merged on the way back. The threshold comes from {@code ReviewStatsParallelBenchmark}:
+ * under it, forking the tasks costs more than it saves.
+ * </p>
+ * The reviews of a {@link ColumnarReviewList} are counted over its rate column. Lists without
+ * random access are always counted sequentially.
+ */
+public final class ReviewStatsCalculator {
+
+    /** Number of reviews from which the computation runs in parallel. */
+    public static final int PARALLEL_THRESHOLD = 50_000;
+
+    // Size of the parts counted by a single task.
+    static final int LEAF_SIZE = 8_192;
+
+    private ReviewStatsCalculator() {
+    }
+
+    /**
+     * Computes the stats of a set of reviews, in parallel when it is large enough.
+     *
+     * @param reviews the reviews
+     * @return the stats of the reviews
+     */
+    public static ReviewStats compute(List<Review> reviews) {
+        return histogram(reviews).toStats();
+    }
+
+    /**
+     * Computes the stats of several sets of reviews together, such as the reviews of every
+     * restaurant of the chain. The sets are counted in parallel when they hold enough reviews
+     * in total, even if each of them is small.
+     *
+     * @param reviewSets the sets of reviews
+     * @return the stats of all the reviews
+     */
+    public static ReviewStats computeAll(Collection<? extends List<Review>> reviewSets) {
+        long total = 0;
+        for (List<Review> reviews : reviewSets) total += reviews.size();
+        if (total < PARALLEL_THRESHOLD || !isParallel(ForkJoinPool.commonPool())) {
+            RateHistogram histogram = new RateHistogram();
+            for (List<Review> reviews : reviewSets) histogram.merge(sequential(reviews));
+            return histogram.toStats();
+        }
+        return ForkJoinPool.commonPool().invoke(new SetsTask(new ArrayList<>(reviewSets))).toStats();
+    }
+
+    /**
+     * Counts a set of reviews, in parallel when it is large enough.
+     *
+     * @param reviews the reviews
+     * @return a new histogram of the reviews
+     */
+    public static RateHistogram histogram(List<Review> reviews) {
+        if (reviews.size() >= PARALLEL_THRESHOLD) return parallel(reviews, ForkJoinPool.commonPool());
+        return sequential(reviews);
+    }
+
+    /**
+     * Counts a set of reviews with a single loop on the calling thread.
+     *
+     * @param reviews the reviews
+     * @return a new histogram of the reviews
+     */
+    public static RateHistogram sequential(List<Review> reviews) {
+        if (reviews instanceof RandomAccess) return count(reviews, 0, reviews.size());
+        RateHistogram histogram = new RateHistogram();
+        for (Review review : reviews) histogram.add(review.getRate());
+        return histogram;
+    }
+
+    /**
+     * Counts a set of reviews on a fork/join pool, whatever its size.
+     *
+     * @param reviews the reviews
+     * @param pool    the pool running the tasks
+     * @return a new histogram of the reviews
+     */
+    public static RateHistogram parallel(List<Review> reviews, ForkJoinPool pool) {
+        if (!(reviews instanceof RandomAccess) || !isParallel(pool)) return sequential(reviews);
+        return pool.invoke(new RangeTask(reviews, 0, reviews.size()));
+    }
+
+    private static boolean isParallel(ForkJoinPool pool) {
+        return pool.getParallelism() > 1;
+    }
+
+    // Counts the reviews of a range of positions, on the calling thread.
+    private static RateHistogram count(List<Review> reviews, int from, int to) {
+        RateHistogram histogram = new RateHistogram();
+        if (reviews instanceof ColumnarReviewList) {
+            int[] counts = new int[ReviewStats.STAR_COUNT + 1];
+            ((ColumnarReviewList) reviews).countRates(counts, from, to);
+            for (int rate = 1; rate <= ReviewStats.STAR_COUNT; rate++) histogram.add(rate, counts[rate]);
+        } else {
+            for (int i = from; i < to; i++) histogram.add(reviews.get(i).getRate());
+        }
+        return histogram;
+    }
+
+    // Counts a range of a list, split in halves until the parts are small enough.
+    private static final class RangeTask extends RecursiveTask<RateHistogram> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Review> reviews;
+        private final int from;
+        private final int to;
+
+        RangeTask(List<Review> reviews, int from, int to) {
+            this.reviews = reviews;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RateHistogram compute() {
+            if (to - from <= LEAF_SIZE) return count(reviews, from, to);
+            int middle = (from + to) >>> 1;
+            RangeTask right = new RangeTask(reviews, middle, to);
+            right.fork();
+            RateHistogram left = new RangeTask(reviews, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    // Counts several sets, one task per set, each one split further when large.
+    private static final class SetsTask extends RecursiveTask<RateHistogram> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<List<Review>> reviewSets;
+
+        SetsTask(List<List<Review>> reviewSets) {
+            this.reviewSets = reviewSets;
+        }
+
+        @Override
+        protected RateHistogram compute() {
+            List<RecursiveTask<RateHistogram>> tasks = new ArrayList<>(reviewSets.size());
+            for (List<Review> reviews : reviewSets) {
+                if (reviews.isEmpty()) continue;
+                RecursiveTask<RateHistogram> task = reviews instanceof RandomAccess
+                        ? new RangeTask(reviews, 0, reviews.size())
+                        : new SequentialTask(reviews);
+                task.fork();
+                tasks.add(task);
+            }
+            RateHistogram histogram = new RateHistogram();
+            for (RecursiveTask<RateHistogram> task : tasks) histogram.merge(task.join());
+            return histogram;
+        }
+    }
+
+    private static final class SequentialTask extends RecursiveTask<RateHistogram> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Review> reviews;
+
+        SequentialTask(List<Review> reviews) {
+            this.reviews = reviews;
+        }
+
+        @Override
+        protected RateHistogram compute() {
+            return sequential(reviews);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+/**
+ * The state of a {@link ReviewStatsAggregator} at a point in time: the number of reviews of
+ * each star and the {@link ReviewTimeline} of their times.
+ * <p>
+ * A summary lets the stats of the reviews be computed where the reviews are, by the server
+ * for instance, and be handed to an aggregator that does not hold them, see
+ * {@link ReviewStatsAggregator#reseed(ReviewSummary, java.util.Collection)}.
+ * </p>
+ * An instance never changes.
+ */
+public final class ReviewSummary {
+
+    /** The summary of no review at all. */
+    public static final ReviewSummary EMPTY = new ReviewSummary(ReviewStats.EMPTY, new ReviewTimeline());
+
+    private final ReviewStats stats;
+    // Never modified: the aggregators reseeded from it work on a copy
+    private final ReviewTimeline timeline;
+
+    ReviewSummary(ReviewStats stats, ReviewTimeline timeline) {
+        this.stats = stats;
+        this.timeline = timeline;
+    }
+
+    /**
+     * Returns the lifetime stats of the summarized reviews.
+     *
+     * @return the stats, never null
+     */
+    public ReviewStats getStats() {
+        return stats;
+    }
+
+    ReviewTimeline getTimeline() {
+        return timeline;
+    }
+}
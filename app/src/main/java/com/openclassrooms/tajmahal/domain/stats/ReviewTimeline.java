@@ -0,0 +1,153 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the recent reviews of a restaurant counted day by day, for the time-windowed stats and
+ * a score favouring the recent reviews.
+ * <p>
+ * The counts live in a ring buffer of {@link #MAX_WINDOW_DAYS} days, each day holding one
+ * counter per star. A review only increments the counter of its day and star, and the buffer
+ * moves forward when a review of a new day arrives, clearing the days that fall out of it. The
+ * stats of the last 30 or 90 days are then summed over the days of the window, in O(days) and
+ * not O(reviews). Reviews older than the buffer only count in the score.
+ * </p>
+ * <p>
+ * The score is the average rate where each review weighs half as much every
+ * {@link #HALF_LIFE_DAYS} days. All the weights shrink by the same factor as time goes by, so
+ * the score only needs the weighted sum of the rates and the sum of the weights: when the
+ * buffer moves forward, both are scaled down so the weights stay relative to the newest day.
+ * </p>
+ * Reviews with an {@link Review#UNKNOWN_TIME unknown time} are ignored. Days are UTC days. A
+ * timeline is not thread-safe: {@link ReviewStatsAggregator} only uses it under its lock.
+ */
+public final class ReviewTimeline {
+
+    /** Longest window of the stats, in days. */
+    public static final int MAX_WINDOW_DAYS = 90;
+
+    /** Number of days after which a review weighs half as much in the score. */
+    public static final double HALF_LIFE_DAYS = 30;
+
+    static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Counts of the day d, star s at [(d % MAX_WINDOW_DAYS) * STAR_COUNT + s - 1]
+    private final int[] counts = new int[MAX_WINDOW_DAYS * ReviewStats.STAR_COUNT];
+    private long newestDay = Long.MIN_VALUE;
+
+    // Rates and weights summed relative to the newest day, where a review weighs 1
+    private double weightedSum;
+    private double weightSum;
+
+    public ReviewTimeline() {
+    }
+
+    // A copy of a timeline, which then changes on its own
+    ReviewTimeline(ReviewTimeline other) {
+        System.arraycopy(other.counts, 0, counts, 0, counts.length);
+        newestDay = other.newestDay;
+        weightedSum = other.weightedSum;
+        weightSum = other.weightSum;
+    }
+
+    /**
+     * Takes a review into account.
+     *
+     * @param rate      the rate of the review
+     * @param createdAt the time of the review
+     */
+    public void onReviewAdded(int rate, long createdAt) {
+        apply(rate, createdAt, 1);
+    }
+
+    /**
+     * Removes a deleted review.
+     *
+     * @param rate      the rate of the review
+     * @param createdAt the time of the review
+     */
+    public void onReviewRemoved(int rate, long createdAt) {
+        apply(rate, createdAt, -1);
+    }
+
+    /**
+     * Computes the stats of the reviews of the last days, the current day included.
+     *
+     * @param days      the number of days of the window, at most {@link #MAX_WINDOW_DAYS}
+     * @param nowMillis the current time
+     * @return the stats of the reviews of the window
+     * @throws IllegalArgumentException if the window is not between 1 and {@link #MAX_WINDOW_DAYS}
+     */
+    public ReviewStats window(int days, long nowMillis) {
+        if (days < 1 || days > MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_WINDOW_DAYS + ": " + days);
+        }
+        if (newestDay == Long.MIN_VALUE) return ReviewStats.EMPTY;
+        int[] window = new int[ReviewStats.STAR_COUNT];
+        long sum = 0;
+        long today = dayOf(nowMillis);
+        // Only the days still in the buffer, later than the window start and not in the future
+        long first = Math.max(today - days + 1, newestDay - MAX_WINDOW_DAYS + 1);
+        long last = Math.min(today, newestDay);
+        for (long day = first; day <= last; day++) {
+            int base = slot(day);
+            for (int star = 0; star < ReviewStats.STAR_COUNT; star++) {
+                int count = counts[base + star];
+                window[star] += count;
+                sum += (long) count * (star + 1);
+            }
+        }
+        return new ReviewStats(window, sum);
+    }
+
+    /**
+     * Returns the average rate where the recent reviews weigh more.
+     *
+     * @return the weighted average, or 0 if no review has a known time
+     */
+    public double getWeightedAverage() {
+        // Guards against the rounding errors left by the removals
+        return weightSum < 1e-9 ? 0.0 : weightedSum / weightSum;
+    }
+
+    private void apply(int rate, long createdAt, int delta) {
+        if (createdAt == Review.UNKNOWN_TIME || rate < 1 || rate > ReviewStats.STAR_COUNT) return;
+        long day = dayOf(createdAt);
+        if (day > newestDay) advance(day);
+        double weight = Math.pow(0.5, (newestDay - day) / HALF_LIFE_DAYS);
+        weightedSum += delta * weight * rate;
+        weightSum += delta * weight;
+        if (day > newestDay - MAX_WINDOW_DAYS) {
+            counts[slot(day) + rate - 1] += delta;
+        }
+    }
+
+    // Moves the newest day forward, clearing the days that leave the buffer.
+    private void advance(long day) {
+        if (newestDay == Long.MIN_VALUE || day - newestDay >= MAX_WINDOW_DAYS) {
+            Arrays.fill(counts, 0);
+        } else {
+            for (long cleared = newestDay + 1; cleared <= day; cleared++) {
+                int base = slot(cleared);
+                for (int star = 0; star < ReviewStats.STAR_COUNT; star++) counts[base + star] = 0;
+            }
+        }
+        if (newestDay != Long.MIN_VALUE) {
+            double scale = Math.pow(0.5, (day - newestDay) / HALF_LIFE_DAYS);
+            weightedSum *= scale;
+            weightSum *= scale;
+        }
+        newestDay = day;
+    }
+
+    private static int slot(long day) {
+        return (int) Math.floorMod(day, (long) MAX_WINDOW_DAYS) * ReviewStats.STAR_COUNT;
+    }
+
+    private static long dayOf(long millis) {
+        return Math.floorDiv(millis, DAY_MILLIS);
+    }
+}
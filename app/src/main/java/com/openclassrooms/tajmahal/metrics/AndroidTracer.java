@@ -0,0 +1,20 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import android.os.Trace;
+
+/**
+ * A {@link Tracer} writing the sections to the system trace through {@link Trace}, so they appear
+ * in Perfetto and in the macrobenchmark traces.
+ */
+public final class AndroidTracer implements Tracer {
+
+    @Override
+    public void beginSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @Override
+    public void endSection() {
+        Trace.endSection();
+    }
+}
@@ -0,0 +1,57 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count of events, such as cache hits or failed calls, incremented from any thread without
+ * locking: the increments of concurrent threads go to separate cells, summed when read.
+ * <p>
+ * The counters of disabled {@link Metrics} are a single shared instance which records nothing.
+ * </p>
+ */
+public final class Counter {
+
+    static final Counter DISABLED = new Counter(null, null);
+
+    private final String name;
+    // Null when disabled
+    private final LongAdder count;
+
+    private Counter(String name, LongAdder count) {
+        this.name = name;
+        this.count = count;
+    }
+
+    static Counter create(String name) {
+        return new Counter(name, new LongAdder());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Counts one event.
+     */
+    public void increment() {
+        if (count != null) count.increment();
+    }
+
+    /**
+     * Counts several events at once.
+     *
+     * @param events the number of events
+     */
+    public void add(long events) {
+        if (count != null) count.add(events);
+    }
+
+    /**
+     * Returns the number of events counted so far.
+     *
+     * @return the count, 0 when disabled
+     */
+    public long get() {
+        return count == null ? 0 : count.sum();
+    }
+}
@@ -0,0 +1,180 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The distribution of a latency, recorded from any thread without locking.
+ * <p>
+ * The durations are counted in {@link #BUCKET_COUNT} fixed buckets whose bounds double from one
+ * to the next: the first one holds the durations under 1 µs, bucket {@code k} the durations from
+ * 2<sup>9+k</sup> to 2<sup>10+k</sup> ns, and the last one everything from about 4 s. Recording a
+ * duration is a shift to find its bucket and three atomic updates, with neither allocation nor
+ * lock, so it fits the paths run at every frame. The percentiles read from the buckets are
+ * rounded up to the upper bound of their bucket, at most twice the exact value.
+ * </p>
+ * The histograms of disabled {@link Metrics} are a single shared instance which records
+ * nothing, and does not even read the clock.
+ */
+public final class Histogram {
+
+    /** Number of buckets of a histogram. */
+    public static final int BUCKET_COUNT = 24;
+
+    // Durations under 2^FIRST_BOUND_SHIFT ns go to the first bucket
+    private static final int FIRST_BOUND_SHIFT = 10;
+
+    static final Histogram DISABLED = new Histogram(null, null);
+
+    private final String name;
+    // Null when disabled
+    private final AtomicLongArray buckets;
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    private Histogram(String name, AtomicLongArray buckets) {
+        this.name = name;
+        this.buckets = buckets;
+    }
+
+    static Histogram create(String name) {
+        return new Histogram(name, new AtomicLongArray(BUCKET_COUNT));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time to give to {@link #stop(long)}, 0 when disabled
+     */
+    public long start() {
+        return buckets == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records the duration of an operation started by {@link #start()}.
+     *
+     * @param start the start time of the operation
+     */
+    public void stop(long start) {
+        if (buckets != null) record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative values counting as 0
+     */
+    public void record(long nanos) {
+        if (buckets == null) return;
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Another thread raised the max meanwhile, compare again
+        }
+    }
+
+    /**
+     * Returns the upper bound of a bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the exclusive upper bound in nanoseconds, {@link Long#MAX_VALUE} for the last bucket
+     */
+    public static long upperBound(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << (FIRST_BOUND_SHIFT + bucket);
+    }
+
+    static int bucketOf(long nanos) {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(nanos >>> FIRST_BOUND_SHIFT));
+    }
+
+    /**
+     * Copies the current state of the histogram. The buckets are read one by one while other
+     * threads may record: the copy may miss the durations recorded during the read.
+     *
+     * @return a new snapshot
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        if (buckets != null) {
+            for (int i = 0; i < BUCKET_COUNT; i++) counts[i] = buckets.get(i);
+        }
+        return new Snapshot(name, counts, sum.sum(), max.get());
+    }
+
+    /**
+     * An immutable copy of a histogram.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final long[] buckets;
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+
+        Snapshot(String name, long[] buckets, long sumNanos, long maxNanos) {
+            this.name = name;
+            this.buckets = buckets;
+            long count = 0;
+            for (long bucket : buckets) count += bucket;
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the number of durations of a bucket.
+         *
+         * @param bucket the index of the bucket
+         * @return the count of the bucket
+         */
+        public long getBucketCount(int bucket) {
+            return buckets[bucket];
+        }
+
+        /**
+         * Returns the mean duration.
+         *
+         * @return the mean in nanoseconds, 0 if nothing was recorded
+         */
+        public long getMeanNanos() {
+            return count == 0 ? 0 : sumNanos / count;
+        }
+
+        /**
+         * Returns a percentile of the durations, rounded up to the upper bound of its bucket but
+         * never above the longest duration.
+         *
+         * @param quantile the quantile, between 0 and 1, such as 0.99 for the 99th percentile
+         * @return the percentile in nanoseconds, 0 if nothing was recorded
+         */
+        public long getPercentileNanos(double quantile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return Math.min(upperBound(i), maxNanos);
+            }
+            return maxNanos;
+        }
+    }
+}
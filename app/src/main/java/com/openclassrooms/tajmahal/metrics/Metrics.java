@@ -0,0 +1,140 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the counters and latency histograms of the app, and entry point of the trace
+ * sections around its hot paths.
+ * <p>
+ * The classes holding a hot path look their metrics up once, when they are built, and keep
+ * them in fields: recording then costs no lookup. A section times an operation into a
+ * histogram and shows it in the system trace:
+ * </p>
+ * <pre>
+ * long start = metrics.beginSection(bindTime);
+ * try {
+ *     ...
+ * } finally {
+ *     metrics.endSection(bindTime, start);
+ * }
+ * </pre>
+ * <p>
+ * Disabled metrics, such as {@link #DISABLED} or the ones of a release build, hand out shared
+ * counters and histograms which record nothing: the instrumented code then pays a field read
+ * and a branch per call, without reading the clock, allocating or tracing.
+ * </p>
+ * {@link #snapshot()} copies every metric at once, and {@link #writeJson(File)} dumps that copy
+ * to a file.
+ */
+public final class Metrics {
+
+    /** Metrics recording nothing. */
+    public static final Metrics DISABLED = new Metrics(false, Tracer.NONE);
+
+    private final boolean enabled;
+    private final Tracer tracer;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the metrics of the app.
+     *
+     * @param enabled whether the metrics record anything
+     * @param tracer  the tracer of the sections
+     */
+    public Metrics(boolean enabled, Tracer tracer) {
+        this.enabled = enabled;
+        this.tracer = tracer;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the counter with the given name, created on the first call.
+     *
+     * @param name the name of the counter, such as {@code "cache.hit"}
+     * @return the counter, the shared one recording nothing when disabled
+     */
+    public Counter counter(String name) {
+        if (!enabled) return Counter.DISABLED;
+        return counters.computeIfAbsent(name, Counter::create);
+    }
+
+    /**
+     * Returns the histogram with the given name, created on the first call.
+     *
+     * @param name the name of the histogram, such as {@code "review.bind"}, also used as the
+     *             name of its trace sections
+     * @return the histogram, the shared one recording nothing when disabled
+     */
+    public Histogram histogram(String name) {
+        if (!enabled) return Histogram.DISABLED;
+        return histograms.computeIfAbsent(name, Histogram::create);
+    }
+
+    /**
+     * Begins a trace section named after a histogram, and starts timing it.
+     *
+     * @param histogram the histogram of the section
+     * @return the start time to give to {@link #endSection(Histogram, long)}
+     */
+    public long beginSection(Histogram histogram) {
+        if (!enabled) return 0;
+        tracer.beginSection(histogram.getName());
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends the trace section begun by {@link #beginSection(Histogram)} on this thread, and
+     * records its duration.
+     *
+     * @param histogram the histogram of the section
+     * @param start     the start time returned by {@link #beginSection(Histogram)}
+     */
+    public void endSection(Histogram histogram, long start) {
+        if (!enabled) return;
+        histogram.record(System.nanoTime() - start);
+        tracer.endSection();
+    }
+
+    /**
+     * Copies the current value of every metric.
+     *
+     * @return a new snapshot, empty when disabled
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        for (Counter counter : counters.values()) counterValues.put(counter.getName(), counter.get());
+        Map<String, Histogram.Snapshot> histogramValues = new TreeMap<>();
+        for (Histogram histogram : histograms.values()) histogramValues.put(histogram.getName(), histogram.snapshot());
+        return new MetricsSnapshot(System.currentTimeMillis(), counterValues, new ArrayList<>(histogramValues.values()));
+    }
+
+    /**
+     * Writes a snapshot of the metrics as JSON. The file is replaced only once fully written.
+     * Does blocking disk I/O.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void writeJson(File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8)) {
+            writer.write(snapshot().toJson());
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.openclassrooms.tajmahal.di.IoExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import dagger.hilt.EntryPoint;
+import dagger.hilt.InstallIn;
+import dagger.hilt.android.EntryPointAccessors;
+import dagger.hilt.components.SingletonComponent;
+
+/**
+ * Dumps a snapshot of the {@link Metrics} on demand, as JSON to {@code files/metrics.json}.
+ * <p>
+ * Only declared by the debug manifest, it is triggered from a computer with:
+ * </p>
+ * <pre>
+ * adb shell am broadcast -n com.openclassrooms.tajmahal/.metrics.MetricsDumpReceiver
+ * adb exec-out run-as com.openclassrooms.tajmahal cat files/metrics.json
+ * </pre>
+ */
+public class MetricsDumpReceiver extends BroadcastReceiver {
+
+    /** Name of the dump in the files directory of the app. */
+    public static final String FILE_NAME = "metrics.json";
+
+    private static final String TAG = "Metrics";
+
+    // The receiver is built by the system: its dependencies come from the application graph
+    @EntryPoint
+    @InstallIn(SingletonComponent.class)
+    interface Dependencies {
+        Metrics metrics();
+
+        @IoExecutor
+        Executor ioExecutor();
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        Dependencies dependencies = EntryPointAccessors.fromApplication(context.getApplicationContext(), Dependencies.class);
+        Metrics metrics = dependencies.metrics();
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        PendingResult result = goAsync();
+        dependencies.ioExecutor().execute(() -> {
+            try {
+                metrics.writeJson(file);
+                Log.i(TAG, "Metrics written to " + file);
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot write the metrics", e);
+            } finally {
+                result.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable copy of every counter and histogram of a {@link Metrics}, sorted by name, which
+ * can be written as JSON:
+ * <pre>
+ * {
+ *   "takenAt": 1700000000000,
+ *   "counters": {"cache.hit": 12},
+ *   "histograms": {
+ *     "review.bind": {"count": 340, "meanNanos": 41000, "p50Nanos": 65536, "p90Nanos": 131072,
+ *                     "p99Nanos": 262144, "maxNanos": 250000, "buckets": [0, 0, ...]}
+ *   }
+ * }
+ * </pre>
+ */
+public final class MetricsSnapshot {
+
+    private final long takenAt;
+    private final Map<String, Long> counters;
+    private final List<Histogram.Snapshot> histograms;
+
+    MetricsSnapshot(long takenAt, Map<String, Long> counters, List<Histogram.Snapshot> histograms) {
+        this.takenAt = takenAt;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.histograms = Collections.unmodifiableList(histograms);
+    }
+
+    public long getTakenAt() {
+        return takenAt;
+    }
+
+    /**
+     * Returns the value of each counter.
+     *
+     * @return the counts by name
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public List<Histogram.Snapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Returns the snapshot of a histogram.
+     *
+     * @param name the name of the histogram
+     * @return the snapshot, or null if no histogram has this name
+     */
+    public Histogram.Snapshot getHistogram(String name) {
+        for (Histogram.Snapshot histogram : histograms) {
+            if (histogram.getName().equals(name)) return histogram;
+        }
+        return null;
+    }
+
+    /**
+     * Writes the snapshot as a JSON object.
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(256 + 256 * histograms.size());
+        json.append("{\n  \"takenAt\": ").append(takenAt).append(",\n  \"counters\": {");
+        String separator = "\n    ";
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            json.append(separator);
+            appendString(json, counter.getKey());
+            json.append(": ").append(counter.getValue());
+            separator = ",\n    ";
+        }
+        json.append(counters.isEmpty() ? "}" : "\n  }").append(",\n  \"histograms\": {");
+        separator = "\n    ";
+        for (Histogram.Snapshot histogram : histograms) {
+            json.append(separator);
+            appendString(json, histogram.getName());
+            json.append(": {\"count\": ").append(histogram.getCount())
+                    .append(", \"meanNanos\": ").append(histogram.getMeanNanos())
+                    .append(", \"p50Nanos\": ").append(histogram.getPercentileNanos(0.5))
+                    .append(", \"p90Nanos\": ").append(histogram.getPercentileNanos(0.9))
+                    .append(", \"p99Nanos\": ").append(histogram.getPercentileNanos(0.99))
+                    .append(", \"maxNanos\": ").append(histogram.getMaxNanos())
+                    .append(", \"buckets\": [");
+            for (int i = 0; i < Histogram.BUCKET_COUNT; i++) {
+                if (i > 0) json.append(", ");
+                json.append(histogram.getBucketCount(i));
+            }
+            json.append("]}");
+            separator = ",\n    ";
+        }
+        json.append(histograms.isEmpty() ? "}" : "\n  }").append("\n}\n");
+        return json.toString();
+    }
+
+    // Metric names are plain identifiers, only the quotes and backslashes need escaping
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') json.append('\\');
+            json.append(c);
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.tajmahal.metrics;
+
+/**
+ * Marks the sections of code shown by a system trace, such as the ones recorded by Perfetto.
+ * <p>
+ * A section ends on the thread where it began, and the sections of a thread are nested.
+ * </p>
+ *
+ * @see AndroidTracer
+ */
+public interface Tracer {
+
+    /** A tracer that records nothing. */
+    Tracer NONE = new Tracer() {
+        @Override
+        public void beginSection(String name) {
+        }
+
+        @Override
+        public void endSection() {
+        }
+    };
+
+    /**
+     * Begins a section on the calling thread.
+     *
+     * @param name the name of the section
+     */
+    void beginSection(String name);
+
+    /**
+     * Ends the latest section begun on the calling thread.
+     */
+    void endSection();
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.tajmahal.startup;
+
+import android.app.Activity;
+import android.content.Context;
+
+import com.bumptech.glide.Glide;
+import com.openclassrooms.tajmahal.di.IoExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import dagger.hilt.android.qualifiers.ApplicationContext;
+
+/**
+ * Initializes, after the first frame of the app, what the first screen does not need.
+ * <p>
+ * A cold start only has to show the details of the restaurant. Glide in particular is only used
+ * by the reviews screen, but its first use builds its registry, reads the app's Glide module and
+ * opens its disk cache, which costs tens of milliseconds. That work runs here instead, on the
+ * I/O executor once the first frame is drawn, so it competes neither with the first frame nor
+ * with the opening of the reviews screen.
+ * </p>
+ * The tasks run once per process, whatever the number of activities created.
+ */
+@Singleton
+public class DeferredStartup {
+
+    private final Context context;
+    private final Executor ioExecutor;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    @Inject
+    public DeferredStartup(@ApplicationContext Context context, @IoExecutor Executor ioExecutor) {
+        this.context = context;
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Schedules the deferred initialization after the first frame of an activity. Calls after
+     * the first one are ignored. Must be called on the main thread.
+     *
+     * @param activity the first activity of the process, its content view already set
+     */
+    public void scheduleAfterFirstFrame(Activity activity) {
+        if (!scheduled.compareAndSet(false, true)) return;
+        FirstFrame.runAfter(activity.getWindow().getDecorView(), () -> ioExecutor.execute(this::initialize));
+    }
+
+    private void initialize() {
+        // Builds Glide with its configuration, ready for the first avatar
+        Glide.get(context);
+    }
+}
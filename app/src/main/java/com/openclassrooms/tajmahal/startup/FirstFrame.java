@@ -0,0 +1,63 @@
+package com.openclassrooms.tajmahal.startup;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Runs work on the main thread right after a view hierarchy has drawn its first frame.
+ * <p>
+ * The task is posted from the first draw of the view, so it runs once the frame has been handed
+ * to the display, instead of delaying it. Before Android 8.0, draw listeners added to a view not
+ * yet attached to a window were lost, so the listener is only added once the view is attached.
+ * </p>
+ */
+public final class FirstFrame {
+
+    private FirstFrame() {
+    }
+
+    /**
+     * Runs a task on the main thread after the next frame drawn by a view, the first one for a
+     * new view. Must be called on the main thread.
+     *
+     * @param view the view whose frame is awaited, typically the root of a screen
+     * @param task the task to run once the frame is drawn
+     */
+    public static void runAfter(View view, Runnable task) {
+        if (view.isAttachedToWindow()) {
+            listen(view, task);
+            return;
+        }
+        view.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(View attached) {
+                attached.removeOnAttachStateChangeListener(this);
+                listen(attached, task);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(View detached) {
+            }
+        });
+    }
+
+    private static void listen(View view, Runnable task) {
+        Handler handler = new Handler(Looper.getMainLooper());
+        view.getViewTreeObserver().addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            private boolean drawn;
+
+            @Override
+            public void onDraw() {
+                if (drawn) return;
+                drawn = true;
+                // A draw listener cannot be removed while the frame is being drawn
+                handler.post(() -> {
+                    view.getViewTreeObserver().removeOnDrawListener(this);
+                    task.run();
+                });
+            }
+        });
+    }
+}
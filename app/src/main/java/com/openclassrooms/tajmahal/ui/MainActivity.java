@@ -6,8 +6,11 @@ import android.view.View;
 
 import com.openclassrooms.tajmahal.R;
 import com.openclassrooms.tajmahal.databinding.ActivityMainBinding;
+import com.openclassrooms.tajmahal.startup.DeferredStartup;
 import com.openclassrooms.tajmahal.ui.restaurant.DetailsFragment;
 
+import javax.inject.Inject;
+
 import dagger.hilt.android.AndroidEntryPoint;
 
 @AndroidEntryPoint
@@ -15,6 +18,9 @@ public class MainActivity extends AppCompatActivity {
 
     private ActivityMainBinding binding;
 
+    @Inject
+    DeferredStartup deferredStartup;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -26,6 +32,8 @@ public class MainActivity extends AppCompatActivity {
                     .replace(R.id.container, DetailsFragment.newInstance())
                     .commitNow();
         }
+        // Everything the details screen does not need waits for its first frame
+        deferredStartup.scheduleAfterFirstFrame(this);
     }
 
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -23,11 +24,13 @@ import com.google.android.material.chip.Chip;
 import com.google.android.material.imageview.ShapeableImageView;
 import com.google.android.material.snackbar.Snackbar;
 import com.openclassrooms.tajmahal.R;
-import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
-import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.review.SubmitResult;
+import com.openclassrooms.tajmahal.domain.review.SubmitReviewUseCase;
+import com.openclassrooms.tajmahal.metrics.Counter;
+import com.openclassrooms.tajmahal.metrics.Histogram;
+import com.openclassrooms.tajmahal.metrics.Metrics;
 
-import java.util.ArrayList;
-import java.util.List;
+import javax.inject.Inject;
 
 import dagger.hilt.android.AndroidEntryPoint;
 
@@ -41,17 +44,39 @@ public class AddReviewFragment extends Fragment {
     private ShapeableImageView profileImage;
     private TextView tvUserName;
 
+    // Nombre de lignes dont l'avatar est chargé avant qu'elles n'apparaissent
+    private static final int AVATAR_PRELOAD_COUNT = 10;
+
     // RecyclerView et son Adapter
     private RecyclerView recyclerViewReviews;
     private ReviewAdapter reviewAdapter;
-    private List<Review> reviewList = new ArrayList<>();
+
+    // Vrai après l'envoi d'un avis, pour remonter en haut de la liste quand il s'affiche
+    private boolean scrollToTopOnNextUpdate;
+
+    // ViewModel qui donne accès à la liste d'avis partagée avec l'écran de détails
+    private ReviewViewModel reviewViewModel;
+
+    // Mesures de l'envoi des avis et de l'affichage de la liste
+    @Inject
+    Metrics metrics;
+    private Histogram submitTime;
+    private Counter rejectedSubmits;
+    // Début de l'envoi en cours, mesuré du clic jusqu'à son résultat ; vrai tant qu'il est attendu
+    private long submitStart;
+    private boolean submitTimed;
 
     // Utilisateur courant
     private final String currentUserName = "Manon Garcia";
     private final String currentUserPicture = "profile_picture";
 
-    public static AddReviewFragment newInstance() {
-        return new AddReviewFragment();
+    // L'id du restaurant est lu par le ReviewViewModel dans les arguments
+    public static AddReviewFragment newInstance(long restaurantId) {
+        AddReviewFragment fragment = new AddReviewFragment();
+        Bundle args = new Bundle();
+        args.putLong(DetailsViewModel.ARG_RESTAURANT_ID, restaurantId);
+        fragment.setArguments(args);
+        return fragment;
     }
 
     @Nullable
@@ -70,6 +95,10 @@ public class AddReviewFragment extends Fragment {
         tvUserName = view.findViewById(R.id.tvUserName);
         recyclerViewReviews = view.findViewById(R.id.recyclerViewReviews);
 
+        reviewViewModel = new ViewModelProvider(this).get(ReviewViewModel.class);
+        submitTime = metrics.histogram("review.submit");
+        rejectedSubmits = metrics.counter("review.submit.rejected");
+
         // Charger l'image du profil de l'utilisateur
         Glide.with(requireContext())
                 .load(R.drawable.profile_picture)
@@ -96,41 +125,101 @@ public class AddReviewFragment extends Fragment {
         ratingBarInput.setProgressDrawable(starsInput);
 
         // --- Configuration du RecyclerView ---
-        reviewList.addAll(new RestaurantFakeApi().getReviews()); // récupérer les reviews existantes
-        reviewAdapter = new ReviewAdapter(reviewList, requireContext());
+        reviewAdapter = new ReviewAdapter(requireContext(), metrics);
         recyclerViewReviews.setLayoutManager(new LinearLayoutManager(requireContext()));
         recyclerViewReviews.setAdapter(reviewAdapter);
+        // Charge la page des avis affichés quand ils sont chargés page par page
+        reviewAdapter.setOnReviewShownListener(reviewViewModel::loadReviewsAround);
+        // Précharge les avatars des lignes suivantes pendant le scroll
+        recyclerViewReviews.addOnScrollListener(reviewAdapter.createPreloader(AVATAR_PRELOAD_COUNT));
 
 
         // --- Gestion du bouton de validation ---
+        // La mesure couvre la vérification et l'enregistrement, jusqu'à onSubmitResult : elle
+        // n'est pas une section de trace, qui devrait se terminer dans le même appel
         btnSubmit.setOnClickListener(v -> {
-            String comment = etReview.getText().toString().trim();
-            int rate = (int) ratingBarInput.getRating();
+            submitStart = submitTime.start();
+            submitTimed = true;
+            submitReview();
+        });
 
-            // Vérifications simples
-            if (comment.isEmpty()) {
-                showAlert("Veuillez saisir un commentaire.");
-                return;
-            }
-            if (rate < 1 || rate > 5) {
-                showAlert("Veuillez choisir une note entre 1 et 5.");
-                return;
-            }
+        return view;
+    }
 
-            // Création d'une nouvelle review
-            Review newReview = new Review(currentUserName, currentUserPicture, comment, rate);
+    // Envoie la saisie : la vérification et l'enregistrement se font en arrière-plan,
+    // le résultat arrive dans onSubmitResult
+    private void submitReview() {
+        String comment = etReview.getText().toString();
+        int rate = (int) ratingBarInput.getRating();
 
-            // Ajout au début de la liste et mise à jour du RecyclerView
-            reviewList.add(0, newReview);
-            reviewAdapter.notifyItemInserted(0);
-            recyclerViewReviews.scrollToPosition(0);
+        // Pas de nouvel envoi tant que le résultat n'est pas arrivé
+        btnSubmit.setEnabled(false);
 
-            // Réinitialisation des champs de saisie
+        // L'avis sera ajouté au début de la liste partagée : le RecyclerView et les stats
+        // de l'écran de détails sont mis à jour par leurs observateurs
+        scrollToTopOnNextUpdate = true;
+        reviewViewModel.submitReview(currentUserName, currentUserPicture, comment, rate);
+    }
+
+    // Affiche le résultat d'un envoi
+    private void onSubmitResult(SubmitResult result) {
+        // Un résultat rendu après la recréation de la vue n'a pas de début mesuré
+        if (submitTimed) {
+            submitTime.stop(submitStart);
+            submitTimed = false;
+        }
+        btnSubmit.setEnabled(true);
+        reviewViewModel.onSubmitResultShown();
+
+        if (result.isSaved()) {
+            // Réinitialisation des champs de saisie, pour un nouvel avis avec un nouvel id
             etReview.setText("");
             ratingBarInput.setRating(0);
-        });
+            reviewViewModel.startNewDraft();
+            return;
+        }
+        scrollToTopOnNextUpdate = false;
+        if (result.getStatus() == SubmitResult.Status.FAILED) {
+            showAlert("L'avis n'a pas pu être enregistré, veuillez réessayer.");
+            return;
+        }
+
+        // Saisie refusée
+        rejectedSubmits.increment();
+        switch (result.getProblem()) {
+            case EMPTY_USERNAME:
+                showAlert("Veuillez renseigner votre nom.");
+                break;
+            case EMPTY_COMMENT:
+                showAlert("Veuillez saisir un commentaire.");
+                break;
+            case COMMENT_TOO_LONG:
+                showAlert("Votre commentaire ne doit pas dépasser " + SubmitReviewUseCase.MAX_COMMENT_LENGTH + " caractères.");
+                break;
+            case INVALID_RATE:
+                showAlert("Veuillez choisir une note entre 1 et 5.");
+                break;
+        }
+    }
 
-        return view;
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        // Chaque nouvel état de la liste partagée est comparé en arrière-plan à la liste affichée
+        reviewViewModel.getReviews().observe(getViewLifecycleOwner(), reviews ->
+                reviewAdapter.submitList(reviews, () -> {
+                    // Appelé une fois les changements appliqués au RecyclerView
+                    if (scrollToTopOnNextUpdate) {
+                        scrollToTopOnNextUpdate = false;
+                        recyclerViewReviews.scrollToPosition(0);
+                    }
+                }));
+
+        // Résultat des envois, null une fois affiché
+        reviewViewModel.getSubmitResult().observe(getViewLifecycleOwner(), result -> {
+            if (result != null) onSubmitResult(result);
+        });
     }
 
     // Affiche une alerte en bas de l'écran
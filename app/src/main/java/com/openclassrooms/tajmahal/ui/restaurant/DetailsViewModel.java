@@ -3,17 +3,19 @@ package com.openclassrooms.tajmahal.ui.restaurant;
 import android.content.Context;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
 import androidx.lifecycle.ViewModel;
 
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.repository.RestaurantFlows;
 import com.openclassrooms.tajmahal.data.repository.RestaurantRepository;
-import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.hours.OpeningHours;
+import com.openclassrooms.tajmahal.domain.model.Resource;
 import com.openclassrooms.tajmahal.domain.model.Restaurant;
-import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
 
-import java.util.Calendar;
-import java.util.List;
+import java.util.TimeZone;
 
 import javax.inject.Inject;
 
@@ -24,100 +26,89 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
  * It communicates with the {@link RestaurantRepository} to fetch restaurant details and provides
  * utility methods related to the restaurant UI.
  * <p>
- * Added functionality: calculates review stats (average, total, progress bar percentages) using MVVM.
+ * Added functionality: exposes review stats (average, total, progress bar percentages) using MVVM.
+ * The stats are maintained incrementally by the shared {@link ReviewStatsAggregator}.
+ * The restaurant and the stats come from the flows of {@link RestaurantFlows}, through their
+ * LiveData adapters.
  */
 @HiltViewModel
 public class DetailsViewModel extends ViewModel {
 
-    private final RestaurantRepository restaurantRepository;
+    // Clé de l'argument des fragments contenant l'id du restaurant affiché
+    public static final String ARG_RESTAURANT_ID = "restaurantId";
 
-    // LiveData pour les stats des reviews
-    private final MutableLiveData<ReviewStats> reviewStatsLiveData = new MutableLiveData<>();
+    // Nom des jours, du lundi (0) au dimanche (6), comme OpeningHours.dayOfWeek
+    private static final int[] DAY_NAMES = {
+            R.string.monday, R.string.tuesday, R.string.wednesday, R.string.thursday,
+            R.string.friday, R.string.saturday, R.string.sunday
+    };
+
+    // Restaurant affiché par l'écran
+    private final long restaurantId;
+
+    // Restaurant et stats, partagés avec les autres écrans du même restaurant.
+    // Créés une seule fois : ils survivent à la rotation de l'écran avec le ViewModel
+    private final LiveData<Resource<Restaurant>> restaurant;
+    private final LiveData<Resource<ReviewStats>> reviewStats;
 
     @Inject
-    public DetailsViewModel(RestaurantRepository restaurantRepository) {
-        this.restaurantRepository = restaurantRepository;
+    public DetailsViewModel(RestaurantFlows restaurantFlows, SavedStateHandle savedStateHandle) {
+        this.restaurantId = restaurantIdOf(savedStateHandle);
+        this.restaurant = restaurantFlows.restaurantLiveData(restaurantId);
+        this.reviewStats = restaurantFlows.reviewStatsLiveData(restaurantId);
     }
 
-    public LiveData<Restaurant> getTajMahalRestaurant() {
-        return restaurantRepository.getRestaurant();
+    /**
+     * Récupère l'id du restaurant passé en argument du fragment.
+     * Sans argument, on affiche le Taj Mahal comme avant.
+     */
+    static long restaurantIdOf(SavedStateHandle savedStateHandle) {
+        Long restaurantId = savedStateHandle.get(ARG_RESTAURANT_ID);
+        return restaurantId != null ? restaurantId : RestaurantRepository.DEFAULT_RESTAURANT_ID;
     }
 
-    public LiveData<ReviewStats> getReviewStats() {
-        return reviewStatsLiveData;
+    public long getRestaurantId() {
+        return restaurantId;
     }
 
     /**
-     * Calcule les stats des reviews (moyenne, total, pourcentage pour chaque barre)
-     * et les expose via LiveData.
+     * Charge le restaurant en arrière-plan.
+     * Le LiveData passe par l'état "loading" avant de contenir le restaurant ou l'erreur.
      */
-    public void loadReviews() {
-
-        RestaurantFakeApi api = new RestaurantFakeApi();
-        List<Review> reviews = api.getReviews();
-
-        // Moyenne
-        double average = 0.0;
-        int totalReviews = reviews.size();
-        int[] counts = new int[5];
-
-        if (!reviews.isEmpty()) {
-            int total = 0;
-            for (Review r : reviews) {
-                int rate = r.getRate();
-
-                //On vérifié qu'il n'ya pas de note 0 étoiles
-                // S'il y a une note on incrémente le counts - 1 ( si note 1 etoiles on incrémente counts[0] qui contiendra le nombre de notes 1 étoiles)
-                if (rate >= 1 && rate <= 5) counts[rate - 1]++;
-                total += rate;
-            }
-            average = (double) total / totalReviews;
-        }
-
-        // Progress bars
-        int[] percentages = new int[5];
-        for (int i = 0; i < 5; i++) {
-            percentages[i] = totalReviews == 0 ? 0 : counts[i] * 100 / totalReviews;
-        }
-
-        reviewStatsLiveData.setValue(new ReviewStats(average, totalReviews, percentages));
+    public LiveData<Resource<Restaurant>> getTajMahalRestaurant() {
+        return restaurant;
     }
 
     /**
-     * Classe interne représentant les stats des reviews.
+     * Expose les stats des reviews via LiveData.
+     * Les compteurs ne sont initialisés qu'une seule fois, en arrière-plan, à partir de la liste des reviews :
+     * ensuite chaque ajout passe par le {@link ReviewStatsAggregator} en O(1), sans rescanner la liste.
      */
-    public static class ReviewStats {
-        public final double average;
-        public final int totalReviews;
-        public final int[] percentages;
-
-        public ReviewStats(double average, int totalReviews, int[] percentages) {
-            this.average = average;
-            this.totalReviews = totalReviews;
-            this.percentages = percentages;
-        }
+    public LiveData<Resource<ReviewStats>> getReviewStats() {
+        return reviewStats;
     }
 
 
     /**
      * Récupère le jour courant en français.
+     * Simple calcul sur l'heure courante, sans créer de Calendar.
      */
     public String getCurrentDay(Context context) {
-        Calendar calendar = Calendar.getInstance();
-        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-        String dayString;
-
-        switch (dayOfWeek) {
-            case Calendar.MONDAY: dayString = context.getString(R.string.monday); break;
-            case Calendar.TUESDAY: dayString = context.getString(R.string.tuesday); break;
-            case Calendar.WEDNESDAY: dayString = context.getString(R.string.wednesday); break;
-            case Calendar.THURSDAY: dayString = context.getString(R.string.thursday); break;
-            case Calendar.FRIDAY: dayString = context.getString(R.string.friday); break;
-            case Calendar.SATURDAY: dayString = context.getString(R.string.saturday); break;
-            case Calendar.SUNDAY: dayString = context.getString(R.string.sunday); break;
-            default: dayString = "";
-        }
-        return dayString;
+        int dayOfWeek = OpeningHours.dayOfWeek(currentMinuteOfWeek());
+        return context.getString(DAY_NAMES[dayOfWeek]);
+    }
+
+    /**
+     * Indique si le restaurant est ouvert en ce moment.
+     * Les horaires sont analysés une seule fois, ensuite c'est une recherche dichotomique.
+     */
+    public boolean isOpenNow(Restaurant restaurant) {
+        return restaurant.getOpeningHours().isOpenAt(currentMinuteOfWeek());
+    }
+
+    // Minute de la semaine courante (lundi 0h00 = 0), dans le fuseau du téléphone
+    private static int currentMinuteOfWeek() {
+        return OpeningHours.minuteOfWeek(System.currentTimeMillis(), TimeZone.getDefault());
     }
 
 
@@ -1,9 +1,12 @@
 package com.openclassrooms.tajmahal.ui.restaurant;
 
 import android.content.Context;
-import android.graphics.Color;
 import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
 import android.graphics.drawable.LayerDrawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,58 +14,388 @@ import android.widget.RatingBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.core.content.res.ResourcesCompat;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.google.android.material.imageview.ShapeableImageView;
 import com.openclassrooms.tajmahal.R;
+import com.openclassrooms.tajmahal.data.repository.PagedReviewList;
+import com.openclassrooms.tajmahal.domain.model.Author;
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewList;
+import com.openclassrooms.tajmahal.metrics.Histogram;
+import com.openclassrooms.tajmahal.metrics.Metrics;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
-public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ReviewViewHolder> {
+/**
+ * Adapter de la liste des avis.
+ * Il reçoit des copies figées de la liste via {@link #submitList(List)} : la différence avec la
+ * liste affichée est calculée en arrière-plan, puis seuls les avis ajoutés, supprimés ou modifiés
+ * sont redessinés. Les identifiants stables permettent de garder la position de scroll.
+ * <p>
+ * Quand les avis sont chargés page par page ({@link PagedReviewList}), la liste n'est pas
+ * comparée : sa taille est connue dès le départ, et chaque page chargée ne redessine que ses
+ * lignes, signalées par les callbacks de la liste. Un avis dont la page n'est pas encore chargée
+ * est une ligne vide.
+ * </p>
+ * <p>
+ * Les avatars sont décodés à la taille exacte de leur vue, découpés en cercle, et ce cercle est
+ * gardé dans le cache disque de Glide : chaque avatar n'est téléchargé et décodé qu'une fois.
+ * L'adapter fournit aussi les avatars des prochaines lignes au préchargement de Glide, voir
+ * {@link #createPreloader(int)}.
+ * </p>
+ * <p>
+ * Les avatars sont identifiés par l'id de leur image dans l'{@link AuthorRegistry} du
+ * {@link com.openclassrooms.tajmahal.data.repository.ReviewStore}, qui internalise les auteurs
+ * de tous les avis de la liste : le modèle Glide de chaque image est créé une seule fois, et le
+ * cache mémoire de Glide compare des ids plutôt que des URL, voir {@link ReviewAvatar}.
+ * </p>
+ * <p>
+ * Les ids des lignes et les auteurs des avatars préchargés sont lus dans la {@link ReviewList}
+ * reçue, sans recréer les avis d'une {@link com.openclassrooms.tajmahal.domain.model.ColumnarReviewList} :
+ * seul l'affichage d'une ligne crée son avis.
+ * </p>
+ * <p>
+ * Chaque affichage d'une ligne est mesuré dans les {@link Metrics}, comme section de trace
+ * "review.bind".
+ * </p>
+ * <p>
+ * Chaque position affichée est signalée à l'{@link OnReviewShownListener}, qui charge sa page
+ * quand les avis sont chargés page par page.
+ * </p>
+ */
+public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ReviewViewHolder>
+        implements ListPreloader.PreloadModelProvider<Object> {
+
+    /**
+     * Prévenu de chaque position affichée, sur le thread principal.
+     */
+    public interface OnReviewShownListener {
+        void onReviewShown(int position);
+    }
+
+    // Deux avis sont le même élément s'ils ont le même identifiant,
+    // et leur contenu est identique si tous leurs champs sont égaux
+    private static final DiffUtil.ItemCallback<Review> DIFF_CALLBACK = new DiffUtil.ItemCallback<Review>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Review oldItem, @NonNull Review newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    // Photo de profil locale de l'utilisateur courant
+    private static final String LOCAL_PROFILE_PICTURE = "profile_picture";
+
+    // Base des identifiants stables des lignes vides, auxquels s'ajoute leur position
+    private static final long PLACEHOLDER_ID = Long.MIN_VALUE;
 
-    private final List<Review> reviews;
     private final Context context;
 
-    public ReviewAdapter(List<Review> reviews, Context context) {
-        this.reviews = reviews;
+    // Compare en arrière-plan les listes dont tous les avis sont en mémoire
+    private final AsyncListDiffer<Review> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Liste en mémoire affichée par le differ, telle que reçue quand c'est une ReviewList, null
+    // sinon : le differ n'en expose qu'une vue, qui recréerait chaque avis lu
+    @Nullable
+    private ReviewList shownReviews;
+
+    // Les pages arrivent sur l'exécuteur d'I/O, leurs lignes sont redessinées sur le thread principal
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Liste affichée quand ses avis sont chargés page par page, null sinon
+    @Nullable
+    private List<Review> pagedReviews;
+    // Avis chargés page par page de cette liste, et callback prévenu de leurs pages
+    @Nullable
+    private PagedReviewList pages;
+    @Nullable
+    private PagedReviewList.Callback pagesCallback;
+
+    // Couleurs des étoiles, résolues une seule fois pour tout l'adapter
+    private final int starEmptyColor;
+    private final int starFilledColor;
+
+    // Taille des avatars en pixels, celle de la ShapeableImageView
+    private final int avatarSize;
+
+    private final RequestManager glide;
+
+    // Requête Glide commune à tous les avatars, construite une seule fois.
+    // Le préchargement utilise la même, pour remplir exactement les entrées de cache lues à l'affichage
+    private final RequestBuilder<Drawable> avatarRequest;
+
+    // Modèle Glide de chaque avatar, par id d'image. Utilisé seulement sur le thread principal
+    private final SparseArray<Object> avatarModels = new SparseArray<>();
+
+    // Mesure du temps d'affichage des lignes, rien n'est mesuré si les métriques sont désactivées
+    private final Metrics metrics;
+    private final Histogram bindTime;
+
+    // Prévenu des positions affichées, pour charger leur page
+    @Nullable
+    private OnReviewShownListener onReviewShownListener;
+
+    public ReviewAdapter(Context context) {
+        this(context, Metrics.DISABLED);
+    }
+
+    public ReviewAdapter(Context context, Metrics metrics) {
         this.context = context;
+        this.metrics = metrics;
+        this.bindTime = metrics.histogram("review.bind");
+        this.starEmptyColor = ContextCompat.getColor(context, R.color.star_empty);
+        this.starFilledColor = ContextCompat.getColor(context, R.color.star_filled);
+        this.avatarSize = context.getResources().getDimensionPixelSize(R.dimen.review_avatar_size);
+        this.glide = Glide.with(context);
+        // Seul le cercle à la bonne taille est écrit sur le disque, jamais l'image d'origine
+        this.avatarRequest = glide.asDrawable()
+                .circleCrop()
+                .override(avatarSize)
+                .diskCacheStrategy(DiskCacheStrategy.RESOURCE);
+        setHasStableIds(true);
+    }
+
+    /**
+     * Définit l'écouteur prévenu de chaque position affichée.
+     *
+     * @param listener l'écouteur, ou null pour le retirer
+     */
+    public void setOnReviewShownListener(@Nullable OnReviewShownListener listener) {
+        this.onReviewShownListener = listener;
+    }
+
+    /**
+     * Affiche une nouvelle copie figée de la liste des avis.
+     *
+     * @param list la liste, ou null pour n'afficher aucun avis
+     */
+    public void submitList(@Nullable List<Review> list) {
+        submitList(list, null);
+    }
+
+    /**
+     * Affiche une nouvelle copie figée de la liste des avis. Une liste en mémoire est comparée
+     * en arrière-plan à la liste affichée ; une liste chargée page par page est affichée tout de
+     * suite.
+     *
+     * @param list           la liste, ou null pour n'afficher aucun avis
+     * @param commitCallback appelé une fois la liste appliquée au RecyclerView, ou null
+     */
+    public void submitList(@Nullable List<Review> list, @Nullable Runnable commitCallback) {
+        PagedReviewList paged = list == null ? null : PagedReviewList.find(list);
+        if (paged == null) {
+            if (pagedReviews != null) {
+                int removed = pagedReviews.size();
+                stopPaging();
+                notifyItemRangeRemoved(0, removed);
+            }
+            // Le differ appelle ce callback dès que la liste devient la sienne, avant que le
+            // RecyclerView ne la lise
+            differ.submitList(list, () -> {
+                shownReviews = list instanceof ReviewList ? (ReviewList) list : null;
+                if (commitCallback != null) commitCallback.run();
+            });
+            return;
+        }
+        if (pagedReviews == null) {
+            // La liste en mémoire est retirée sans comparaison, la liste paginée la remplace
+            differ.submitList(null);
+            shownReviews = null;
+            startPaging(list, paged);
+            notifyItemRangeInserted(0, list.size());
+        } else if (paged.isVersionOf(pages) && list.size() >= pagedReviews.size()) {
+            // Mêmes pages : les nouveaux avis sont en tête, les autres restent à leur place
+            int inserted = list.size() - pagedReviews.size();
+            pagedReviews = list;
+            pages = paged;
+            if (inserted > 0) notifyItemRangeInserted(0, inserted);
+            // Pour les avis modifiés : seules les lignes affichées sont redessinées
+            notifyItemRangeChanged(inserted, list.size() - inserted);
+        } else {
+            stopPaging();
+            startPaging(list, paged);
+            notifyDataSetChanged();
+        }
+        if (commitCallback != null) commitCallback.run();
+    }
+
+    @Override
+    public int getItemCount() {
+        return pagedReviews != null ? pagedReviews.size() : differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (pagedReviews == null && shownReviews != null) return shownReviews.idAt(position);
+        Review review = getItem(position);
+        return review != null ? review.getId() : PLACEHOLDER_ID + position;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        if (pages != null) pages.addCallback(pagesCallback);
+    }
+
+    // Les pages ne retiennent pas l'adapter d'un écran fermé
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        if (pages != null) pages.removeCallback(pagesCallback);
     }
 
     @NonNull
     @Override
     public ReviewViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).inflate(R.layout.item_review, parent, false);
-        return new ReviewViewHolder(view);
+        return new ReviewViewHolder(view, starEmptyColor, starFilledColor);
     }
 
+    /**
+     * Affiche un avis dans une ligne.
+     * Chemin critique pendant le scroll : aucune allocation en dehors du texte, et de l'avis
+     * recréé depuis une liste en colonnes.
+     * Les étoiles sont colorées une fois pour toutes à la création du ViewHolder,
+     * et l'avatar n'est rechargé que s'il change.
+     */
     @Override
     public void onBindViewHolder(@NonNull ReviewViewHolder holder, int position) {
-        Review review = reviews.get(position);
+        long start = metrics.beginSection(bindTime);
+        try {
+            bind(holder, getItem(position));
+            if (onReviewShownListener != null) onReviewShownListener.onReviewShown(position);
+        } finally {
+            metrics.endSection(bindTime, start);
+        }
+    }
 
+    private void bind(ReviewViewHolder holder, @Nullable Review review) {
+        if (review == null) {
+            // Page pas encore chargée : ligne vide, redessinée dès que la page arrive
+            holder.userName.setText(null);
+            holder.comment.setText(null);
+            holder.ratingBar.setRating(0);
+            glide.clear(holder.profileImage);
+            holder.boundAvatarId = AuthorRegistry.NO_AVATAR;
+            holder.boundPicture = null;
+            return;
+        }
         holder.userName.setText(review.getUsername());
         holder.comment.setText(review.getComment());
         holder.ratingBar.setRating(review.getRate());
 
-        // Couleur étoiles
-        LayerDrawable starsReview = (LayerDrawable) holder.ratingBar.getProgressDrawable().mutate();
-        starsReview.getDrawable(0).setColorFilter(Color.parseColor("#DADADA"), PorterDuff.Mode.SRC_IN);
-        starsReview.getDrawable(1).setColorFilter(Color.parseColor("#F3BB44"), PorterDuff.Mode.SRC_IN);
-        starsReview.getDrawable(2).setColorFilter(Color.parseColor("#F3BB44"), PorterDuff.Mode.SRC_IN);
-        holder.ratingBar.setProgressDrawable(starsReview);
+        // Image profil : rien à faire si la ligne affiche déjà cet avatar, il suffit de comparer les ids.
+        // Un auteur hors registre n'a pas d'id d'avatar : son image est comparée à la place
+        Author author = review.getAuthor();
+        int avatarId = author.getAvatarId();
+        String picture = author.getPicture();
+        if (avatarId == holder.boundAvatarId
+                && (avatarId != AuthorRegistry.NO_AVATAR || Objects.equals(picture, holder.boundPicture))) {
+            return;
+        }
+        holder.boundAvatarId = avatarId;
+        holder.boundPicture = avatarId == AuthorRegistry.NO_AVATAR ? picture : null;
+        avatarRequest.load(avatarModel(author)).into(holder.profileImage);
+    }
 
-        // Image profil
-        Glide.with(context)
-                .load(review.getPicture().equals("profile_picture") ? R.drawable.profile_picture : review.getPicture())
-                .circleCrop()
-                .into(holder.profileImage);
+    /**
+     * Crée le préchargeur à ajouter au RecyclerView comme écouteur de scroll : il charge en
+     * avance les avatars des lignes qui vont apparaître, à la taille de leur vue.
+     *
+     * @param maxPreload nombre de lignes préchargées devant la dernière ligne visible
+     * @return le préchargeur lié aux données de cet adapter
+     */
+    public RecyclerViewPreloader<Object> createPreloader(int maxPreload) {
+        return new RecyclerViewPreloader<>(Glide.with(context), this,
+                new FixedPreloadSizeProvider<>(avatarSize, avatarSize), maxPreload);
     }
 
+    // Avatar de la ligne à précharger, aucun si la liste a changé depuis
+    @NonNull
     @Override
-    public int getItemCount() {
-        return reviews.size();
+    public List<Object> getPreloadItems(int position) {
+        if (position >= getItemCount()) return Collections.emptyList();
+        Author author = getAuthor(position);
+        if (author == null) return Collections.emptyList();
+        Object model = avatarModel(author);
+        if (model == null) return Collections.emptyList();
+        return Collections.singletonList(model);
+    }
+
+    @Nullable
+    @Override
+    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Object model) {
+        return avatarRequest.clone().load(model);
+    }
+
+    // Avis affiché à une position, null si sa page n'est pas encore chargée
+    @Nullable
+    private Review getItem(int position) {
+        return pagedReviews != null ? pagedReviews.get(position) : differ.getCurrentList().get(position);
+    }
+
+    // Auteur de l'avis affiché à une position, lu sans recréer l'avis quand c'est possible,
+    // null si sa page n'est pas encore chargée
+    @Nullable
+    private Author getAuthor(int position) {
+        if (pagedReviews == null && shownReviews != null) return shownReviews.authorAt(position);
+        Review review = getItem(position);
+        return review != null ? review.getAuthor() : null;
+    }
+
+    // Affiche une liste chargée page par page, et redessine les lignes de chacune de ses pages
+    private void startPaging(List<Review> list, PagedReviewList paged) {
+        pagedReviews = list;
+        pages = paged;
+        pagesCallback = (position, count) -> mainHandler.post(() -> {
+            // Ignoré si la liste a changé de pages entre-temps
+            if (pages == null || !pages.isVersionOf(paged)) return;
+            notifyItemRangeChanged(pagedReviews.size() - pages.size() + position, count);
+        });
+        paged.addCallback(pagesCallback);
+    }
+
+    private void stopPaging() {
+        if (pages != null) pages.removeCallback(pagesCallback);
+        pagedReviews = null;
+        pages = null;
+        pagesCallback = null;
+    }
+
+    // Ressource locale pour l'utilisateur courant, avatar identifié par son id pour les autres.
+    // Aucun modèle si l'auteur n'a pas d'image. Un auteur hors registre, qui ne vient pas du
+    // ReviewStore, est chargé par son URL
+    @Nullable
+    private Object avatarModel(Author author) {
+        int avatarId = author.getAvatarId();
+        if (avatarId == AuthorRegistry.NO_AVATAR) {
+            String picture = author.getPicture();
+            if (picture == null) return null;
+            return LOCAL_PROFILE_PICTURE.equals(picture) ? (Object) R.drawable.profile_picture : picture;
+        }
+        Object model = avatarModels.get(avatarId);
+        if (model == null) {
+            String picture = author.getPicture();
+            model = LOCAL_PROFILE_PICTURE.equals(picture) ? (Object) R.drawable.profile_picture : new ReviewAvatar(avatarId, picture);
+            avatarModels.put(avatarId, model);
+        }
+        return model;
     }
 
     public static class ReviewViewHolder extends RecyclerView.ViewHolder {
@@ -72,12 +405,25 @@ public class ReviewAdapter extends RecyclerView.Adapter<ReviewAdapter.ReviewView
         TextView comment;
         RatingBar ratingBar;
 
-        public ReviewViewHolder(@NonNull View itemView) {
+        // Id de l'avatar actuellement affiché, pour éviter de le recharger
+        int boundAvatarId = AuthorRegistry.NO_AVATAR;
+        // Image actuellement affichée quand son auteur est hors registre, null sinon
+        @Nullable
+        String boundPicture;
+
+        public ReviewViewHolder(@NonNull View itemView, int starEmptyColor, int starFilledColor) {
             super(itemView);
             profileImage = itemView.findViewById(R.id.reviewProfileImage);
             userName = itemView.findViewById(R.id.reviewUserName);
             comment = itemView.findViewById(R.id.reviewComment);
             ratingBar = itemView.findViewById(R.id.reviewRatingBar);
+
+            // Couleur étoiles : une seule fois par ViewHolder
+            LayerDrawable starsReview = (LayerDrawable) ratingBar.getProgressDrawable().mutate();
+            starsReview.getDrawable(0).setColorFilter(starEmptyColor, PorterDuff.Mode.SRC_IN);
+            starsReview.getDrawable(1).setColorFilter(starFilledColor, PorterDuff.Mode.SRC_IN);
+            starsReview.getDrawable(2).setColorFilter(starFilledColor, PorterDuff.Mode.SRC_IN);
+            ratingBar.setProgressDrawable(starsReview);
         }
     }
 }
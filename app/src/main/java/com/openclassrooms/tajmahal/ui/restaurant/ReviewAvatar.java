@@ -0,0 +1,61 @@
+package com.openclassrooms.tajmahal.ui.restaurant;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.load.model.GlideUrl;
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+
+/**
+ * Glide model of the avatar of a reviewer, identified by its avatar id in the
+ * {@link AuthorRegistry} of the review store.
+ * <p>
+ * Glide keys its memory cache on the model: with the id as the model, finding a decoded avatar
+ * compares two ints instead of two URLs, and the URL is parsed once per avatar instead of once
+ * per bound row. The disk cache stays keyed on the URL through {@link ReviewAvatarLoader}, as
+ * the ids change from one process to the next.
+ * </p>
+ */
+public final class ReviewAvatar {
+
+    private final int avatarId;
+    private final GlideUrl url;
+
+    /**
+     * Constructs the model of an avatar.
+     *
+     * @param avatarId the id of the picture in the registry of the review store
+     * @param url      the URL of the picture
+     */
+    public ReviewAvatar(int avatarId, @NonNull String url) {
+        this.avatarId = avatarId;
+        this.url = new GlideUrl(url);
+    }
+
+    public int getAvatarId() {
+        return avatarId;
+    }
+
+    @NonNull
+    public GlideUrl getUrl() {
+        return url;
+    }
+
+    // Un même id désigne toujours la même image dans le processus
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return avatarId == ((ReviewAvatar) o).avatarId;
+    }
+
+    @Override
+    public int hashCode() {
+        return avatarId;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return "ReviewAvatar{" + avatarId + "}";
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.tajmahal.ui.restaurant;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+
+import java.io.InputStream;
+
+/**
+ * Loads a {@link ReviewAvatar} by delegating to the loader of its {@link GlideUrl}.
+ * <p>
+ * The data and the disk cache key come from the URL loader, so the avatars cached on disk
+ * survive a restart of the process even though their ids do not. Registered by
+ * {@link com.openclassrooms.tajmahal.TajMahalGlideModule}.
+ * </p>
+ */
+public final class ReviewAvatarLoader implements ModelLoader<ReviewAvatar, InputStream> {
+
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+
+    ReviewAvatarLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        this.urlLoader = urlLoader;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull ReviewAvatar avatar, int width, int height, @NonNull Options options) {
+        return urlLoader.buildLoadData(avatar.getUrl(), width, height, options);
+    }
+
+    @Override
+    public boolean handles(@NonNull ReviewAvatar avatar) {
+        return true;
+    }
+
+    /** Builds the loader over the URL loader registered in Glide. */
+    public static final class Factory implements ModelLoaderFactory<ReviewAvatar, InputStream> {
+
+        @NonNull
+        @Override
+        public ModelLoader<ReviewAvatar, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new ReviewAvatarLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
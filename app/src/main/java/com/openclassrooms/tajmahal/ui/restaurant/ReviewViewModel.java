@@ -2,12 +2,15 @@ package com.openclassrooms.tajmahal.ui.restaurant;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.SavedStateHandle;
 import androidx.lifecycle.ViewModel;
 
-import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.data.repository.RestaurantFlows;
 import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.review.ReviewDraft;
+import com.openclassrooms.tajmahal.domain.review.SubmitResult;
+import com.openclassrooms.tajmahal.domain.review.SubmitReviewUseCase;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -17,55 +20,97 @@ import dagger.hilt.android.lifecycle.HiltViewModel;
 @HiltViewModel
 public class ReviewViewModel extends ViewModel {
 
-    // LiveData qui contient la liste des avis affichés dans l’interface
-    private final MutableLiveData<List<Review>> reviewsLiveData = new MutableLiveData<>();
+    // Liste d’avis partagée entre tous les écrans, issue du flow du repository
+    private final LiveData<List<Review>> reviews;
 
-    // Notre fake API qui fournit les avis
-    private final RestaurantFakeApi fakeApi;
+    // Flows du repository, aussi utilisés pour charger les pages d’avis affichées
+    private final RestaurantFlows restaurantFlows;
 
-    // Constructeur : on initialise l’API et on charge les avis existants
+    // Vérifie et enregistre les avis en arrière-plan
+    private final SubmitReviewUseCase submitReviewUseCase;
+
+    // Restaurant dont on affiche les avis
+    private final long restaurantId;
+
+    // Dernier brouillon envoyé : son id reste le même tant que la saisie ne change pas, pour
+    // qu'un double appui ou un nouvel essai ne crée jamais deux avis.
+    // Lu et modifié sur le thread principal uniquement
+    private ReviewDraft draft;
+
+    // Résultat du dernier envoi, remis à null une fois affiché
+    private final MutableLiveData<SubmitResult> submitResult = new MutableLiveData<>();
+
+    // Constructeur : on récupère les flows et le cas d'utilisation injectés par Hilt,
+    // et l'id du restaurant depuis les arguments du fragment
     @Inject
-    public ReviewViewModel() {
-        this.fakeApi = new RestaurantFakeApi();
-        loadReviews();
+    public ReviewViewModel(RestaurantFlows restaurantFlows, SubmitReviewUseCase submitReviewUseCase,
+                           SavedStateHandle savedStateHandle) {
+        this.restaurantFlows = restaurantFlows;
+        this.submitReviewUseCase = submitReviewUseCase;
+        this.restaurantId = DetailsViewModel.restaurantIdOf(savedStateHandle);
+        this.reviews = restaurantFlows.reviewsLiveData(restaurantId);
     }
 
     /**
      * Permet à l’UI (fragment/activité) d’accéder à la liste des avis.
      * L’UI va observer ce LiveData et sera automatiquement mise à jour
      * quand son contenu change.
+     * → Chaque valeur est une copie figée de la liste : on ne la modifie jamais,
+     *   on attend la suivante.
      */
     public LiveData<List<Review>> getReviews() {
-        return reviewsLiveData;
+        return reviews;
     }
 
     /**
-     * Charge les avis depuis la Fake API et met à jour le LiveData.
-     * → Ici on simule un appel réseau, mais on récupère simplement
-     *   une liste prédéfinie dans RestaurantFakeApi.
+     * À appeler quand un avis est affiché à une position de la liste.
+     * → Quand le restaurant a trop d’avis pour les garder tous en mémoire, ils sont chargés
+     *   page par page : la page de cette position est demandée en arrière-plan, puis ses
+     *   avis remplacent les emplacements vides de la liste déjà publiée, sans nouvelle liste.
+     * → Sinon, il n’y a rien à faire.
      */
-    public void loadReviews() {
-        List<Review> reviews = fakeApi.getReviews();
-        reviewsLiveData.setValue(reviews);
+    public void loadReviewsAround(int position) {
+        restaurantFlows.loadReviewsAround(restaurantId, position);
     }
 
     /**
-     * Ajoute un nouvel avis à la liste et notifie les observateurs.
-     * → On insère l’avis au début de la liste (index 0)
-     *   pour qu’il apparaisse en premier dans le RecyclerView.
+     * Envoie l'avis saisi, sans bloquer le thread principal.
+     * → La vérification du texte et de la note, l’enregistrement et la mise à jour
+     *   des stats se font en arrière-plan, dans le {@link SubmitReviewUseCase}.
+     * → Une fois enregistré, l’avis est ajouté en tête de la liste partagée, pour qu’il
+     *   apparaisse en premier dans le RecyclerView, et les stats de l’écran de détails
+     *   sont mises à jour en même temps.
+     * → Tant que la saisie ne change pas, chaque envoi garde le même id :
+     *   un double appui ou un nouvel essai ne crée pas de doublon. Une saisie différente,
+     *   ou le formulaire remis à zéro avec {@link #startNewDraft()}, donne un nouvel id.
+     * → Le résultat arrive dans {@link #getSubmitResult()}.
      */
-    public void addReview(Review review) {
-        List<Review> currentReviews = reviewsLiveData.getValue();
+    public void submitReview(String username, String picture, String comment, int rate) {
+        // L'id est choisi ici, sur le thread principal, avant tout travail en arrière-plan
+        draft = ReviewDraft.of(draft, username, picture, comment, rate);
+        submitReviewUseCase.submit(restaurantId, draft).thenAccept(submitResult::postValue);
+    }
 
-        // Si la liste est vide, on crée une nouvelle liste
-        if (currentReviews == null) {
-            currentReviews = new ArrayList<>();
-        }
+    /**
+     * À appeler quand le formulaire est remis à zéro après un enregistrement :
+     * le prochain avis aura un nouvel id, même s’il reprend le même texte et la même note.
+     */
+    public void startNewDraft() {
+        draft = null;
+    }
 
-        // Ajout en première position
-        currentReviews.add(0, review);
+    /**
+     * Résultat du dernier envoi d’avis, null quand il n’y a rien à afficher.
+     */
+    public LiveData<SubmitResult> getSubmitResult() {
+        return submitResult;
+    }
 
-        // Mise à jour du LiveData (ce qui déclenche la mise à jour de l’UI)
-        reviewsLiveData.setValue(currentReviews);
+    /**
+     * À appeler une fois le résultat affiché, pour ne pas l’afficher de nouveau
+     * quand l’écran est recréé.
+     */
+    public void onSubmitResultShown() {
+        submitResult.setValue(null);
     }
 }
@@ -0,0 +1,78 @@
+package com.openclassrooms.tajmahal.data.executor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class IoExecutorsTest {
+
+    @Test
+    public void boundedPool_capsThreads() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService executor = IoExecutors.create(IoExecutors.Mode.BOUNDED_POOL, 2, runnable -> new Thread(runnable, "io"));
+        try {
+            List<Future<String>> names = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                names.add(executor.submit(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    inFlight.decrementAndGet();
+                    return Thread.currentThread().getName();
+                }));
+            }
+            for (Future<String> name : names) {
+                assertEquals("io", name.get(5, TimeUnit.SECONDS));
+            }
+            //Les tâches en trop attendent leur tour dans la file
+            assertEquals(2, maxInFlight.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void virtualThreadPerTask_runsAllTasksAtOnce() throws Exception {
+        //Avant Java 21, le mode revient au pool borné
+        if (!IoExecutors.isVirtualThreadAvailable()) {
+            ExecutorService executor = IoExecutors.create(IoExecutors.Mode.VIRTUAL_THREAD_PER_TASK, 1,
+                    runnable -> new Thread(runnable, "io"));
+            try {
+                assertEquals("io", executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS));
+            } finally {
+                executor.shutdownNow();
+            }
+            return;
+        }
+
+        //Chaque tâche attend que toutes les autres aient démarré : impossible sur un pool de 1 thread
+        int taskCount = 1_000;
+        CountDownLatch started = new CountDownLatch(taskCount);
+        CountDownLatch done = new CountDownLatch(taskCount);
+        ExecutorService executor = IoExecutors.create(IoExecutors.Mode.VIRTUAL_THREAD_PER_TASK, 1,
+                runnable -> new Thread(runnable, "io"));
+        try {
+            for (int i = 0; i < taskCount; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        if (started.await(5, TimeUnit.SECONDS)) done.countDown();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
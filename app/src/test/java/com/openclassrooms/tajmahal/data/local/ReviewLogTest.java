@@ -0,0 +1,219 @@
+package com.openclassrooms.tajmahal.data.local;
+
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReviewLogTest {
+
+    private static final long RESTAURANT_ID = 1;
+
+    private File file;
+    private ReviewLog log;
+
+    @Before
+    public void setup() throws IOException {
+        file = new File(Files.createTempDirectory("review-log").toFile(), "reviews.log");
+        log = new ReviewLog(file);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        log.close();
+    }
+
+    @Test
+    public void replay_restoresReviewsNewestFirst() throws IOException {
+        Review first = new Review(1, "A", "pic", "Délicieux !", 5, 1_700_000_000_000L);
+        Review second = new Review(2, "B", null, null, 3);
+        log.append(RESTAURANT_ID, first);
+        log.append(RESTAURANT_ID, second);
+        log.append(2, new Review(3, "C", "pic", "Autre restaurant", 4));
+        log.close();
+
+        Map<Long, ColumnarReviewList> reviews = new ReviewLog(file).replay(new AuthorRegistry());
+
+        assertEquals(Arrays.asList(second, first), reviews.get(RESTAURANT_ID));
+        assertEquals(1, reviews.get(2L).size());
+    }
+
+    @Test
+    public void replay_foldsEditsAndDeletes() throws IOException {
+        log.append(RESTAURANT_ID, new Review(1, "A", "pic", "Avis", 2));
+        log.append(RESTAURANT_ID, new Review(2, "B", "pic", "Supprimé", 4));
+        Review edited = new Review(1, "A", "pic", "Avis modifié", 5);
+        log.append(RESTAURANT_ID, edited);
+        log.appendDelete(RESTAURANT_ID, 2);
+        log.close();
+
+        Map<Long, ColumnarReviewList> reviews = new ReviewLog(file).replay(new AuthorRegistry());
+
+        assertEquals(Arrays.asList(edited), reviews.get(RESTAURANT_ID));
+    }
+
+    @Test
+    public void replay_dropsTornRecord() throws IOException {
+        Review kept = new Review(1, "A", "pic", "Avis conservé", 5);
+        log.append(RESTAURANT_ID, kept);
+        long validLength = log.length();
+        log.append(RESTAURANT_ID, new Review(2, "B", "pic", "Avis interrompu", 4));
+        log.close();
+        //Le processus meurt au milieu de l'écriture du second avis
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        log = new ReviewLog(file);
+        Map<Long, ColumnarReviewList> reviews = log.replay(new AuthorRegistry());
+
+        assertEquals(Arrays.asList(kept), reviews.get(RESTAURANT_ID));
+        assertEquals(validLength, log.length());
+        //Le journal reste utilisable après la réparation
+        Review next = new Review(3, "C", "pic", "Nouvel avis", 3);
+        log.append(RESTAURANT_ID, next);
+        log.close();
+        assertEquals(Arrays.asList(next, kept), new ReviewLog(file).replay(new AuthorRegistry()).get(RESTAURANT_ID));
+    }
+
+    @Test
+    public void replay_dropsCorruptedRecord() throws IOException {
+        log.append(RESTAURANT_ID, new Review(1, "A", "pic", "Avis", 5));
+        log.close();
+        //Un octet du commentaire est altéré : la somme de contrôle ne correspond plus
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 6);
+            raf.write('x');
+        }
+
+        Map<Long, ColumnarReviewList> reviews = new ReviewLog(file).replay(new AuthorRegistry());
+
+        assertTrue(reviews.isEmpty());
+    }
+
+    @Test
+    public void replay_skipsCorruptedRecordInTheMiddle() throws IOException {
+        Review first = new Review(1, "A", "pic", "Premier avis", 5);
+        Review third = new Review(3, "C", "pic", "Troisième avis", 3);
+        log.append(RESTAURANT_ID, first);
+        log.append(RESTAURANT_ID, new Review(2, "B", "pic", "Avis altéré", 4));
+        long secondEnd = log.length();
+        log.append(RESTAURANT_ID, third);
+        long length = log.length();
+        log.close();
+        //Un octet du commentaire du deuxième avis est altéré, pas la fin du fichier
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(secondEnd - 6);
+            raf.write('x');
+        }
+
+        log = new ReviewLog(file);
+        Map<Long, ColumnarReviewList> reviews = log.replay(new AuthorRegistry());
+
+        //Seul l'avis altéré est perdu, le fichier n'est pas tronqué
+        assertEquals(Arrays.asList(third, first), reviews.get(RESTAURANT_ID));
+        assertEquals(length, log.length());
+    }
+
+    @Test
+    public void replay_skipsRecordWithCorruptedLength() throws IOException {
+        Review first = new Review(1, "A", "pic", "Premier avis", 5);
+        Review third = new Review(3, "C", "pic", "Troisième avis", 3);
+        log.append(RESTAURANT_ID, first);
+        long secondStart = log.length();
+        log.append(RESTAURANT_ID, new Review(2, "B", "pic", "Avis altéré", 4));
+        log.append(RESTAURANT_ID, third);
+        log.close();
+        //La longueur du deuxième avis est altérée : l'avis suivant est retrouvé octet par octet
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(secondStart);
+            raf.writeInt(0x7FFFFFFF);
+        }
+
+        Map<Long, ColumnarReviewList> reviews = new ReviewLog(file).replay(new AuthorRegistry());
+
+        assertEquals(Arrays.asList(third, first), reviews.get(RESTAURANT_ID));
+    }
+
+    @Test
+    public void replay_refusesOtherVersion() throws IOException {
+        log.append(RESTAURANT_ID, new Review(1, "A", "pic", "Avis", 5));
+        log.close();
+        //Un fichier écrit par une autre version de l'application
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(ReviewLog.FORMAT_VERSION + 1);
+        }
+        byte[] written = Files.readAllBytes(file.toPath());
+
+        log = new ReviewLog(file);
+        try {
+            log.replay(new AuthorRegistry());
+            fail();
+        } catch (IOException expected) {
+            //Le fichier est laissé intact
+        }
+        assertArrayEquals(written, Files.readAllBytes(file.toPath()));
+        try {
+            log.append(RESTAURANT_ID, new Review(2, "B", "pic", "Refusé", 4));
+            fail();
+        } catch (IOException expected) {
+            assertArrayEquals(written, Files.readAllBytes(file.toPath()));
+        }
+    }
+
+    @Test
+    public void append_compactsDeadRecords() throws IOException {
+        char[] filler = new char[1000];
+        Arrays.fill(filler, 'x');
+        Review last = null;
+        for (int i = 0; i < 200; i++) {
+            last = new Review(1, "A", "pic", new String(filler) + i, 1 + i % 5);
+            log.append(RESTAURANT_ID, last);
+        }
+
+        //200 versions du même avis : le journal a été compacté en cours de route
+        assertTrue(log.length() < ReviewLog.COMPACTION_MIN_BYTES + 2000);
+        log.close();
+        assertEquals(Arrays.asList(last), new ReviewLog(file).replay(new AuthorRegistry()).get(RESTAURANT_ID));
+    }
+
+    @Test
+    public void pendingUploads_untilMarked() throws IOException {
+        Review uploaded = new Review(1, "A", "pic", "Envoyé", 5, 1_700_000_000_000L);
+        Review pending = new Review(2, "B", "pic", "En attente", 4, 1_700_000_000_000L);
+        log.append(RESTAURANT_ID, uploaded);
+        log.append(RESTAURANT_ID, pending);
+        log.append(2, new Review(3, "C", "pic", "Autre restaurant", 3));
+        assertEquals(Arrays.asList(uploaded, pending), log.pendingUploads(RESTAURANT_ID));
+
+        log.markUploaded(RESTAURANT_ID, uploaded);
+        //Un avis modifié après sa lecture reste à envoyer
+        Review edited = new Review(2, "B", "pic", "Modifié", 2, 1_700_000_000_000L);
+        log.append(RESTAURANT_ID, edited);
+        log.markUploaded(RESTAURANT_ID, pending);
+
+        assertEquals(Arrays.asList(edited), log.pendingUploads(RESTAURANT_ID));
+        assertTrue(log.contains(1));
+        assertFalse(log.contains(4));
+
+        //Les marques survivent au redémarrage et au compactage
+        log.close();
+        log = new ReviewLog(file);
+        log.compact();
+        assertEquals(Arrays.asList(edited), log.pendingUploads(RESTAURANT_ID));
+        assertEquals(2, log.replay(new AuthorRegistry()).get(RESTAURANT_ID).size());
+    }
+}
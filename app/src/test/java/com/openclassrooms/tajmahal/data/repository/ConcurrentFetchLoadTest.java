@@ -0,0 +1,165 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.data.executor.IoExecutors;
+import com.openclassrooms.tajmahal.data.local.DiskCache;
+import com.openclassrooms.tajmahal.data.local.ReviewLog;
+import com.openclassrooms.tajmahal.data.local.SyncCursors;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewChanges;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.metrics.Metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Load test of the I/O executor modes: the reviews of {@value #FETCHES} restaurants are loaded
+ * at once through the {@link RestaurantRepository}, from an API answering each call after a
+ * simulated network latency, and the time to load them all is printed per restaurant.
+ * <p>
+ * The repository runs the loads on the executor built for its mode, as the app's DI does. The
+ * bounded pool has the {@value #POOL_THREADS} threads of the app, so at most that many calls
+ * wait on the network at a time. With a virtual thread per task, all the loads wait at once.
+ * The highest number of calls in flight is printed with the time.
+ * </p>
+ * Takes a few minutes, so it only runs with {@code ./gradlew :app:testDebugUnitTest -PloadTests}.
+ * Virtual threads need Gradle to run on Java 21: on an older JVM, both modes run the bounded pool.
+ */
+public class ConcurrentFetchLoadTest {
+
+    /** The number of restaurants whose reviews are loaded at once. */
+    private static final int FETCHES = 10_000;
+
+    /** The number of threads of the bounded pool, as in the app. */
+    private static final int POOL_THREADS = 4;
+
+    private static final int LATENCY_MILLIS = 10;
+    private static final int REVIEWS_PER_RESTAURANT = 20;
+
+    private File cacheDir;
+    private File logFile;
+    private ScheduledExecutorService batchScheduler;
+
+    @Before
+    public void setup() throws IOException {
+        cacheDir = Files.createTempDirectory("restaurant-cache").toFile();
+        logFile = new File(Files.createTempDirectory("restaurant-files").toFile(), "reviews.log");
+        batchScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        batchScheduler.shutdownNow();
+    }
+
+    @Test
+    public void boundedPool_keepsCallsInFlightToItsThreads() throws Exception {
+        SlowApi api = loadAll(IoExecutors.Mode.BOUNDED_POOL);
+
+        //Jamais plus d'appels en attente que de threads du pool
+        assertTrue(api.maxInFlight.get() <= POOL_THREADS);
+    }
+
+    @Test
+    public void virtualThreadPerTask_waitsForAllCallsAtOnce() throws Exception {
+        SlowApi api = loadAll(IoExecutors.Mode.VIRTUAL_THREAD_PER_TASK);
+
+        //Avec les threads virtuels, les appels attendent le réseau bien plus nombreux que les threads du pool
+        if (IoExecutors.isVirtualThreadAvailable()) {
+            assertTrue(api.maxInFlight.get() > POOL_THREADS);
+        }
+    }
+
+    // Charge les avis de tous les restaurants en même temps, et renvoie l'API qui a compté les appels
+    private SlowApi loadAll(IoExecutors.Mode mode) throws Exception {
+        SlowApi api = new SlowApi();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService ioExecutor = IoExecutors.create(mode, POOL_THREADS,
+                runnable -> new Thread(runnable, "io-" + threadNumber.incrementAndGet()));
+        ReviewStore store = new ReviewStore();
+        RestaurantRepository repository = new RestaurantRepository(api, ioExecutor,
+                new DiskCache(cacheDir, 64 * 1024 * 1024, System::currentTimeMillis), store,
+                new ReviewBatcher(store, batchScheduler, 100, 200), new ReviewLog(logFile),
+                new SyncCursors(new File(logFile.getParentFile(), "sync-cursors")), restaurantId -> {
+        }, Metrics.DISABLED);
+
+        CountDownLatch loaded = new CountDownLatch(FETCHES);
+        List<Closeable> observers = new ArrayList<>(FETCHES);
+        long start = System.nanoTime();
+        try {
+            for (long restaurantId = 1; restaurantId <= FETCHES; restaurantId++) {
+                AtomicBoolean counted = new AtomicBoolean();
+                observers.add(repository.observeReviews(restaurantId, snapshot -> {
+                    if (!snapshot.isEmpty() && counted.compareAndSet(false, true)) loaded.countDown();
+                }));
+            }
+            assertTrue("Reviews still loading: " + loaded.getCount(), loaded.await(5, TimeUnit.MINUTES));
+        } finally {
+            for (Closeable observer : observers) observer.close();
+            ioExecutor.shutdownNow();
+        }
+        long elapsedMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+        System.out.printf("%s: %d us per restaurant, at most %d calls in flight (virtual threads available: %b)%n",
+                mode, elapsedMicros / FETCHES, api.maxInFlight.get(), IoExecutors.isVirtualThreadAvailable());
+        return api;
+    }
+
+    // L'API d'une chaîne de restaurants, chaque appel bloquant le temps d'un aller-retour réseau
+    private static final class SlowApi extends RestaurantFakeApi {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        SlowApi() {
+            super(FETCHES, REVIEWS_PER_RESTAURANT);
+        }
+
+        @Override
+        public ReviewChanges getReviewChanges(long restaurantId, long since, int limit) {
+            waitForNetwork();
+            return super.getReviewChanges(restaurantId, since, limit);
+        }
+
+        @Override
+        public ReviewPage getReviews(long restaurantId, int cursor, int pageSize) {
+            waitForNetwork();
+            return super.getReviews(restaurantId, cursor, pageSize);
+        }
+
+        @Override
+        public List<Review> getReviews(long restaurantId) {
+            waitForNetwork();
+            return super.getReviews(restaurantId);
+        }
+
+        private void waitForNetwork() {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
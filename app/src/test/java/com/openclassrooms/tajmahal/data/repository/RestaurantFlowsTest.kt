@@ -0,0 +1,151 @@
+package com.openclassrooms.tajmahal.data.repository
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import com.openclassrooms.tajmahal.data.local.DiskCache
+import com.openclassrooms.tajmahal.data.local.ReviewLog
+import com.openclassrooms.tajmahal.data.local.SyncCursors
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi
+import com.openclassrooms.tajmahal.domain.model.Resource
+import com.openclassrooms.tajmahal.domain.model.Review
+import com.openclassrooms.tajmahal.domain.model.ReviewStats
+import com.openclassrooms.tajmahal.metrics.Metrics
+import com.openclassrooms.tajmahal.metrics.Tracer
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.filterNotNull
+import kotlinx.coroutines.flow.first
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withTimeout
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.util.Collections
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.ScheduledExecutorService
+
+class RestaurantFlowsTest {
+
+    // Exécute les postValue des LiveData immédiatement, sans thread principal Android
+    @get:Rule
+    val instantTaskExecutorRule = InstantTaskExecutorRule()
+
+    private lateinit var batchScheduler: ScheduledExecutorService
+    private lateinit var scope: CoroutineScope
+    private lateinit var store: ReviewStore
+    private lateinit var metrics: Metrics
+    private lateinit var repository: RestaurantRepository
+    private lateinit var flows: RestaurantFlows
+
+    @Before
+    fun setup() {
+        batchScheduler = Executors.newSingleThreadScheduledExecutor()
+        scope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+        metrics = Metrics(true, Tracer.NONE)
+        newFlows(RestaurantFakeApi())
+    }
+
+    @After
+    fun tearDown() {
+        scope.cancel()
+        batchScheduler.shutdownNow()
+    }
+
+    @Test
+    fun restaurant_endsWithRestaurant() = runBlocking {
+        val states = withTimeout(TIMEOUT_MS) { flows.restaurant(TAJ_MAHAL_ID).toList() }
+
+        assertTrue(states.last().isSuccess)
+        assertEquals("Taj Mahal", states.last().data.name)
+    }
+
+    @Test
+    fun sharedRestaurant_loadsOnceForAllCollectors() = runBlocking {
+        val shared = flows.sharedRestaurant(TAJ_MAHAL_ID)
+
+        //Deux écrans observent le même restaurant, l'un après l'autre
+        val first = withTimeout(TIMEOUT_MS) { shared.first { it.isSuccess } }
+        val second = withTimeout(TIMEOUT_MS) { flows.sharedRestaurant(TAJ_MAHAL_ID).first { it.isSuccess } }
+
+        assertEquals(first.data, second.data)
+        assertEquals(1, metrics.histogram("restaurant.load").snapshot().count)
+    }
+
+    @Test
+    fun sharedReviews_collectorsSeeAddedReview() = runBlocking {
+        val shared = flows.sharedReviews(TAJ_MAHAL_ID)
+        val initial = withTimeout(TIMEOUT_MS) { shared.filterNotNull().first() }.size
+
+        //Les deux collecteurs voient le nouvel avis
+        val collectors = List(2) {
+            scope.async { shared.filterNotNull().first { it.size == initial + 1 } }
+        }
+        val review = Review(1000, "Manon Garcia", "profile_picture", "Très bon", 5)
+        store.addReview(TAJ_MAHAL_ID, review)
+
+        withTimeout(TIMEOUT_MS) {
+            for (collector in collectors) assertEquals(review, collector.await()[0])
+        }
+    }
+
+    @Test
+    fun reviewStats_debouncesBurst() = runBlocking {
+        val emitted = Collections.synchronizedList(ArrayList<Resource<ReviewStats>>())
+        val collector = scope.launch { flows.reviewStats(TAJ_MAHAL_ID).collect { emitted.add(it) } }
+        withTimeout(TIMEOUT_MS) { while (emitted.isEmpty()) delay(5) }
+        val initial = emitted[0].data.totalReviews
+
+        //Une rafale de 50 avis, comme une synchronisation qui applique ses lots
+        for (i in 0 until 50) {
+            store.addReview(TAJ_MAHAL_ID, Review(1000L + i, "Manon Garcia", "profile_picture", "Avis $i", 4))
+        }
+        withTimeout(TIMEOUT_MS) {
+            while (emitted.last().data.totalReviews != initial + 50) delay(5)
+        }
+        collector.cancel()
+
+        //La rafale n'arrive qu'une fois, ou presque
+        assertTrue("${emitted.size} émissions", emitted.size <= 3)
+    }
+
+    @Test
+    fun reviewStats_emitsErrorAtOnce() = runBlocking {
+        newFlows(object : RestaurantFakeApi() {
+            override fun getReviews(restaurantId: Long): List<Review> =
+                throw IllegalStateException("network down")
+        })
+
+        val stats = withTimeout(TIMEOUT_MS) { flows.reviewStats(TAJ_MAHAL_ID).first() }
+
+        assertTrue(stats.isError)
+        assertEquals("network down", stats.error.message)
+    }
+
+    private fun newFlows(api: RestaurantFakeApi) {
+        val cacheDir = Files.createTempDirectory("restaurant-cache").toFile()
+        val logFile = File(Files.createTempDirectory("restaurant-files").toFile(), "reviews.log")
+        // Les chargements s'exécutent sur le thread du collecteur
+        val ioExecutor = Executor { it.run() }
+        store = ReviewStore()
+        val batcher = ReviewBatcher(store, batchScheduler, 100, 200)
+        repository = RestaurantRepository(api, ioExecutor, DiskCache(cacheDir, 1024 * 1024) { 1_000L }, store,
+            batcher, ReviewLog(logFile), SyncCursors(File(logFile.parentFile, "sync-cursors")), {}, metrics)
+        flows = RestaurantFlows(repository, scope, Dispatchers.IO)
+    }
+
+    private companion object {
+        const val TAJ_MAHAL_ID = RestaurantFakeApi.TAJ_MAHAL_ID
+        const val TIMEOUT_MS = 5_000L
+    }
+}
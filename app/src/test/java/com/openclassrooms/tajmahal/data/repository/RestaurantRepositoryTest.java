@@ -0,0 +1,515 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+import androidx.lifecycle.LiveData;
+
+import com.openclassrooms.tajmahal.data.local.CacheCodecs;
+import com.openclassrooms.tajmahal.data.local.DiskCache;
+import com.openclassrooms.tajmahal.data.local.ReviewLog;
+import com.openclassrooms.tajmahal.data.local.SyncCursors;
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.catalog.RestaurantCatalog;
+import com.openclassrooms.tajmahal.domain.model.Resource;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewChanges;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.model.SyncState;
+import com.openclassrooms.tajmahal.metrics.Metrics;
+import com.openclassrooms.tajmahal.metrics.Tracer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class RestaurantRepositoryTest {
+
+    private static final long TAJ_MAHAL_ID = RestaurantFakeApi.TAJ_MAHAL_ID;
+
+    // Exécute les postValue des LiveData immédiatement, sans thread principal Android
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    // Exécuteur déterministe : les tâches ne s'exécutent que quand le test le décide
+    private QueueExecutor ioExecutor;
+    private DiskCache diskCache;
+    private File logFile;
+    private ScheduledExecutorService batchScheduler;
+    private ReviewBatcher batcher;
+    private RestaurantRepository repository;
+
+    // Restaurants dont une synchronisation a été demandée
+    private final List<Long> syncRequests = new ArrayList<>();
+
+    // Horloge contrôlée par le test pour faire expirer le cache
+    private long now = 1_000L;
+
+    @Before
+    public void setup() throws IOException {
+        ioExecutor = new QueueExecutor();
+        batchScheduler = Executors.newSingleThreadScheduledExecutor();
+        File cacheDir = Files.createTempDirectory("restaurant-cache").toFile();
+        diskCache = new DiskCache(cacheDir, 1024 * 1024, () -> now);
+        logFile = new File(Files.createTempDirectory("restaurant-files").toFile(), "reviews.log");
+        repository = newRepository(new RestaurantFakeApi());
+    }
+
+    @After
+    public void tearDown() {
+        batchScheduler.shutdownNow();
+    }
+
+    @Test
+    public void getRestaurant_loadsOnIoExecutor() {
+        LiveData<Resource<Restaurant>> liveData = repository.getRestaurant(TAJ_MAHAL_ID);
+
+        //Tant que l'exécuteur n'a rien lancé, on est en chargement
+        assertTrue(liveData.getValue().isLoading());
+        assertEquals(1, ioExecutor.size());
+
+        ioExecutor.runAll();
+        assertTrue(liveData.getValue().isSuccess());
+        assertEquals("Taj Mahal", liveData.getValue().getData().getName());
+    }
+
+    @Test
+    public void getRestaurant_postsError() {
+        RestaurantFakeApi failingApi = new RestaurantFakeApi() {
+            @Override
+            public Restaurant getRestaurant(long restaurantId) {
+                throw new IllegalStateException("network down");
+            }
+        };
+        repository = newRepository(failingApi);
+
+        LiveData<Resource<Restaurant>> liveData = repository.getRestaurant(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+
+        assertTrue(liveData.getValue().isError());
+        assertEquals("network down", liveData.getValue().getError().getMessage());
+    }
+
+    @Test
+    public void getRestaurant_servesCacheWhileRefreshing() throws IOException {
+        Restaurant cached = new Restaurant(TAJ_MAHAL_ID, "Ancien nom", "Indien", "", "", "", "", true, true);
+        diskCache.write("restaurant-1", CacheCodecs.RESTAURANT, cached);
+
+        //Cache encore valide : pas d'appel réseau
+        LiveData<Resource<Restaurant>> liveData = repository.getRestaurant(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        assertTrue(liveData.getValue().isSuccess());
+        assertEquals("Ancien nom", liveData.getValue().getData().getName());
+
+        //Cache expiré : la donnée en cache arrive d'abord, puis la donnée à jour
+        now += TimeUnit.DAYS.toMillis(2);
+        List<Resource<Restaurant>> values = new ArrayList<>();
+        repository.getRestaurant(TAJ_MAHAL_ID).observeForever(values::add);
+        ioExecutor.runAll();
+
+        assertEquals(Resource.loading(cached), values.get(values.size() - 2));
+        assertEquals("Taj Mahal", values.get(values.size() - 1).getData().getName());
+        assertEquals("Taj Mahal", diskCache.read("restaurant-1", CacheCodecs.RESTAURANT).getValue().getName());
+    }
+
+    @Test
+    public void getReviewStats_seededInBackground() {
+        LiveData<Resource<ReviewStats>> liveData = repository.getReviewStats(TAJ_MAHAL_ID);
+        assertTrue(liveData.getValue().isLoading());
+
+        ioExecutor.runAll();
+        assertEquals(5, liveData.getValue().getData().getTotalReviews());
+
+        //Un nouvel avis met à jour les stats sans nouveau chargement, seule son écriture dans le journal est en attente
+        repository.addReview(TAJ_MAHAL_ID, new Review("User", "pic", "Commentaire", 1));
+        assertEquals(1, ioExecutor.size());
+        assertEquals(6, liveData.getValue().getData().getTotalReviews());
+    }
+
+    @Test
+    public void addReview_reachesEveryObserver() {
+        LiveData<List<Review>> reviews = repository.getReviews(TAJ_MAHAL_ID);
+        LiveData<Resource<ReviewStats>> stats = repository.getReviewStats(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        List<Review> firstSnapshot = reviews.getValue();
+        assertEquals(5, firstSnapshot.size());
+
+        Review review = new Review("User", "pic", "Commentaire", 5);
+        repository.addReview(TAJ_MAHAL_ID, review);
+
+        //Une seule écriture met à jour la liste et les stats
+        assertEquals(review, reviews.getValue().get(0));
+        assertEquals(6, stats.getValue().getData().getTotalReviews());
+        //L'ancien snapshot n'a pas changé
+        assertEquals(5, firstSnapshot.size());
+    }
+
+    @Test
+    public void saveReview_onceById() throws IOException {
+        LiveData<List<Review>> reviews = repository.getReviews(TAJ_MAHAL_ID);
+        LiveData<Resource<ReviewStats>> stats = repository.getReviewStats(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        syncRequests.clear();
+        Review review = new Review("User", "pic", "Commentaire", 5);
+
+        //Le même avis enregistré deux fois, comme après un nouvel essai
+        assertTrue(repository.saveReview(TAJ_MAHAL_ID, review));
+        assertFalse(repository.saveReview(TAJ_MAHAL_ID, review));
+
+        assertEquals(6, reviews.getValue().size());
+        assertEquals(6, stats.getValue().getData().getTotalReviews());
+        assertEquals(Arrays.asList(TAJ_MAHAL_ID), syncRequests);
+
+        //Toujours un seul exemplaire après un redémarrage
+        repository = newRepository(new RestaurantFakeApi());
+        assertFalse(repository.saveReview(TAJ_MAHAL_ID, review));
+        reviews = repository.getReviews(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        assertEquals(6, reviews.getValue().size());
+    }
+
+    @Test
+    public void addReview_restoredAfterRestart() {
+        repository.getReviews(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        Review review = new Review("User", "pic", "Commentaire", 1);
+        repository.addReview(TAJ_MAHAL_ID, review);
+        ioExecutor.runAll();
+
+        //Un nouveau dépôt simule le redémarrage du processus
+        repository = newRepository(new RestaurantFakeApi());
+        LiveData<List<Review>> reviews = repository.getReviews(TAJ_MAHAL_ID);
+        LiveData<Resource<ReviewStats>> stats = repository.getReviewStats(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+
+        assertEquals(6, reviews.getValue().size());
+        assertEquals(review, reviews.getValue().get(0));
+        assertEquals(6, stats.getValue().getData().getTotalReviews());
+    }
+
+    @Test
+    public void reviews_keyedByRestaurant() {
+        repository = newRepository(new RestaurantFakeApi(3, 10));
+        LiveData<List<Review>> tajMahal = repository.getReviews(TAJ_MAHAL_ID);
+        LiveData<Resource<ReviewStats>> otherStats = repository.getReviewStats(2);
+        ioExecutor.runAll();
+        assertEquals(15, tajMahal.getValue().size());
+        assertEquals(10, otherStats.getValue().getData().getTotalReviews());
+
+        //Un avis ajouté à un restaurant ne change pas les autres
+        repository.addReview(2, new Review("User", "pic", "Commentaire", 5));
+        assertEquals(15, tajMahal.getValue().size());
+        assertEquals(11, otherStats.getValue().getData().getTotalReviews());
+        assertEquals(15, repository.getReviewStats(TAJ_MAHAL_ID).getValue().getData().getTotalReviews());
+    }
+
+    @Test
+    public void getCatalog_indexesTheChain() {
+        repository = newRepository(new RestaurantFakeApi(1000, 0));
+        LiveData<Resource<RestaurantCatalog>> liveData = repository.getCatalog();
+        ioExecutor.runAll();
+
+        RestaurantCatalog catalog = liveData.getValue().getData();
+        assertEquals(1000, catalog.size());
+        assertEquals("Taj Mahal", catalog.get(TAJ_MAHAL_ID).getName());
+        //Le catalogue est chargé une seule fois
+        assertSame(liveData, repository.getCatalog());
+        assertEquals(0, ioExecutor.size());
+    }
+
+    @Test
+    public void addReview_uploadedOnceBySync() throws IOException {
+        RestaurantFakeApi api = new RestaurantFakeApi();
+        repository = newRepository(api);
+        Review review = new Review("User", "pic", "Commentaire", 4);
+        repository.addReview(TAJ_MAHAL_ID, review);
+        ioExecutor.runAll();
+
+        //L'avis écrit dans le journal déclenche une synchronisation
+        assertEquals(Arrays.asList(TAJ_MAHAL_ID), syncRequests);
+        assertEquals(SyncState.Status.PENDING, repository.getSyncState(TAJ_MAHAL_ID).getValue().getStatus());
+
+        repository.syncReviews(TAJ_MAHAL_ID);
+        SyncState state = repository.getSyncState(TAJ_MAHAL_ID).getValue();
+        assertEquals(SyncState.Status.SUCCEEDED, state.getStatus());
+        assertEquals(1, state.getUploadedCount());
+        assertEquals(now, state.getLastSyncedAt());
+        assertEquals(Arrays.asList(review), api.getReviewChanges(TAJ_MAHAL_ID, 0, 10).getReviews());
+
+        //Déjà envoyé, même après un redémarrage
+        repository = newRepository(api);
+        repository.syncReviews(TAJ_MAHAL_ID);
+        assertEquals(0, repository.getSyncState(TAJ_MAHAL_ID).getValue().getUploadedCount());
+    }
+
+    @Test
+    public void syncReviews_downloadsOnlyNewChanges() throws IOException {
+        CountingApi api = new CountingApi();
+        repository = newRepository(api);
+        api.postReview(TAJ_MAHAL_ID, new Review(100, "Autre", "pic", "Déjà là", 3));
+        LiveData<List<Review>> reviews = repository.getReviews(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        //La première synchronisation part du point du flux où les avis ont été chargés
+        repository.syncReviews(TAJ_MAHAL_ID);
+        assertEquals(0, repository.getSyncState(TAJ_MAHAL_ID).getValue().getReceivedCount());
+        assertEquals(6, reviews.getValue().size());
+
+        //Un autre appareil publie plus d'avis qu'un lot
+        int count = RestaurantRepository.SYNC_BATCH_SIZE + 5;
+        for (int i = 0; i < count; i++) {
+            api.postReview(TAJ_MAHAL_ID, new Review(1000 + i, "Autre", "pic", "Avis " + i, 1 + i % 5));
+        }
+        api.changeCalls = 0;
+        repository.syncReviews(TAJ_MAHAL_ID);
+        batcher.flush();
+        assertEquals(count, repository.getSyncState(TAJ_MAHAL_ID).getValue().getReceivedCount());
+        assertEquals(2, api.changeCalls);
+        assertEquals(6 + count, reviews.getValue().size());
+        assertEquals(1000 + count - 1, reviews.getValue().get(0).getId());
+
+        //La synchronisation suivante ne télécharge que le nouvel avis, même après un redémarrage
+        api.postReview(TAJ_MAHAL_ID, new Review(5000, "Autre", "pic", "Nouveau", 5));
+        repository = newRepository(api);
+        repository.getReviews(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        repository.syncReviews(TAJ_MAHAL_ID);
+        assertEquals(1, repository.getSyncState(TAJ_MAHAL_ID).getValue().getReceivedCount());
+    }
+
+    @Test
+    public void syncReviews_replacesEditedReview() throws IOException {
+        RestaurantFakeApi api = new RestaurantFakeApi();
+        repository = newRepository(api);
+        LiveData<List<Review>> reviews = repository.getReviews(TAJ_MAHAL_ID);
+        LiveData<Resource<ReviewStats>> stats = repository.getReviewStats(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+
+        //Un autre appareil publie un avis, puis le modifie : le même avis arrive deux fois
+        api.postReview(TAJ_MAHAL_ID, new Review(1000, "Autre", "pic", "Passable", 1, now));
+        repository.syncReviews(TAJ_MAHAL_ID);
+        batcher.flush();
+        assertEquals(1, stats.getValue().getData().getCount(0));
+        Review edited = new Review(1000, "Autre", "pic", "Formidable", 5, now);
+        api.postReview(TAJ_MAHAL_ID, edited);
+        repository.syncReviews(TAJ_MAHAL_ID);
+        batcher.flush();
+
+        //La nouvelle version remplace l'ancienne dans la liste, les statistiques et la recherche
+        assertEquals(6, reviews.getValue().size());
+        assertEquals(edited, reviews.getValue().get(0));
+        assertEquals(6, stats.getValue().getData().getTotalReviews());
+        assertEquals(0, stats.getValue().getData().getCount(0));
+        assertEquals(3, stats.getValue().getData().getCount(4));
+        LiveData<Resource<ReviewPage>> oldComment = repository.searchReviews(TAJ_MAHAL_ID, "passable", 0, 10);
+        LiveData<Resource<ReviewPage>> newComment = repository.searchReviews(TAJ_MAHAL_ID, "formidable", 0, 10);
+        ioExecutor.runAll();
+        assertEquals(0, oldComment.getValue().getData().getTotalCount());
+        assertEquals(Arrays.asList(edited), newComment.getValue().getData().getReviews());
+
+        //Le cache reçoit chaque lot avant le curseur : un redémarrage retrouve l'avis modifié
+        repository = newRepository(api);
+        reviews = repository.getReviews(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        repository.syncReviews(TAJ_MAHAL_ID);
+        assertEquals(0, repository.getSyncState(TAJ_MAHAL_ID).getValue().getReceivedCount());
+        assertEquals(6, reviews.getValue().size());
+        assertEquals(edited, reviews.getValue().get(0));
+    }
+
+    @Test
+    public void getReviews_loadsLargeRestaurantPageByPage() throws IOException {
+        CountingApi api = new CountingApi(RestaurantRepository.PAGED_REVIEWS_MIN_COUNT);
+        repository = newRepository(api);
+        LiveData<List<Review>> reviews = repository.getReviews(TAJ_MAHAL_ID);
+        LiveData<Resource<ReviewStats>> stats = repository.getReviewStats(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        List<Review> server = api.getReviews(TAJ_MAHAL_ID);
+
+        //Seule la première page est chargée, les notes sont comptées par le serveur
+        assertEquals(1, api.pageCalls);
+        assertEquals(server.size(), reviews.getValue().size());
+        assertEquals(server.size(), stats.getValue().getData().getTotalReviews());
+        assertEquals(countRate(server, 5), stats.getValue().getData().getCount(4));
+        assertEquals(server.get(0), reviews.getValue().get(0));
+        assertNull(reviews.getValue().get(5000));
+
+        //La page d'un avis affiché remplit la liste publiée, et seule sa plage est signalée
+        List<Review> snapshot = reviews.getValue();
+        PagedReviewList paged = PagedReviewList.find(snapshot);
+        List<Integer> ranges = new ArrayList<>();
+        paged.addCallback((position, count) -> {
+            ranges.add(position);
+            ranges.add(count);
+        });
+        repository.loadReviewsAround(TAJ_MAHAL_ID, 5000);
+        repository.loadReviewsAround(TAJ_MAHAL_ID, 5001);
+        ioExecutor.runAll();
+        assertEquals(2, api.pageCalls);
+        assertSame(snapshot, reviews.getValue());
+        assertEquals(Arrays.asList(4980, RestaurantRepository.REVIEW_PAGE_SIZE), ranges);
+        assertEquals(server.get(5000), snapshot.get(5000));
+
+        //Seules les dernières pages affichées restent en mémoire
+        for (int position = 0; position < 10 * RestaurantRepository.REVIEW_PAGE_SIZE; position += RestaurantRepository.REVIEW_PAGE_SIZE) {
+            repository.loadReviewsAround(TAJ_MAHAL_ID, position);
+        }
+        ioExecutor.runAll();
+        assertEquals(RestaurantRepository.MAX_CACHED_REVIEW_PAGES, paged.getCachedPageCount());
+
+        //Un nouvel avis décale les pages du serveur, la liste garde ses positions
+        Review previous = server.get(10);
+        Review edited = new Review(previous.getId(), "Autre", "pic", "Formidable", 1, previous.getCreatedAt());
+        Review added = new Review(20_000, "Nouveau", "pic", "Passable", 3, now);
+        api.postReview(TAJ_MAHAL_ID, edited);
+        api.postReview(TAJ_MAHAL_ID, added);
+        repository.loadReviewsAround(TAJ_MAHAL_ID, 9000);
+        ioExecutor.runAll();
+        server = api.getReviews(TAJ_MAHAL_ID);
+        assertEquals(server.get(9001), reviews.getValue().get(9000));
+
+        //Après la synchronisation, le nouvel avis est en tête et l'avis modifié remplace le sien
+        repository.syncReviews(TAJ_MAHAL_ID);
+        batcher.flush();
+        assertEquals(server.size(), reviews.getValue().size());
+        assertEquals(added, reviews.getValue().get(0));
+        assertEquals(edited, reviews.getValue().get(11));
+        assertEquals(server.size(), stats.getValue().getData().getTotalReviews());
+        assertEquals(countRate(server, 1), stats.getValue().getData().getCount(0));
+        assertEquals(countRate(server, 5), stats.getValue().getData().getCount(4));
+        repository.loadReviewsAround(TAJ_MAHAL_ID, 9000);
+        ioExecutor.runAll();
+        assertEquals(server.get(9000), reviews.getValue().get(9000));
+
+        //La recherche est faite par le serveur, sans charger de page
+        int pageCalls = api.pageCalls;
+        LiveData<Resource<ReviewPage>> found = repository.searchReviews(TAJ_MAHAL_ID, "formidable", 0, 10);
+        ioExecutor.runAll();
+        assertEquals(Arrays.asList(edited), found.getValue().getData().getReviews());
+        assertEquals(pageCalls, api.pageCalls);
+    }
+
+    @Test
+    public void syncReviews_resumesAfterFailure() throws IOException {
+        CountingApi api = new CountingApi();
+        repository = newRepository(api);
+        repository.getReviews(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        repository.syncReviews(TAJ_MAHAL_ID);
+        for (int i = 0; i < 2 * RestaurantRepository.SYNC_BATCH_SIZE; i++) {
+            api.postReview(TAJ_MAHAL_ID, new Review(1000 + i, "Autre", "pic", "Avis " + i, 4));
+        }
+
+        //Le réseau tombe après le premier lot
+        api.changeCalls = 0;
+        api.failAfter = 1;
+        try {
+            repository.syncReviews(TAJ_MAHAL_ID);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(SyncState.Status.FAILED, repository.getSyncState(TAJ_MAHAL_ID).getValue().getStatus());
+        }
+
+        //La reprise repart après le premier lot
+        api.failAfter = Integer.MAX_VALUE;
+        repository.syncReviews(TAJ_MAHAL_ID);
+        assertEquals(RestaurantRepository.SYNC_BATCH_SIZE, repository.getSyncState(TAJ_MAHAL_ID).getValue().getReceivedCount());
+    }
+
+    @Test
+    public void metrics_countLoads() {
+        Metrics metrics = new Metrics(true, Tracer.NONE);
+        repository = newRepository(new RestaurantFakeApi(), metrics);
+        repository.getRestaurant(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+        //Le second chargement est servi par le cache, sans appel réseau
+        repository.getRestaurant(TAJ_MAHAL_ID);
+        ioExecutor.runAll();
+
+        assertEquals(2, metrics.histogram("restaurant.load").snapshot().getCount());
+        assertEquals(1, metrics.counter("api.call").get());
+        assertEquals(1, metrics.counter("cache.hit").get());
+        assertEquals(0, metrics.counter("api.error").get());
+    }
+
+    private static int countRate(List<Review> reviews, int rate) {
+        int count = 0;
+        for (Review review : reviews) {
+            if (review.getRate() == rate) count++;
+        }
+        return count;
+    }
+
+    private RestaurantRepository newRepository(RestaurantFakeApi api) {
+        return newRepository(api, Metrics.DISABLED);
+    }
+
+    private RestaurantRepository newRepository(RestaurantFakeApi api, Metrics metrics) {
+        ReviewStore store = new ReviewStore();
+        batcher = new ReviewBatcher(store, batchScheduler, 100, 200);
+        return new RestaurantRepository(api, ioExecutor, diskCache, store, batcher, new ReviewLog(logFile),
+                new SyncCursors(new File(logFile.getParentFile(), "sync-cursors")), syncRequests::add, metrics);
+    }
+
+    // Compte les appels au flux des modifications, et peut échouer après un nombre d'appels
+    private static class CountingApi extends RestaurantFakeApi {
+        int changeCalls;
+        int pageCalls;
+        int failAfter = Integer.MAX_VALUE;
+
+        CountingApi() {
+        }
+
+        CountingApi(int syntheticReviewCount) {
+            super(syntheticReviewCount);
+        }
+
+        @Override
+        public ReviewPage getReviews(long restaurantId, int cursor, int pageSize) {
+            pageCalls++;
+            return super.getReviews(restaurantId, cursor, pageSize);
+        }
+
+        @Override
+        public ReviewChanges getReviewChanges(long restaurantId, long since, int limit) {
+            if (changeCalls >= failAfter) throw new IllegalStateException("network down");
+            changeCalls++;
+            return super.getReviewChanges(restaurantId, since, limit);
+        }
+    }
+
+    private static class QueueExecutor implements Executor {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        int size() {
+            return tasks.size();
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ReviewBatcherTest {
+
+    private static final long RESTAURANT_ID = 1;
+
+    @Rule
+    public InstantTaskExecutorRule instantTaskExecutorRule = new InstantTaskExecutorRule();
+
+    private ScheduledExecutorService scheduler;
+    private ReviewStatsAggregator aggregator;
+    private ReviewStore store;
+
+    // Toutes les valeurs publiées par le store et l'agrégateur
+    private final List<List<Review>> snapshots = new ArrayList<>();
+    private final List<ReviewStats> stats = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        store = new ReviewStore();
+        aggregator = store.getStatsAggregator(RESTAURANT_ID);
+        aggregator.seed(Collections.emptyList());
+        aggregator.addListener(stats::add);
+        store.getReviews(RESTAURANT_ID).observeForever(snapshots::add);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void fullBatch_appliedAsOneUpdate() {
+        ReviewBatcher batcher = new ReviewBatcher(store, scheduler, TimeUnit.HOURS.toMillis(1), 3);
+
+        batcher.submitAll(RESTAURANT_ID, reviews(7));
+
+        //7 avis par lots de 3 : deux lots appliqués, un avis en attente
+        assertEquals(2, snapshots.size());
+        assertEquals(2, stats.size());
+        assertEquals(1, batcher.getPendingCount());
+        assertEquals(6, store.getSnapshot(RESTAURANT_ID).size());
+
+        batcher.flush();
+        assertEquals(3, snapshots.size());
+        assertEquals(7, aggregator.getStats().getTotalReviews());
+        //Le dernier avis reçu est en tête
+        assertEquals(6, store.getSnapshot(RESTAURANT_ID).get(0).getId());
+        assertEquals(0, store.getSnapshot(RESTAURANT_ID).get(6).getId());
+    }
+
+    @Test
+    public void window_flushesPendingReviews() throws InterruptedException {
+        ReviewBatcher batcher = new ReviewBatcher(store, scheduler, 20, 100);
+
+        batcher.submitAll(RESTAURANT_ID, reviews(5));
+        assertEquals(0, snapshots.size());
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (batcher.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        //Un seul snapshot et une seule mise à jour des stats pour les 5 avis
+        assertEquals(1, snapshots.size());
+        assertEquals(5, snapshots.get(0).size());
+        assertEquals(1, stats.size());
+        assertEquals(5, stats.get(0).getTotalReviews());
+    }
+
+    @Test
+    public void flush_withoutPendingReviews_publishesNothing() {
+        ReviewBatcher batcher = new ReviewBatcher(store, scheduler, 20, 100);
+
+        batcher.flush();
+
+        assertTrue(snapshots.isEmpty());
+        assertTrue(stats.isEmpty());
+    }
+
+    private static List<Review> reviews(int count) {
+        Review[] reviews = new Review[count];
+        for (int i = 0; i < count; i++) {
+            reviews[i] = new Review(i, "User " + i, "pic", "Avis " + i, 1 + i % 5);
+        }
+        return Arrays.asList(reviews);
+    }
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReviewDiffTest {
+
+    @Test
+    public void between_findsRemovedEditedAndAdded() {
+        Review kept = new Review(1, "A", "pic", "Gardé", 5);
+        Review removed = new Review(2, "B", "pic", "Supprimé", 4);
+        Review edited = new Review(3, "C", "pic", "Avant", 3);
+        Review afterEdit = new Review(3, "C", "pic", "Après", 2);
+        Review added = new Review(4, "D", "pic", "Nouveau", 1);
+
+        ReviewDiff diff = ReviewDiff.between(Arrays.asList(kept, removed, edited), Arrays.asList(added, afterEdit, kept));
+
+        //Un avis modifié est retiré puis ajouté
+        assertEquals(Arrays.asList(removed, edited), diff.getRemoved());
+        assertEquals(Arrays.asList(added, afterEdit), diff.getAdded());
+        assertFalse(diff.isUnchanged());
+    }
+
+    @Test
+    public void between_columnsWithoutChange() {
+        List<Review> reviews = reviews(3000);
+        //Deux copies en colonnes, sur des registres différents
+        ColumnarReviewList before = ColumnarReviewList.of(reviews);
+        ColumnarReviewList after = ColumnarReviewList.of(new ArrayList<>(reviews));
+
+        ReviewDiff diff = ReviewDiff.between(before, after);
+
+        assertTrue(diff.isUnchanged());
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getAdded().isEmpty());
+    }
+
+    @Test
+    public void between_reorderedIsNotUnchanged() {
+        List<Review> reviews = reviews(10);
+        List<Review> reordered = new ArrayList<>(reviews);
+        Collections.reverse(reordered);
+
+        ReviewDiff diff = ReviewDiff.between(ColumnarReviewList.of(reviews), ColumnarReviewList.of(reordered));
+
+        //Mêmes avis, rien à compter, mais la liste a changé
+        assertTrue(diff.getRemoved().isEmpty());
+        assertTrue(diff.getAdded().isEmpty());
+        assertFalse(diff.isUnchanged());
+    }
+
+    @Test
+    public void between_duplicateIds() {
+        Review review = new Review(1, "A", "pic", "Doublon", 5);
+
+        ReviewDiff diff = ReviewDiff.between(Arrays.asList(review, review), Arrays.asList(review));
+
+        //Un seul des deux exemplaires a disparu
+        assertEquals(Arrays.asList(review), diff.getRemoved());
+        assertTrue(diff.getAdded().isEmpty());
+    }
+
+    private static List<Review> reviews(int count) {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            reviews.add(new Review(i, "User " + (i % 50), "avatar/" + (i % 7), i % 10 == 0 ? null : "Avis " + i, 1 + i % 5, 1_700_000_000_000L + i));
+        }
+        return reviews;
+    }
+}
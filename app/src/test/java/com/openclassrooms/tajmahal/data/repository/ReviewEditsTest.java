@@ -0,0 +1,68 @@
+package com.openclassrooms.tajmahal.data.repository;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReviewEditsTest {
+
+    @Test
+    public void applyTo_replacesInPlace() {
+        Review kept = new Review(1, "A", "pic", "Gardé", 5);
+        Review edited = new Review(2, "B", "pic", "Avant", 3);
+        Review afterEdit = new Review(2, "B", "pic", "Après", 4);
+        Review added = new Review(3, "C", "pic", "Nouveau", 1);
+        List<Review> reviews = Arrays.asList(kept, edited);
+
+        ReviewEdits edits = new ReviewEdits(Arrays.asList(afterEdit, added));
+
+        //L'avis modifié garde sa place, le nouveau reste à ajouter
+        assertEquals(Arrays.asList(kept, afterEdit), edits.applyTo(reviews));
+        assertEquals(Arrays.asList(edited), edits.getReplaced());
+        assertEquals(Arrays.asList(afterEdit), edits.getReplacing());
+        assertEquals(Arrays.asList(added), edits.getNew());
+        assertEquals(Arrays.asList(kept, edited), reviews);
+    }
+
+    @Test
+    public void applyTo_keepsLastVersionOfBatch() {
+        Review first = new Review(1, "A", "pic", "Premier", 2);
+        Review second = new Review(1, "A", "pic", "Second", 5);
+        List<Review> reviews = Arrays.asList(new Review(2, "B", "pic", "Autre", 3));
+
+        ReviewEdits edits = new ReviewEdits(Arrays.asList(first, second));
+
+        //Rien à remplacer, la liste est rendue telle quelle
+        assertSame(reviews, edits.applyTo(reviews));
+        assertEquals(Arrays.asList(second), edits.getNew());
+    }
+
+    @Test
+    public void applyTo_copiesColumns() {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            reviews.add(new Review(i, "User " + (i % 50), "avatar/" + (i % 7), i % 10 == 0 ? null : "Avis " + i, 1 + i % 5, 1_700_000_000_000L + i));
+        }
+        ColumnarReviewList columns = ColumnarReviewList.of(reviews);
+        Review afterEdit = new Review(1500, "Autre", "pic", "Modifié", 1, 1_700_000_000_000L);
+
+        ReviewEdits edits = new ReviewEdits(Arrays.asList(afterEdit));
+        List<Review> edited = edits.applyTo(columns);
+
+        //La copie reste en colonnes, sur le même registre
+        assertTrue(edited instanceof ColumnarReviewList);
+        assertSame(columns.getRegistry(), ((ColumnarReviewList) edited).getRegistry());
+        List<Review> expected = new ArrayList<>(reviews);
+        expected.set(1500, afterEdit);
+        assertEquals(expected, edited);
+        assertEquals(Arrays.asList(reviews.get(1500)), edits.getReplaced());
+        assertTrue(edits.getNew().isEmpty());
+    }
+}
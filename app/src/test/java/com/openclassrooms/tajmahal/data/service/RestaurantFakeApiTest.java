@@ -0,0 +1,64 @@
+package com.openclassrooms.tajmahal.data.service;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RestaurantFakeApiTest {
+
+    private static final long TAJ_MAHAL_ID = RestaurantFakeApi.TAJ_MAHAL_ID;
+
+    @Test
+    public void getReviews_appliesPostedReviewsToPages() {
+        RestaurantFakeApi api = new RestaurantFakeApi(1000);
+        List<Review> before = api.getReviews(TAJ_MAHAL_ID);
+        Review edited = new Review(before.get(500).getId(), "Autre", "pic", "Modifié", 1, 0);
+        Review first = new Review(5000, "A", "pic", "Premier", 4, 0);
+        Review second = new Review(5001, "B", "pic", "Second", 3, 0);
+        api.postReview(TAJ_MAHAL_ID, first);
+        api.postReview(TAJ_MAHAL_ID, edited);
+        api.postReview(TAJ_MAHAL_ID, second);
+        Review firstEdited = new Review(5000, "A", "pic", "Premier modifié", 5, 0);
+        api.postReview(TAJ_MAHAL_ID, firstEdited);
+
+        //Les nouveaux avis sont en tête, du plus récent au plus ancien, les modifications restent en place
+        ReviewPage top = api.getReviews(TAJ_MAHAL_ID, 0, 3);
+        assertEquals(Arrays.asList(second, firstEdited, before.get(0)), top.getReviews());
+        assertEquals(before.size() + 2, top.getTotalCount());
+        ReviewPage middle = api.getReviews(TAJ_MAHAL_ID, 501, 3);
+        assertEquals(Arrays.asList(before.get(499), edited, before.get(501)), middle.getReviews());
+
+        //La liste complète est une copie, qui ne bouge plus
+        List<Review> all = api.getReviews(TAJ_MAHAL_ID);
+        api.postReview(TAJ_MAHAL_ID, new Review(5002, "C", "pic", "Troisième", 2, 0));
+        assertEquals(before.size() + 2, all.size());
+        assertEquals(edited, all.get(502));
+    }
+
+    @Test
+    public void getReviewSummaryAndSearch_followPostedReviews() {
+        RestaurantFakeApi api = new RestaurantFakeApi(1000);
+        List<Review> before = api.getReviews(TAJ_MAHAL_ID);
+        ReviewStats stats = api.getReviewSummary(TAJ_MAHAL_ID).getStats();
+        assertEquals(before.size(), stats.getTotalReviews());
+        assertEquals(0, api.searchReviews(TAJ_MAHAL_ID, "formidable", 0, 10).getTotalCount());
+
+        //Un avis modifié change de note, un nouvel avis s'ajoute, sans recompter les autres
+        Review previous = before.get(500);
+        Review edited = new Review(previous.getId(), "Autre", "pic", "Formidable", previous.getRate() == 1 ? 2 : 1, 0);
+        Review added = new Review(5000, "A", "pic", "Formidable aussi", 5, 0);
+        api.postReview(TAJ_MAHAL_ID, edited);
+        api.postReview(TAJ_MAHAL_ID, added);
+        ReviewStats updated = api.getReviewSummary(TAJ_MAHAL_ID).getStats();
+        assertEquals(before.size() + 1, updated.getTotalReviews());
+        assertEquals(stats.getCount(edited.getRate() - 1) + 1, updated.getCount(edited.getRate() - 1));
+        assertEquals(2, api.searchReviews(TAJ_MAHAL_ID, "formidable", 0, 10).getTotalCount());
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.tajmahal.domain.catalog;
+
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RestaurantCatalogTest {
+
+    private final Restaurant tajMahal = new Restaurant(1, "Taj Mahal", "Indien", "11h30 - 14h30・18h30 - 22h00", "", "", "", true, true);
+    private final Restaurant bastille = new Restaurant(2, "Taj Mahal Bastille", "Indien", "18h00 - 02h00", "", "", "", true, false);
+    private final Restaurant nation = new Restaurant(3, "Taj Mahal Nation", "Népalais", "", "", "", "", false, true);
+    private final Restaurant opera = new Restaurant(4, "Taj Mahal Opéra", "indien", "", "", "", "", false, true);
+
+    private RestaurantCatalog catalog;
+
+    @Before
+    public void setup() {
+        catalog = new RestaurantCatalog(Arrays.asList(tajMahal, bastille, nation, opera));
+    }
+
+    @Test
+    public void get_byId() {
+        assertSame(nation, catalog.get(3));
+        assertNull(catalog.get(42));
+    }
+
+    @Test
+    public void find_byType_ignoresCase() {
+        assertEquals(Arrays.asList(tajMahal, bastille, opera), catalog.find(RestaurantCatalog.Filter.ANY.type("INDIEN")));
+        assertEquals(Collections.emptyList(), catalog.find(RestaurantCatalog.Filter.ANY.type("Italien")));
+    }
+
+    @Test
+    public void find_combinesCriteria() {
+        List<Restaurant> indianTakeAway = catalog.find(RestaurantCatalog.Filter.ANY.type("Indien").takeAway(true));
+        assertEquals(Arrays.asList(tajMahal, opera), indianTakeAway);
+
+        //Sur place uniquement : sur place mais pas à emporter
+        assertEquals(Arrays.asList(bastille), catalog.find(RestaurantCatalog.Filter.ANY.dineIn(true).takeAway(false)));
+        assertEquals(2, catalog.count(RestaurantCatalog.Filter.ANY.dineIn(false)));
+        assertEquals(4, catalog.count(RestaurantCatalog.Filter.ANY));
+    }
+
+    @Test
+    public void find_openAt() {
+        //Lundi 12h00 puis lundi 23h00
+        int mondayNoon = 12 * 60;
+        int mondayNight = 23 * 60;
+
+        assertEquals(Arrays.asList(tajMahal), catalog.find(RestaurantCatalog.Filter.ANY.openAt(mondayNoon)));
+        assertEquals(Arrays.asList(bastille), catalog.find(RestaurantCatalog.Filter.ANY.openAt(mondayNight)));
+        assertEquals(0, catalog.count(RestaurantCatalog.Filter.ANY.openAt(mondayNight).takeAway(true)));
+    }
+
+    @Test
+    public void duplicateIds_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RestaurantCatalog(Arrays.asList(tajMahal, tajMahal)));
+    }
+}
@@ -0,0 +1,81 @@
+package com.openclassrooms.tajmahal.domain.hours;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class OpeningHoursTest {
+
+    private static final int MONDAY = 0;
+    private static final int SUNDAY = 6;
+
+    private final OpeningHours tajMahal = OpeningHours.parse("11h30 - 14h30・18h30 - 22h00");
+
+    @Test
+    public void isOpenAt_followsDailySlots() {
+        assertTrue(tajMahal.isKnown());
+        assertFalse(tajMahal.isOpenAt(at(MONDAY, 11, 29)));
+        assertTrue(tajMahal.isOpenAt(at(MONDAY, 11, 30)));
+        assertTrue(tajMahal.isOpenAt(at(MONDAY, 14, 29)));
+        //L'heure de fermeture est exclue
+        assertFalse(tajMahal.isOpenAt(at(MONDAY, 14, 30)));
+        assertTrue(tajMahal.isOpenAt(at(SUNDAY, 21, 0)));
+        assertFalse(tajMahal.isOpenAt(at(SUNDAY, 23, 0)));
+    }
+
+    @Test
+    public void nextOpening_wrapsToNextWeek() {
+        assertEquals(at(MONDAY, 18, 30), tajMahal.nextOpening(at(MONDAY, 15, 0)));
+        //Ouvert : la prochaine ouverture est celle du service suivant
+        assertEquals(at(MONDAY, 18, 30), tajMahal.nextOpening(at(MONDAY, 12, 0)));
+        assertEquals(at(MONDAY, 11, 30), tajMahal.nextOpening(at(SUNDAY, 23, 0)));
+        assertEquals(12 * 60 + 30, tajMahal.minutesUntilNextOpening(at(SUNDAY, 23, 0)));
+    }
+
+    @Test
+    public void overnightSlot_runsIntoNextDay() {
+        OpeningHours lateNight = OpeningHours.parse("18h00 - 02h00");
+
+        assertTrue(lateNight.isOpenAt(at(MONDAY, 1, 0)));
+        assertTrue(lateNight.isOpenAt(at(SUNDAY, 23, 59)));
+        assertFalse(lateNight.isOpenAt(at(MONDAY, 2, 0)));
+        //Dimanche soir → lundi matin est une seule ouverture
+        assertEquals(at(MONDAY, 18, 0), lateNight.nextOpening(at(MONDAY, 0, 30)));
+        assertEquals(at(MONDAY, 18, 0), lateNight.nextOpening(at(SUNDAY, 19, 0)));
+    }
+
+    @Test
+    public void alwaysOpen_hasNoNextOpening() {
+        OpeningHours allDay = OpeningHours.parse("00h00 - 24h00");
+
+        assertTrue(allDay.isOpenAt(at(SUNDAY, 23, 59)));
+        assertEquals(OpeningHours.NEVER, allDay.nextOpening(at(MONDAY, 0, 0)));
+    }
+
+    @Test
+    public void unreadableHours_areUnknownAndClosed() {
+        OpeningHours unknown = OpeningHours.parse("Sur rendez-vous");
+
+        assertFalse(unknown.isKnown());
+        assertFalse(unknown.isOpenAt(at(MONDAY, 12, 0)));
+        assertEquals(OpeningHours.NEVER, unknown.nextOpening(0));
+        assertSame(OpeningHours.UNKNOWN, OpeningHours.parse(null));
+    }
+
+    @Test
+    public void minuteOfWeek_startsOnMonday() {
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        //Lundi 5 janvier 1970 à 0h00 UTC
+        long monday = 4L * 24 * 60 * 60 * 1000;
+
+        assertEquals(0, OpeningHours.minuteOfWeek(monday, utc));
+        assertEquals(at(SUNDAY, 23, 59), OpeningHours.minuteOfWeek(monday - 60_000, utc));
+        assertEquals(at(MONDAY, 1, 0), OpeningHours.minuteOfWeek(monday, TimeZone.getTimeZone("GMT+01:00")));
+    }
+
+    private static int at(int day, int hour, int minute) {
+        return day * OpeningHours.MINUTES_PER_DAY + hour * 60 + minute;
+    }
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class AuthorRegistryTest {
+
+    @Test
+    public void intern_sharesAuthorsAndPictures() {
+        AuthorRegistry registry = new AuthorRegistry();
+
+        Author ranjit = registry.intern("Ranjit Singh", "profile_picture");
+        Author again = registry.intern(new String("Ranjit Singh"), new String("profile_picture"));
+        Author martyna = registry.intern("Martyna Siddeswara", "profile_picture");
+
+        //Même auteur : même instance et même id
+        assertSame(ranjit, again);
+        assertEquals(0, ranjit.getId());
+        assertEquals(1, martyna.getId());
+        //Une seule image pour les deux auteurs
+        assertEquals(ranjit.getAvatarId(), martyna.getAvatarId());
+        assertSame(ranjit.getPicture(), martyna.getPicture());
+        assertEquals(2, registry.size());
+        assertEquals(1, registry.avatarCount());
+        assertSame(martyna, registry.get(1));
+        assertEquals("profile_picture", registry.getPicture(ranjit.getAvatarId()));
+    }
+
+    @Test
+    public void intern_withoutPicture() {
+        AuthorRegistry registry = new AuthorRegistry();
+
+        Author author = registry.intern("Ranjit Singh", null);
+
+        assertEquals(AuthorRegistry.NO_AVATAR, author.getAvatarId());
+        assertNull(author.getPicture());
+        assertNull(registry.getPicture(AuthorRegistry.NO_AVATAR));
+        assertEquals(0, registry.avatarCount());
+        assertNotSame(author, registry.intern("Ranjit Singh", "pic"));
+    }
+
+    @Test
+    public void review_setPictureInternsAnotherAuthor() {
+        AuthorRegistry registry = new AuthorRegistry();
+        Review review = registry.intern(new Review(1, "Ranjit Singh", "pic", "Délicieux", 5));
+        Review other = registry.intern(new Review(2, "Ranjit Singh", "pic", "Bon", 4));
+
+        //Les avis d'un même auteur partagent son instance
+        assertSame(review.getAuthor(), other.getAuthor());
+
+        review.setPicture("new_pic");
+
+        //Le nouvel auteur est internalisé dans le registre de l'ancien
+        assertEquals("new_pic", review.getPicture());
+        assertEquals("Ranjit Singh", review.getUsername());
+        assertSame(review.getAuthor(), registry.intern("Ranjit Singh", "new_pic"));
+        assertNotEquals(review.getAuthor().getAvatarId(), other.getAuthor().getAvatarId());
+        assertEquals("pic", other.getPicture());
+    }
+
+    @Test
+    public void review_fromStringsIsNotInterned() {
+        Review review = new Review(1, "Ranjit Singh", "pic", "Délicieux", 5);
+
+        //Aucun registre caché : l'auteur n'appartient à aucun registre
+        assertEquals(AuthorRegistry.NO_ID, review.getAuthor().getId());
+        assertEquals(AuthorRegistry.NO_AVATAR, review.getAuthor().getAvatarId());
+        review.setUsername("Ranjit");
+        assertEquals(AuthorRegistry.NO_ID, review.getAuthor().getId());
+        assertEquals("pic", review.getPicture());
+
+        //Internalisé, l'avis est copié avec l'auteur du registre
+        AuthorRegistry registry = new AuthorRegistry();
+        Review interned = registry.intern(review);
+        assertEquals(review, interned);
+        assertSame(registry.get(0), interned.getAuthor());
+        assertSame(interned, registry.intern(interned));
+    }
+
+    @Test
+    public void columnarList_storesAuthorIds() {
+        AuthorRegistry registry = new AuthorRegistry();
+        List<Review> reviews = Arrays.asList(
+                new Review(1, "Ranjit Singh", "pic", "Délicieux", 5),
+                new Review(2, "Martyna Siddeswara", "pic", "Service lent", 3),
+                new Review(3, "Ranjit Singh", "pic", null, 4));
+
+        ColumnarReviewList columns = new ColumnarReviewList.Builder(3, registry).addAll(reviews).build();
+
+        assertEquals(reviews, columns);
+        assertEquals(columns.authorIdAt(0), columns.authorIdAt(2));
+        assertNotEquals(columns.authorIdAt(0), columns.authorIdAt(1));
+        //Les avis matérialisés renvoient l'auteur du registre de la liste
+        assertSame(registry.get(columns.authorIdAt(1)), columns.get(1).getAuthor());
+    }
+
+    @Test
+    public void intern_concurrentGivesOneIdPerAuthor() throws Exception {
+        AuthorRegistry registry = new AuthorRegistry();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            //Chaque tâche internalise les mêmes 500 auteurs, dans un ordre différent
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int shift = t * 125;
+                results.add(pool.submit(() -> {
+                    int[] ids = new int[500];
+                    for (int i = 0; i < 500; i++) {
+                        int author = (i + shift) % 500;
+                        ids[author] = registry.intern("User " + author, "avatar/" + (author % 20)).getId();
+                    }
+                    return ids;
+                }));
+            }
+            int[] expected = results.get(0).get();
+            for (Future<int[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+            assertEquals(500, registry.size());
+            assertEquals(20, registry.avatarCount());
+            for (int author = 0; author < 500; author++) {
+                assertEquals("User " + author, registry.get(expected[author]).getUsername());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
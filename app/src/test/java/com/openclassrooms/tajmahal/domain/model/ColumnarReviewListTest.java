@@ -0,0 +1,98 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarReviewListTest {
+
+    private final Review a = new Review(1, "Ranjit Singh", "pic", "Délicieux, le cœur du curry !", 5);
+    private final Review b = new Review(2, "Martyna Siddeswara", "pic", "Service un peu lent", 3);
+    private final Review c = new Review(3, "Ranjit Singh", null, null, 4);
+
+    @Test
+    public void of_keepsEveryField() {
+        List<Review> reviews = Arrays.asList(a, b, c);
+
+        ColumnarReviewList columns = ColumnarReviewList.of(reviews);
+
+        assertEquals(reviews, columns);
+        assertEquals(3, columns.size());
+        assertEquals(4, columns.rateAt(2));
+        assertNull(columns.commentAt(2));
+        //Les chaînes identiques ne sont stockées qu'une fois
+        assertSame(columns.usernameAt(0), columns.usernameAt(2));
+        assertSame(columns.pictureAt(0), columns.pictureAt(1));
+    }
+
+    @Test
+    public void get_materializesCopies() {
+        ColumnarReviewList columns = ColumnarReviewList.of(Arrays.asList(a));
+
+        Review review = columns.get(0);
+        review.setComment("Modifié");
+
+        assertNotSame(review, columns.get(0));
+        assertEquals(a.getComment(), columns.get(0).getComment());
+    }
+
+    @Test
+    public void sameReviewAt_comparesColumns() {
+        ColumnarReviewList columns = ColumnarReviewList.of(Arrays.asList(a, b, c));
+        //Autre registre, même contenu, ordre différent
+        ColumnarReviewList others = ColumnarReviewList.of(Arrays.asList(c, a,
+                new Review(2, "Martyna Siddeswara", "pic", "Service un peu lent !", 3)));
+
+        assertTrue(columns.sameReviewAt(0, others, 1));
+        assertTrue(columns.sameReviewAt(2, others, 0));
+        //Même id, commentaire modifié
+        assertFalse(columns.sameReviewAt(1, others, 2));
+        //Commentaire null d'un seul côté
+        assertFalse(columns.sameReviewAt(2, ColumnarReviewList.of(Arrays.asList(new Review(3, "Ranjit Singh", null, "", 4))), 0));
+    }
+
+    @Test
+    public void builder_keepsBuiltListsUnchanged() {
+        ColumnarReviewList.Builder builder = new ColumnarReviewList.Builder(1);
+        ColumnarReviewList first = builder.add(a).build();
+        List<Review> more = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            more.add(new Review(10 + i, "U" + i, "pic", i % 2 == 0 ? null : "Avis " + i, 1 + i % 5));
+        }
+
+        ColumnarReviewList second = builder.addAll(more).build();
+
+        assertEquals(Arrays.asList(a), first);
+        assertEquals(101, second.size());
+        assertEquals(more, second.subList(1, 101));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfBounds() {
+        ColumnarReviewList.Builder builder = new ColumnarReviewList.Builder(4);
+        ColumnarReviewList empty = builder.build();
+        builder.add(a);
+
+        //Un avis ajouté après la construction n'est pas visible
+        empty.get(0);
+    }
+
+    @Test
+    public void seed_readsRateColumn() {
+        ReviewStatsAggregator aggregator = new ReviewStatsAggregator();
+
+        aggregator.seed(ReviewList.of(ColumnarReviewList.of(Arrays.asList(a, b, c)))
+                .prepend(new Review(4, "D", "pic", "Avis D", 2)));
+
+        ReviewStats stats = aggregator.getStats();
+        assertEquals(4, stats.getTotalReviews());
+        assertEquals(3.5, stats.getAverage(), 0.0001);
+        assertEquals(1, stats.getCount(4));
+    }
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.tajmahal.domain.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReviewListTest {
+
+    private final Review a = new Review(1, "A", "pic", "Avis A", 5);
+    private final Review b = new Review(2, "B", "pic", "Avis B", 4);
+    private final Review c = new Review(3, "C", "pic", "Avis C", 3);
+    private final Review d = new Review(4, "D", "pic", "Avis D", 2);
+
+    @Test
+    public void prepend_newestFirst() {
+        ReviewList list = ReviewList.of(Arrays.asList(c, d)).prepend(b).prepend(a);
+
+        assertEquals(Arrays.asList(a, b, c, d), list);
+        assertEquals(4, list.size());
+    }
+
+    @Test
+    public void prepend_leavesPreviousSnapshotsUnchanged() {
+        ReviewList first = ReviewList.empty().prepend(a);
+        ReviewList second = first.prepend(b);
+        //Une branche créée depuis une ancienne copie ne doit pas écraser la suivante
+        ReviewList branch = first.prepend(c);
+
+        assertEquals(Arrays.asList(a), first);
+        assertEquals(Arrays.asList(b, a), second);
+        assertEquals(Arrays.asList(c, a), branch);
+    }
+
+    @Test
+    public void prepend_growsPastInitialCapacity() {
+        ReviewList list = ReviewList.empty();
+        for (int i = 0; i < 100; i++) {
+            list = list.prepend(new Review(i, "U", "pic", "Avis", 1 + i % 5));
+        }
+
+        assertEquals(100, list.size());
+        assertEquals(99, list.get(0).getId());
+        assertEquals(0, list.get(99).getId());
+    }
+
+    @Test
+    public void withOlder_keepsPrependedReviews() {
+        ReviewList list = ReviewList.of(Arrays.asList(c)).prepend(a);
+        List<Review> refreshed = Arrays.asList(b, c, d);
+
+        ReviewList updated = list.withOlder(refreshed);
+
+        assertEquals(Arrays.asList(a, b, c, d), updated);
+        assertSame(refreshed, updated.getOlder());
+        assertEquals(Arrays.asList(a), updated.getPrepended());
+        assertEquals(Arrays.asList(a, c), list);
+    }
+
+    @Test
+    public void idAtAndAuthorAt_readColumnarParts() {
+        ColumnarReviewList columns = ColumnarReviewList.of(Arrays.asList(b, c));
+        ReviewList list = ReviewList.of(ConcatenatedReviewList.of(Arrays.asList(d), columns)).prepend(a);
+
+        //Les ids et les auteurs sont ceux des avis, à chaque position
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(list.get(i).getId(), list.idAt(i));
+            assertEquals(list.get(i).getAuthor(), list.authorAt(i));
+        }
+        //Dans les colonnes, l'auteur est celui du registre, sans recréer l'avis
+        assertSame(columns.getRegistry().get(columns.authorIdAt(1)), list.authorAt(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.idAt(4));
+    }
+
+    @Test
+    public void isImmutable() {
+        ReviewList list = ReviewList.empty().prepend(a);
+
+        assertThrows(UnsupportedOperationException.class, () -> list.add(b));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(1));
+    }
+}
@@ -0,0 +1,217 @@
+package com.openclassrooms.tajmahal.domain.review;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class SubmitReviewUseCaseTest {
+
+    private static final long RESTAURANT_ID = 1;
+
+    // Exécuteur déterministe : les envois ne s'exécutent que quand le test le décide
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private final Executor executor = tasks::add;
+
+    // Enregistre les avis une seule fois par id, comme le repository
+    private final List<Review> saved = new ArrayList<>();
+    private final Set<Long> savedIds = new HashSet<>();
+    private int saveCalls;
+    private boolean failNextSave;
+
+    private SubmitReviewUseCase useCase;
+
+    @Before
+    public void setup() {
+        ReviewWriter writer = (restaurantId, review) -> {
+            saveCalls++;
+            if (failNextSave) {
+                failNextSave = false;
+                throw new IOException("disk full");
+            }
+            if (!savedIds.add(review.getId())) return false;
+            saved.add(review);
+            return true;
+        };
+        useCase = new SubmitReviewUseCase(writer, executor, () -> 42L);
+    }
+
+    @Test
+    public void submit_runsOnExecutor() {
+        CompletableFuture<SubmitResult> result = useCase.submit(RESTAURANT_ID, draft(1, "  Très bon  ", 5));
+
+        //Rien n'est fait sur le thread appelant
+        assertFalse(result.isDone());
+        assertEquals(0, saveCalls);
+
+        runAll();
+        assertEquals(SubmitResult.Status.ACCEPTED, result.join().getStatus());
+        //Le commentaire est enregistré sans les espaces autour
+        assertEquals("Très bon", saved.get(0).getComment());
+        assertEquals(1, saved.get(0).getId());
+        assertEquals(42L, saved.get(0).getCreatedAt());
+    }
+
+    @Test
+    public void submit_doubleTapSavesOnce() {
+        ReviewDraft draft = draft(1, "Très bon", 5);
+
+        CompletableFuture<SubmitResult> first = useCase.submit(RESTAURANT_ID, draft);
+        CompletableFuture<SubmitResult> second = useCase.submit(RESTAURANT_ID, draft);
+        runAll();
+
+        assertSame(first, second);
+        assertEquals(1, saveCalls);
+        assertEquals(1, saved.size());
+        //Un envoi terminé est oublié
+        assertEquals(0, useCase.runningCount());
+
+        //Un nouvel envoi est écarté par le writer, sans doublon
+        CompletableFuture<SubmitResult> third = useCase.submit(RESTAURANT_ID, draft);
+        runAll();
+        assertEquals(SubmitResult.Status.ALREADY_SUBMITTED, third.join().getStatus());
+        assertEquals(1, saved.size());
+        assertEquals(0, useCase.runningCount());
+    }
+
+    @Test
+    public void submit_otherDraftRightAfterSave() {
+        ReviewDraft first = ReviewDraft.of(null, "Manon Garcia", "profile_picture", "Très bon", 5);
+        CompletableFuture<SubmitResult> saving = useCase.submit(RESTAURANT_ID, first);
+
+        //Un autre avis est saisi avant même la fin de l'enregistrement du premier
+        ReviewDraft second = ReviewDraft.of(first, "Manon Garcia", "profile_picture", "Encore mieux", 4);
+        CompletableFuture<SubmitResult> next = useCase.submit(RESTAURANT_ID, second);
+        runAll();
+
+        assertNotEquals(first.getId(), second.getId());
+        assertEquals(SubmitResult.Status.ACCEPTED, saving.join().getStatus());
+        assertEquals(SubmitResult.Status.ACCEPTED, next.join().getStatus());
+        assertEquals(2, saved.size());
+
+        //Puis un troisième juste après l'enregistrement, une fois le formulaire remis à zéro,
+        //même avec le même texte
+        ReviewDraft third = ReviewDraft.of(null, "Manon Garcia", "profile_picture", "Encore mieux", 4);
+        CompletableFuture<SubmitResult> last = useCase.submit(RESTAURANT_ID, third);
+        runAll();
+        assertEquals(SubmitResult.Status.ACCEPTED, last.join().getStatus());
+        assertEquals(3, saved.size());
+    }
+
+    @Test
+    public void draft_keepsIdWhileContentUnchanged() {
+        ReviewDraft draft = ReviewDraft.of(null, "Manon Garcia", "profile_picture", "Très bon", 5);
+
+        //Un nouvel essai de la même saisie garde le même id
+        assertSame(draft, ReviewDraft.of(draft, "Manon Garcia", "profile_picture", "Très bon", 5));
+        //Le texte ou la note changent : nouvel id
+        assertNotEquals(draft.getId(), ReviewDraft.of(draft, "Manon Garcia", "profile_picture", "Très bon !", 5).getId());
+        assertNotEquals(draft.getId(), ReviewDraft.of(draft, "Manon Garcia", "profile_picture", "Très bon", 4).getId());
+    }
+
+    @Test
+    public void submit_retryAfterFailure() {
+        ReviewDraft draft = draft(1, "Très bon", 5);
+        failNextSave = true;
+
+        CompletableFuture<SubmitResult> failed = useCase.submit(RESTAURANT_ID, draft);
+        runAll();
+        assertEquals(SubmitResult.Status.FAILED, failed.join().getStatus());
+        assertEquals("disk full", failed.join().getError().getMessage());
+        assertTrue(saved.isEmpty());
+
+        //Un nouvel essai du même brouillon l'enregistre
+        CompletableFuture<SubmitResult> retried = useCase.submit(RESTAURANT_ID, draft);
+        runAll();
+        assertTrue(retried.join().isSaved());
+        assertEquals(1, saved.size());
+    }
+
+    @Test
+    public void submit_alreadySavedByWriter() {
+        //Un autre cas d'utilisation, comme après un redémarrage, envoie le même id
+        useCase.submit(RESTAURANT_ID, draft(1, "Très bon", 5));
+        runAll();
+        SubmitReviewUseCase restarted = new SubmitReviewUseCase((restaurantId, review) -> !savedIds.contains(review.getId()),
+                executor, () -> 43L);
+
+        CompletableFuture<SubmitResult> result = restarted.submit(RESTAURANT_ID, draft(1, "Très bon", 5));
+        runAll();
+
+        assertEquals(SubmitResult.Status.ALREADY_SUBMITTED, result.join().getStatus());
+        assertTrue(result.join().isSaved());
+        assertEquals(1, saved.size());
+    }
+
+    @Test
+    public void submit_invalidThenFixed() {
+        CompletableFuture<SubmitResult> invalid = useCase.submit(RESTAURANT_ID, draft(1, "   ", 5));
+        runAll();
+        assertEquals(SubmitResult.Status.INVALID, invalid.join().getStatus());
+        assertEquals(SubmitResult.Problem.EMPTY_COMMENT, invalid.join().getProblem());
+        assertEquals(0, saveCalls);
+
+        //Le brouillon corrigé garde son id et est enregistré
+        CompletableFuture<SubmitResult> fixed = useCase.submit(RESTAURANT_ID, draft(1, "Très bon", 5));
+        runAll();
+        assertEquals(SubmitResult.Status.ACCEPTED, fixed.join().getStatus());
+    }
+
+    // ========================================================
+    // Règles de validation
+    // ========================================================
+
+    @Test
+    public void validate_rate() {
+        assertNull(SubmitReviewUseCase.validate(draft(1, "Commentaire", 1)));
+        assertNull(SubmitReviewUseCase.validate(draft(1, "Commentaire", 5)));
+        assertEquals(SubmitResult.Problem.INVALID_RATE, SubmitReviewUseCase.validate(draft(1, "Commentaire", 0)));
+        assertEquals(SubmitResult.Problem.INVALID_RATE, SubmitReviewUseCase.validate(draft(1, "Commentaire", 6)));
+    }
+
+    @Test
+    public void validate_comment() {
+        assertEquals(SubmitResult.Problem.EMPTY_COMMENT, SubmitReviewUseCase.validate(draft(1, null, 4)));
+        assertEquals(SubmitResult.Problem.EMPTY_COMMENT, SubmitReviewUseCase.validate(draft(1, "", 4)));
+        assertEquals(SubmitResult.Problem.EMPTY_COMMENT, SubmitReviewUseCase.validate(draft(1, " \n\t ", 4)));
+
+        //La longueur est comptée sans les espaces autour
+        String longest = repeat('a', SubmitReviewUseCase.MAX_COMMENT_LENGTH);
+        assertNull(SubmitReviewUseCase.validate(draft(1, "  " + longest + "  ", 4)));
+        assertEquals(SubmitResult.Problem.COMMENT_TOO_LONG, SubmitReviewUseCase.validate(draft(1, longest + "a", 4)));
+    }
+
+    @Test
+    public void validate_username() {
+        ReviewDraft noName = new ReviewDraft(1, " ", "pic", "Commentaire", 4);
+
+        assertEquals(SubmitResult.Problem.EMPTY_USERNAME, SubmitReviewUseCase.validate(noName));
+    }
+
+    private static ReviewDraft draft(long id, String comment, int rate) {
+        return new ReviewDraft(id, "Manon Garcia", "profile_picture", comment, rate);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) builder.append(c);
+        return builder.toString();
+    }
+
+    private void runAll() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) task.run();
+    }
+}
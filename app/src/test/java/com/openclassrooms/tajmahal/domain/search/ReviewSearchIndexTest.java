@@ -0,0 +1,102 @@
+package com.openclassrooms.tajmahal.domain.search;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReviewSearchIndexTest {
+
+    private final Review curry = new Review(1, "A", "pic", "Le curry était très épicé !", 4);
+    private final Review service = new Review(2, "B", "pic", "Service rapide, plats délicieux", 3);
+    private final Review attente = new Review(3, "C", "pic", "L'attente était longue mais le service parfait", 5);
+    private final Review dessert = new Review(4, "D", "pic", "Desserts décevants", 1);
+
+    private ReviewSearchIndex newIndex() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        index.addAll(Arrays.asList(curry, service, attente, dessert));
+        return index;
+    }
+
+    @Test
+    public void search_ignoresAccentsCaseElisionAndPlural() {
+        ReviewSearchIndex index = newIndex();
+
+        assertEquals(Arrays.asList(curry), index.search("EPICE", 0, 10).getReviews());
+        //"L'attente" est indexé comme "attente"
+        assertEquals(Arrays.asList(attente), index.search("attente", 0, 10).getReviews());
+        assertEquals(Arrays.asList(service), index.search("plat délicieux", 0, 10).getReviews());
+        assertEquals(Arrays.asList(dessert), index.search("dessert", 0, 10).getReviews());
+    }
+
+    @Test
+    public void search_allWordsMustMatch() {
+        ReviewSearchIndex index = newIndex();
+
+        assertEquals(Arrays.asList(service), index.search("service rapide", 0, 10).getReviews());
+        assertEquals(0, index.search("curry dessert", 0, 10).getTotalCount());
+        //Une requête faite uniquement de mots vides ne trouve rien
+        assertEquals(0, index.search("le et la", 0, 10).getTotalCount());
+    }
+
+    @Test
+    public void search_prefixAndTieBrokenByRate() {
+        ReviewSearchIndex index = newIndex();
+        Review poor = new Review(5, "E", "pic", "Serveur distrait", 2);
+        Review good = new Review(6, "F", "pic", "Serveuse adorable", 5);
+        index.addAll(Arrays.asList(poor, good));
+
+        assertEquals(Arrays.asList(dessert), index.search("déc*", 0, 10).getReviews());
+        assertEquals(4, index.search("serv*", 0, 10).getTotalCount());
+        //Même pertinence : l'avis le mieux noté passe en premier
+        assertEquals(Arrays.asList(good, poor), index.search("serveu*", 0, 10).getReviews());
+    }
+
+    @Test
+    public void search_paginates() {
+        ReviewSearchIndex index = new ReviewSearchIndex();
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            reviews.add(new Review(i, "U", "pic", "Bon naan", 1 + i % 5));
+        }
+        index.addAll(reviews);
+
+        List<Review> seen = new ArrayList<>();
+        int cursor = 0;
+        while (cursor != ReviewPage.END) {
+            ReviewPage page = index.search("naan", cursor, 10);
+            assertEquals(25, page.getTotalCount());
+            seen.addAll(page.getReviews());
+            cursor = page.getNextCursor();
+        }
+
+        assertEquals(25, seen.size());
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1).getRate() >= seen.get(i).getRate());
+        }
+    }
+
+    @Test
+    public void addAndRemove_updateResults() {
+        ReviewSearchIndex index = newIndex();
+        Review another = new Review(5, "E", "pic", "Encore un curry parfait", 5);
+
+        index.add(another);
+        assertEquals(2, index.search("curry", 0, 10).getTotalCount());
+
+        assertTrue(index.remove(curry.getId()));
+        assertEquals(Arrays.asList(another), index.search("curry", 0, 10).getReviews());
+        assertFalse(index.remove(curry.getId()));
+
+        //Un avis modifié remplace l'ancien
+        index.add(new Review(5, "E", "pic", "Finalement trop salé", 2));
+        assertEquals(0, index.search("curry", 0, 10).getTotalCount());
+        assertEquals(4, index.size());
+    }
+}
@@ -0,0 +1,108 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReviewStatsAggregatorTest {
+
+    private ReviewStatsAggregator aggregator;
+
+    @Before
+    public void setup() {
+        aggregator = new ReviewStatsAggregator();
+        aggregator.seed(Arrays.asList(
+                new Review("A", "pic", "Avis A", 5),
+                new Review("B", "pic", "Avis B", 4),
+                new Review("C", "pic", "Avis C", 5),
+                new Review("D", "pic", "Avis D", 2)
+        ));
+    }
+
+    @Test
+    public void seed_computesStats() {
+        ReviewStats stats = aggregator.getStats();
+
+        assertEquals(4, stats.getTotalReviews());
+        assertEquals(4.0, stats.getAverage(), 0.0001);
+        assertEquals(2, stats.getCount(4));
+        assertEquals(50, stats.getPercentage(4));
+        assertEquals(25, stats.getPercentage(1));
+    }
+
+    @Test
+    public void seed_onlyAppliedOnce() {
+        //Un deuxième appel ne doit pas compter les avis deux fois
+        assertFalse(aggregator.seed(Arrays.asList(new Review("E", "pic", "Avis E", 1))));
+        assertEquals(4, aggregator.getStats().getTotalReviews());
+    }
+
+    @Test
+    public void addEditRemove_updateStatsIncrementally() {
+        aggregator.onReviewAdded(1);
+        assertEquals(5, aggregator.getStats().getTotalReviews());
+        assertEquals(3.4, aggregator.getStats().getAverage(), 0.0001);
+
+        aggregator.onReviewEdited(1, 3);
+        assertEquals(0, aggregator.getStats().getCount(0));
+        assertEquals(1, aggregator.getStats().getCount(2));
+
+        aggregator.onReviewRemoved(3);
+        assertEquals(4, aggregator.getStats().getTotalReviews());
+        assertEquals(4.0, aggregator.getStats().getAverage(), 0.0001);
+    }
+
+    @Test
+    public void invalidRate_ignored() {
+        aggregator.onReviewAdded(6);
+        aggregator.onReviewAdded(0);
+
+        assertEquals(4, aggregator.getStats().getTotalReviews());
+    }
+
+    @Test
+    public void listener_receivesEachSnapshot() {
+        List<ReviewStats> received = new ArrayList<>();
+        aggregator.addListener(received::add);
+
+        aggregator.onReviewAdded(3);
+        aggregator.onReviewAdded(4);
+
+        assertEquals(2, received.size());
+        assertEquals(6, received.get(1).getTotalReviews());
+        //Les snapshots déjà publiés ne changent pas
+        assertEquals(5, received.get(0).getTotalReviews());
+    }
+
+    @Test
+    public void reseed_replacesCountersWithSummary() {
+        long now = 100 * ReviewTimeline.DAY_MILLIS;
+        ReviewStatsAggregator server = new ReviewStatsAggregator();
+        server.seed(Arrays.asList(
+                new Review(1, "A", "pic", "Avis A", 1, now),
+                new Review(2, "B", "pic", "Avis B", 3, now - 40 * ReviewTimeline.DAY_MILLIS)
+        ));
+        List<ReviewStats> received = new ArrayList<>();
+        aggregator.addListener(received::add);
+
+        //Le résumé remplace les compteurs, les avis locaux s'y ajoutent, en une seule publication
+        aggregator.reseed(server.getSummary(), Arrays.asList(new Review(3, "C", "pic", "Avis C", 5, now)));
+        assertEquals(1, received.size());
+        assertEquals(3, aggregator.getStats().getTotalReviews());
+        assertEquals(3.0, aggregator.getStats().getAverage(), 0.0001);
+        assertEquals(2, aggregator.getAnalytics(now).getLast30Days().getTotalReviews());
+
+        //Le résumé ne suit pas l'agrégateur reseedé
+        aggregator.onReviewAdded(new Review(4, "D", "pic", "Avis D", 2, now));
+        assertEquals(2, server.getStats().getTotalReviews());
+        assertEquals(2, server.getSummary().getStats().getTotalReviews());
+    }
+}
@@ -0,0 +1,68 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ReviewStatsCalculatorTest {
+
+    private static List<Review> reviews(int count) {
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            //Quelques notes hors de l'intervalle 1 à 5 qui doivent être ignorées
+            reviews.add(new Review(i, "U", "pic", "Avis", i % 7));
+        }
+        return reviews;
+    }
+
+    @Test
+    public void parallel_matchesSequential() {
+        List<Review> reviews = reviews(3 * ReviewStatsCalculator.LEAF_SIZE + 17);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ReviewStats sequential = ReviewStatsCalculator.sequential(reviews).toStats();
+
+            assertEquals(sequential, ReviewStatsCalculator.parallel(reviews, pool).toStats());
+            assertEquals(sequential, ReviewStatsCalculator.parallel(ColumnarReviewList.of(reviews), pool).toStats());
+            assertEquals(sequential, ReviewStatsCalculator.compute(reviews));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void computeAll_mergesEverySet() {
+        List<Review> all = reviews(ReviewStatsCalculator.PARALLEL_THRESHOLD + 1000);
+        List<List<Review>> sets = Arrays.asList(
+                all.subList(0, 10),
+                new LinkedList<>(all.subList(10, 2000)),
+                ColumnarReviewList.of(all.subList(2000, all.size())),
+                new ArrayList<>());
+
+        assertEquals(ReviewStatsCalculator.compute(all), ReviewStatsCalculator.computeAll(sets));
+    }
+
+    @Test
+    public void merge_isAssociative() {
+        List<Review> reviews = reviews(100);
+        RateHistogram a = ReviewStatsCalculator.sequential(reviews.subList(0, 30));
+        RateHistogram b = ReviewStatsCalculator.sequential(reviews.subList(30, 70));
+        RateHistogram c = ReviewStatsCalculator.sequential(reviews.subList(70, 100));
+        ReviewStats expected = ReviewStatsCalculator.compute(reviews);
+
+        //(a + b) + c == a + (b + c), dans un ordre quelconque
+        assertEquals(expected, new RateHistogram().merge(a).merge(b).merge(c).toStats());
+        assertEquals(expected, new RateHistogram().merge(c).merge(new RateHistogram().merge(b).merge(a)).toStats());
+        assertEquals(71, expected.getTotalReviews());
+    }
+}
@@ -0,0 +1,97 @@
+package com.openclassrooms.tajmahal.domain.stats;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewAnalytics;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ReviewTimelineTest {
+
+    private static final long DAY = ReviewTimeline.DAY_MILLIS;
+    private static final long NOW = 20_000 * DAY + 12 * 60 * 60 * 1000;
+
+    private final ReviewTimeline timeline = new ReviewTimeline();
+
+    @Test
+    public void window_onlyCountsRecentReviews() {
+        timeline.onReviewAdded(5, NOW - DAY);
+        timeline.onReviewAdded(4, NOW - 10 * DAY);
+        timeline.onReviewAdded(2, NOW - 60 * DAY);
+        timeline.onReviewAdded(1, NOW - 200 * DAY);
+        //Un avis sans date n'apparaît dans aucune fenêtre
+        timeline.onReviewAdded(3, Review.UNKNOWN_TIME);
+
+        ReviewStats last30 = timeline.window(30, NOW);
+        assertEquals(2, last30.getTotalReviews());
+        assertEquals(4.5, last30.getAverage(), 0.0001);
+
+        ReviewStats last90 = timeline.window(90, NOW);
+        assertEquals(3, last90.getTotalReviews());
+        assertEquals(1, last90.getCount(1));
+    }
+
+    @Test
+    public void window_forgetsDaysLeavingTheBuffer() {
+        timeline.onReviewAdded(1, NOW - 80 * DAY);
+        timeline.onReviewAdded(5, NOW);
+        assertEquals(2, timeline.window(90, NOW).getTotalReviews());
+
+        //Cent jours plus tard, le premier avis est sorti du tampon circulaire
+        timeline.onReviewAdded(5, NOW + 20 * DAY);
+        ReviewStats last90 = timeline.window(90, NOW + 20 * DAY);
+        assertEquals(2, last90.getTotalReviews());
+        assertEquals(0, last90.getCount(0));
+
+        timeline.onReviewRemoved(5, NOW);
+        assertEquals(1, timeline.window(90, NOW + 20 * DAY).getTotalReviews());
+    }
+
+    @Test
+    public void weightedAverage_favoursRecentReviews() {
+        timeline.onReviewAdded(1, NOW - 365 * DAY);
+        timeline.onReviewAdded(5, NOW);
+
+        //La moyenne simple serait 3, l'avis récent pèse beaucoup plus
+        assertTrue(timeline.getWeightedAverage() > 4.9);
+
+        timeline.onReviewRemoved(5, NOW);
+        assertEquals(1.0, timeline.getWeightedAverage(), 0.0001);
+    }
+
+    @Test
+    public void aggregator_seedsAnalyticsFromTimedReviews() {
+        List<Review> reviews = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            reviews.add(new Review(i, "U", "pic", "Avis", 1 + i % 5, NOW - i * DAY));
+        }
+        ReviewStatsAggregator aggregator = new ReviewStatsAggregator();
+        aggregator.seed(reviews);
+        aggregator.onReviewAdded(new Review(200, "U", "pic", "Nouvel avis", 5, NOW));
+
+        ReviewAnalytics analytics = aggregator.getAnalytics(NOW);
+        assertEquals(121, analytics.getLifetime().getTotalReviews());
+        assertEquals(31, analytics.getLast30Days().getTotalReviews());
+        assertEquals(91, analytics.getLast90Days().getTotalReviews());
+    }
+
+    @Test
+    public void percentages_alwaysSumTo100() {
+        //Trois tiers arrondis à l'inférieur ne feraient que 99 %
+        ReviewStats stats = new ReviewStats(new int[]{1, 1, 1, 0, 0}, 6);
+        int total = 0;
+        for (int i = 0; i < ReviewStats.STAR_COUNT; i++) total += stats.getPercentage(i);
+        assertEquals(100, total);
+        assertEquals(34, stats.getPercentage(2));
+        assertEquals(33, stats.getPercentage(0));
+
+        ReviewStats skewed = new ReviewStats(new int[]{1, 0, 0, 5, 994}, 0);
+        assertEquals(0, skewed.getPercentage(0) + skewed.getPercentage(1) + skewed.getPercentage(2)
+                + skewed.getPercentage(3) + skewed.getPercentage(4) - 100);
+    }
+}
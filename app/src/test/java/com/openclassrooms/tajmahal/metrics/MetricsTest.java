@@ -0,0 +1,157 @@
+package com.openclassrooms.tajmahal.metrics;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Test
+    public void histogram_bucketsAndPercentiles() {
+        Metrics metrics = new Metrics(true, Tracer.NONE);
+        Histogram histogram = metrics.histogram("test");
+        //90 durations de 500 ns, 9 de 3 µs et une de 1 ms
+        for (int i = 0; i < 90; i++) histogram.record(500);
+        for (int i = 0; i < 9; i++) histogram.record(3_000);
+        histogram.record(1_000_000);
+
+        Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(90, snapshot.getBucketCount(0));
+        //3 µs est entre 2048 et 4096 ns
+        assertEquals(9, snapshot.getBucketCount(2));
+        assertEquals(1024, snapshot.getPercentileNanos(0.5));
+        assertEquals(4096, snapshot.getPercentileNanos(0.99));
+        //La plus longue durée borne le dernier percentile
+        assertEquals(1_000_000, snapshot.getPercentileNanos(1.0));
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertEquals((90 * 500 + 9 * 3_000 + 1_000_000) / 100, snapshot.getMeanNanos());
+        //Les durées démesurées vont dans le dernier seau
+        assertEquals(Histogram.BUCKET_COUNT - 1, Histogram.bucketOf(Long.MAX_VALUE));
+        assertSame(histogram, metrics.histogram("test"));
+    }
+
+    @Test
+    public void recording_isThreadSafe() throws InterruptedException {
+        Metrics metrics = new Metrics(true, Tracer.NONE);
+        Counter counter = metrics.counter("events");
+        Histogram histogram = metrics.histogram("latency");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    counter.increment();
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        //Aucun enregistrement perdu sans verrou
+        assertEquals(400_000, counter.get());
+        assertEquals(400_000, histogram.snapshot().getCount());
+        assertEquals(99_999, histogram.snapshot().getMaxNanos());
+    }
+
+    @Test
+    public void sections_tracedAndTimed() {
+        RecordingTracer tracer = new RecordingTracer();
+        Metrics metrics = new Metrics(true, tracer);
+        Histogram histogram = metrics.histogram("review.bind");
+
+        long start = metrics.beginSection(histogram);
+        metrics.endSection(histogram, start);
+
+        assertEquals("review.bind", tracer.names.get(0));
+        assertEquals(1, tracer.ended);
+        assertEquals(1, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void writeJson_dumpsEveryMetric() throws IOException {
+        Metrics metrics = new Metrics(true, Tracer.NONE);
+        metrics.counter("cache.hit").add(3);
+        metrics.histogram("restaurant.load").record(2_000);
+        File file = new File(Files.createTempDirectory("metrics").toFile(), "metrics.json");
+
+        metrics.writeJson(file);
+
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"cache.hit\": 3"));
+        assertTrue(json.contains("\"restaurant.load\": {\"count\": 1, \"meanNanos\": 2000, \"p50Nanos\": 2000"));
+        assertEquals(3, metrics.snapshot().getCounters().get("cache.hit").longValue());
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        RecordingTracer tracer = new RecordingTracer();
+        Metrics metrics = new Metrics(false, tracer);
+        Counter counter = metrics.counter("events");
+        Histogram histogram = metrics.histogram("latency");
+
+        counter.increment();
+        histogram.record(1_000);
+        metrics.endSection(histogram, metrics.beginSection(histogram));
+
+        //Les mêmes instances partagées, rien d'enregistré ni de tracé
+        assertSame(Metrics.DISABLED.counter("other"), counter);
+        assertSame(Metrics.DISABLED.histogram("other"), histogram);
+        assertEquals(0, counter.get());
+        assertEquals(0, histogram.snapshot().getCount());
+        assertTrue(tracer.names.isEmpty());
+        assertTrue(metrics.snapshot().getCounters().isEmpty());
+        assertTrue(metrics.snapshot().getHistograms().isEmpty());
+    }
+
+    @Test
+    public void disabled_allocatesNothing() {
+        Metrics disabled = Metrics.DISABLED;
+        int iterations = 1_000_000;
+        //Préchauffe pour que le JIT compile le chemin instrumenté
+        for (int i = 0; i < 5; i++) {
+            instrumentedLoop(disabled, iterations);
+        }
+
+        //Désactivées, les mesures n'allouent rien
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        instrumentedLoop(disabled, iterations);
+        assertTrue(threads.getCurrentThreadAllocatedBytes() - allocated < 1024);
+    }
+
+    // Le chemin instrumenté d'un affichage de ligne, sans le travail mesuré
+    private static void instrumentedLoop(Metrics metrics, int iterations) {
+        Histogram histogram = metrics.histogram("loop");
+        Counter counter = metrics.counter("loop");
+        for (int i = 0; i < iterations; i++) {
+            long sectionStart = metrics.beginSection(histogram);
+            counter.increment();
+            metrics.endSection(histogram, sectionStart);
+        }
+    }
+
+    private static class RecordingTracer implements Tracer {
+        final List<String> names = new ArrayList<>();
+        int ended;
+
+        @Override
+        public void beginSection(String name) {
+            names.add(name);
+        }
+
+        @Override
+        public void endSection() {
+            ended++;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+plugins {
+    java
+    id("me.champeau.jmh")
+}
+
+// JVM-only JMH benchmarks of the review model, stats and paging code of the app.
+// The Android-free packages of :app are compiled here as plain Java sources, so the
+// benchmarks measure the very code shipped in the APK without needing a device.
+//
+// Run with: ./gradlew :benchmark:jmh
+// Report:   benchmark/build/reports/jmh/results.json
+
+java {
+    toolchain {
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/openclassrooms/tajmahal/domain/**",
+                "com/openclassrooms/tajmahal/data/service/**"
+            )
+        }
+    }
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    timeOnIteration.set("1s")
+    warmup.set("1s")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    // Narrow a run with -PjmhInclude=ReviewStats
+    (findProperty("jmhInclude") as String?)?.let { includes.set(listOf(it)) }
+}
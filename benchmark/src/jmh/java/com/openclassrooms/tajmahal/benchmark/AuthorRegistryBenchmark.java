@@ -0,0 +1,103 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.service.SyntheticReviewGenerator;
+import com.openclassrooms.tajmahal.domain.model.Author;
+import com.openclassrooms.tajmahal.domain.model.AuthorRegistry;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the heap saved by the {@link AuthorRegistry}, and the cost of interning an author.
+ * <p>
+ * Once per trial, the usernames and pictures of the synthetic data set are retained twice: once
+ * as a copy of both strings per review, as each review held them before the registry, and once
+ * as an author id per review over a registry. The retained heap of each is printed. The
+ * benchmarks then time the lookup done for each review built from strings, and the one skipped
+ * when the author is already known.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AuthorRegistryBenchmark {
+
+    @Param({"1000000"})
+    public int reviewCount;
+
+    private String[] usernames;
+    private String[] pictures;
+    private AuthorRegistry registry;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticReviewGenerator generator = new SyntheticReviewGenerator(reviewCount, 1, 0, Reviews.NEWEST_TIME);
+        Runtime runtime = Runtime.getRuntime();
+
+        long before = usedHeap(runtime);
+        usernames = new String[reviewCount];
+        pictures = new String[reviewCount];
+        for (int i = 0; i < reviewCount; i++) {
+            Review review = generator.get(i);
+            usernames[i] = copy(review.getUsername());
+            pictures[i] = copy(review.getPicture());
+        }
+        long strings = usedHeap(runtime) - before;
+
+        registry = new AuthorRegistry();
+        int[] authorIds = new int[reviewCount];
+        for (int i = 0; i < reviewCount; i++) {
+            authorIds[i] = registry.intern(usernames[i], pictures[i]).getId();
+        }
+        long interned = usedHeap(runtime) - before - strings;
+
+        System.out.printf("%n%d reviews: strings per review ~%d KiB, author ids ~%d KiB "
+                        + "(%d authors, %d avatars), saved ~%d KiB%n",
+                reviewCount, strings / 1024, interned / 1024, registry.size(), registry.avatarCount(),
+                (strings - interned) / 1024);
+        // Keeps the ids alive until the measure above
+        if (authorIds[reviewCount - 1] < 0) throw new AssertionError();
+    }
+
+    /**
+     * The lookup of a review built from strings, such as a review received from the API.
+     */
+    @Benchmark
+    public Author intern() {
+        int i = next;
+        next = i + 1 == reviewCount ? 0 : i + 1;
+        return registry.intern(usernames[i], pictures[i]);
+    }
+
+    /**
+     * The lookup of the author of a materialized columnar review, by id.
+     */
+    @Benchmark
+    public Author get() {
+        int i = next;
+        next = i + 1 == reviewCount ? 0 : i + 1;
+        return registry.get(i % registry.size());
+    }
+
+    // A string of its own, as each review used to hold: new String(String) would share the bytes
+    private static String copy(String value) {
+        return new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
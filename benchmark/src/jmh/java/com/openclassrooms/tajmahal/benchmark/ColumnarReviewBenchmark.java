@@ -0,0 +1,71 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the columnar storage of the reviews with a list of objects: the cost of building the
+ * columns and of materializing a screen of reviews from them. Run with {@code -prof gc} to compare
+ * the allocations; the retained heap of each layout is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColumnarReviewBenchmark {
+
+    private static final int SCREEN_SIZE = 10;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int reviewCount;
+
+    private List<Review> reviews;
+    private ColumnarReviewList columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Runtime runtime = Runtime.getRuntime();
+        long before = usedHeap(runtime);
+        reviews = Reviews.generate(reviewCount);
+        long objects = usedHeap(runtime) - before;
+        columns = ColumnarReviewList.of(reviews);
+        long columnar = usedHeap(runtime) - before - objects;
+        System.out.printf("%n%d reviews: objects ~%d KiB, columns ~%d KiB%n",
+                reviewCount, objects / 1024, columnar / 1024);
+    }
+
+    @Benchmark
+    public ColumnarReviewList build() {
+        return ColumnarReviewList.of(reviews);
+    }
+
+    /**
+     * The reviews bound by the adapter for one screen, in the middle of the list.
+     */
+    @Benchmark
+    public int materializeScreen() {
+        int hash = 0;
+        int first = reviewCount / 2;
+        for (int i = first; i < Math.min(reviewCount, first + SCREEN_SIZE); i++) {
+            hash += columns.get(i).getComment().length();
+        }
+        return hash;
+    }
+
+    private static long usedHeap(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
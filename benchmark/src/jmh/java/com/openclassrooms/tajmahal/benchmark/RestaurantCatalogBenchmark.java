@@ -0,0 +1,93 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.catalog.RestaurantCatalog;
+import com.openclassrooms.tajmahal.domain.hours.OpeningHours;
+import com.openclassrooms.tajmahal.domain.model.Restaurant;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the indexed queries of the {@link RestaurantCatalog} with a scan of the chain,
+ * including the "open now" filter over the parsed opening hours.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RestaurantCatalogBenchmark {
+
+    private static final RestaurantCatalog.Filter FILTER = RestaurantCatalog.Filter.ANY.type("Népalais").dineIn(true);
+
+    // Monday, 12h00
+    private static final RestaurantCatalog.Filter OPEN_AT_NOON = RestaurantCatalog.Filter.ANY.openAt(12 * 60);
+
+    @Param({"10", "1000", "100000"})
+    public int restaurantCount;
+
+    private List<Restaurant> restaurants;
+    private RestaurantCatalog catalog;
+    private long lastId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        restaurants = new ArrayList<>(new RestaurantFakeApi(restaurantCount, 0).getRestaurants());
+        catalog = new RestaurantCatalog(restaurants);
+        lastId = restaurants.get(restaurantCount - 1).getId();
+    }
+
+    @Benchmark
+    public RestaurantCatalog build() {
+        return new RestaurantCatalog(restaurants);
+    }
+
+    @Benchmark
+    public Restaurant getById() {
+        return catalog.get(lastId);
+    }
+
+    @Benchmark
+    public List<Restaurant> findIndexed() {
+        return catalog.find(FILTER);
+    }
+
+    @Benchmark
+    public List<Restaurant> findByScan() {
+        List<Restaurant> result = new ArrayList<>();
+        for (Restaurant restaurant : restaurants) {
+            if ("Népalais".equalsIgnoreCase(restaurant.getType()) && restaurant.isDineIn()) result.add(restaurant);
+        }
+        return result;
+    }
+
+    /**
+     * "Open now" over the whole chain: one binary search per distinct schedule.
+     */
+    @Benchmark
+    public int countOpenNow() {
+        return catalog.count(OPEN_AT_NOON);
+    }
+
+    /**
+     * "Open now" by parsing the hours of every restaurant, as the display strings required.
+     */
+    @Benchmark
+    public int countOpenNowByParsing() {
+        int count = 0;
+        for (Restaurant restaurant : restaurants) {
+            if (OpeningHours.parse(restaurant.getHours()).isOpenAt(12 * 60)) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Review#equals(Object)} and {@link Review#hashCode()}, alone and as used
+ * by the review store and the cache to compare two versions of the review list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReviewEqualityBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int reviewCount;
+
+    private List<Review> reviews;
+    private List<Review> copies;
+    private Review review;
+    private Review copy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reviews = Reviews.generate(reviewCount);
+        // Equal reviews held by other instances, as after a reload from the cache or the API
+        copies = new ArrayList<>(reviewCount);
+        for (Review r : reviews) {
+            copies.add(new Review(r.getId(), r.getUsername(), r.getPicture(), r.getComment(), r.getRate()));
+        }
+        review = reviews.get(0);
+        copy = copies.get(0);
+    }
+
+    @Benchmark
+    public boolean equalsSingle() {
+        return review.equals(copy);
+    }
+
+    @Benchmark
+    public int hashCodeSingle() {
+        return copy.hashCode();
+    }
+
+    /**
+     * Compares a refreshed list with the cached one, as done before rewriting the cache.
+     */
+    @Benchmark
+    public boolean equalsList() {
+        return reviews.equals(copies);
+    }
+
+    /**
+     * Builds the multiset of the reviews, the first step of the review store's diff.
+     */
+    @Benchmark
+    public Map<Review, Integer> hashMultiset() {
+        Map<Review, Integer> counts = new HashMap<>();
+        for (Review r : copies) counts.merge(r, 1, Integer::sum);
+        return counts;
+    }
+}
@@ -0,0 +1,73 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of adding a review at the top of the list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReviewInsertionBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int reviewCount;
+
+    private List<Review> reviews;
+    private ReviewList persistent;
+    private Review newReview;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reviews = Reviews.generate(reviewCount);
+        persistent = ReviewList.of(Collections.unmodifiableList(new ArrayList<>(reviews)));
+        newReview = new Review(0, "Ranjit Singh", "profile_picture", "Très bon restaurant Indien ! Je recommande.", 5);
+    }
+
+    /**
+     * In-place insertion of the original {@code ReviewViewModel.addReview}. The review is
+     * removed again to keep the list size constant, so the score covers two shifts.
+     */
+    @Benchmark
+    public Review insertAtHeadInPlace() {
+        reviews.add(0, newReview);
+        return reviews.remove(0);
+    }
+
+    /**
+     * Copy-on-write insertion, which publishes a new immutable snapshot by copying the list.
+     */
+    @Benchmark
+    public List<Review> insertAtHeadCopy() {
+        List<Review> snapshot = new ArrayList<>(reviews.size() + 1);
+        snapshot.add(newReview);
+        snapshot.addAll(reviews);
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * Persistent insertion of the review store: a new immutable snapshot sharing the list.
+     * Each call branches from the same list, the worst case where the prepended reviews are
+     * copied, here a single one.
+     */
+    @Benchmark
+    public List<Review> insertAtHeadPersistent() {
+        return persistent.prepend(newReview);
+    }
+}
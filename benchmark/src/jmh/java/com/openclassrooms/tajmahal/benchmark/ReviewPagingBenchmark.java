@@ -0,0 +1,64 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.service.RestaurantFakeApi;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the paged review API on large data sets: the cost of a page must not depend
+ * on the number of reviews, on the position of the page, nor on the reviews posted to the
+ * restaurant, half of them edits of its reviews and half of them new ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReviewPagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int reviewCount;
+
+    @Param({"0", "100"})
+    public int postedCount;
+
+    private RestaurantFakeApi api;
+    private int lastPageCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        api = new RestaurantFakeApi(reviewCount);
+        List<Review> reviews = api.getReviews(RestaurantFakeApi.TAJ_MAHAL_ID, 0, postedCount / 2 + 1).getReviews();
+        for (int i = 0; i < postedCount; i++) {
+            Review edited = reviews.get(i / 2 % reviews.size());
+            api.postReview(RestaurantFakeApi.TAJ_MAHAL_ID, i % 2 == 0
+                    ? new Review(edited.getId(), edited.getUsername(), edited.getPicture(), "Modifié", 1, edited.getCreatedAt())
+                    : new Review(Long.MAX_VALUE - i, "Nouveau", null, "Nouvel avis", 5, edited.getCreatedAt()));
+        }
+        int total = api.getReviews(RestaurantFakeApi.TAJ_MAHAL_ID, 0, PAGE_SIZE).getTotalCount();
+        lastPageCursor = Math.max(0, total - PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ReviewPage firstPage() {
+        return api.getReviews(RestaurantFakeApi.TAJ_MAHAL_ID, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ReviewPage lastPage() {
+        return api.getReviews(RestaurantFakeApi.TAJ_MAHAL_ID, lastPageCursor, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.ReviewPage;
+import com.openclassrooms.tajmahal.domain.search.ReviewSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the full-text search of the review comments: the lookup of a query, a word, an AND
+ * of two words or a prefix, and the next pages of the same query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReviewSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "500000"})
+    public int reviewCount;
+
+    @Param({"biryani", "curry service", "fromag*"})
+    public String query;
+
+    private ReviewSearchIndex index;
+    private String[] spellings;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new ReviewSearchIndex();
+        index.addAll(Reviews.generate(reviewCount));
+        // Two spellings of the same query, so that every call misses the cache of the last query
+        spellings = new String[]{query, query.toUpperCase(Locale.ROOT)};
+    }
+
+    @Benchmark
+    public ReviewPage firstPage() {
+        next ^= 1;
+        return index.search(spellings[next], 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ReviewPage secondPage() {
+        return index.search(query, PAGE_SIZE, PAGE_SIZE);
+    }
+}
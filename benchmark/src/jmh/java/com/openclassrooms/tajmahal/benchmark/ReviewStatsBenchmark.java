@@ -0,0 +1,112 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.model.ReviewAnalytics;
+import com.openclassrooms.tajmahal.domain.model.ReviewStats;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsAggregator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the full scan of the reviews, as formerly done by {@code DetailsViewModel.loadReviews},
+ * with the {@link ReviewStatsAggregator} seeding once and then updating in O(1), and the seeding
+ * from a list of objects with the seeding from the rate column of a {@link ColumnarReviewList}.
+ * {@link #analytics()} computes the 30 and 90 day windows from the per-day buckets: its cost
+ * should not depend on the number of reviews.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ReviewStatsBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int reviewCount;
+
+    private List<Review> reviews;
+    private ColumnarReviewList columns;
+    private ReviewStatsAggregator seeded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reviews = Reviews.generate(reviewCount);
+        columns = ColumnarReviewList.of(reviews);
+        seeded = new ReviewStatsAggregator();
+        seeded.seed(reviews);
+    }
+
+    /**
+     * The stats computation of the original {@code DetailsViewModel.loadReviews}, run on
+     * every screen load, copied as it was: every rate counts in the average, even outside of
+     * the 1 to 5 range, and the percentages are rounded down.
+     */
+    @Benchmark
+    public void fullScan(Blackhole blackhole) {
+        // Moyenne
+        double average = 0.0;
+        int totalReviews = reviews.size();
+        int[] counts = new int[5];
+
+        if (!reviews.isEmpty()) {
+            int total = 0;
+            for (Review r : reviews) {
+                int rate = r.getRate();
+
+                if (rate >= 1 && rate <= 5) counts[rate - 1]++;
+                total += rate;
+            }
+            average = (double) total / totalReviews;
+        }
+
+        // Progress bars
+        int[] percentages = new int[5];
+        for (int i = 0; i < 5; i++) {
+            percentages[i] = totalReviews == 0 ? 0 : counts[i] * 100 / totalReviews;
+        }
+
+        blackhole.consume(average);
+        blackhole.consume(totalReviews);
+        blackhole.consume(percentages);
+    }
+
+    @Benchmark
+    public ReviewStats seedAggregator() {
+        ReviewStatsAggregator aggregator = new ReviewStatsAggregator();
+        aggregator.seed(reviews);
+        return aggregator.getStats();
+    }
+
+    @Benchmark
+    public ReviewStats seedAggregatorFromColumns() {
+        ReviewStatsAggregator aggregator = new ReviewStatsAggregator();
+        aggregator.seed(columns);
+        return aggregator.getStats();
+    }
+
+    @Benchmark
+    public ReviewAnalytics analytics() {
+        return seeded.getAnalytics(Reviews.NEWEST_TIME);
+    }
+
+    /**
+     * A review added then deleted: two O(1) updates, whatever the number of reviews.
+     */
+    @Benchmark
+    public ReviewStats addAndRemoveReview() {
+        seeded.onReviewAdded(4);
+        seeded.onReviewRemoved(4);
+        return seeded.getStats();
+    }
+}
@@ -0,0 +1,72 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.domain.model.ColumnarReviewList;
+import com.openclassrooms.tajmahal.domain.model.Review;
+import com.openclassrooms.tajmahal.domain.stats.RateHistogram;
+import com.openclassrooms.tajmahal.domain.stats.ReviewStatsCalculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the size from which the fork/join stats computation beats the sequential loop, which sets
+ * {@link ReviewStatsCalculator#PARALLEL_THRESHOLD}. Both are run on lists of objects and on rate
+ * columns, whose sequential loop is much cheaper and thus breaks even later. The result depends
+ * on the number of cores: compare the curves rather than the absolute times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReviewStatsParallelBenchmark {
+
+    @Param({"1000", "10000", "25000", "50000", "100000", "1000000"})
+    public int reviewCount;
+
+    private List<Review> reviews;
+    private ColumnarReviewList columns;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reviews = Reviews.generate(reviewCount);
+        columns = ColumnarReviewList.of(reviews);
+    }
+
+    @Benchmark
+    public RateHistogram sequentialObjects() {
+        return ReviewStatsCalculator.sequential(reviews);
+    }
+
+    @Benchmark
+    public RateHistogram parallelObjects() {
+        return ReviewStatsCalculator.parallel(reviews, ForkJoinPool.commonPool());
+    }
+
+    @Benchmark
+    public RateHistogram sequentialColumns() {
+        return ReviewStatsCalculator.sequential(columns);
+    }
+
+    @Benchmark
+    public RateHistogram parallelColumns() {
+        return ReviewStatsCalculator.parallel(columns, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The path actually taken by the aggregator, switching at the threshold.
+     */
+    @Benchmark
+    public RateHistogram automatic() {
+        return ReviewStatsCalculator.histogram(reviews);
+    }
+}
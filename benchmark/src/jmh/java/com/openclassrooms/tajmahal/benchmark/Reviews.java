@@ -0,0 +1,35 @@
+package com.openclassrooms.tajmahal.benchmark;
+
+import com.openclassrooms.tajmahal.data.service.SyntheticReviewGenerator;
+import com.openclassrooms.tajmahal.domain.model.Review;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the data sets shared by the benchmarks.
+ */
+final class Reviews {
+
+    /** Time of the newest generated review, the others being spread over the year before. */
+    static final long NEWEST_TIME = 1_700_000_000_000L;
+
+    private Reviews() {
+    }
+
+    /**
+     * Materializes a list of deterministic reviews, so every run and every benchmark
+     * works on the same data.
+     *
+     * @param count the number of reviews
+     * @return a new mutable list holding {@code count} reviews
+     */
+    static List<Review> generate(int count) {
+        SyntheticReviewGenerator generator = new SyntheticReviewGenerator(count, 1, 0, NEWEST_TIME);
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reviews.add(generator.get(i));
+        }
+        return reviews;
+    }
+}
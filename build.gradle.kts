@@ -1,6 +1,8 @@
 plugins {
     id("com.android.application") version "8.4.2" apply false
     id("com.android.library") version "8.4.2" apply false
+    id("com.android.test") version "8.4.2" apply false
     id("org.jetbrains.kotlin.android") version "1.9.25" apply false
     id("com.google.dagger.hilt.android") version "2.44" apply false
+    id("me.champeau.jmh") version "0.7.2" apply false
 }
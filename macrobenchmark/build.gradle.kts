@@ -0,0 +1,50 @@
+plugins {
+    id("com.android.test")
+}
+
+// Device benchmarks of the whole app, run against its "benchmark" build type:
+//  - StartupBenchmark measures cold starts, time to first frame and time to full display
+//    (the reportFullyDrawn() of DetailsFragment), with and without the baseline profile;
+//  - BaselineProfileGenerator records the profile of the start and of the way to the reviews.
+//
+// Run with: ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+// on a physical device; the generator needs Android 13+, or a rooted Android 9+.
+
+android {
+    namespace = "com.openclassrooms.tajmahal.macrobenchmark"
+    compileSdk = 34
+
+    defaultConfig {
+        minSdk = 24
+        targetSdk = 34
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    buildTypes {
+        create("benchmark") {
+            isDebuggable = true
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+        }
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_17
+        targetCompatibility = JavaVersion.VERSION_17
+    }
+
+    targetProjectPath = ":app"
+    experimentalProperties["android.experimental.self-instrumenting"] = true
+}
+
+dependencies {
+    implementation("androidx.test.ext:junit:1.1.5")
+    implementation("androidx.test.uiautomator:uiautomator:2.2.0")
+    implementation("androidx.benchmark:benchmark-macro-junit4:1.2.4")
+}
+
+androidComponents {
+    beforeVariants(selector().all()) {
+        it.enable = it.buildType == "benchmark"
+    }
+}
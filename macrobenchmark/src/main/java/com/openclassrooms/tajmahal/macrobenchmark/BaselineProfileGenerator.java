@@ -0,0 +1,38 @@
+package com.openclassrooms.tajmahal.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the baseline profile of the app: the cold start to the details screen, then the way
+ * to the reviews screen and a scroll of the reviews.
+ * <p>
+ * The recorded rules are written to the device and copied to the build outputs of this module;
+ * they replace the content of {@code app/src/main/baseline-prof.txt}.
+ * </p>
+ * Run with {@code ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.class=com.openclassrooms.tajmahal.macrobenchmark.BaselineProfileGenerator}
+ * on Android 13+, or a rooted Android 9+.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(Journeys.PACKAGE_NAME, scope -> {
+            scope.pressHome();
+            Journeys.startAndWaitForDetails(scope);
+            Journeys.openReviewsAndScroll(scope);
+            return Unit.INSTANCE;
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.tajmahal.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+/**
+ * The user journeys shared by the benchmarks and the baseline profile generator.
+ */
+final class Journeys {
+
+    static final String PACKAGE_NAME = "com.openclassrooms.tajmahal";
+
+    private static final long TIMEOUT_MS = 5_000;
+
+    private Journeys() {
+    }
+
+    /**
+     * Starts the app and waits for the details screen, the reviews stats included.
+     *
+     * @param scope the scope of the running benchmark
+     */
+    static void startAndWaitForDetails(MacrobenchmarkScope scope) {
+        scope.startActivityAndWait();
+        UiDevice device = scope.getDevice();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "addReview")), TIMEOUT_MS);
+        // The stats are loaded after the first frame, then the screen reports it is fully drawn
+        device.waitForIdle();
+    }
+
+    /**
+     * Goes from the details screen to the reviews screen, scrolls the reviews and comes back.
+     *
+     * @param scope the scope of the running benchmark
+     */
+    static void openReviewsAndScroll(MacrobenchmarkScope scope) {
+        UiDevice device = scope.getDevice();
+        device.findObject(By.res(PACKAGE_NAME, "addReview")).click();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "recyclerViewReviews")), TIMEOUT_MS);
+        UiObject2 reviews = device.findObject(By.res(PACKAGE_NAME, "recyclerViewReviews"));
+        // Keeps the gesture away from the system navigation areas
+        reviews.setGestureMargin(device.getDisplayWidth() / 5);
+        reviews.fling(Direction.DOWN);
+        device.waitForIdle();
+        device.pressBack();
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "addReview")), TIMEOUT_MS);
+    }
+}
@@ -0,0 +1,59 @@
+package com.openclassrooms.tajmahal.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Measures the cold start of the app, from the launcher to the details screen.
+ * <p>
+ * The {@link StartupTimingMetric} reports {@code timeToInitialDisplayMs}, the time to the first
+ * frame, and {@code timeToFullDisplayMs}, the time to the {@code reportFullyDrawn()} call made by
+ * {@code DetailsFragment} once the restaurant and its review stats are shown. Each start is
+ * measured without any ahead-of-time compilation, then with the baseline profile alone, the
+ * state of a fresh install from the Play Store.
+ * </p>
+ * Run with {@code ./gradlew :macrobenchmark:connectedBenchmarkAndroidTest} on a physical device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithoutCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupWithBaselineProfile() {
+        startup(new CompilationMode.Partial());
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(Journeys.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode, StartupMode.COLD, ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Journeys.startAndWaitForDetails(scope);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -16,3 +16,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "TajMahal"
 include(":app")
+include(":benchmark")
+include(":macrobenchmark")